@@ -0,0 +1,27 @@
+package administracion.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class InvalidacionAsyncConfig {
+
+    /**
+     * Hilo para avisar a los demás microservicios que cambió la empresa de un usuario, fuera del
+     * request que hizo el cambio. Si la cola se llena el aviso se descarta (las cachés vencen por TTL).
+     */
+    @Bean(name = "invalidacionExecutor")
+    public ThreadPoolTaskExecutor invalidacionExecutor(
+            @Value("${mycfo.invalidacion.hilos:1}") int hilos,
+            @Value("${mycfo.invalidacion.cola:100}") int cola) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(cola);
+        executor.setThreadNamePrefix("invalidacion-");
+        executor.initialize();
+        return executor;
+    }
+}
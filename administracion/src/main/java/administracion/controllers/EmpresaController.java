@@ -15,6 +15,8 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class EmpresaController {
 
+    private static final int MAX_USUARIOS_POR_LOTE = 1000;
+
     private final EmpresaService empresaService;
 
     @GetMapping("/{id}")
@@ -70,6 +72,22 @@ public class EmpresaController {
         }
     }
 
+    /**
+     * Empresa de varios usuarios en una sola llamada (ver obtenerEmpresaIdPorUsuario).
+     * Recibe una lista de subs y devuelve { sub: empresaId } solo para los que tienen empresa.
+     */
+    @PostMapping("/usuarios/ids")
+    public ResponseEntity<Map<String, Long>> obtenerEmpresaIdsPorUsuarios(@RequestBody List<String> subsUsuarios) {
+        if (subsUsuarios != null && subsUsuarios.size() > MAX_USUARIOS_POR_LOTE) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(empresaService.obtenerEmpresaIdsPorUsuarioSubs(subsUsuarios));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @GetMapping("/debug/usuarios")
     public ResponseEntity<Map<String, Object>> debugUsuarios() {
         try {
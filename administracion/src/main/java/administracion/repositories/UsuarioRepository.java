@@ -1,9 +1,12 @@
 package administracion.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import administracion.models.Usuario;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +20,8 @@ public interface UsuarioRepository extends JpaRepository<Usuario, String> {
     Optional<Usuario> findBySub(String sub);
     
     long countByEmpresa(administracion.models.Empresa empresa);
+
+    // [sub, empresaId] de los usuarios indicados que tienen empresa; no carga las entidades
+    @Query("SELECT u.sub, u.empresa.id FROM Usuario u WHERE u.sub IN :subs AND u.empresa IS NOT NULL")
+    List<Object[]> findEmpresaIdsBySubIn(@Param("subs") Collection<String> subs);
 }
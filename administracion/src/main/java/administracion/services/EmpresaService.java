@@ -8,7 +8,10 @@ import administracion.models.Usuario;
 import administracion.repositories.EmpresaRepository;
 import administracion.repositories.UsuarioRepository;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -95,6 +98,21 @@ public class EmpresaService {
         return usuario.getEmpresa().getId();
     }
 
+    /**
+     * Versión por lote de obtenerEmpresaIdPorUsuarioSub, en una sola consulta.
+     * Los usuarios inexistentes o sin empresa no aparecen en el resultado.
+     */
+    public Map<String, Long> obtenerEmpresaIdsPorUsuarioSubs(Collection<String> subs) {
+        Map<String, Long> resultado = new HashMap<>();
+        if (subs == null || subs.isEmpty()) {
+            return resultado;
+        }
+        for (Object[] fila : usuarioRepository.findEmpresaIdsBySubIn(subs)) {
+            resultado.put((String) fila[0], (Long) fila[1]);
+        }
+        return resultado;
+    }
+
     /**
      * Obtiene solo el nombre de empresa del usuario por su sub
      * Optimizado para llamadas rápidas desde otros microservicios
@@ -0,0 +1,91 @@
+package administracion.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+
+/**
+ * Avisa a registro, pronóstico y notificación que cambió la empresa de un usuario, para que
+ * descarten el sub → empresaId que tienen en caché. Dentro de una transacción el aviso se difiere
+ * al commit, así ningún servicio vuelve a leer la empresa anterior. Es best-effort: si un servicio
+ * no responde, su caché se corrige sola al vencer el TTL.
+ */
+@Service
+@Slf4j
+public class InvalidacionEmpresaUsuarioService {
+
+    private static final String RUTA_INVALIDAR = "/internal/empresa-usuario/invalidar";
+    private static final String HEADER_TOKEN = "X-Internal-Token";
+
+    private final RestTemplate restTemplate;
+    private final ThreadPoolTaskExecutor executor;
+    private final List<String> serviciosUrls;
+    private final String tokenInterno;
+
+    public InvalidacionEmpresaUsuarioService(
+            @Qualifier("invalidacionExecutor") ThreadPoolTaskExecutor executor,
+            @Value("${mycfo.registro.url}") String registroUrl,
+            @Value("${mycfo.pronostico.url}") String pronosticoUrl,
+            @Value("${mycfo.notificacion.url}") String notificacionUrl,
+            @Value("${mycfo.invalidacion.timeout-ms:2000}") int timeoutMs,
+            @Value("${mycfo.internal.token:}") String tokenInterno) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMs);
+        requestFactory.setReadTimeout(timeoutMs);
+        this.restTemplate = new RestTemplate(requestFactory);
+        this.executor = executor;
+        this.serviciosUrls = List.of(registroUrl, pronosticoUrl, notificacionUrl);
+        this.tokenInterno = tokenInterno;
+        if (tokenInterno == null || tokenInterno.isBlank()) {
+            log.warn("mycfo.internal.token no está configurado: los servicios rechazarán las invalidaciones");
+        }
+    }
+
+    public void empresaCambiada(String usuarioSub) {
+        if (usuarioSub == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enviar(usuarioSub);
+                }
+            });
+        } else {
+            enviar(usuarioSub);
+        }
+    }
+
+    private void enviar(String usuarioSub) {
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set(HEADER_TOKEN, tokenInterno);
+            HttpEntity<List<String>> aviso = new HttpEntity<>(List.of(usuarioSub), headers);
+            executor.execute(() -> {
+                for (String url : serviciosUrls) {
+                    try {
+                        restTemplate.postForLocation(url + RUTA_INVALIDAR, aviso);
+                    } catch (Exception e) {
+                        log.warn("No se pudo invalidar la empresa del usuario {} en {}: {}", usuarioSub, url, e.getMessage());
+                    }
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.warn("Cola de invalidaciones llena, se descarta el aviso para el usuario {}", usuarioSub);
+        }
+    }
+}
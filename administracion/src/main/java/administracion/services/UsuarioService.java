@@ -12,6 +12,7 @@ import administracion.repositories.EmpresaRepository;
 import administracion.repositories.UsuarioRepository;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,6 +22,7 @@ public class UsuarioService {
     private final UsuarioRepository usuarioRepository;
     private final EmpresaRepository empresaRepository;
     private final CognitoService cognitoService;
+    private final InvalidacionEmpresaUsuarioService invalidacionEmpresaUsuarioService;
 
     public UsuarioDTO obtenerUsuarioPorSub(String sub) {
         Usuario usuario = usuarioRepository.findBySub(sub)
@@ -59,6 +61,7 @@ public class UsuarioService {
     public UsuarioDTO crearOActualizarUsuario(UsuarioDTO usuarioDTO) {
         Usuario usuario = usuarioRepository.findBySub(usuarioDTO.getSub())
                 .orElse(new Usuario());
+        Long empresaAnterior = empresaIdDe(usuario);
         
         usuario.setSub(usuarioDTO.getSub());
         usuario.setNombre(usuarioDTO.getNombre());
@@ -82,6 +85,7 @@ public class UsuarioService {
         }
 
         Usuario guardado = usuarioRepository.save(usuario);
+        notificarSiCambioEmpresa(guardado, empresaAnterior);
         return convertirADTO(guardado);
     }
 
@@ -89,6 +93,7 @@ public class UsuarioService {
     public UsuarioDTO actualizarPerfil(String sub, ActualizarUsuarioDTO dto) {
         Usuario usuario = usuarioRepository.findBySub(sub)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+        Long empresaAnterior = empresaIdDe(usuario);
 
         usuario.setNombre(dto.getNombre());
         usuario.setEmail(dto.getEmail());
@@ -101,6 +106,7 @@ public class UsuarioService {
         }
 
         Usuario actualizado = usuarioRepository.save(usuario);
+        notificarSiCambioEmpresa(actualizado, empresaAnterior);
         cognitoService.actualizarUsuarioEnCognito(sub, dto.getNombre(), dto.getEmail(), dto.getTelefono());
 
         return convertirADTO(actualizado);
@@ -110,6 +116,7 @@ public class UsuarioService {
     public UsuarioDTO actualizarEmpleado(String subEmpleado, ActualizarUsuarioDTO dto, String subUsuarioActual) {
         Usuario usuario = usuarioRepository.findBySub(subEmpleado)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+        Long empresaAnterior = empresaIdDe(usuario);
 
         // Verificar que el usuario actual es administrador
         Usuario usuarioActual = usuarioRepository.findBySub(subUsuarioActual)
@@ -144,6 +151,7 @@ public class UsuarioService {
         }
 
         Usuario actualizado = usuarioRepository.save(usuario);
+        notificarSiCambioEmpresa(actualizado, empresaAnterior);
         cognitoService.actualizarUsuarioEnCognito(subEmpleado, dto.getNombre(), dto.getEmail(), dto.getTelefono());
 
         return convertirADTO(actualizado);
@@ -168,6 +176,7 @@ public class UsuarioService {
         }
 
         usuarioRepository.delete(usuario);
+        invalidacionEmpresaUsuarioService.empresaCambiada(subEmpleado);
         cognitoService.eliminarUsuarioEnCognito(subEmpleado);
     }
 
@@ -216,6 +225,17 @@ public class UsuarioService {
         return convertirADTO(actualizado);
     }
 
+    private static Long empresaIdDe(Usuario usuario) {
+        return usuario.getEmpresa() != null ? usuario.getEmpresa().getId() : null;
+    }
+
+    // Los demás microservicios cachean sub → empresaId; se les avisa al confirmar la transacción
+    private void notificarSiCambioEmpresa(Usuario usuario, Long empresaAnterior) {
+        if (!Objects.equals(empresaAnterior, empresaIdDe(usuario))) {
+            invalidacionEmpresaUsuarioService.empresaCambiada(usuario.getSub());
+        }
+    }
+
     private UsuarioDTO convertirADTO(Usuario usuario) {
         UsuarioDTO dto = new UsuarioDTO();
         dto.setSub(usuario.getSub());
@@ -1,9 +1,9 @@
 import { useEffect, useState, useCallback } from "react";
 import { getNotifications, markAsRead } from "../services/notificationsApi";
+import { subscribeToNotificationStream } from "../services/notificationStream";
 
 // Hook de uso general para el "centro de notificaciones"
-// - NO hace polling
-// - Carga solo cuando el componente se monta (o cuando cambia userId)
+// - NO hace polling: carga al montar (o cuando cambia userId) y después se actualiza por el canal SSE
 // - Solo trae notificaciones NO leídas (status="unread")
 export function useNotifications(userId) {
   const [items, setItems] = useState([]);
@@ -40,7 +40,7 @@ export function useNotifications(userId) {
     }
   }, [userId]);
 
-  // Polling cada 10s igual que la solapa (drawer)
+  // Carga inicial + actualizaciones en vivo (mismo canal que la solapa)
   useEffect(() => {
     if (!userId) {
       setItems([]);
@@ -48,21 +48,20 @@ export function useNotifications(userId) {
       return;
     }
 
-    let cancelled = false;
+    fetchNotifications();
 
-    const loop = async () => {
-      await fetchNotifications();
-      if (!cancelled) {
-        setTimeout(loop, 10000); // 10 segundos
-      }
-    };
-
-    // Primera carga inmediata + inicio del loop
-    loop();
+    const unsubscribe = subscribeToNotificationStream(userId, {
+      onNotification: (notification) => {
+        if (notification.is_read) return;
+        setItems((prev) =>
+          prev.some((n) => n.id === notification.id) ? prev : [notification, ...prev]
+        );
+      },
+      onUnreadCount: (count) => setUnread(count),
+      onReconnect: fetchNotifications,
+    });
 
-    return () => {
-      cancelled = true;
-    };
+    return unsubscribe;
   }, [fetchNotifications, userId]);
 
   // Sincronizar cuando la solapa marque como leída (evento global)
@@ -13,6 +13,7 @@ import {
   markAsRead,
   markAllRead,
 } from "../services/notificationsApi";
+import { subscribeToNotificationStream } from "../services/notificationStream";
 
 export default function NotificationButton(props) {
   const [openDrawer, setOpenDrawer] = React.useState(false);
@@ -27,7 +28,7 @@ export default function NotificationButton(props) {
   const [drawerLoading, setDrawerLoading] = React.useState(false);
   const [drawerError, setDrawerError] = React.useState(null);
 
-  // Polling cada 10s de las notificaciones NO leídas
+  // Carga inicial de las notificaciones NO leídas; después se actualiza por el canal SSE
   React.useEffect(() => {
     if (!isAuthenticated || !userId) {
       setUnread(0);
@@ -66,7 +67,7 @@ export default function NotificationButton(props) {
             return;
           }
 
-          console.error("Error en polling de notificaciones:", err);
+          console.error("Error obteniendo notificaciones:", err);
           setDrawerError(err);
         }
       } finally {
@@ -79,11 +80,21 @@ export default function NotificationButton(props) {
     // Primera carga inmediata
     fetchNotifications();
 
-    const intervalId = setInterval(fetchNotifications, 10000); // 10 segundos
+    const unsubscribe = subscribeToNotificationStream(userId, {
+      onNotification: (notification) => {
+        if (notification.is_read) return;
+        setDrawerItems((prev) =>
+          prev.some((n) => n.id === notification.id) ? prev : [notification, ...prev]
+        );
+      },
+      onUnreadCount: (count) => setUnread(count),
+      // Al reconectar se recarga por si se perdieron eventos mientras estuvo cortado
+      onReconnect: fetchNotifications,
+    });
 
     return () => {
       cancelled = true;
-      clearInterval(intervalId);
+      unsubscribe();
     };
   }, [isAuthenticated, userId]);
 
@@ -0,0 +1,151 @@
+// Canal SSE de notificaciones en vivo (GET /users/{userId}/notifications/stream)
+// - Se usa fetch y no EventSource porque EventSource no permite enviar Authorization ni X-Usuario-Sub
+// - Una sola conexión por usuario, compartida por todos los componentes suscriptos
+// - Si se corta, reconecta con backoff exponencial y avisa con onReconnect para recargar el listado
+import API_CONFIG from "../../config/api-config";
+
+const GATEWAY_URL = API_CONFIG.NOTIFICACION;
+const BASE_URL = GATEWAY_URL.endsWith("/api") ? GATEWAY_URL : `${GATEWAY_URL}/api`;
+
+const MAX_RECONNECT_DELAY = 60000;
+
+const listeners = new Set();
+let currentUserId = null;
+let controller = null;
+let reconnectTimer = null;
+let reconnectAttempts = 0;
+
+function buildHeaders() {
+  const headers = { Accept: "text/event-stream" };
+  const accessToken = sessionStorage.getItem("accessToken");
+  if (accessToken) {
+    headers.Authorization = `Bearer ${accessToken}`;
+  }
+  const usuarioSub = sessionStorage.getItem("sub");
+  if (usuarioSub) {
+    headers["X-Usuario-Sub"] = usuarioSub;
+  }
+  return headers;
+}
+
+function dispatch(eventName, rawData) {
+  let data;
+  try {
+    data = JSON.parse(rawData);
+  } catch (error) {
+    console.error("Evento de notificaciones inválido:", error);
+    return;
+  }
+  listeners.forEach((listener) => {
+    if (eventName === "notification" && listener.onNotification) {
+      listener.onNotification(data);
+    } else if (eventName === "unread-count" && listener.onUnreadCount) {
+      listener.onUnreadCount(data.unread);
+    }
+  });
+}
+
+// Parsea un bloque SSE ("event: x\ndata: y") ya separado por línea en blanco
+function handleBlock(block) {
+  let eventName = "message";
+  const dataLines = [];
+  block.split("\n").forEach((line) => {
+    if (line.startsWith(":")) return; // comentario (heartbeat)
+    if (line.startsWith("event:")) {
+      eventName = line.slice(6).trim();
+    } else if (line.startsWith("data:")) {
+      dataLines.push(line.slice(5).replace(/^ /, ""));
+    }
+  });
+  if (dataLines.length > 0) {
+    dispatch(eventName, dataLines.join("\n"));
+  }
+}
+
+async function connect(userId, isReconnect) {
+  controller = new AbortController();
+  const { signal } = controller;
+
+  try {
+    const response = await fetch(`${BASE_URL}/users/${userId}/notifications/stream`, {
+      headers: buildHeaders(),
+      signal,
+    });
+    if (!response.ok || !response.body) {
+      throw new Error(`Respuesta ${response.status} del canal de notificaciones`);
+    }
+
+    reconnectAttempts = 0;
+    if (isReconnect) {
+      listeners.forEach((listener) => listener.onReconnect && listener.onReconnect());
+    }
+
+    const reader = response.body.getReader();
+    const decoder = new TextDecoder();
+    let buffer = "";
+    while (true) {
+      const { value, done } = await reader.read();
+      if (done) break;
+      buffer += decoder.decode(value, { stream: true }).replace(/\r\n?/g, "\n");
+      let separator = buffer.indexOf("\n\n");
+      while (separator !== -1) {
+        handleBlock(buffer.slice(0, separator));
+        buffer = buffer.slice(separator + 2);
+        separator = buffer.indexOf("\n\n");
+      }
+    }
+  } catch (error) {
+    if (signal.aborted) return;
+    console.warn("Canal de notificaciones interrumpido:", error.message);
+  }
+
+  if (!signal.aborted) {
+    scheduleReconnect(userId);
+  }
+}
+
+function scheduleReconnect(userId) {
+  const delay = Math.min(1000 * Math.pow(2, reconnectAttempts), MAX_RECONNECT_DELAY);
+  reconnectAttempts++;
+  reconnectTimer = setTimeout(() => {
+    reconnectTimer = null;
+    if (currentUserId === userId && listeners.size > 0) {
+      connect(userId, true);
+    }
+  }, delay);
+}
+
+function disconnect() {
+  if (controller) {
+    controller.abort();
+    controller = null;
+  }
+  if (reconnectTimer) {
+    clearTimeout(reconnectTimer);
+    reconnectTimer = null;
+  }
+  currentUserId = null;
+  reconnectAttempts = 0;
+}
+
+/**
+ * Suscribe handlers al canal del usuario: { onNotification, onUnreadCount, onReconnect }.
+ * Devuelve la función para desuscribirse; la conexión se cierra con el último suscriptor.
+ */
+export function subscribeToNotificationStream(userId, handlers) {
+  const listener = { ...handlers };
+  listeners.add(listener);
+
+  if (currentUserId !== userId) {
+    disconnect();
+    currentUserId = userId;
+    connect(userId, false);
+  }
+
+  return () => {
+    listeners.delete(listener);
+    if (listeners.size === 0) {
+      disconnect();
+    }
+  };
+}
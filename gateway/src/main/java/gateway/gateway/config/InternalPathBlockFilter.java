@@ -0,0 +1,50 @@
+package gateway.gateway.config;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+
+/**
+ * Filtro global que corta las rutas /internal/** (por ejemplo /registro/internal/...): son
+ * endpoints de servicio a servicio que no deben quedar expuestos a través del gateway.
+ */
+@Component
+public class InternalPathBlockFilter implements GlobalFilter, Ordered {
+
+    private static final String SEGMENTO_INTERNO = "internal";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        // Path decodificado, para que %2F o mayúsculas no salteen el control
+        String path = exchange.getRequest().getURI().getPath();
+        if (path != null && esInterno(path)) {
+            exchange.getResponse().setStatusCode(HttpStatus.NOT_FOUND);
+            return exchange.getResponse().setComplete();
+        }
+        return chain.filter(exchange);
+    }
+
+    private boolean esInterno(String path) {
+        for (String segmento : path.toLowerCase(Locale.ROOT).split("/")) {
+            // Descarta parámetros de matriz (";x=y") que Spring ignora al mapear
+            int puntoYComa = segmento.indexOf(';');
+            String nombre = puntoYComa >= 0 ? segmento.substring(0, puntoYComa) : segmento;
+            if (SEGMENTO_INTERNO.equals(nombre.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int getOrder() {
+        // Antes que cualquier otro filtro global
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
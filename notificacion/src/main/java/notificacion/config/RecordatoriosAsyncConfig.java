@@ -0,0 +1,27 @@
+package notificacion.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class RecordatoriosAsyncConfig {
+
+    /**
+     * Hilos que disparan los recordatorios vencidos (notificación + email), fuera del hilo de la
+     * rueda de tiempo. Si la cola se llena, la rueda reintenta el disparo un segundo después.
+     */
+    @Bean(name = "recordatoriosExecutor")
+    public ThreadPoolTaskExecutor recordatoriosExecutor(
+            @Value("${notifications.recordatorios.hilos:2}") int hilos,
+            @Value("${notifications.recordatorios.cola:1000}") int cola) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(cola);
+        executor.setThreadNamePrefix("recordatorios-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -6,6 +6,8 @@ import notificacion.services.EventService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/events")
 public class EventController {
@@ -22,6 +24,24 @@ public class EventController {
         return ResponseEntity.accepted().build(); // 202
     }
 
+    /**
+     * Lote de movimientos (outbox de registro). Responde qué eventos no se pudieron procesar para
+     * que el emisor solo reintente esos.
+     */
+    @PostMapping("/movements/batch")
+    public ResponseEntity<MovementBatchResult> onMovements(@RequestBody List<MovementCreatedEvent> evts) {
+        return ResponseEntity.ok(eventService.handleMovementsCreated(evts));
+    }
+
+    /**
+     * Lote mixto de movimientos, presupuestos excedidos y reportes: pensado para importaciones
+     * masivas, donde un evento por request satura la base de notificaciones.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<EventBatchResult> onBatch(@RequestBody EventBatchRequest lote) {
+        return ResponseEntity.ok(eventService.handleEventBatch(lote));
+    }
+
     @PostMapping("/budget-created")
     public ResponseEntity<Void> onBudgetCreated(@RequestBody @Valid BudgetCreatedEvent evt) {
         eventService.handleBudgetCreated(evt);
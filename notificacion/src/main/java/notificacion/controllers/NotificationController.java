@@ -7,8 +7,11 @@ import notificacion.models.NotificationType;
 import notificacion.models.Severity;
 import notificacion.services.AdministracionService;
 import notificacion.services.NotificationService;
+import notificacion.services.NotificationStreamService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/users/{userId}/notifications")
@@ -16,11 +19,14 @@ public class NotificationController {
 
     private final NotificationService service;
     private final AdministracionService administracionService;
+    private final NotificationStreamService streamService;
 
     public NotificationController(NotificationService service,
-                                  AdministracionService administracionService) {
+                                  AdministracionService administracionService,
+                                  NotificationStreamService streamService) {
         this.service = service;
         this.administracionService = administracionService;
+        this.streamService = streamService;
     }
     @GetMapping
     public ResponseEntity<NotificationListResponse> list(
@@ -44,6 +50,19 @@ public class NotificationController {
         return ResponseEntity.ok(java.util.Map.of("unread", service.unreadCount(empresaId, usuarioSub)));
     }
 
+    /**
+     * Canal SSE con las notificaciones nuevas ("notification") y el contador de no leídas
+     * ("unread-count"); reemplaza el polling de unreadCount y del listado.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+            @PathVariable String userId,
+            @RequestHeader("X-Usuario-Sub") String usuarioSub
+    ) {
+        Long empresaId = administracionService.obtenerEmpresaIdPorUsuarioSub(usuarioSub);
+        return streamService.suscribir(empresaId, usuarioSub);
+    }
+
     @PatchMapping("/{notifId}")
     public ResponseEntity<?> markRead(
             @PathVariable String userId,
@@ -0,0 +1,13 @@
+package notificacion.dtos;
+
+import java.util.List;
+
+/**
+ * Lote mixto de eventos que generan notificaciones para toda la empresa. Cualquiera de las listas
+ * puede venir vacía o null.
+ */
+public record EventBatchRequest(
+        List<MovementCreatedEvent> movements,
+        List<BudgetExceededEvent> budgetsExceeded,
+        List<ReportGeneratedEvent> reports
+) {}
@@ -0,0 +1,10 @@
+package notificacion.dtos;
+
+import java.util.List;
+
+public record EventBatchResult(
+        int received,
+        int processed,
+        int created,                // notificaciones nuevas (sin contar las deduplicadas)
+        List<String> failedRefIds   // refId del movimiento, o resourceId del presupuesto/reporte
+) {}
@@ -0,0 +1,9 @@
+package notificacion.dtos;
+
+import java.util.List;
+
+public record MovementBatchResult(
+        int received,
+        int processed,
+        List<String> failedRefIds   // el emisor los reintenta; el resto se da por entregado
+) {}
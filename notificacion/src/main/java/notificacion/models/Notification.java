@@ -9,7 +9,8 @@ import java.time.Instant;
 @Entity
 @Table(name = "notifications", indexes = {
         @Index(name = "idx_notif_org_user_read", columnList = "organizacion_id,usuario_id,is_read"),
-        @Index(name = "idx_notif_org_user_created", columnList = "organizacion_id,usuario_id,created_at")
+        @Index(name = "idx_notif_org_user_created", columnList = "organizacion_id,usuario_id,created_at"),
+        @Index(name = "idx_notif_org_resource", columnList = "organizacion_id,resource_id,created_at")
 })
 public class Notification {
 
@@ -1,24 +1,31 @@
 package notificacion.repositories;
 
+import jakarta.persistence.LockModeType;
 import notificacion.models.CustomReminder;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 @Repository
 public interface CustomReminderRepository extends JpaRepository<CustomReminder, Long> {
     
     List<CustomReminder> findByOrganizacionIdAndUsuarioIdAndIsActiveTrueOrderByScheduledForAsc(Long organizacionId, String usuarioId);
     
-    @Query("SELECT r FROM CustomReminder r WHERE r.isActive = true AND r.isRecurring = false AND r.scheduledFor <= :now ORDER BY r.scheduledFor ASC")
-    List<CustomReminder> findDueReminders(@Param("now") Instant now);
-    
-    @Query("SELECT r FROM CustomReminder r WHERE r.isActive = true AND r.isRecurring = true AND r.nextTrigger <= :now ORDER BY r.nextTrigger ASC")
-    List<CustomReminder> findRecurringReminders(@Param("now") Instant now);
-    
+    // Activos cuyo próximo disparo es anterior a `hasta` (carga de ProgramadorRecordatorios)
+    @Query("SELECT r FROM CustomReminder r WHERE r.isActive = true AND " +
+           "((r.isRecurring = false AND r.scheduledFor <= :hasta) OR (r.isRecurring = true AND r.nextTrigger <= :hasta))")
+    List<CustomReminder> findPendientesHasta(@Param("hasta") Instant hasta);
+
+    // SELECT ... FOR UPDATE: con varias instancias, solo una dispara cada recordatorio
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM CustomReminder r WHERE r.id = :id")
+    Optional<CustomReminder> findByIdParaDisparar(@Param("id") Long id);
+
     List<CustomReminder> findByOrganizacionIdAndUsuarioIdAndIsActiveTrue(Long organizacionId, String usuarioId);
     
     void deleteByOrganizacionIdAndUsuarioIdAndIsActiveFalse(Long organizacionId, String usuarioId);
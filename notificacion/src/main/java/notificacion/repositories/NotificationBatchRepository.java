@@ -0,0 +1,98 @@
+package notificacion.repositories;
+
+import notificacion.models.Notification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Inserción masiva de notificaciones por JDBC. Notification usa IDENTITY, lo que impide que
+ * Hibernate agrupe los INSERT; acá se envían en lotes (con rewriteBatchedStatements el driver los
+ * convierte en un INSERT multi-fila) y se recuperan los ids generados, que el canal en vivo
+ * necesita para que el frontend pueda marcarlas como leídas.
+ */
+@Repository
+public class NotificationBatchRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO notifications (usuario_id, organizacion_id, type, title, body, severity,
+                                       resource_type, resource_id, action_url, is_read, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int tamanioLote;
+
+    // Misma zona que usa Hibernate para leer y escribir created_at (hibernate.jdbc.time_zone)
+    private final TimeZone zonaJdbc;
+
+    public NotificationBatchRepository(
+            JdbcTemplate jdbcTemplate,
+            @Value("${notifications.batch.tamanio-insercion:500}") int tamanioLote,
+            @Value("${spring.jpa.properties.hibernate.jdbc.time_zone:UTC}") String zonaJdbc) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tamanioLote = Math.max(1, tamanioLote);
+        this.zonaJdbc = TimeZone.getTimeZone(zonaJdbc);
+    }
+
+    /**
+     * Inserta las notificaciones en lotes de notifications.batch.tamanio-insercion y les asigna el
+     * id generado. Debe ejecutarse dentro de una transacción para que el lote completo se confirme
+     * o se descarte.
+     */
+    public void insertar(List<Notification> notificaciones) {
+        for (int desde = 0; desde < notificaciones.size(); desde += tamanioLote) {
+            List<Notification> lote = notificaciones.subList(desde, Math.min(desde + tamanioLote, notificaciones.size()));
+            KeyHolder ids = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(
+                    con -> con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int fila) throws SQLException {
+                            asignarParametros(ps, lote.get(fila));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return lote.size();
+                        }
+                    },
+                    ids);
+
+            List<Map<String, Object>> claves = ids.getKeyList();
+            for (int i = 0; i < lote.size() && i < claves.size(); i++) {
+                Object id = claves.get(i).values().iterator().next();
+                lote.get(i).setId(((Number) id).longValue());
+            }
+        }
+    }
+
+    private void asignarParametros(PreparedStatement ps, Notification n) throws SQLException {
+        int i = 1;
+        ps.setString(i++, n.getUsuarioId());
+        ps.setLong(i++, n.getOrganizacionId());
+        ps.setString(i++, n.getType().name());
+        ps.setString(i++, n.getTitle());
+        ps.setObject(i++, n.getBody(), Types.VARCHAR);
+        ps.setString(i++, n.getSeverity().name());
+        ps.setObject(i++, n.getResourceType() != null ? n.getResourceType().name() : null, Types.VARCHAR);
+        ps.setObject(i++, n.getResourceId(), Types.VARCHAR);
+        ps.setObject(i++, n.getActionUrl(), Types.VARCHAR);
+        ps.setBoolean(i++, n.isRead());
+        // Calendar nuevo por fila: setTimestamp lo modifica
+        ps.setTimestamp(i, Timestamp.from(n.getCreatedAt()), Calendar.getInstance(zonaJdbc));
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
@@ -22,6 +23,14 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
         String getUsuarioId();
     }
 
+    interface ClaveNotificacion {
+        Long getOrganizacionId();
+        String getUsuarioId();
+        NotificationType getType();
+        String getResourceId();
+        Instant getCreatedAt();
+    }
+
     Page<Notification> findByOrganizacionIdAndUsuarioIdOrderByCreatedAtDesc(Long organizacionId, String usuarioId, Pageable pageable);
 
     Page<Notification> findByOrganizacionIdAndUsuarioIdAndIsReadFalseOrderByCreatedAtDesc(Long organizacionId, String usuarioId, Pageable pageable);
@@ -32,6 +41,19 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
 
     int countByOrganizacionIdAndUsuarioIdAndIsReadFalse(Long organizacionId, String usuarioId);
 
+    interface ConteoNoLeidas {
+        String getUsuarioId();
+        Long getTotal();
+    }
+
+    // Los usuarios sin notificaciones no leídas no aparecen en el resultado
+    @Query("SELECT n.usuarioId AS usuarioId, COUNT(n) AS total " +
+           "FROM Notification n " +
+           "WHERE n.organizacionId = :organizacionId AND n.usuarioId IN :usuarioIds AND n.isRead = false " +
+           "GROUP BY n.usuarioId")
+    List<ConteoNoLeidas> countNoLeidasPorUsuario(@Param("organizacionId") Long organizacionId,
+                                                 @Param("usuarioIds") Collection<String> usuarioIds);
+
     boolean existsByOrganizacionIdAndUsuarioIdAndTypeAndResourceIdAndCreatedAtBetween(
             Long organizacionId,
             String usuarioId,
@@ -41,6 +63,21 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
             Instant to
     );
 
+    /**
+     * Notificaciones ya creadas para cualquiera de los recursos indicados en el rango: es la
+     * deduplicación por lote de EventService (una consulta en vez de un exists por notificación).
+     */
+    @Query("SELECT n.organizacionId AS organizacionId, n.usuarioId AS usuarioId, n.type AS type, " +
+           "n.resourceId AS resourceId, n.createdAt AS createdAt " +
+           "FROM Notification n " +
+           "WHERE n.organizacionId IN :organizacionIds AND n.resourceId IN :resourceIds " +
+           "AND n.type IN :types AND n.createdAt >= :desde AND n.createdAt < :hasta")
+    List<ClaveNotificacion> findClavesExistentes(@Param("organizacionIds") Collection<Long> organizacionIds,
+                                                 @Param("resourceIds") Collection<String> resourceIds,
+                                                 @Param("types") Collection<NotificationType> types,
+                                                 @Param("desde") Instant desde,
+                                                 @Param("hasta") Instant hasta);
+
     @Query("SELECT DISTINCT n.organizacionId AS organizacionId, n.usuarioId AS usuarioId " +
            "FROM Notification n " +
            "WHERE n.createdAt BETWEEN :start AND :end")
@@ -18,23 +18,34 @@ public class AdministracionService {
 
     private final RestTemplate restTemplate = new RestTemplate();
 
+    private final EmpresaUsuarioCache empresaUsuarioCache;
+
+    private final MiembrosEmpresaCache miembrosEmpresaCache;
+
     @Value("${mycfo.administracion.url}")
     private String administracionUrl;
 
+    /**
+     * Empresa del usuario, cacheada por EmpresaUsuarioCache: solo la primera llamada por usuario
+     * (o la primera después de vencer el TTL) consulta a administración.
+     */
     public Long obtenerEmpresaIdPorUsuarioSub(String usuarioSub) {
+        Long empresaId = empresaUsuarioCache.obtener(usuarioSub, this::consultarEmpresaId);
+        if (empresaId == null) {
+            throw new RuntimeException("Usuario no encontrado o sin empresa asociada: " + usuarioSub);
+        }
+        return empresaId;
+    }
+
+    // null si el usuario no existe o no tiene empresa; excepción si falló la comunicación
+    private Long consultarEmpresaId(String usuarioSub) {
         try {
             String url = administracionUrl + "/api/empresas/usuario/" + usuarioSub + "/id";
             log.info("Consultando administración para obtener empresa del usuario {}", usuarioSub);
-            Long empresaId = restTemplate.getForObject(url, Long.class);
-
-            if (empresaId == null) {
-                throw new RuntimeException("El usuario no tiene empresa asociada");
-            }
-
-            return empresaId;
+            return restTemplate.getForObject(url, Long.class);
         } catch (HttpClientErrorException.NotFound e) {
             log.error("Usuario {} no encontrado en administración", usuarioSub);
-            throw new RuntimeException("Usuario no encontrado o sin empresa asociada: " + usuarioSub);
+            return null;
         } catch (Exception e) {
             log.error("Error obteniendo empresa para {}: {}", usuarioSub, e.getMessage());
             throw new RuntimeException("Error al comunicarse con administración", e);
@@ -61,6 +72,18 @@ public class AdministracionService {
         }
     }
 
+    /**
+     * Subs de los usuarios de la empresa, cacheados por MiembrosEmpresaCache. Es lo que usan los
+     * eventos para notificar a toda la empresa.
+     */
+    public List<String> obtenerSubsPorEmpresaId(Long empresaId) {
+        return miembrosEmpresaCache.obtener(empresaId, id -> obtenerUsuariosPorEmpresaId(id).stream()
+                .map(UsuarioAdministracionDTO::getSub)
+                .filter(sub -> sub != null && !sub.isBlank())
+                .distinct()
+                .toList());
+    }
+
     public List<UsuarioAdministracionDTO> obtenerUsuariosPorEmpresaId(Long empresaId) {
         try {
             String url = administracionUrl + "/api/usuarios/empresa/" + empresaId;
@@ -1,11 +1,7 @@
 package notificacion.services;
 
 import notificacion.models.CustomReminder;
-import notificacion.models.Notification;
-import notificacion.models.NotificationType;
-import notificacion.models.Severity;
 import notificacion.repositories.CustomReminderRepository;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,15 +12,12 @@ import java.util.List;
 public class CustomReminderService {
 
     private final CustomReminderRepository reminderRepository;
-    private final NotificationService notificationService;
-    private final EmailNotificationService emailService;
+    private final ProgramadorRecordatorios programador;
 
     public CustomReminderService(CustomReminderRepository reminderRepository,
-                                 NotificationService notificationService,
-                                 EmailNotificationService emailService) {
+                                 ProgramadorRecordatorios programador) {
         this.reminderRepository = reminderRepository;
-        this.notificationService = notificationService;
-        this.emailService = emailService;
+        this.programador = programador;
     }
 
     @Transactional
@@ -49,7 +42,9 @@ public class CustomReminderService {
             reminder.initializeNextTrigger();
         }
 
-        return reminderRepository.save(reminder);
+        CustomReminder saved = reminderRepository.save(reminder);
+        programador.programar(saved);
+        return saved;
     }
 
     @Transactional(readOnly = true)
@@ -64,6 +59,7 @@ public class CustomReminderService {
         enforceTenant(reminder, organizacionId, usuarioId);
         reminder.setActive(false);
         reminderRepository.save(reminder);
+        programador.programar(reminder);
     }
 
     @Transactional
@@ -93,6 +89,7 @@ public class CustomReminderService {
         }
 
         reminderRepository.save(reminder);
+        programador.programar(reminder);
     }
 
     @Transactional(readOnly = true)
@@ -103,51 +100,6 @@ public class CustomReminderService {
         return reminder;
     }
 
-    // Ejecutar cada minuto para verificar recordatorios pendientes
-    @Scheduled(fixedRate = 60000)
-    @Transactional
-    public void processDueReminders() {
-        Instant now = Instant.now();
-
-        List<CustomReminder> dueReminders = reminderRepository.findDueReminders(now);
-        for (CustomReminder reminder : dueReminders) {
-            createNotificationFromReminder(reminder);
-            reminder.setActive(false);
-            reminderRepository.save(reminder);
-        }
-
-        List<CustomReminder> recurringReminders = reminderRepository.findRecurringReminders(now);
-        for (CustomReminder reminder : recurringReminders) {
-            createNotificationFromReminder(reminder);
-            reminder.markAsTriggered();
-            if (reminder.getNextTrigger() == null) {
-                reminder.setActive(false);
-            }
-            reminderRepository.save(reminder);
-        }
-    }
-
-    private void createNotificationFromReminder(CustomReminder reminder) {
-        Notification notification = new Notification();
-        notification.setOrganizacionId(reminder.getOrganizacionId());
-        notification.setUsuarioId(reminder.getUsuarioId());
-        notification.setType(NotificationType.REMINDER_CUSTOM);
-        notification.setTitle(reminder.getTitle());
-        notification.setBody(reminder.getMessage());
-        notification.setSeverity(Severity.INFO);
-        notification.setResourceType(notificacion.models.ResourceType.SYSTEM);
-        notification.setResourceId("reminder_" + reminder.getId());
-        notification.setCreatedAt(Instant.now());
-
-        notificationService.create(notification);
-
-        try {
-            emailService.sendReminderEmail(reminder.getOrganizacionId(), reminder.getUsuarioId(), reminder);
-        } catch (Exception e) {
-            System.err.println("Error enviando email de recordatorio: " + e.getMessage());
-        }
-    }
-
     private void enforceTenant(CustomReminder reminder, Long organizacionId, String usuarioId) {
         if (!reminder.getOrganizacionId().equals(organizacionId) ||
             !reminder.getUsuarioId().equals(usuarioId)) {
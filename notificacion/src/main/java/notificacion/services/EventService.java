@@ -1,27 +1,49 @@
 package notificacion.services;
 
+import lombok.extern.slf4j.Slf4j;
 import notificacion.dtos.*;
 import notificacion.models.Notification;
 import notificacion.models.NotificationType;
 import notificacion.models.ResourceType;
 import notificacion.models.Severity;
+import notificacion.repositories.NotificationBatchRepository;
 import notificacion.repositories.NotificationRepository;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
+@Slf4j
 public class EventService {
 
+    // Resource IDs por consulta de deduplicación (cantidad de parámetros del IN)
+    private static final int RECURSOS_POR_CONSULTA = 500;
+
     private final NotificationRepository repo;
+    private final NotificationBatchRepository batchRepo;
     private final NotificationService notificationService;
+    private final NotificationStreamService streamService;
     private final AdministracionService administracionService;
+    private final TransactionTemplate transaccion;
 
     @Value("${notifications.default-user-id:demo-user}")
     private String defaultUsuarioId;
@@ -30,33 +52,166 @@ public class EventService {
     private BigDecimal highThreshold;
 
     public EventService(NotificationRepository repo,
+                        NotificationBatchRepository batchRepo,
                         NotificationService notificationService,
-                        AdministracionService administracionService) {
+                        NotificationStreamService streamService,
+                        AdministracionService administracionService,
+                        PlatformTransactionManager transactionManager) {
         this.repo = repo;
+        this.batchRepo = batchRepo;
         this.notificationService = notificationService;
+        this.streamService = streamService;
         this.administracionService = administracionService;
+        this.transaccion = new TransactionTemplate(transactionManager);
     }
 
-    @Transactional
-    public void handleMovementCreated(MovementCreatedEvent evt) {
-        TenantContext baseCtx = resolveTenant(evt.userId());
-        String refId = Objects.requireNonNull(evt.refId(), "refId es obligatorio");
-        Instant createdAt = evt.date() != null ? evt.date() : Instant.now();
-        boolean isIncome = evt.amount() != null && evt.amount().signum() >= 0;
+    /**
+     * Lote de movimientos (outbox de registro); ver handleEventBatch.
+     */
+    public MovementBatchResult handleMovementsCreated(List<MovementCreatedEvent> evts) {
+        EventBatchResult resultado = handleEventBatch(new EventBatchRequest(evts, null, null));
+        return new MovementBatchResult(resultado.received(), resultado.processed(), resultado.failedRefIds());
+    }
 
-        forEachUserInEmpresa(baseCtx.organizacionId(), ctx -> {
-            saveIfNew(ctx, NotificationType.MOVEMENT_NEW, ResourceType.MOVEMENT, refId,
-                    isIncome ? "Ingreso detectado" : "Egreso registrado",
-                    formatMovementBody(evt),
-                    Severity.INFO, createdAt);
+    /**
+     * Procesa un lote de eventos con una consulta por recurso en vez de una por notificación:
+     * <ul>
+     *   <li>La empresa de cada usuario y los miembros de cada empresa se resuelven una vez por
+     *       lote (y quedan en caché para los siguientes).</li>
+     *   <li>La deduplicación contra lo ya guardado es una sola consulta por conjunto de recursos.</li>
+     *   <li>Las notificaciones nuevas se insertan por JDBC en lotes, en una única transacción.</li>
+     * </ul>
+     * Un evento cuya empresa no se puede resolver, o cuyas notificaciones no se pueden guardar, se
+     * informa como fallido sin afectar a los demás; como la deduplicación es por recurso y día, el
+     * emisor puede reenviarlo sin duplicar.
+     */
+    public EventBatchResult handleEventBatch(EventBatchRequest lote) {
+        List<Candidata> candidatas = new ArrayList<>();
+        int recibidos = 0;
+        if (lote.movements() != null) {
+            for (MovementCreatedEvent evt : lote.movements()) {
+                recibidos++;
+                if (evt == null || evt.refId() == null) {
+                    log.warn("Evento de movimiento sin refId descartado");
+                    continue;
+                }
+                candidatas.addAll(candidatasMovimiento(evt));
+            }
+        }
+        if (lote.budgetsExceeded() != null) {
+            for (BudgetExceededEvent evt : lote.budgetsExceeded()) {
+                recibidos++;
+                if (evt != null) {
+                    candidatas.add(candidataPresupuestoExcedido(evt));
+                }
+            }
+        }
+        if (lote.reports() != null) {
+            for (ReportGeneratedEvent evt : lote.reports()) {
+                recibidos++;
+                if (evt != null) {
+                    candidatas.add(candidataReporte(evt));
+                }
+            }
+        }
 
-            if (evt.amount() != null && evt.amount().abs().compareTo(highThreshold) >= 0) {
-                saveIfNew(ctx, NotificationType.MOVEMENT_HIGH, ResourceType.MOVEMENT, refId,
-                        "Movimiento alto detectado",
-                        formatMovementBody(evt),
-                        Severity.WARN, createdAt);
+        // Empresa de cada usuario y miembros de cada empresa: una resolución por lote
+        Map<String, Long> empresaPorUsuario = new HashMap<>();
+        Map<Long, List<String>> miembrosPorEmpresa = new HashMap<>();
+        Set<String> usuariosFallidos = new HashSet<>();
+        Set<Long> empresasFallidas = new HashSet<>();
+        Set<String> fallidos = new LinkedHashSet<>();
+        Set<String> procesados = new HashSet<>();
+        Map<String, List<Notification>> notificacionesPorEvento = new LinkedHashMap<>();
+
+        for (Candidata candidata : candidatas) {
+            String usuarioId = candidata.usuarioId() != null ? candidata.usuarioId() : defaultUsuarioId;
+            Long organizacionId = empresaPorUsuario.get(usuarioId);
+            if (organizacionId == null && !usuariosFallidos.contains(usuarioId)) {
+                try {
+                    organizacionId = administracionService.obtenerEmpresaIdPorUsuarioSub(usuarioId);
+                    empresaPorUsuario.put(usuarioId, organizacionId);
+                } catch (RuntimeException e) {
+                    log.warn("No se pudo resolver la empresa de {}: {}", usuarioId, e.getMessage());
+                    usuariosFallidos.add(usuarioId);
+                }
             }
-        });
+            List<String> miembros = organizacionId != null ? miembrosPorEmpresa.get(organizacionId) : null;
+            if (organizacionId != null && miembros == null && !empresasFallidas.contains(organizacionId)) {
+                try {
+                    miembros = administracionService.obtenerSubsPorEmpresaId(organizacionId);
+                    miembrosPorEmpresa.put(organizacionId, miembros);
+                } catch (RuntimeException e) {
+                    log.warn("No se pudieron obtener los usuarios de la empresa {}: {}", organizacionId, e.getMessage());
+                    empresasFallidas.add(organizacionId);
+                }
+            }
+            if (miembros == null) {
+                fallidos.add(candidata.refEvento());
+                continue;
+            }
+            procesados.add(candidata.refEvento());
+            expandir(organizacionId, miembros, candidata,
+                    notificacionesPorEvento.computeIfAbsent(candidata.refEvento(), ref -> new ArrayList<>()));
+        }
+        notificacionesPorEvento.keySet().removeAll(fallidos);
+
+        int creadas = guardarPorEvento(notificacionesPorEvento, fallidos);
+        procesados.removeAll(fallidos);
+        if (!fallidos.isEmpty()) {
+            log.warn("Lote de eventos: {} de {} no se pudieron procesar", fallidos.size(), recibidos);
+        }
+        return new EventBatchResult(recibidos, procesados.size(), creadas, new ArrayList<>(fallidos));
+    }
+
+    /**
+     * Guarda las notificaciones de todo el lote en una transacción. Si falla, reintenta evento por
+     * evento: solo los eventos cuyas notificaciones no se pueden guardar quedan en fallidos, en vez
+     * de que el lote entero falle y el emisor lo reintente completo. Los errores de disponibilidad de
+     * la base se propagan, para que el emisor reintente el lote sin descartar eventos.
+     *
+     * @return Cantidad de notificaciones insertadas
+     */
+    private int guardarPorEvento(Map<String, List<Notification>> notificacionesPorEvento, Set<String> fallidos) {
+        List<Notification> todas = notificacionesPorEvento.values().stream().flatMap(List::stream).toList();
+        try {
+            Integer creadas = transaccion.execute(status -> guardarNuevas(todas));
+            return creadas != null ? creadas : 0;
+        } catch (RuntimeException e) {
+            if (esFaltaDeDisponibilidad(e)) {
+                throw e;
+            }
+            log.warn("No se pudo guardar el lote de {} eventos: {}. Reintentando evento por evento",
+                    notificacionesPorEvento.size(), e.getMessage());
+        }
+
+        int creadas = 0;
+        for (Map.Entry<String, List<Notification>> evento : notificacionesPorEvento.entrySet()) {
+            try {
+                Integer insertadas = transaccion.execute(status -> guardarNuevas(evento.getValue()));
+                creadas += insertadas != null ? insertadas : 0;
+            } catch (RuntimeException e) {
+                if (esFaltaDeDisponibilidad(e)) {
+                    throw e;
+                }
+                log.warn("No se pudieron guardar las notificaciones del evento {}: {}", evento.getKey(), e.getMessage());
+                fallidos.add(evento.getKey());
+            }
+        }
+        return creadas;
+    }
+
+    // Base caída o saturada: no es un problema del evento
+    private static boolean esFaltaDeDisponibilidad(RuntimeException e) {
+        return e instanceof CannotCreateTransactionException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof TransientDataAccessException;
+    }
+
+    @Transactional
+    public void handleMovementCreated(MovementCreatedEvent evt) {
+        Objects.requireNonNull(evt.refId(), "refId es obligatorio");
+        notificarEmpresa(resolveTenant(evt.userId()), candidatasMovimiento(evt));
     }
 
     @Transactional
@@ -143,44 +298,12 @@ public class EventService {
 
     @Transactional
     public void handleBudgetExceeded(BudgetExceededEvent evt) {
-        TenantContext baseCtx = resolveTenant(evt.userId());
-        Instant createdAt = evt.occurredAt() != null ? evt.occurredAt() : Instant.now();
-
-        String title = "Presupuesto excedido: " + evt.budgetName();
-        String body = String.format("Categoria: %s | Presupuestado: $%s | Real: $%s | Diferencia: $%s",
-                evt.category(), evt.budgeted(), evt.actual(), evt.variance());
-
-        forEachUserInEmpresa(baseCtx.organizacionId(), ctx ->
-                saveIfNew(ctx,
-                        NotificationType.BUDGET_EXCEEDED,
-                        ResourceType.BUDGET,
-                        "budget_" + evt.budgetId() + "_" + evt.category(),
-                        title,
-                        body,
-                        Severity.WARN,
-                        createdAt));
+        notificarEmpresa(resolveTenant(evt.userId()), List.of(candidataPresupuestoExcedido(evt)));
     }
 
     @Transactional
     public void handleReportGenerated(ReportGeneratedEvent evt) {
-        TenantContext baseCtx = resolveTenant(evt.userId());
-        Instant createdAt = evt.generatedAt() != null ? evt.generatedAt() : Instant.now();
-
-        String title = "Reporte generado: " + evt.reportName();
-        String body = String.format("Tipo: %s | Periodo: %s", evt.reportType(), evt.period());
-
-        NotificationType type = evt.hasAnomalies() ? NotificationType.REPORT_ANOMALY : NotificationType.REPORT_READY;
-        Severity severity = evt.hasAnomalies() ? Severity.WARN : Severity.INFO;
-
-        forEachUserInEmpresa(baseCtx.organizacionId(), ctx ->
-                saveIfNew(ctx,
-                        type,
-                        ResourceType.REPORT,
-                        "report_" + evt.reportType() + "_" + evt.period(),
-                        title,
-                        body,
-                        severity,
-                        createdAt));
+        notificarEmpresa(resolveTenant(evt.userId()), List.of(candidataReporte(evt)));
     }
 
     @Transactional
@@ -195,16 +318,11 @@ public class EventService {
                 evt.currentBalance(), evt.forecastBalance());
 
         Severity severity = "NEGATIVE".equals(evt.alertType()) ? Severity.CRIT : Severity.WARN;
+        String resourceId = "cashflow_" + evt.alertType() + "_" + evt.period();
 
-        forEachUserInEmpresa(baseCtx.organizacionId(), ctx ->
-                saveIfNew(ctx,
-                        NotificationType.CASH_FLOW_ALERT,
-                        ResourceType.CASH_FLOW,
-                        "cashflow_" + evt.alertType() + "_" + evt.period(),
-                        title,
-                        body,
-                        severity,
-                        createdAt));
+        notificarEmpresa(baseCtx, List.of(new Candidata(resourceId, baseCtx.usuarioId(),
+                NotificationType.CASH_FLOW_ALERT, ResourceType.CASH_FLOW, resourceId,
+                title, body, severity, createdAt)));
     }
 
     @Transactional
@@ -218,16 +336,60 @@ public class EventService {
             case "BILL_DUE" -> NotificationType.REMINDER_BILL_DUE;
             default -> NotificationType.REMINDER_CUSTOM;
         };
+        String resourceId = "reminder_" + evt.title().hashCode();
+
+        notificarEmpresa(baseCtx, List.of(new Candidata(resourceId, baseCtx.usuarioId(),
+                type, ResourceType.SYSTEM, resourceId,
+                evt.title(), evt.message(), Severity.INFO, createdAt)));
+    }
+
+    private List<Candidata> candidatasMovimiento(MovementCreatedEvent evt) {
+        String refId = evt.refId();
+        Instant createdAt = evt.date() != null ? evt.date() : Instant.now();
+        boolean isIncome = evt.amount() != null && evt.amount().signum() >= 0;
+
+        List<Candidata> candidatas = new ArrayList<>(2);
+        candidatas.add(new Candidata(refId, evt.userId(),
+                NotificationType.MOVEMENT_NEW, ResourceType.MOVEMENT, refId,
+                isIncome ? "Ingreso detectado" : "Egreso registrado",
+                formatMovementBody(evt),
+                Severity.INFO, createdAt));
+
+        if (evt.amount() != null && evt.amount().abs().compareTo(highThreshold) >= 0) {
+            candidatas.add(new Candidata(refId, evt.userId(),
+                    NotificationType.MOVEMENT_HIGH, ResourceType.MOVEMENT, refId,
+                    "Movimiento alto detectado",
+                    formatMovementBody(evt),
+                    Severity.WARN, createdAt));
+        }
+        return candidatas;
+    }
+
+    private Candidata candidataPresupuestoExcedido(BudgetExceededEvent evt) {
+        Instant createdAt = evt.occurredAt() != null ? evt.occurredAt() : Instant.now();
+
+        String title = "Presupuesto excedido: " + evt.budgetName();
+        String body = String.format("Categoria: %s | Presupuestado: $%s | Real: $%s | Diferencia: $%s",
+                evt.category(), evt.budgeted(), evt.actual(), evt.variance());
+        String resourceId = "budget_" + evt.budgetId() + "_" + evt.category();
+
+        return new Candidata(resourceId, evt.userId() != null ? evt.userId().toString() : null,
+                NotificationType.BUDGET_EXCEEDED, ResourceType.BUDGET, resourceId,
+                title, body, Severity.WARN, createdAt);
+    }
+
+    private Candidata candidataReporte(ReportGeneratedEvent evt) {
+        Instant createdAt = evt.generatedAt() != null ? evt.generatedAt() : Instant.now();
+
+        String title = "Reporte generado: " + evt.reportName();
+        String body = String.format("Tipo: %s | Periodo: %s", evt.reportType(), evt.period());
 
-        forEachUserInEmpresa(baseCtx.organizacionId(), ctx ->
-                saveIfNew(ctx,
-                        type,
-                        ResourceType.SYSTEM,
-                        "reminder_" + evt.title().hashCode(),
-                        evt.title(),
-                        evt.message(),
-                        Severity.INFO,
-                        createdAt));
+        NotificationType type = evt.hasAnomalies() ? NotificationType.REPORT_ANOMALY : NotificationType.REPORT_READY;
+        Severity severity = evt.hasAnomalies() ? Severity.WARN : Severity.INFO;
+        String resourceId = "report_" + evt.reportType() + "_" + evt.period();
+
+        return new Candidata(resourceId, evt.userId() != null ? evt.userId().toString() : null,
+                type, ResourceType.REPORT, resourceId, title, body, severity, createdAt);
     }
 
     private String formatMovementBody(MovementCreatedEvent evt) {
@@ -237,39 +399,86 @@ public class EventService {
         return desc + "$" + (evt.amount() != null ? evt.amount() : "0");
     }
 
-    private void saveIfNew(TenantContext ctx,
-                           NotificationType type,
-                           ResourceType resourceType,
-                           String resourceId,
-                           String title,
-                           String body,
-                           Severity severity,
-                           Instant createdAt) {
-        Instant start = createdAt.truncatedTo(ChronoUnit.DAYS);
-        Instant end = start.plus(1, ChronoUnit.DAYS);
-
-        boolean exists = repo.existsByOrganizacionIdAndUsuarioIdAndTypeAndResourceIdAndCreatedAtBetween(
-                ctx.organizacionId(),
-                ctx.usuarioId(),
-                type,
-                resourceId,
-                start,
-                end
-        );
-        if (exists) {
-            return;
+    private void notificarEmpresa(TenantContext baseCtx, List<Candidata> candidatas) {
+        List<String> miembros = administracionService.obtenerSubsPorEmpresaId(baseCtx.organizacionId());
+        List<Notification> notificaciones = new ArrayList<>();
+        for (Candidata candidata : candidatas) {
+            expandir(baseCtx.organizacionId(), miembros, candidata, notificaciones);
         }
+        transaccion.execute(status -> guardarNuevas(notificaciones));
+    }
 
-        Notification notification = buildBaseNotification(ctx);
-        notification.setType(type);
-        notification.setTitle(title);
-        notification.setBody(body);
-        notification.setSeverity(severity);
-        notification.setResourceType(resourceType);
-        notification.setResourceId(resourceId);
-        notification.setCreatedAt(createdAt);
+    // Una notificación de la candidata por cada miembro de la empresa
+    private void expandir(Long organizacionId, List<String> miembros, Candidata candidata,
+                          List<Notification> destino) {
+        for (String usuarioId : miembros) {
+            Notification notification = buildBaseNotification(new TenantContext(organizacionId, usuarioId));
+            notification.setType(candidata.type());
+            notification.setTitle(recortar(candidata.title(), 200));
+            notification.setBody(recortar(candidata.body(), 500));
+            notification.setSeverity(candidata.severity());
+            notification.setResourceType(candidata.resourceType());
+            notification.setResourceId(candidata.resourceId());
+            notification.setCreatedAt(candidata.createdAt());
+            destino.add(notification);
+        }
+    }
 
-        repo.save(notification);
+    /**
+     * Guarda las notificaciones que no existan ya para el mismo usuario, tipo y recurso en el día
+     * (UTC) de createdAt, descartando también las repetidas dentro de la lista.
+     *
+     * @return Cantidad de notificaciones insertadas
+     */
+    private int guardarNuevas(List<Notification> notificaciones) {
+        Map<ClaveDia, Notification> nuevas = new LinkedHashMap<>();
+        for (Notification n : notificaciones) {
+            nuevas.putIfAbsent(ClaveDia.de(n.getOrganizacionId(), n.getUsuarioId(), n.getType(),
+                    n.getResourceId(), n.getCreatedAt()), n);
+        }
+        if (nuevas.isEmpty()) {
+            return 0;
+        }
+
+        Set<Long> organizacionIds = new HashSet<>();
+        Set<NotificationType> types = new HashSet<>();
+        Set<String> resourceIds = new LinkedHashSet<>();
+        Instant desde = null;
+        Instant hasta = null;
+        for (ClaveDia clave : nuevas.keySet()) {
+            organizacionIds.add(clave.organizacionId());
+            types.add(clave.type());
+            resourceIds.add(clave.resourceId());
+            if (desde == null || clave.dia().isBefore(desde)) desde = clave.dia();
+            if (hasta == null || clave.dia().isAfter(hasta)) hasta = clave.dia();
+        }
+        hasta = hasta.plus(1, ChronoUnit.DAYS);
+
+        for (List<String> parte : partir(resourceIds, RECURSOS_POR_CONSULTA)) {
+            for (NotificationRepository.ClaveNotificacion existente :
+                    repo.findClavesExistentes(organizacionIds, parte, types, desde, hasta)) {
+                nuevas.remove(ClaveDia.de(existente.getOrganizacionId(), existente.getUsuarioId(),
+                        existente.getType(), existente.getResourceId(), existente.getCreatedAt()));
+            }
+        }
+
+        List<Notification> insertadas = new ArrayList<>(nuevas.values());
+        batchRepo.insertar(insertadas);
+        streamService.publicarCreadas(insertadas);
+        return insertadas.size();
+    }
+
+    private static List<List<String>> partir(Collection<String> valores, int tamanio) {
+        List<String> lista = new ArrayList<>(valores);
+        List<List<String>> partes = new ArrayList<>();
+        for (int i = 0; i < lista.size(); i += tamanio) {
+            partes.add(lista.subList(i, Math.min(i + tamanio, lista.size())));
+        }
+        return partes;
+    }
+
+    private static String recortar(String texto, int largo) {
+        return (texto != null && texto.length() > largo) ? texto.substring(0, largo) : texto;
     }
 
     private Notification buildBaseNotification(TenantContext ctx) {
@@ -281,16 +490,8 @@ public class EventService {
     }
 
     private void forEachUserInEmpresa(Long organizacionId, java.util.function.Consumer<TenantContext> consumer) {
-        List<UsuarioAdministracionDTO> usuarios = administracionService.obtenerUsuariosPorEmpresaId(organizacionId);
-        if (usuarios == null || usuarios.isEmpty()) {
-            return;
-        }
-        for (UsuarioAdministracionDTO usuario : usuarios) {
-            if (usuario.getSub() == null || usuario.getSub().isBlank()) {
-                continue;
-            }
-            TenantContext ctx = new TenantContext(organizacionId, usuario.getSub());
-            consumer.accept(ctx);
+        for (String usuarioId : administracionService.obtenerSubsPorEmpresaId(organizacionId)) {
+            consumer.accept(new TenantContext(organizacionId, usuarioId));
         }
     }
 
@@ -308,4 +509,25 @@ public class EventService {
     }
 
     private record TenantContext(Long organizacionId, String usuarioId) {}
+
+    // Notificación a crear para cada miembro de la empresa del usuario del evento
+    private record Candidata(String refEvento,
+                             String usuarioId,
+                             NotificationType type,
+                             ResourceType resourceType,
+                             String resourceId,
+                             String title,
+                             String body,
+                             Severity severity,
+                             Instant createdAt) {}
+
+    // Clave de deduplicación: una notificación por usuario, tipo y recurso en el día (UTC)
+    private record ClaveDia(Long organizacionId, String usuarioId, NotificationType type,
+                            String resourceId, Instant dia) {
+        static ClaveDia de(Long organizacionId, String usuarioId, NotificationType type,
+                           String resourceId, Instant createdAt) {
+            return new ClaveDia(organizacionId, usuarioId, type, resourceId,
+                    createdAt.truncatedTo(ChronoUnit.DAYS));
+        }
+    }
 }
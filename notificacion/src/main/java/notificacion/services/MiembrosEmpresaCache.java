@@ -0,0 +1,66 @@
+package notificacion.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caché local empresaId → subs de sus usuarios. Cada evento notifica a todos los miembros de la
+ * empresa; sin esta caché una importación masiva consultaba a administración una vez por evento.
+ * El TTL es corto porque administración solo avisa por usuario (ver EmpresaUsuarioController), y
+ * ese aviso vacía toda la caché.
+ */
+@Component
+@Slf4j
+public class MiembrosEmpresaCache {
+
+    private record Entrada(List<String> subs, long venceEn) {}
+
+    private final ConcurrentHashMap<Long, Entrada> entradas = new ConcurrentHashMap<>();
+
+    // Se incrementa en cada invalidación: una consulta que empezó antes no guarda su resultado
+    private final AtomicLong generacion = new AtomicLong();
+
+    private final long ttlNanos;
+    private final int maxEntradas;
+
+    public MiembrosEmpresaCache(
+            @Value("${mycfo.administracion.cache.miembros-ttl-segundos:60}") long ttlSegundos,
+            @Value("${mycfo.administracion.cache.max-entradas:10000}") int maxEntradas) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(0, ttlSegundos));
+        this.maxEntradas = Math.max(1, maxEntradas);
+    }
+
+    /**
+     * @param cargar Consulta a administración; una excepción no se cachea
+     * @return Subs de los usuarios de la empresa (lista inmutable, puede estar vacía)
+     */
+    public List<String> obtener(Long empresaId, Function<Long, List<String>> cargar) {
+        Entrada entrada = entradas.get(empresaId);
+        if (entrada != null && entrada.venceEn() - System.nanoTime() > 0) {
+            return entrada.subs();
+        }
+
+        long generacionInicial = generacion.get();
+        List<String> subs = List.copyOf(cargar.apply(empresaId));
+        if (generacion.get() == generacionInicial) {
+            if (entradas.size() >= maxEntradas) {
+                entradas.clear();
+            }
+            entradas.put(empresaId, new Entrada(subs, System.nanoTime() + ttlNanos));
+        }
+        return subs;
+    }
+
+    public void invalidarTodo() {
+        generacion.incrementAndGet();
+        entradas.clear();
+        log.debug("Caché de miembros por empresa vaciada");
+    }
+}
@@ -14,16 +14,21 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 @Service
 public class NotificationService {
 
     private final NotificationRepository repo;
     private final EmailNotificationService emailService;
+    private final NotificationStreamService streamService;
 
     public NotificationService(NotificationRepository repo,
-                               EmailNotificationService emailService) {
+                               EmailNotificationService emailService,
+                               NotificationStreamService streamService) {
         this.repo = repo;
         this.emailService = emailService;
+        this.streamService = streamService;
     }
 
     @Transactional(readOnly = true)
@@ -75,9 +80,12 @@ public class NotificationService {
     public void markRead(Long organizacionId, String usuarioId, Long notifId, boolean isRead) {
         Notification notification = repo.findById(notifId).orElseThrow();
         enforceTenant(notification, organizacionId, usuarioId);
+        boolean estabaLeida = notification.isRead();
         notification.setRead(isRead);
         repo.save(notification);
-        publishUnreadCount(organizacionId, usuarioId);
+        if (estabaLeida != isRead) {
+            streamService.ajustarNoLeidas(organizacionId, usuarioId, isRead ? -1 : 1);
+        }
     }
 
     @Transactional
@@ -90,7 +98,7 @@ public class NotificationService {
                 .getContent();
         unread.forEach(notification -> notification.setRead(true));
         repo.saveAll(unread);
-        publishUnreadCount(organizacionId, usuarioId);
+        streamService.fijarNoLeidas(organizacionId, usuarioId, 0);
     }
 
     @Transactional
@@ -107,7 +115,7 @@ public class NotificationService {
             System.err.println("Error enviando email de notificacion: " + e.getMessage());
         }
 
-        publishUnreadCount(notification.getOrganizacionId(), notification.getUsuarioId());
+        streamService.publicarCreadas(List.of(saved));
         return NotificationMapper.toDTO(saved);
     }
 
@@ -164,7 +172,9 @@ public class NotificationService {
         Notification notification = repo.findById(notificationId).orElseThrow();
         enforceTenant(notification, organizacionId, usuarioId);
         repo.delete(notification);
-        publishUnreadCount(organizacionId, usuarioId);
+        if (!notification.isRead()) {
+            streamService.ajustarNoLeidas(organizacionId, usuarioId, -1);
+        }
     }
 
     private NotificationListResponse buildListResponse(Long organizacionId,
@@ -183,11 +193,4 @@ public class NotificationService {
             throw new IllegalArgumentException("Notificacion fuera del alcance del usuario actual");
         }
     }
-
-    private void publishUnreadCount(Long organizacionId, String usuarioId) {
-        // WebSocket eliminado - solo email notifications
-        // El contador de no leídas ya no se necesita sin WebSocket
-        // int unreadCount = repo.countByOrganizacionIdAndUsuarioIdAndIsReadFalse(organizacionId, usuarioId);
-        // webSocketService.sendUnreadCountUpdate(usuarioId, unreadCount); // Eliminado
-    }
 }
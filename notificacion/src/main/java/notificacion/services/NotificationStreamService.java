@@ -0,0 +1,251 @@
+package notificacion.services;
+
+import lombok.extern.slf4j.Slf4j;
+import notificacion.dtos.NotificationDTO;
+import notificacion.mappers.NotificationMapper;
+import notificacion.models.Notification;
+import notificacion.repositories.NotificationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Notificaciones en vivo por SSE, un canal por (organizacionId, usuarioId), para que el frontend no
+ * tenga que hacer polling. Emite dos eventos: "notification" (la notificación nueva) y
+ * "unread-count" (el contador de no leídas).
+ * <ul>
+ *   <li>El contador vive en memoria solo para los usuarios conectados: se inicializa con un count
+ *       al conectarse y después se ajusta con cada alta, lectura o borrado.</li>
+ *   <li>reconciliar() lo recalcula contra la base cada tanto (un count agrupado por empresa) para
+ *       corregir desvíos, por ejemplo cambios hechos por otra instancia del servicio.</li>
+ *   <li>Todo se envía después del commit, para no anunciar cambios que hicieron rollback.</li>
+ * </ul>
+ * Solo funciona con una instancia del servicio: las conexiones viven en memoria y no hay un canal
+ * compartido entre instancias. Con varias, un usuario conectado a otra instancia no recibe en vivo
+ * el evento "notification" (reconciliar() corrige solo el contador) y tiene que recargar la lista.
+ * Escalar horizontalmente requiere repartir las altas por un canal compartido (p. ej. pub/sub) o
+ * fijar cada usuario a una instancia en el gateway.
+ */
+@Service
+@Slf4j
+public class NotificationStreamService {
+
+    public static final String EVENTO_NOTIFICACION = "notification";
+    public static final String EVENTO_NO_LEIDAS = "unread-count";
+
+    // Usuarios por consulta de reconciliación (cantidad de parámetros del IN)
+    private static final int USUARIOS_POR_CONSULTA = 500;
+
+    private record Suscriptor(Long organizacionId, String usuarioId) {}
+
+    private final NotificationRepository repo;
+    private final long timeoutMs;
+
+    private final ConcurrentHashMap<Suscriptor, CopyOnWriteArrayList<SseEmitter>> conexiones = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Suscriptor, AtomicInteger> noLeidas = new ConcurrentHashMap<>();
+
+    public NotificationStreamService(
+            NotificationRepository repo,
+            @Value("${notifications.stream.timeout-minutos:30}") long timeoutMinutos) {
+        this.repo = repo;
+        this.timeoutMs = TimeUnit.MINUTES.toMillis(Math.max(1, timeoutMinutos));
+    }
+
+    /**
+     * Abre el canal del usuario y envía enseguida el contador actual. Al vencer el timeout el
+     * cliente se reconecta (EventSource lo hace solo).
+     */
+    public SseEmitter suscribir(Long organizacionId, String usuarioId) {
+        Suscriptor suscriptor = new Suscriptor(organizacionId, usuarioId);
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        emitter.onCompletion(() -> quitar(suscriptor, emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> quitar(suscriptor, emitter));
+
+        conexiones.compute(suscriptor, (k, lista) -> {
+            CopyOnWriteArrayList<SseEmitter> emitters = lista != null ? lista : new CopyOnWriteArrayList<>();
+            emitters.add(emitter);
+            return emitters;
+        });
+        enviar(suscriptor, emitter, eventoNoLeidas(contador(suscriptor).get()));
+        return emitter;
+    }
+
+    /**
+     * Anuncia notificaciones recién creadas (con id asignado) a sus destinatarios conectados.
+     */
+    public void publicarCreadas(Collection<Notification> notificaciones) {
+        if (notificaciones.isEmpty() || conexiones.isEmpty()) {
+            return;
+        }
+        Map<Suscriptor, List<Notification>> porUsuario = new LinkedHashMap<>();
+        for (Notification n : notificaciones) {
+            porUsuario.computeIfAbsent(new Suscriptor(n.getOrganizacionId(), n.getUsuarioId()),
+                    k -> new ArrayList<>()).add(n);
+        }
+
+        despuesDelCommit(() -> porUsuario.forEach((suscriptor, propias) -> {
+            if (!conexiones.containsKey(suscriptor)) {
+                return;
+            }
+            int nuevasNoLeidas = (int) propias.stream().filter(n -> !n.isRead()).count();
+            AtomicInteger actual = noLeidas.get(suscriptor);
+            // Sin contador previo, el count de contador() ya incluye las recién confirmadas
+            int valor = actual != null ? actual.addAndGet(nuevasNoLeidas) : contador(suscriptor).get();
+
+            for (Notification n : propias) {
+                NotificationDTO dto = NotificationMapper.toDTO(n);
+                enviarATodos(suscriptor, SseEmitter.event().name(EVENTO_NOTIFICACION).id(String.valueOf(dto.id())).data(dto));
+            }
+            enviarATodos(suscriptor, eventoNoLeidas(valor));
+        }));
+    }
+
+    /**
+     * Ajusta el contador del usuario (por ejemplo -1 al marcar una como leída).
+     */
+    public void ajustarNoLeidas(Long organizacionId, String usuarioId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        Suscriptor suscriptor = new Suscriptor(organizacionId, usuarioId);
+        despuesDelCommit(() -> {
+            AtomicInteger actual = noLeidas.get(suscriptor);
+            if (actual == null || !conexiones.containsKey(suscriptor)) {
+                return;
+            }
+            enviarATodos(suscriptor, eventoNoLeidas(actual.updateAndGet(v -> Math.max(0, v + delta))));
+        });
+    }
+
+    public void fijarNoLeidas(Long organizacionId, String usuarioId, int valor) {
+        Suscriptor suscriptor = new Suscriptor(organizacionId, usuarioId);
+        despuesDelCommit(() -> {
+            AtomicInteger actual = noLeidas.get(suscriptor);
+            if (actual == null || !conexiones.containsKey(suscriptor)) {
+                return;
+            }
+            actual.set(valor);
+            enviarATodos(suscriptor, eventoNoLeidas(valor));
+        });
+    }
+
+    /**
+     * Recalcula los contadores de los usuarios conectados y envía los que cambiaron.
+     */
+    @Scheduled(initialDelayString = "${notifications.stream.reconciliacion-ms:60000}",
+               fixedDelayString = "${notifications.stream.reconciliacion-ms:60000}")
+    public void reconciliar() {
+        if (noLeidas.isEmpty()) {
+            return;
+        }
+        try {
+            Map<Long, List<String>> usuariosPorEmpresa = new HashMap<>();
+            for (Suscriptor suscriptor : noLeidas.keySet()) {
+                usuariosPorEmpresa.computeIfAbsent(suscriptor.organizacionId(), k -> new ArrayList<>())
+                        .add(suscriptor.usuarioId());
+            }
+
+            int corregidos = 0;
+            for (Map.Entry<Long, List<String>> empresa : usuariosPorEmpresa.entrySet()) {
+                List<String> usuarios = empresa.getValue();
+                for (int desde = 0; desde < usuarios.size(); desde += USUARIOS_POR_CONSULTA) {
+                    List<String> parte = usuarios.subList(desde, Math.min(desde + USUARIOS_POR_CONSULTA, usuarios.size()));
+                    Map<String, Integer> reales = new HashMap<>();
+                    for (NotificationRepository.ConteoNoLeidas conteo :
+                            repo.countNoLeidasPorUsuario(empresa.getKey(), parte)) {
+                        reales.put(conteo.getUsuarioId(), conteo.getTotal().intValue());
+                    }
+                    for (String usuarioId : parte) {
+                        Suscriptor suscriptor = new Suscriptor(empresa.getKey(), usuarioId);
+                        AtomicInteger actual = noLeidas.get(suscriptor);
+                        int real = reales.getOrDefault(usuarioId, 0);
+                        if (actual != null && actual.getAndSet(real) != real) {
+                            enviarATodos(suscriptor, eventoNoLeidas(real));
+                            corregidos++;
+                        }
+                    }
+                }
+            }
+            if (corregidos > 0) {
+                log.debug("Contadores de no leídas corregidos al reconciliar: {}", corregidos);
+            }
+        } catch (Exception e) {
+            log.error("Error reconciliando contadores de no leídas: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Comentario SSE periódico: mantiene abierta la conexión a través del gateway y detecta
+     * clientes que se desconectaron sin cerrar.
+     */
+    @Scheduled(fixedDelayString = "${notifications.stream.heartbeat-ms:25000}")
+    public void latir() {
+        conexiones.forEach((suscriptor, emitters) ->
+                emitters.forEach(emitter -> enviar(suscriptor, emitter, SseEmitter.event().comment("ping"))));
+    }
+
+    private AtomicInteger contador(Suscriptor suscriptor) {
+        return noLeidas.computeIfAbsent(suscriptor, k -> new AtomicInteger(
+                repo.countByOrganizacionIdAndUsuarioIdAndIsReadFalse(k.organizacionId(), k.usuarioId())));
+    }
+
+    private SseEmitter.SseEventBuilder eventoNoLeidas(int valor) {
+        return SseEmitter.event().name(EVENTO_NO_LEIDAS).data(Map.of("unread", valor));
+    }
+
+    private void enviarATodos(Suscriptor suscriptor, SseEmitter.SseEventBuilder evento) {
+        List<SseEmitter> emitters = conexiones.get(suscriptor);
+        if (emitters != null) {
+            emitters.forEach(emitter -> enviar(suscriptor, emitter, evento));
+        }
+    }
+
+    private void enviar(Suscriptor suscriptor, SseEmitter emitter, SseEmitter.SseEventBuilder evento) {
+        try {
+            emitter.send(evento);
+        } catch (Exception e) {
+            // Cliente desconectado: el contenedor ya no acepta escrituras en esta respuesta
+            log.debug("Canal de notificaciones cerrado para {}: {}", suscriptor.usuarioId(), e.getMessage());
+            quitar(suscriptor, emitter);
+        }
+    }
+
+    private void quitar(Suscriptor suscriptor, SseEmitter emitter) {
+        CopyOnWriteArrayList<SseEmitter> restantes = conexiones.computeIfPresent(suscriptor, (k, lista) -> {
+            lista.remove(emitter);
+            return lista.isEmpty() ? null : lista;
+        });
+        if (restantes == null) {
+            // Sin conexiones el contador ya no se mantiene; se vuelve a contar al reconectar
+            noLeidas.remove(suscriptor);
+        }
+    }
+
+    private void despuesDelCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package notificacion.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import notificacion.models.CustomReminder;
+import notificacion.models.Notification;
+import notificacion.models.NotificationType;
+import notificacion.models.ResourceType;
+import notificacion.models.Severity;
+import notificacion.repositories.CustomReminderRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Dispara los recordatorios en su instante exacto con una RuedaTemporal en memoria, en lugar de
+ * consultar la base cada minuto.
+ * <ul>
+ *   <li>La rueda tiene cargados los recordatorios que vencen dentro de la ventana
+ *       (notifications.recordatorios.ventana-horas); a mitad de la ventana se vuelve a consultar
+ *       para extenderla. Es la única consulta periódica, además de la carga al arrancar.</li>
+ *   <li>Altas, modificaciones y bajas (CustomReminderService) se reflejan en la rueda al
+ *       confirmarse la transacción.</li>
+ *   <li>Al disparar se relee el recordatorio con bloqueo: si cambió, se desactivó o ya lo
+ *       disparó otra instancia, no se hace nada.</li>
+ * </ul>
+ */
+@Service
+@Slf4j
+public class ProgramadorRecordatorios {
+
+    // Diferencia tolerada entre el instante programado y el guardado (precisión de la columna)
+    private static final long TOLERANCIA_MS = 1000;
+
+    private final CustomReminderRepository reminderRepository;
+    private final NotificationService notificationService;
+    private final EmailNotificationService emailService;
+    private final TransactionTemplate transaccion;
+    private final RuedaTemporal rueda;
+    private final Duration ventana;
+    private final Duration esperaReintento;
+
+    private final ConcurrentHashMap<Long, RuedaTemporal.Programacion> programados = new ConcurrentHashMap<>();
+
+    // Hasta dónde está cargada la rueda: los recordatorios posteriores los toma una recarga
+    private volatile Instant horizonte = Instant.EPOCH;
+
+    public ProgramadorRecordatorios(
+            CustomReminderRepository reminderRepository,
+            NotificationService notificationService,
+            EmailNotificationService emailService,
+            PlatformTransactionManager transactionManager,
+            @Qualifier("recordatoriosExecutor") Executor executor,
+            @Value("${notifications.recordatorios.tick-ms:100}") long tickMs,
+            @Value("${notifications.recordatorios.ventana-horas:24}") long ventanaHoras,
+            @Value("${notifications.recordatorios.espera-reintento-segundos:60}") long esperaReintentoSegundos
+    ) {
+        this.reminderRepository = reminderRepository;
+        this.notificationService = notificationService;
+        this.emailService = emailService;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.rueda = new RuedaTemporal("rueda-recordatorios", tickMs, 512, executor);
+        this.ventana = Duration.ofHours(Math.max(1, ventanaHoras));
+        this.esperaReintento = Duration.ofSeconds(Math.max(1, esperaReintentoSegundos));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        rueda.iniciar();
+        recargar();
+    }
+
+    @PreDestroy
+    public void detener() {
+        rueda.detener();
+    }
+
+    /**
+     * Agrega, mueve o quita el recordatorio de la rueda según su estado. Dentro de una transacción
+     * se aplica recién después del commit.
+     */
+    public void programar(CustomReminder reminder) {
+        despuesDelCommit(() -> {
+            Instant instante = proximoDisparo(reminder);
+            if (instante == null || instante.isAfter(horizonte)) {
+                cancelar(reminder.getId());
+                return;
+            }
+            Long reminderId = reminder.getId();
+            programados.compute(reminderId, (id, actual) -> {
+                if (actual != null) {
+                    if (actual.getVencimientoMs() == instante.toEpochMilli()) {
+                        return actual;
+                    }
+                    actual.cancelar();
+                }
+                return rueda.programar(instante, () -> disparar(reminderId, instante));
+            });
+        });
+    }
+
+    /**
+     * Carga en la rueda los recordatorios que vencen dentro de la ventana (incluidos los que
+     * vencieron mientras el servicio estaba detenido, que se disparan enseguida).
+     */
+    private void recargar() {
+        Instant ahora = Instant.now();
+        // Se extiende antes de consultar: lo que se cree mientras tanto se programa solo
+        horizonte = ahora.plus(ventana);
+        try {
+            List<CustomReminder> pendientes = reminderRepository.findPendientesHasta(horizonte);
+            pendientes.forEach(this::programar);
+            log.info("Recordatorios programados hasta {}: {}", horizonte, pendientes.size());
+            rueda.programar(ahora.plus(ventana.dividedBy(2)), this::recargar);
+        } catch (Exception e) {
+            log.error("Error cargando recordatorios pendientes: {}", e.getMessage(), e);
+            rueda.programar(ahora.plus(esperaReintento), this::recargar);
+        }
+    }
+
+    private void disparar(Long reminderId, Instant instante) {
+        if (Instant.now().isBefore(instante)) {
+            // Nunca antes de tiempo: si la rueda lo entregó temprano, se vuelve a programar
+            log.warn("Recordatorio {} disparado antes de {}: se reprograma", reminderId, instante);
+            programados.computeIfPresent(reminderId, (id, actual) -> actual.getVencimientoMs() == instante.toEpochMilli()
+                    ? rueda.programar(instante, () -> disparar(reminderId, instante))
+                    : actual);
+            return;
+        }
+
+        programados.computeIfPresent(reminderId,
+                (id, actual) -> actual.getVencimientoMs() == instante.toEpochMilli() ? null : actual);
+
+        CustomReminder disparado;
+        try {
+            disparado = transaccion.execute(status -> {
+                CustomReminder reminder = reminderRepository.findByIdParaDisparar(reminderId).orElse(null);
+                if (reminder == null || !mismoInstante(proximoDisparo(reminder), instante)) {
+                    return null;
+                }
+                createNotificationFromReminder(reminder);
+                if (reminder.isRecurring()) {
+                    reminder.markAsTriggered();
+                    if (reminder.getNextTrigger() == null) {
+                        reminder.setActive(false);
+                    }
+                } else {
+                    reminder.setActive(false);
+                }
+                return reminderRepository.save(reminder);
+            });
+        } catch (Exception e) {
+            log.error("Error disparando recordatorio {}: {}", reminderId, e.getMessage(), e);
+            rueda.programar(Instant.now().plus(esperaReintento), () -> disparar(reminderId, instante));
+            return;
+        }
+        if (disparado == null) {
+            return;
+        }
+
+        try {
+            emailService.sendReminderEmail(disparado.getOrganizacionId(), disparado.getUsuarioId(), disparado);
+        } catch (Exception e) {
+            log.error("Error enviando email de recordatorio {}: {}", reminderId, e.getMessage());
+        }
+        // Próxima ocurrencia de los recurrentes
+        programar(disparado);
+    }
+
+    private void createNotificationFromReminder(CustomReminder reminder) {
+        Notification notification = new Notification();
+        notification.setOrganizacionId(reminder.getOrganizacionId());
+        notification.setUsuarioId(reminder.getUsuarioId());
+        notification.setType(NotificationType.REMINDER_CUSTOM);
+        notification.setTitle(reminder.getTitle());
+        notification.setBody(reminder.getMessage());
+        notification.setSeverity(Severity.INFO);
+        notification.setResourceType(ResourceType.SYSTEM);
+        notification.setResourceId("reminder_" + reminder.getId());
+        notification.setCreatedAt(Instant.now());
+
+        notificationService.create(notification);
+    }
+
+    private void cancelar(Long reminderId) {
+        RuedaTemporal.Programacion programacion = programados.remove(reminderId);
+        if (programacion != null) {
+            programacion.cancelar();
+        }
+    }
+
+    // null si el recordatorio ya no tiene que dispararse
+    private static Instant proximoDisparo(CustomReminder reminder) {
+        if (!reminder.isActive()) {
+            return null;
+        }
+        return reminder.isRecurring() ? reminder.getNextTrigger() : reminder.getScheduledFor();
+    }
+
+    private static boolean mismoInstante(Instant guardado, Instant programado) {
+        return guardado != null && Math.abs(guardado.toEpochMilli() - programado.toEpochMilli()) < TOLERANCIA_MS;
+    }
+
+    private void despuesDelCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package notificacion.services;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rueda de tiempo jerárquica para ejecutar tareas en un instante dado sin consultar periódicamente.
+ * <ul>
+ *   <li>Cada nivel tiene `tamanio` casilleros de `tickMs`; una tarea que vence más allá del
+ *       intervalo de un nivel va al siguiente (cuyo tick es el intervalo del anterior) y baja de
+ *       nivel a medida que avanza el reloj. Los niveles superiores se crean a demanda.</li>
+ *   <li>Un único hilo espera en una DelayQueue al próximo casillero con tareas: sin tareas
+ *       pendientes no se despierta.</li>
+ *   <li>Las tareas vencidas se ejecutan en el executor recibido, nunca en el hilo de la rueda.</li>
+ * </ul>
+ * Una tarea nunca se ejecuta antes de su instante y a lo sumo un tick del primer nivel después:
+ * el vencimiento se redondea hacia arriba al tick del primer nivel una sola vez, y todos los niveles
+ * aplican la misma regla sobre ese valor (casillero = vencimiento / tick, vencida si no supera el
+ * tiempo actual del nivel más un tick).
+ */
+@Slf4j
+public class RuedaTemporal {
+
+    // Espera antes de reintentar una tarea que el executor rechazó por estar saturado
+    private static final long REINTENTO_SATURADO_MS = 1000;
+
+    /**
+     * Tarea programada; cancelar() evita que se ejecute si todavía no venció.
+     */
+    public static final class Programacion {
+        private volatile long vencimientoMs;
+        // vencimientoMs redondeado hacia arriba al tick del primer nivel (solo bajo el lock)
+        private long vencimientoRuedaMs;
+        private final Runnable tarea;
+        private volatile boolean cancelada;
+
+        private Programacion(long vencimientoMs, Runnable tarea) {
+            this.vencimientoMs = vencimientoMs;
+            this.tarea = tarea;
+        }
+
+        public long getVencimientoMs() {
+            return vencimientoMs;
+        }
+
+        public void cancelar() {
+            cancelada = true;
+        }
+    }
+
+    // Casillero de un nivel: todas sus tareas vencen dentro del mismo tick
+    private static final class Casillero implements Delayed {
+        private final List<Programacion> tareas = new ArrayList<>();
+        private volatile long vencimientoMs = -1;
+
+        // @return true si cambió, es decir si hay que (re)encolar el casillero
+        boolean fijarVencimiento(long nuevo) {
+            if (vencimientoMs == nuevo) {
+                return false;
+            }
+            vencimientoMs = nuevo;
+            return true;
+        }
+
+        List<Programacion> vaciar() {
+            List<Programacion> vaciadas = new ArrayList<>(tareas);
+            tareas.clear();
+            vencimientoMs = -1;
+            return vaciadas;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Math.max(vencimientoMs - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed otro) {
+            return Long.compare(vencimientoMs, ((Casillero) otro).vencimientoMs);
+        }
+    }
+
+    private final class Nivel {
+        private final long tickMs;
+        private final int tamanio;
+        private final long intervaloMs;
+        private final Casillero[] casilleros;
+        private long tiempoActualMs;
+        private Nivel superior;
+
+        Nivel(long tickMs, int tamanio, long inicioMs) {
+            this.tickMs = tickMs;
+            this.tamanio = tamanio;
+            this.intervaloMs = tickMs * tamanio;
+            this.casilleros = new Casillero[tamanio];
+            for (int i = 0; i < tamanio; i++) {
+                casilleros[i] = new Casillero();
+            }
+            this.tiempoActualMs = inicioMs - (inicioMs % tickMs);
+        }
+
+        // @return false si la tarea ya venció y hay que ejecutarla
+        boolean agregar(Programacion programacion) {
+            long vencimiento = programacion.vencimientoRuedaMs;
+            // Cada nivel redondea hacia abajo: un casillero superior vence antes que sus tareas y
+            // las baja de nivel; en el primero el vencimiento ya es múltiplo del tick, así que
+            // "vencida" equivale a vencimiento <= tiempo actual <= reloj
+            if (vencimiento < tiempoActualMs + tickMs) {
+                return false;
+            }
+            if (vencimiento < tiempoActualMs + intervaloMs) {
+                long idVirtual = Math.floorDiv(vencimiento, tickMs);
+                Casillero casillero = casilleros[(int) Math.floorMod(idVirtual, (long) tamanio)];
+                casillero.tareas.add(programacion);
+                if (casillero.fijarVencimiento(idVirtual * tickMs)) {
+                    cola.offer(casillero);
+                }
+                return true;
+            }
+            if (superior == null) {
+                superior = new Nivel(intervaloMs, tamanio, tiempoActualMs);
+            }
+            return superior.agregar(programacion);
+        }
+
+        void avanzar(long ms) {
+            if (ms >= tiempoActualMs + tickMs) {
+                tiempoActualMs = ms - (ms % tickMs);
+                if (superior != null) {
+                    superior.avanzar(tiempoActualMs);
+                }
+            }
+        }
+    }
+
+    private final DelayQueue<Casillero> cola = new DelayQueue<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Executor executor;
+    private final Nivel nivelBase;
+    private final Thread hilo;
+
+    public RuedaTemporal(String nombre, long tickMs, int tamanio, Executor executor) {
+        this.executor = executor;
+        this.nivelBase = new Nivel(Math.max(1, tickMs), Math.max(2, tamanio), System.currentTimeMillis());
+        this.hilo = new Thread(this::ciclo, nombre);
+        this.hilo.setDaemon(true);
+    }
+
+    public void iniciar() {
+        hilo.start();
+    }
+
+    public void detener() {
+        hilo.interrupt();
+    }
+
+    /**
+     * Programa la tarea para el instante indicado; si ya pasó se ejecuta enseguida.
+     */
+    public Programacion programar(Instant instante, Runnable tarea) {
+        Programacion programacion = new Programacion(instante.toEpochMilli(), tarea);
+        lock.lock();
+        try {
+            programacion.vencimientoRuedaMs = redondear(programacion.vencimientoMs);
+            agregarOEjecutar(programacion);
+        } finally {
+            lock.unlock();
+        }
+        return programacion;
+    }
+
+    private void ciclo() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Casillero casillero = cola.take();
+                lock.lock();
+                try {
+                    while (casillero != null) {
+                        nivelBase.avanzar(casillero.vencimientoMs);
+                        // Las de niveles superiores bajan de nivel; las del primero se ejecutan
+                        casillero.vaciar().forEach(this::agregarOEjecutar);
+                        casillero = cola.poll();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Error en la rueda de tiempo {}: {}", hilo.getName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private void agregarOEjecutar(Programacion programacion) {
+        if (programacion.cancelada || nivelBase.agregar(programacion)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                if (!programacion.cancelada) {
+                    programacion.tarea.run();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Executor saturado en la rueda de tiempo {}: la tarea se reintenta en {} ms",
+                    hilo.getName(), REINTENTO_SATURADO_MS);
+            programacion.vencimientoMs = System.currentTimeMillis() + REINTENTO_SATURADO_MS;
+            programacion.vencimientoRuedaMs = redondear(programacion.vencimientoMs);
+            nivelBase.agregar(programacion);
+        }
+    }
+
+    // Redondea hacia arriba al tick del primer nivel
+    private long redondear(long vencimientoMs) {
+        return Math.floorDiv(vencimientoMs + nivelBase.tickMs - 1, nivelBase.tickMs) * nivelBase.tickMs;
+    }
+}
@@ -0,0 +1,143 @@
+package notificacion.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuedaTemporalTest {
+
+    private static final long TICK_MS = 10;
+
+    // Margen para la demora del hilo de la rueda y del executor en la máquina de CI
+    private static final long TOLERANCIA_MS = 250;
+
+    private final List<RuedaTemporal> ruedas = new ArrayList<>();
+
+    @AfterEach
+    void detenerRuedas() {
+        ruedas.forEach(RuedaTemporal::detener);
+    }
+
+    private RuedaTemporal rueda(int tamanio, Executor executor) {
+        RuedaTemporal rueda = new RuedaTemporal("rueda-test", TICK_MS, tamanio, executor);
+        rueda.iniciar();
+        ruedas.add(rueda);
+        return rueda;
+    }
+
+    @Test
+    @DisplayName("Debe ejecutar cada tarea en su instante, nunca antes, también las que pasan por niveles superiores")
+    void shouldRunTasksOnTimeAcrossLevels() throws Exception {
+        // 8 casilleros de 10 ms: todo lo que vence después de 80 ms arranca en un nivel superior
+        RuedaTemporal rueda = rueda(8, Runnable::run);
+        long[] demorasMs = {30, 75, 150, 420, 900, 1300};
+        Map<Long, Long> ejecutadas = new ConcurrentHashMap<>();
+        CountDownLatch pendientes = new CountDownLatch(demorasMs.length);
+
+        Instant inicio = Instant.now();
+        for (long demora : demorasMs) {
+            Instant instante = inicio.plusMillis(demora);
+            rueda.programar(instante, () -> {
+                ejecutadas.put(demora, System.currentTimeMillis() - instante.toEpochMilli());
+                pendientes.countDown();
+            });
+        }
+
+        assertThat(pendientes.await(5, TimeUnit.SECONDS)).isTrue();
+        for (long demora : demorasMs) {
+            assertThat(ejecutadas.get(demora))
+                    .as("desvío de la tarea a %d ms (ms)", demora)
+                    .isGreaterThanOrEqualTo(0L)
+                    .isLessThan(TOLERANCIA_MS);
+        }
+    }
+
+    @Test
+    @DisplayName("No debe adelantar una tarea del último tick antes del límite de un nivel superior")
+    void shouldNotRunEarlyInLastTickBeforeUpperLevelBoundary() throws Exception {
+        // 8 casilleros de 10 ms: el segundo nivel tiene ticks de 80 ms
+        RuedaTemporal rueda = rueda(8, Runnable::run);
+        long intervaloBase = TICK_MS * 8;
+        long limite = (System.currentTimeMillis() / intervaloBase + 4) * intervaloBase;
+        Map<Long, Long> desvios = new ConcurrentHashMap<>();
+        CountDownLatch pendientes = new CountDownLatch(3);
+
+        // Al vencer en el límite, el reloj del primer nivel queda justo sobre él; desde ahí se
+        // programan tareas del último tick antes del próximo límite del segundo nivel
+        rueda.programar(Instant.ofEpochMilli(limite), () -> {
+            for (long desplazamiento : new long[]{intervaloBase - 5, intervaloBase - 1, intervaloBase + 5}) {
+                Instant instante = Instant.ofEpochMilli(limite + desplazamiento);
+                rueda.programar(instante, () -> {
+                    desvios.put(desplazamiento, System.currentTimeMillis() - instante.toEpochMilli());
+                    pendientes.countDown();
+                });
+            }
+        });
+
+        assertThat(pendientes.await(5, TimeUnit.SECONDS)).isTrue();
+        desvios.forEach((desplazamiento, desvio) -> assertThat(desvio)
+                .as("desvío de la tarea a límite + %d ms (ms)", desplazamiento)
+                .isGreaterThanOrEqualTo(0L)
+                .isLessThan(TOLERANCIA_MS));
+    }
+
+    @Test
+    @DisplayName("Debe ejecutar enseguida una tarea cuyo instante ya pasó")
+    void shouldRunPastTaskImmediately() throws Exception {
+        RuedaTemporal rueda = rueda(16, Runnable::run);
+        CountDownLatch ejecutada = new CountDownLatch(1);
+
+        rueda.programar(Instant.now().minusSeconds(60), ejecutada::countDown);
+
+        assertThat(ejecutada.await(TOLERANCIA_MS, TimeUnit.MILLISECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("No debe ejecutar una tarea cancelada antes de su vencimiento")
+    void shouldNotRunCancelledTask() throws Exception {
+        RuedaTemporal rueda = rueda(16, Runnable::run);
+        AtomicBoolean cancelada = new AtomicBoolean();
+        CountDownLatch testigo = new CountDownLatch(1);
+
+        Instant instante = Instant.now().plusMillis(100);
+        RuedaTemporal.Programacion programacion = rueda.programar(instante, () -> cancelada.set(true));
+        rueda.programar(instante.plusMillis(50), testigo::countDown);
+        programacion.cancelar();
+
+        assertThat(testigo.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(cancelada.get()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Debe reintentar una tarea que el executor rechazó por estar saturado")
+    void shouldRetryRejectedTask() throws Exception {
+        AtomicInteger intentos = new AtomicInteger();
+        Executor saturadoUnaVez = tarea -> {
+            if (intentos.incrementAndGet() == 1) {
+                throw new RejectedExecutionException("cola llena");
+            }
+            tarea.run();
+        };
+        RuedaTemporal rueda = rueda(16, saturadoUnaVez);
+        CountDownLatch ejecutada = new CountDownLatch(1);
+
+        rueda.programar(Instant.now().plusMillis(20), ejecutada::countDown);
+
+        assertThat(ejecutada.await(3, TimeUnit.SECONDS)).isTrue();
+        assertThat(intentos.get()).isEqualTo(2);
+    }
+}
@@ -19,6 +19,7 @@ public class SecurityConfig {
                 .oauth2ResourceServer(oauth2 -> oauth2.jwt())  // JWT
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/actuator/**").permitAll()  // Permitir health checks
+                        .requestMatchers("/internal/empresa-usuario/**").permitAll()  // Invalidación desde administración: sin JWT, la valida X-Internal-Token
                         .anyRequest().authenticated()
                 )
                 .csrf(csrf -> csrf.disable());  // CSRF desactivado para APIs REST
@@ -3,6 +3,7 @@ package pronostico.services;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -11,6 +12,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Servicio para comunicarse con el microservicio de Administracion.
  */
@@ -21,16 +26,37 @@ public class AdministracionService {
 
     private final RestTemplate restTemplate = new RestTemplate();
 
+    private final EmpresaUsuarioCache empresaUsuarioCache;
+
     @Value("${mycfo.administracion.url}")
     private String administracionUrl;
 
     /**
-     * Obtiene el ID de empresa de un usuario por su sub (Cognito)
+     * Obtiene el ID de empresa de un usuario por su sub (Cognito). El resultado se cachea
+     * (ver EmpresaUsuarioCache), así que solo la primera llamada por usuario va a administración.
      * @param usuarioSub Sub del usuario de Cognito
      * @return ID de la empresa del usuario
      * @throws RuntimeException si el usuario no existe o no tiene empresa asociada
      */
     public Long obtenerEmpresaIdPorUsuarioSub(String usuarioSub) {
+        Long empresaId = empresaUsuarioCache.obtener(usuarioSub, this::consultarEmpresaId);
+        if (empresaId == null) {
+            throw new RuntimeException("Usuario no encontrado o sin empresa asociada: " + usuarioSub);
+        }
+        return empresaId;
+    }
+
+    /**
+     * Obtiene las empresas de varios usuarios con una sola llamada a administración (solo para los
+     * que no están en caché).
+     * @return ID de empresa por sub; los usuarios inexistentes o sin empresa no aparecen
+     */
+    public Map<String, Long> obtenerEmpresaIdsPorUsuarioSubs(Collection<String> usuarioSubs) {
+        return empresaUsuarioCache.obtenerTodos(usuarioSubs, this::consultarEmpresaIds);
+    }
+
+    // null si el usuario no existe o no tiene empresa; excepción si falló la comunicación
+    private Long consultarEmpresaId(String usuarioSub) {
         try {
             String url = administracionUrl + "/api/empresas/usuario/" + usuarioSub + "/id";
             log.info("Llamando a administración para obtener empresa del usuario: {}", usuarioSub);
@@ -38,22 +64,35 @@ public class AdministracionService {
             
             Long empresaId = restTemplate.getForObject(url, Long.class);
             
-            if (empresaId == null) {
-                throw new RuntimeException("El usuario no tiene empresa asociada");
-            }
-            
             log.info("Empresa ID obtenida: {} para usuario: {}", empresaId, usuarioSub);
             return empresaId;
             
         } catch (HttpClientErrorException.NotFound e) {
             log.error("Usuario no encontrado o sin empresa: {}", usuarioSub);
-            throw new RuntimeException("Usuario no encontrado o sin empresa asociada: " + usuarioSub);
+            return null;
         } catch (Exception e) {
             log.error("Error al obtener empresa del usuario {}: {}", usuarioSub, e.getMessage());
             throw new RuntimeException("Error al comunicarse con el servicio de administración", e);
         }
     }
 
+    private Map<String, Long> consultarEmpresaIds(Collection<String> usuarioSubs) {
+        try {
+            String url = administracionUrl + "/api/empresas/usuarios/ids";
+            log.info("Llamando a administración para obtener empresa de {} usuarios", usuarioSubs.size());
+            ResponseEntity<Map<String, Long>> response = restTemplate.exchange(
+                    url,
+                    HttpMethod.POST,
+                    new HttpEntity<>(List.copyOf(usuarioSubs)),
+                    new ParameterizedTypeReference<Map<String, Long>>() {}
+            );
+            return response.getBody() != null ? response.getBody() : Map.of();
+        } catch (Exception e) {
+            log.error("Error al obtener empresas de {} usuarios: {}", usuarioSubs.size(), e.getMessage());
+            throw new RuntimeException("Error al comunicarse con el servicio de administración", e);
+        }
+    }
+
     /**
      * Verifica si el usuario indicado es administrador según el microservicio de administración.
      */
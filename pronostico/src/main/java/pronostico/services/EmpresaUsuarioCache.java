@@ -0,0 +1,142 @@
+package pronostico.services;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Caché local sub → empresaId de las consultas a administración, sobre Caffeine.
+ * <ul>
+ *   <li>Las entradas vencen por TTL; los usuarios inexistentes o sin empresa también se guardan
+ *       (caché negativa) con un TTL más corto.</li>
+ *   <li>Las consultas concurrentes por el mismo sub esperan a una sola llamada HTTP, que corre en
+ *       el hilo del primero que la pidió.</li>
+ *   <li>Administración avisa cuando cambia la empresa de un usuario (ver EmpresaUsuarioController);
+ *       invalidar también descarta las consultas en curso, así su resultado viejo no se guarda.</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class EmpresaUsuarioCache {
+
+    // Optional.empty() = el usuario no existe o no tiene empresa
+    private final AsyncCache<String, Optional<Long>> empresas;
+
+    @Autowired
+    public EmpresaUsuarioCache(
+            @Value("${mycfo.administracion.cache.ttl-segundos:300}") long ttlSegundos,
+            @Value("${mycfo.administracion.cache.ttl-negativo-segundos:30}") long ttlNegativoSegundos,
+            @Value("${mycfo.administracion.cache.max-entradas:10000}") int maxEntradas) {
+        this(Duration.ofSeconds(Math.max(0, ttlSegundos)), Duration.ofSeconds(Math.max(0, ttlNegativoSegundos)),
+                maxEntradas, Ticker.systemTicker());
+    }
+
+    EmpresaUsuarioCache(Duration ttl, Duration ttlNegativo, int maxEntradas, Ticker ticker) {
+        this.empresas = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, maxEntradas))
+                .expireAfter(new Expiry<String, Optional<Long>>() {
+                    @Override
+                    public long expireAfterCreate(String sub, Optional<Long> empresaId, long ahora) {
+                        return (empresaId.isPresent() ? ttl : ttlNegativo).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String sub, Optional<Long> empresaId, long ahora, long restante) {
+                        return expireAfterCreate(sub, empresaId, ahora);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String sub, Optional<Long> empresaId, long ahora, long restante) {
+                        return restante;
+                    }
+                })
+                .ticker(ticker)
+                .buildAsync();
+    }
+
+    /**
+     * Devuelve la empresa del usuario, consultando a administración solo si no está en caché.
+     *
+     * @param cargar Consulta a administración: null si el usuario no existe o no tiene empresa;
+     *               una excepción si falló la comunicación (no se cachea)
+     * @return ID de la empresa, o null si el usuario no existe o no tiene empresa
+     */
+    public Long obtener(String usuarioSub, Function<String, Long> cargar) {
+        CompletableFuture<Optional<Long>> propia = new CompletableFuture<>();
+        CompletableFuture<Optional<Long>> consulta = empresas.get(usuarioSub, (sub, executor) -> propia);
+        if (consulta == propia) {
+            // La consulta se hace fuera de Caffeine: no bloquea a otros subs mientras espera la respuesta
+            try {
+                propia.complete(Optional.ofNullable(cargar.apply(usuarioSub)));
+            } catch (RuntimeException e) {
+                propia.completeExceptionally(e);
+            }
+        }
+        return esperar(consulta).orElse(null);
+    }
+
+    /**
+     * Versión por lote de obtener: los subs que no están en caché se resuelven con una sola consulta.
+     *
+     * @param cargarTodos Consulta a administración; los subs ausentes del resultado se toman como
+     *                    inexistentes o sin empresa
+     * @return empresaId por sub, solo para los usuarios que tienen empresa
+     */
+    public Map<String, Long> obtenerTodos(Collection<String> usuarioSubs,
+                                          Function<Collection<String>, Map<String, Long>> cargarTodos) {
+        List<String> subs = usuarioSubs.stream().filter(Objects::nonNull).distinct().toList();
+        CompletableFuture<Map<String, Optional<Long>>> consulta = empresas.getAll(subs, (faltantes, executor) -> {
+            try {
+                Map<String, Long> cargados = cargarTodos.apply(faltantes);
+                Map<String, Optional<Long>> resultado = new HashMap<>();
+                for (String sub : faltantes) {
+                    resultado.put(sub, Optional.ofNullable(cargados != null ? cargados.get(sub) : null));
+                }
+                return CompletableFuture.completedFuture(resultado);
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+        return esperar(consulta).entrySet().stream()
+                .filter(entrada -> entrada.getValue().isPresent())
+                .collect(Collectors.toMap(Map.Entry::getKey, entrada -> entrada.getValue().get()));
+    }
+
+    public void invalidar(Collection<String> usuarioSubs) {
+        empresas.synchronous().invalidateAll(usuarioSubs);
+        log.debug("Caché de empresa invalidada para {} usuario(s)", usuarioSubs.size());
+    }
+
+    public void invalidarTodo() {
+        empresas.synchronous().invalidateAll();
+        log.debug("Caché de empresa por usuario vaciada");
+    }
+
+    private static <T> T esperar(CompletableFuture<T> consulta) {
+        try {
+            return consulta.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+}
@@ -80,17 +80,26 @@ public class PresupuestoService {
         if (pendientes.isEmpty()) {
             return;
         }
-        Map<String, Long> cache = new HashMap<>();
+        // Una sola consulta a administración para todos los dueños del lote
+        Map<String, Long> empresas;
+        try {
+            empresas = administracionService.obtenerEmpresaIdsPorUsuarioSubs(pendientes.stream()
+                .map(Presupuesto::getOwnerSub)
+                .collect(Collectors.toSet()));
+        } catch (RuntimeException ex) {
+            log.warn("No se pudo resolver la organizacion de {} presupuestos pendientes", pendientes.size());
+            return;
+        }
         List<Presupuesto> actualizados = pendientes.stream()
             .peek(presupuesto -> {
                 if (presupuesto.getOrganizacionId() != null) {
                     return;
                 }
                 String owner = presupuesto.getOwnerSub();
-                try {
-                    Long resolved = cache.computeIfAbsent(owner, administracionService::obtenerEmpresaIdPorUsuarioSub);
+                Long resolved = empresas.get(owner);
+                if (resolved != null) {
                     presupuesto.setOrganizacionId(resolved);
-                } catch (RuntimeException ex) {
+                } else {
                     log.warn("No se pudo asignar organizacion al presupuesto {} (ownerSub={})", presupuesto.getId(), owner);
                 }
             })
@@ -0,0 +1,25 @@
+package registro.cargarDatos.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registra en HQL la relevancia MATCH ... AGAINST sobre el índice FULLTEXT ft_registro_texto
+ * (ver BusquedaTextoRepository). Las columnas deben pasarse en el mismo orden que en el índice:
+ * origenNombre, origenCuit, destinoNombre, destinoCuit, descripcion y por último la consulta
+ * booleana armada por BusquedaTextoService.
+ */
+public class BusquedaTextoFunctionContributor implements FunctionContributor {
+
+    public static final String RELEVANCIA_MOVIMIENTO = "relevancia_texto_movimiento";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        functionContributions.getFunctionRegistry().registerPattern(
+                RELEVANCIA_MOVIMIENTO,
+                "match(?1, ?2, ?3, ?4, ?5) against(?6 in boolean mode)",
+                functionContributions.getTypeConfiguration().getBasicTypeRegistry()
+                        .resolve(StandardBasicTypes.DOUBLE));
+    }
+}
@@ -1,27 +1,61 @@
 package registro.cargarDatos.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.List;
+
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
-    @Bean
-    public CacheManager cacheManager() {
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
-        
-        // Configurar los nombres de caché que usaremos
-        cacheManager.setCacheNames(java.util.Arrays.asList(
+    /**
+     * Cachés de resúmenes por organización. Sus claves empiezan con "<organizacionId>_" para poder
+     * invalidarlas por empresa (ver ResumenCacheService).
+     */
+    public static final List<String> CACHES_POR_ORGANIZACION = List.of(
+            "dashboardResumen",
+            "resumenMensual",
+            "montosMensuales",
+            "montosPorCategoria",
+            "resumenConciliacion",
+            "saldoTotal",
             "movimientosPresupuesto"
-        ));
-        
-        // Permitir crear cachés dinámicamente si es necesario
+    );
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${registro.cache.resumen.ttl-segundos:300}") long ttlResumen,
+            @Value("${registro.cache.resumen.max-entradas:2000}") long maxResumen,
+            @Value("${registro.cache.presupuesto.ttl-segundos:600}") long ttlPresupuesto,
+            @Value("${registro.cache.presupuesto.max-entradas:500}") long maxPresupuesto) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
         cacheManager.setAllowNullValues(false);
-        
+
+        // Cualquier caché creada dinámicamente también queda acotada
+        cacheManager.setCaffeine(configuracion(ttlResumen, maxResumen));
+
+        for (String nombre : CACHES_POR_ORGANIZACION) {
+            Caffeine<Object, Object> caffeine = "movimientosPresupuesto".equals(nombre)
+                    ? configuracion(ttlPresupuesto, maxPresupuesto)
+                    : configuracion(ttlResumen, maxResumen);
+            cacheManager.registerCustomCache(nombre, caffeine.build());
+        }
+
         return cacheManager;
     }
+
+    // TTL + tamaño máximo; recordStats expone hits/misses/evictions en /actuator/metrics (cache.*)
+    private Caffeine<Object, Object> configuracion(long ttlSegundos, long maxEntradas) {
+        return Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .maximumSize(maxEntradas)
+                .recordStats();
+    }
 }
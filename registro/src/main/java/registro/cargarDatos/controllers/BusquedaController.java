@@ -0,0 +1,38 @@
+package registro.cargarDatos.controllers;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import registro.cargarDatos.dtos.BusquedaTextoResponse;
+import registro.cargarDatos.services.BusquedaTextoService;
+import registro.services.AdministracionService;
+
+@RestController
+@RequestMapping("/busqueda")
+@RequiredArgsConstructor
+@Slf4j
+public class BusquedaController {
+
+    private final BusquedaTextoService busquedaTextoService;
+    private final AdministracionService administracionService;
+
+    /**
+     * Busca movimientos y facturas de la empresa del usuario por nombre, CUIT, descripción o
+     * número de documento. Cada término se busca como prefijo y los resultados vienen ordenados
+     * por relevancia.
+     */
+    @GetMapping
+    public ResponseEntity<BusquedaTextoResponse> buscar(
+            @RequestHeader(value = "X-Usuario-Sub") String usuarioSub,
+            @RequestParam("q") String texto,
+            @RequestParam(defaultValue = "20") int limite) {
+        try {
+            Long empresaId = administracionService.obtenerEmpresaIdPorUsuarioSub(usuarioSub);
+            return ResponseEntity.ok(busquedaTextoService.buscar(empresaId, texto, limite));
+        } catch (RuntimeException e) {
+            log.error("Error en la búsqueda de texto: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
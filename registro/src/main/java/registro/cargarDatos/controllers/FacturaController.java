@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import registro.cargarDatos.dtos.PaginaCursor;
 import registro.cargarDatos.models.Factura;
 import registro.cargarDatos.services.FacturaService;
 import registro.services.AdministracionService;
@@ -179,6 +180,43 @@ public class FacturaController {
         }
     }
 
+    /**
+     * Facturas de la empresa del usuario paginadas por cursor (fechaEmision, idDocumento), con los
+     * filtros de /buscar. Reemplaza a /paginadas y /buscar para listados profundos.
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<PaginaCursor<Factura>> buscarFacturasPorCursor(
+            @RequestHeader(value = "X-Usuario-Sub") String usuarioSub,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) java.time.LocalDate fechaDesde,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) java.time.LocalDate fechaHasta,
+            @RequestParam(required = false) String tipoFactura,
+            @RequestParam(required = false) registro.cargarDatos.models.EstadoPago estadoPago,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean incluirTotal
+    ) {
+        try {
+            Long empresaId = administracionService.obtenerEmpresaIdPorUsuarioSub(usuarioSub);
+            PaginaCursor<Factura> facturas = facturaService.buscarFacturasPorCursor(
+                    empresaId,
+                    null,
+                    fechaDesde,
+                    fechaHasta,
+                    tipoFactura,
+                    estadoPago,
+                    cursor,
+                    size,
+                    sortDir.equalsIgnoreCase("asc"),
+                    incluirTotal
+            );
+            return ResponseEntity.ok(facturas);
+        } catch (RuntimeException e) {
+            log.error("Error al obtener facturas por cursor: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/mensuales")
     public ResponseEntity<Map<java.time.YearMonth, List<Factura>>> obtenerFacturasMensuales(
             @RequestHeader(value = "X-Usuario-Sub") String usuarioSub,
@@ -14,12 +14,12 @@ import registro.cargarDatos.dtos.DashboardSummaryResponse;
 import registro.cargarDatos.dtos.MontosMensualesResponse;
 import registro.cargarDatos.dtos.MontosPorCategoriaResponse;
 import registro.cargarDatos.dtos.MovimientosPresupuestoResponse;
+import registro.cargarDatos.dtos.PaginaCursor;
 import registro.cargarDatos.dtos.ResumenMensualResponse;
 import registro.cargarDatos.dtos.SaldoTotalResponse;
-import registro.cargarDatos.models.Factura;
 import registro.cargarDatos.models.Movimiento;
 import registro.cargarDatos.models.TipoMovimiento;
-import registro.cargarDatos.services.FacturaService;
+import registro.cargarDatos.services.DashboardService;
 import registro.cargarDatos.services.MovimientoService;
 import registro.services.AdministracionService;
 
@@ -34,8 +34,8 @@ import java.util.Map;
 public class MovimientoController {
 
     private final MovimientoService movimientoService;
-    private final FacturaService facturaService;
     private final AdministracionService administracionService;
+    private final DashboardService dashboardService;
 
     /**
      * Crear un nuevo movimiento
@@ -185,6 +185,48 @@ public class MovimientoController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    /**
+     * Movimientos de la empresa del usuario paginados por cursor (fechaEmision, id). Para la
+     * página siguiente se envía el siguienteCursor de la respuesta; el total es opcional.
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<PaginaCursor<Movimiento>> obtenerMovimientosPorCursor(
+            @RequestHeader(value = "X-Usuario-Sub") String usuarioSub,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaDesde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaHasta,
+            @RequestParam(required = false) List<TipoMovimiento> tipos,
+            @RequestParam(required = false) Boolean conciliado,
+            @RequestParam(required = false) String nombreRelacionado,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean incluirTotal) {
+
+        try {
+            Long empresaId = administracionService.obtenerEmpresaIdPorUsuarioSub(usuarioSub);
+
+            PaginaCursor<Movimiento> pagina = movimientoService.obtenerMovimientosPorCursor(
+                    empresaId,
+                    null,
+                    fechaDesde,
+                    fechaHasta,
+                    tipos,
+                    conciliado,
+                    nombreRelacionado,
+                    cursor,
+                    size,
+                    sortDir.equalsIgnoreCase("asc"),
+                    incluirTotal
+            );
+
+            return ResponseEntity.ok(pagina);
+
+        } catch (RuntimeException e) {
+            log.error("Error al obtener movimientos por cursor: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
     
     /**
      * Obtener todos los movimientos sin paginación
@@ -322,72 +364,15 @@ public class MovimientoController {
             int limiteMovsSeguros = limiteMovimientos != null ? Math.max(limiteMovimientos, 1) : 6;
             int limiteFactSeguros = limiteFacturas != null ? Math.max(limiteFacturas, 1) : 6;
 
-            ResumenMensualResponse resumenMensual = movimientoService.obtenerResumenMensual(empresaId, null, fechaBase);
-            MontosMensualesResponse ingresosMensuales = movimientoService.obtenerIngresosMensuales(
-                    empresaId,
-                    usuarioSub,
-                    fechaBase,
-                    mesesSeguros
-            );
-            MontosMensualesResponse egresosMensuales = movimientoService.obtenerEgresosMensuales(
+            // Las secciones se consultan en paralelo; las que no responden a tiempo vuelven marcadas
+            DashboardSummaryResponse response = dashboardService.obtenerResumen(
                     empresaId,
                     usuarioSub,
                     fechaBase,
-                    mesesSeguros
-            );
-            MontosPorCategoriaResponse ingresosPorCategoria = movimientoService.obtenerIngresosPorCategoria(
-                    empresaId,
-                    usuarioSub,
-                    fechaBase
-            );
-            MontosPorCategoriaResponse egresosPorCategoria = movimientoService.obtenerEgresosPorCategoria(
-                    empresaId,
-                    usuarioSub,
-                    fechaBase
+                    mesesSeguros,
+                    limiteMovsSeguros,
+                    limiteFactSeguros
             );
-            ConciliacionResumenResponse conciliacion = movimientoService.obtenerResumenConciliacion(
-                    empresaId,
-                    usuarioSub,
-                    fechaBase
-            );
-
-            Double saldoTotalValor = movimientoService.obtenerSaldoTotalEmpresa(empresaId);
-            SaldoTotalResponse saldoTotal = SaldoTotalResponse.builder()
-                    .organizacionId(empresaId)
-                    .saldoTotal(saldoTotalValor)
-                    .build();
-
-            Pageable movimientosPageable = PageRequest.of(0, limiteMovsSeguros, Sort.by(Sort.Direction.DESC, "fechaEmision"));
-            Page<Movimiento> movimientosPage = movimientoService.obtenerMovimientos(
-                    empresaId,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    movimientosPageable
-            );
-            List<Movimiento> movimientosRecientes = movimientosPage.getContent();
-
-            Pageable facturasPageable = PageRequest.of(0, limiteFactSeguros, Sort.by(Sort.Direction.DESC, "fechaEmision"));
-            org.springframework.data.domain.Page<Factura> facturasPage = facturaService.listarPaginadasPorOrganizacion(
-                    empresaId,
-                    facturasPageable
-            );
-            List<Factura> facturasRecientes = facturasPage.getContent();
-
-            DashboardSummaryResponse response = DashboardSummaryResponse.builder()
-                    .resumenMensual(resumenMensual)
-                    .saldoTotal(saldoTotal)
-                    .ingresosMensuales(ingresosMensuales)
-                    .egresosMensuales(egresosMensuales)
-                    .ingresosPorCategoria(ingresosPorCategoria)
-                    .egresosPorCategoria(egresosPorCategoria)
-                    .conciliacion(conciliacion)
-                    .movimientosRecientes(movimientosRecientes)
-                    .facturasRecientes(facturasRecientes)
-                    .build();
 
             return ResponseEntity.ok(response);
         } catch (RuntimeException e) {
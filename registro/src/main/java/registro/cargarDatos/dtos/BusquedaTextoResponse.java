@@ -0,0 +1,14 @@
+package registro.cargarDatos.dtos;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+@Builder
+public class BusquedaTextoResponse {
+    String texto;
+    List<ResultadoBusquedaTexto> movimientos;
+    List<ResultadoBusquedaTexto> facturas;
+}
@@ -0,0 +1,36 @@
+package registro.cargarDatos.dtos;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Posición de una página por cursor: fecha de emisión e id de la última fila entregada. Viaja al
+ * cliente como texto opaco (base64 de "fecha|id"); la fila siguiente se busca con el índice
+ * (organizacion_id, fecha_emision, id) en lugar de saltear offset filas.
+ */
+public record CursorFechaId(LocalDateTime fecha, Long id) {
+
+    public String codificar() {
+        String plano = fecha + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return El cursor, o null si el texto está vacío (primera página)
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    public static CursorFechaId decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String plano = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int separador = plano.lastIndexOf('|');
+            return new CursorFechaId(LocalDateTime.parse(plano.substring(0, separador)),
+                    Long.parseLong(plano.substring(separador + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido: " + cursor, e);
+        }
+    }
+}
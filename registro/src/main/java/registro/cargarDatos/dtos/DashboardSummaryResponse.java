@@ -20,4 +20,11 @@ public class DashboardSummaryResponse {
     ConciliacionResumenResponse conciliacion;
     List<Movimiento> movimientosRecientes;
     List<Factura> facturasRecientes;
+
+    // true si alguna sección no respondió a tiempo o falló
+    boolean parcial;
+    // Secciones servidas con el último valor calculado (pueden estar desactualizadas)
+    List<String> seccionesDesactualizadas;
+    // Secciones sin datos (falló y no había un valor anterior)
+    List<String> seccionesNoDisponibles;
 }
@@ -0,0 +1,13 @@
+package registro.cargarDatos.dtos;
+
+import java.util.List;
+
+/**
+ * Respuesta de notificación a un lote de MovementCreatedEvent: los refId que no pudo procesar
+ * se reintentan, el resto se da por entregado.
+ */
+public record MovementBatchResult(
+        int received,
+        int processed,
+        List<String> failedRefIds
+) {}
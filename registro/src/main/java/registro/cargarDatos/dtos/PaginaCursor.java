@@ -0,0 +1,42 @@
+package registro.cargarDatos.dtos;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de un listado por cursor. total solo se calcula si se pide (es un COUNT sobre todo el
+ * filtro); para recorrer el listado alcanza con pedir siguienteCursor hasta que hayMas sea false.
+ */
+@Value
+public class PaginaCursor<T> {
+
+    public static final int TAMANIO_MAXIMO = 1000;
+
+    List<T> contenido;
+    int tamanio;
+    boolean hayMas;
+    String siguienteCursor;
+    Long total;
+
+    /**
+     * Arma la página a partir de hasta tamanio + 1 filas: la fila extra solo indica que hay más.
+     */
+    public static <T> PaginaCursor<T> de(List<T> filas, int tamanio, Function<T, CursorFechaId> claveDe, Long total) {
+        boolean hayMas = filas.size() > tamanio;
+        List<T> contenido = hayMas ? List.copyOf(filas.subList(0, tamanio)) : filas;
+        String siguiente = (hayMas && !contenido.isEmpty())
+                ? claveDe.apply(contenido.get(contenido.size() - 1)).codificar()
+                : null;
+        return new PaginaCursor<>(contenido, tamanio, hayMas, siguiente, total);
+    }
+
+    public static int tamanioValido(int tamanio) {
+        return Math.min(Math.max(1, tamanio), TAMANIO_MAXIMO);
+    }
+
+    public <R> PaginaCursor<R> map(Function<T, R> conversion) {
+        return new PaginaCursor<>(contenido.stream().map(conversion).toList(), tamanio, hayMas, siguienteCursor, total);
+    }
+}
@@ -0,0 +1,17 @@
+package registro.cargarDatos.dtos;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+@Builder
+public class ResultadoBusquedaTexto {
+    Long id;
+    String titulo;   // descripción del movimiento o número de la factura
+    String detalle;  // origen/destino o vendedor/comprador
+    LocalDateTime fecha;
+    Double monto;
+    Double relevancia;
+}
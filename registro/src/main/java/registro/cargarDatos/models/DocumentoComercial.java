@@ -10,6 +10,11 @@ import java.util.UUID;
 @Getter
 @Setter
 @Entity
+@Table(indexes = {
+        // Búsqueda de candidatos de conciliación por banda de monto o ventana de fechas
+        @Index(name = "idx_documento_org_monto", columnList = "organizacion_id,monto_total"),
+        @Index(name = "idx_documento_org_fecha", columnList = "organizacion_id,fecha_emision")
+})
 @Inheritance(strategy = InheritanceType.JOINED)
 public abstract class DocumentoComercial {
 
@@ -47,4 +52,8 @@ public abstract class DocumentoComercial {
     // Organización a la que pertenece el documento
     private Long organizacionId; //interno
 
+    // Conciliación: suma (valor absoluto) y cantidad de movimientos vinculados, mantenidos por MontoConciliadoService
+    private Double montoConciliado; //interno
+    private Integer cantidadMovimientosConciliados; //interno
+
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package registro.cargarDatos.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento "movimiento creado" pendiente de enviar a notificación (outbox). Se inserta en la misma
+ * transacción que el movimiento, así que no se pierde si notificación está caída ni se envía si
+ * el alta hace rollback; EventoMovimientoScheduler los envía en lotes.
+ */
+@Entity
+@Table(name = "evento_movimiento",
+        indexes = @Index(name = "idx_evento_movimiento_estado", columnList = "estado,disponible_desde"))
+@Getter
+@Setter
+public class EventoMovimiento {
+
+    public enum Estado { PENDIENTE, EN_PROCESO, ENVIADO, DESCARTADO }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Datos de MovementCreatedEvent, copiados al crear el movimiento
+    @Column(nullable = false)
+    private Long movimientoId;
+
+    @Column(nullable = false)
+    private String usuarioId;
+
+    private LocalDateTime fechaEmision;
+
+    private Double montoTotal;
+
+    @Column(length = 1000)
+    private String descripcion;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Estado estado = Estado.PENDIENTE;
+
+    private int intentos;
+
+    // No se toma antes de esta fecha (espacia los reintentos)
+    @Column(nullable = false)
+    private LocalDateTime disponibleDesde;
+
+    // Lote del envío que lo tomó y hasta cuándo (si el proceso muere, otro lo retoma)
+    @Column(length = 36)
+    private String lote;
+
+    private LocalDateTime bloqueadoHasta;
+
+    @Column(length = 1000)
+    private String error;
+
+    @Column(nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    private LocalDateTime fechaEnviado;
+}
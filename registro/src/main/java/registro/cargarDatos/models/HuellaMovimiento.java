@@ -0,0 +1,49 @@
+package registro.cargarDatos.models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Huella de un movimiento para detectar duplicados al importar: SHA-256 de la fecha (solo día),
+ * el tipo, el monto absoluto redondeado a centavos, la descripción y el origen normalizados (sin
+ * espacios extra y en minúsculas). El monto va sin signo porque los importadores lo leen crudo y
+ * el movimiento se guarda con el signo normalizado según el tipo; el tipo es lo que distingue un
+ * cobro de su reverso.
+ */
+public final class HuellaMovimiento {
+
+    private HuellaMovimiento() {
+    }
+
+    public static String de(Movimiento movimiento) {
+        return de(movimiento.getFechaEmision() != null ? movimiento.getFechaEmision().toLocalDate() : null,
+                movimiento.getTipo() != null ? movimiento.getTipo().name() : null,
+                movimiento.getMontoTotal(), movimiento.getDescripcion(), movimiento.getOrigenNombre());
+    }
+
+    public static String de(LocalDate fecha, String tipo, Double monto, String descripcion, String origen) {
+        String clave = (fecha != null ? fecha.toString() : "")
+                + "|" + normalizar(tipo)
+                + "|" + (monto != null
+                        ? BigDecimal.valueOf(Math.abs(monto)).setScale(2, RoundingMode.HALF_UP).toPlainString()
+                        : "")
+                + "|" + normalizar(descripcion)
+                + "|" + normalizar(origen);
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha.digest(clave.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static String normalizar(String texto) {
+        return texto != null ? texto.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT) : "";
+    }
+}
@@ -11,7 +11,13 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "registro") // Mantener nombre de tabla para compatibilidad con BD existente
+@Table(name = "registro", // Mantener nombre de tabla para compatibilidad con BD existente
+        indexes = {
+                @Index(name = "idx_registro_org_huella", columnList = "organizacion_id,huella_duplicado"),
+                // Listados por cursor (fecha_emision, id) por empresa y globales (conciliación)
+                @Index(name = "idx_registro_org_fecha_id", columnList = "organizacion_id,fecha_emision,id"),
+                @Index(name = "idx_registro_fecha_id", columnList = "fecha_emision,id")
+        })
 @Getter
 @Setter
 public class Movimiento {
@@ -99,5 +105,16 @@ public class Movimiento {
     @Enumerated(EnumType.STRING)
     private EstadoMovimiento estado;
 
+    // Huella para detectar duplicados al importar (ver HuellaMovimiento); se recalcula al guardar
+    @Column(name = "huella_duplicado", length = 64)
+    @JsonIgnore
+    private String huellaDuplicado;
+
+    @PrePersist
+    @PreUpdate
+    void calcularHuellaDuplicado() {
+        this.huellaDuplicado = HuellaMovimiento.de(this);
+    }
+
 }
 
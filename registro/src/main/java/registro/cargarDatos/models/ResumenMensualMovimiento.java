@@ -0,0 +1,50 @@
+package registro.cargarDatos.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Acumulado mensual de movimientos por (organización, período, tipo, categoría, moneda).
+ * Se mantiene en cada alta/edición/baja de movimientos para que el dashboard lea unas pocas filas
+ * en lugar de agregar toda la tabla registro. Las claves sin valor se guardan como '' para que
+ * la restricción única funcione (MySQL no compara NULL en índices únicos).
+ */
+@Entity
+@Table(name = "registro_resumen_mensual",
+        uniqueConstraints = @UniqueConstraint(name = "uk_resumen_mensual_clave",
+                columnNames = {"organizacion_id", "periodo", "tipo", "categoria", "moneda"}),
+        indexes = @Index(name = "idx_resumen_mensual_org_tipo_periodo", columnList = "organizacion_id,tipo,periodo"))
+@Getter
+@Setter
+public class ResumenMensualMovimiento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long organizacionId;
+
+    // YYYY-MM (YearMonth#toString)
+    @Column(nullable = false, length = 7)
+    private String periodo;
+
+    // TipoMovimiento#name, '' si el movimiento no tiene tipo
+    @Column(nullable = false, length = 20)
+    private String tipo;
+
+    // '' si el movimiento no tiene categoría
+    @Column(nullable = false)
+    private String categoria;
+
+    // TipoMoneda#name, '' si el movimiento no tiene moneda
+    @Column(nullable = false, length = 10)
+    private String moneda;
+
+    @Column(nullable = false)
+    private Double montoTotal;
+
+    @Column(nullable = false)
+    private Long cantidad;
+}
@@ -0,0 +1,167 @@
+package registro.cargarDatos.repositories;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import registro.cargarDatos.dtos.ResultadoBusquedaTexto;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Búsqueda de texto sobre movimientos y facturas con índices FULLTEXT de InnoDB. MySQL mantiene
+ * el índice invertido en cada INSERT/UPDATE, así que no hace falta reindexar desde la aplicación.
+ * Como ddl-auto no crea índices FULLTEXT, se agregan con db/migration/V1000__fulltext_busqueda.sql
+ * (o al arrancar con crearIndicesFaltantes, solo en bases locales).
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class BusquedaTextoRepository {
+
+    private record IndiceTexto(String tabla, String nombre, String columnas) {}
+
+    // El orden de columnas de ft_registro_texto es el que espera BusquedaTextoFunctionContributor
+    private static final List<IndiceTexto> INDICES = List.of(
+            new IndiceTexto("registro", "ft_registro_texto",
+                    "origen_nombre, origen_cuit, destino_nombre, destino_cuit, descripcion"),
+            new IndiceTexto("factura", "ft_factura_texto",
+                    "vendedor_nombre, vendedor_cuit, comprador_nombre, comprador_cuit"),
+            new IndiceTexto("documento_comercial", "ft_documento_numero", "numero_documento")
+    );
+
+    private static final String EXISTE_INDICE_SQL = """
+            SELECT COUNT(*) FROM information_schema.statistics
+            WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?
+            """;
+
+    private static final String MOVIMIENTOS_SQL = """
+            SELECT id, descripcion, origen_nombre, destino_nombre, fecha_emision, monto_total,
+                   MATCH(origen_nombre, origen_cuit, destino_nombre, destino_cuit, descripcion)
+                       AGAINST (? IN BOOLEAN MODE) AS relevancia
+            FROM registro
+            WHERE organizacion_id = ?
+              AND MATCH(origen_nombre, origen_cuit, destino_nombre, destino_cuit, descripcion)
+                  AGAINST (? IN BOOLEAN MODE)
+            ORDER BY relevancia DESC, fecha_emision DESC
+            LIMIT ?
+            """;
+
+    private static final String EXISTE_MOVIMIENTO_SQL = """
+            SELECT COUNT(*) FROM (
+                SELECT 1 FROM registro
+                WHERE organizacion_id = ?
+                  AND MATCH(origen_nombre, origen_cuit, destino_nombre, destino_cuit, descripcion)
+                      AGAINST (? IN BOOLEAN MODE)
+                LIMIT 1
+            ) t
+            """;
+
+    // Nombre/CUIT viven en factura y el número en documento_comercial. Un MATCH por tabla unido con
+    // OR sobre el JOIN no puede usar ninguno de los dos índices: cada tabla se consulta con el suyo
+    // y se suman las relevancias por documento. Cada parte filtra por organización antes de agrupar,
+    // para que el MATCH no recorra ni sume documentos de otras empresas.
+    private static final String FACTURAS_SQL = """
+            SELECT d.id_documento, d.numero_documento, f.vendedor_nombre, f.comprador_nombre,
+                   d.fecha_emision, d.monto_total, c.relevancia
+            FROM (
+                SELECT id_documento, SUM(relevancia) AS relevancia
+                FROM (
+                    SELECT fa.id_documento,
+                           MATCH(fa.vendedor_nombre, fa.vendedor_cuit, fa.comprador_nombre, fa.comprador_cuit)
+                               AGAINST (? IN BOOLEAN MODE) AS relevancia
+                    FROM factura fa
+                    JOIN documento_comercial dc ON dc.id_documento = fa.id_documento
+                    WHERE dc.organizacion_id = ?
+                      AND MATCH(fa.vendedor_nombre, fa.vendedor_cuit, fa.comprador_nombre, fa.comprador_cuit)
+                          AGAINST (? IN BOOLEAN MODE)
+                    UNION ALL
+                    SELECT id_documento, MATCH(numero_documento) AGAINST (? IN BOOLEAN MODE) AS relevancia
+                    FROM documento_comercial
+                    WHERE organizacion_id = ?
+                      AND MATCH(numero_documento) AGAINST (? IN BOOLEAN MODE)
+                ) coincidencias
+                GROUP BY id_documento
+            ) c
+            JOIN documento_comercial d ON d.id_documento = c.id_documento
+            JOIN factura f ON f.id_documento = d.id_documento
+            WHERE d.organizacion_id = ?
+            ORDER BY c.relevancia DESC, d.fecha_emision DESC
+            LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Crea los índices FULLTEXT que falten. En tablas grandes la primera creación tarda (MySQL
+     * reconstruye la tabla para agregar FTS_DOC_ID); las siguientes ejecuciones no hacen nada.
+     *
+     * @return Nombres de los índices creados
+     */
+    public List<String> crearIndicesFaltantes() {
+        List<String> creados = new ArrayList<>();
+        for (IndiceTexto indice : INDICES) {
+            Integer existe = jdbcTemplate.queryForObject(EXISTE_INDICE_SQL, Integer.class,
+                    indice.tabla(), indice.nombre());
+            if (existe != null && existe > 0) continue;
+            log.info("Creando índice FULLTEXT {} sobre {}({})", indice.nombre(), indice.tabla(), indice.columnas());
+            jdbcTemplate.execute("ALTER TABLE " + indice.tabla()
+                    + " ADD FULLTEXT INDEX " + indice.nombre() + " (" + indice.columnas() + ")");
+            creados.add(indice.nombre());
+        }
+        return creados;
+    }
+
+    /**
+     * Movimientos de la organización que coinciden con la consulta booleana, de mayor a menor relevancia.
+     */
+    public List<ResultadoBusquedaTexto> buscarMovimientos(Long organizacionId, String consulta, int limite) {
+        RowMapper<ResultadoBusquedaTexto> mapper = (rs, i) -> ResultadoBusquedaTexto.builder()
+                .id(rs.getLong("id"))
+                .titulo(rs.getString("descripcion"))
+                .detalle(unir(rs.getString("origen_nombre"), rs.getString("destino_nombre")))
+                .fecha(aLocalDateTime(rs.getTimestamp("fecha_emision")))
+                .monto(rs.getObject("monto_total", Double.class))
+                .relevancia(rs.getDouble("relevancia"))
+                .build();
+        return jdbcTemplate.query(MOVIMIENTOS_SQL, mapper, consulta, organizacionId, consulta, limite);
+    }
+
+    /**
+     * Facturas de la organización por vendedor/comprador (nombre o CUIT) o número de documento.
+     */
+    public List<ResultadoBusquedaTexto> buscarFacturas(Long organizacionId, String consulta, int limite) {
+        RowMapper<ResultadoBusquedaTexto> mapper = (rs, i) -> ResultadoBusquedaTexto.builder()
+                .id(rs.getLong("id_documento"))
+                .titulo(rs.getString("numero_documento"))
+                .detalle(unir(rs.getString("vendedor_nombre"), rs.getString("comprador_nombre")))
+                .fecha(aLocalDateTime(rs.getTimestamp("fecha_emision")))
+                .monto(rs.getObject("monto_total", Double.class))
+                .relevancia(rs.getDouble("relevancia"))
+                .build();
+        return jdbcTemplate.query(FACTURAS_SQL, mapper,
+                consulta, organizacionId, consulta, consulta, organizacionId, consulta, organizacionId, limite);
+    }
+
+    /**
+     * Si algún movimiento de la organización coincide con la consulta booleana.
+     */
+    public boolean existenMovimientos(Long organizacionId, String consulta) {
+        Integer cantidad = jdbcTemplate.queryForObject(EXISTE_MOVIMIENTO_SQL, Integer.class, organizacionId, consulta);
+        return cantidad != null && cantidad > 0;
+    }
+
+    private static String unir(String origen, String destino) {
+        if (origen == null) return destino;
+        if (destino == null) return origen;
+        return origen + " → " + destino;
+    }
+
+    private static LocalDateTime aLocalDateTime(Timestamp ts) {
+        return ts != null ? ts.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,54 @@
+package registro.cargarDatos.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import registro.cargarDatos.models.DocumentoComercial;
+
+import java.util.List;
+
+@Repository
+public interface DocumentoComercialRepository extends JpaRepository<DocumentoComercial, Long> {
+
+    /**
+     * Suma (o resta, con valores negativos) al agregado de conciliación de un documento.
+     * Nativa para que sea un único UPDATE atómico sobre documento_comercial, sin la estrategia
+     * multi-tabla que Hibernate usa en la herencia JOINED.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            UPDATE documento_comercial
+            SET monto_conciliado = COALESCE(monto_conciliado, 0) + :monto,
+                cantidad_movimientos_conciliados = COALESCE(cantidad_movimientos_conciliados, 0) + :cantidad
+            WHERE id_documento = :idDocumento
+            """, nativeQuery = true)
+    int sumarMontoConciliado(@Param("idDocumento") Long idDocumento,
+                             @Param("monto") Double monto,
+                             @Param("cantidad") Integer cantidad);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            UPDATE documento_comercial
+            SET monto_conciliado = :monto,
+                cantidad_movimientos_conciliados = :cantidad
+            WHERE id_documento = :idDocumento
+            """, nativeQuery = true)
+    int fijarMontoConciliado(@Param("idDocumento") Long idDocumento,
+                             @Param("monto") Double monto,
+                             @Param("cantidad") Integer cantidad);
+
+    // [montoConciliado, cantidadMovimientosConciliados] del documento, bloqueando la fila
+    @Query(value = """
+            SELECT monto_conciliado, cantidad_movimientos_conciliados
+            FROM documento_comercial
+            WHERE id_documento = :idDocumento
+            FOR UPDATE
+            """, nativeQuery = true)
+    List<Object[]> findMontoConciliadoParaActualizar(@Param("idDocumento") Long idDocumento);
+
+    // [idDocumento, montoConciliado, cantidadMovimientosConciliados]
+    @Query("SELECT d.idDocumento, d.montoConciliado, d.cantidadMovimientosConciliados FROM DocumentoComercial d")
+    List<Object[]> findMontosConciliados();
+}
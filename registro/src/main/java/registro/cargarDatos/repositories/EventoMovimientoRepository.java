@@ -0,0 +1,32 @@
+package registro.cargarDatos.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import registro.cargarDatos.models.EventoMovimiento;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EventoMovimientoRepository extends JpaRepository<EventoMovimiento, Long> {
+
+    // Marca hasta `limite` eventos disponibles (o abandonados por un envío que no terminó) con el lote dado
+    @Modifying
+    @Query(value = "UPDATE evento_movimiento SET estado = 'EN_PROCESO', lote = :lote, bloqueado_hasta = :hasta " +
+            "WHERE (estado = 'PENDIENTE' AND disponible_desde <= :ahora) " +
+            "OR (estado = 'EN_PROCESO' AND bloqueado_hasta < :ahora) " +
+            "ORDER BY id LIMIT :limite", nativeQuery = true)
+    int tomarLote(@Param("lote") String lote,
+                  @Param("ahora") LocalDateTime ahora,
+                  @Param("hasta") LocalDateTime hasta,
+                  @Param("limite") int limite);
+
+    List<EventoMovimiento> findByLoteOrderByIdAsc(String lote);
+
+    @Modifying
+    @Query("DELETE FROM EventoMovimiento e WHERE e.estado IN :estados AND e.fechaEnviado < :limite")
+    int eliminarTerminadosAntesDe(@Param("estados") Collection<EventoMovimiento.Estado> estados,
+                                  @Param("limite") LocalDateTime limite);
+}
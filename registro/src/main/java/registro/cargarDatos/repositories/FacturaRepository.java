@@ -1,5 +1,6 @@
 package registro.cargarDatos.repositories;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -8,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import registro.cargarDatos.models.Factura;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -53,4 +55,77 @@ public interface FacturaRepository extends JpaRepository<Factura, Long> {
                                  @Param("hasta") java.time.LocalDate hasta,
                                  @Param("tipoFactura") String tipoFactura,
                                  @Param("estadoPago") registro.cargarDatos.models.EstadoPago estadoPago);
+
+    // Filtros de la búsqueda de facturas por cursor (fechas como LocalDateTime, hasta exclusivo)
+    String FILTROS_FACTURAS_CURSOR = """
+            WHERE (:organizacionId IS NULL OR f.organizacionId = :organizacionId)
+            AND (:usuarioId IS NULL OR f.usuarioId = :usuarioId)
+            AND (:desde IS NULL OR f.fechaEmision >= :desde)
+            AND (:hasta IS NULL OR f.fechaEmision < :hasta)
+            AND (:tipoFactura IS NULL OR f.tipoFactura = :tipoFactura)
+            AND (:estadoPago IS NULL OR f.estadoPago = :estadoPago)
+            AND f.fechaEmision IS NOT NULL
+            """;
+
+    /**
+     * Página por cursor de la más reciente a la más antigua, sobre el índice
+     * (organizacion_id, fecha_emision) de documento_comercial (InnoDB agrega el id al final).
+     */
+    @Query("SELECT f FROM Factura f " + FILTROS_FACTURAS_CURSOR + """
+            AND (:cursorFecha IS NULL OR f.fechaEmision < :cursorFecha
+                 OR (f.fechaEmision = :cursorFecha AND f.idDocumento < :cursorId))
+            ORDER BY f.fechaEmision DESC, f.idDocumento DESC
+            """)
+    List<Factura> buscarFacturasAntesDe(@Param("organizacionId") Long organizacionId,
+                                        @Param("usuarioId") String usuarioId,
+                                        @Param("desde") LocalDateTime desde,
+                                        @Param("hasta") LocalDateTime hasta,
+                                        @Param("tipoFactura") String tipoFactura,
+                                        @Param("estadoPago") registro.cargarDatos.models.EstadoPago estadoPago,
+                                        @Param("cursorFecha") LocalDateTime cursorFecha,
+                                        @Param("cursorId") Long cursorId,
+                                        Limit limite);
+
+    @Query("SELECT f FROM Factura f " + FILTROS_FACTURAS_CURSOR + """
+            AND (:cursorFecha IS NULL OR f.fechaEmision > :cursorFecha
+                 OR (f.fechaEmision = :cursorFecha AND f.idDocumento > :cursorId))
+            ORDER BY f.fechaEmision ASC, f.idDocumento ASC
+            """)
+    List<Factura> buscarFacturasDespuesDe(@Param("organizacionId") Long organizacionId,
+                                          @Param("usuarioId") String usuarioId,
+                                          @Param("desde") LocalDateTime desde,
+                                          @Param("hasta") LocalDateTime hasta,
+                                          @Param("tipoFactura") String tipoFactura,
+                                          @Param("estadoPago") registro.cargarDatos.models.EstadoPago estadoPago,
+                                          @Param("cursorFecha") LocalDateTime cursorFecha,
+                                          @Param("cursorId") Long cursorId,
+                                          Limit limite);
+
+    @Query("SELECT COUNT(f) FROM Factura f " + FILTROS_FACTURAS_CURSOR)
+    long contarFacturas(@Param("organizacionId") Long organizacionId,
+                        @Param("usuarioId") String usuarioId,
+                        @Param("desde") LocalDateTime desde,
+                        @Param("hasta") LocalDateTime hasta,
+                        @Param("tipoFactura") String tipoFactura,
+                        @Param("estadoPago") registro.cargarDatos.models.EstadoPago estadoPago);
+
+    /**
+     * Candidatos de conciliación: documentos de la organización con monto dentro de la banda
+     * (positiva o negativa) O fecha dentro de la ventana. Usa los índices (organizacion_id, monto_total)
+     * y (organizacion_id, fecha_emision) de documento_comercial.
+     */
+    @Query("""
+            SELECT d FROM Factura d
+            WHERE (:organizacionId IS NULL OR d.organizacionId = :organizacionId)
+            AND (d.montoTotal BETWEEN :montoMin AND :montoMax
+                 OR d.montoTotal BETWEEN :montoMinNegativo AND :montoMaxNegativo
+                 OR (d.fechaEmision >= :fechaDesde AND d.fechaEmision < :fechaHasta))
+            """)
+    List<Factura> buscarCandidatosConciliacion(@Param("organizacionId") Long organizacionId,
+                                               @Param("montoMin") Double montoMin,
+                                               @Param("montoMax") Double montoMax,
+                                               @Param("montoMinNegativo") Double montoMinNegativo,
+                                               @Param("montoMaxNegativo") Double montoMaxNegativo,
+                                               @Param("fechaDesde") LocalDateTime fechaDesde,
+                                               @Param("fechaHasta") LocalDateTime fechaHasta);
 }
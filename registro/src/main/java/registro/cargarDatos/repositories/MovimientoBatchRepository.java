@@ -0,0 +1,202 @@
+package registro.cargarDatos.repositories;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import registro.cargarDatos.models.HuellaMovimiento;
+import registro.cargarDatos.models.Movimiento;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Inserción masiva de movimientos por JDBC. Movimiento usa IDENTITY, lo que impide que Hibernate
+ * agrupe los INSERT; acá se envían en lotes (con rewriteBatchedStatements el driver los convierte
+ * en un INSERT multi-fila) y se recuperan los ids generados.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class MovimientoBatchRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO registro (tipo, monto_total, fecha_emision, categoria,
+                                  origen_nombre, origen_cuit, destino_nombre, destino_cuit, descripcion,
+                                  fecha_creacion, fecha_actualizacion, usuario_id, organizacion_id,
+                                  medio_pago, moneda, id_documento,
+                                  fecha_vencimiento, monto_pagado, cantidad_cuotas, cuotas_pagadas,
+                                  monto_cuota, tasa_interes, periodicidad, estado, huella_duplicado)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String SIN_HUELLA_SQL = """
+            SELECT id, fecha_emision, tipo, monto_total, descripcion, origen_nombre
+            FROM registro
+            WHERE huella_duplicado IS NULL AND id > ?
+            ORDER BY id
+            LIMIT ?
+            """;
+
+    private static final String ACTUALIZAR_HUELLA_SQL = "UPDATE registro SET huella_duplicado = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * guardados: movimientos insertados (con id asignado).
+     * errores: posición en la lista de entrada -> mensaje, para las filas que no se pudieron insertar.
+     * duplicados: posición en la lista de entrada -> posición del movimiento que repite (o
+     * DuplicateDetectionService.YA_EXISTE_EN_BD), para las filas omitidas por duplicadas.
+     */
+    public record ResultadoLote(List<Movimiento> guardados, Map<Integer, String> errores,
+                                Map<Integer, Integer> duplicados) {
+
+        public ResultadoLote(List<Movimiento> guardados, Map<Integer, String> errores) {
+            this(guardados, errores, Map.of());
+        }
+    }
+
+    /**
+     * Inserta los movimientos en lotes de tamanioLote. Debe ejecutarse dentro de una transacción:
+     * si un lote falla se vuelve a su savepoint y solo ese lote se reintenta fila por fila.
+     *
+     * @param progreso (procesados, total) después de cada lote; puede ser null
+     */
+    public ResultadoLote insertarEnLotes(List<Movimiento> movimientos, int tamanioLote,
+                                         BiConsumer<Integer, Integer> progreso) {
+        return jdbcTemplate.execute((ConnectionCallback<ResultadoLote>) con -> {
+            List<Movimiento> guardados = new ArrayList<>(movimientos.size());
+            Map<Integer, String> errores = new LinkedHashMap<>();
+            int lote = Math.max(1, tamanioLote);
+
+            try (PreparedStatement ps = con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int desde = 0; desde < movimientos.size(); desde += lote) {
+                    int hasta = Math.min(desde + lote, movimientos.size());
+                    List<Movimiento> porInsertar = movimientos.subList(desde, hasta);
+
+                    Savepoint savepoint = con.setSavepoint();
+                    try {
+                        for (Movimiento movimiento : porInsertar) {
+                            asignarParametros(ps, movimiento);
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                        asignarIds(ps, porInsertar);
+                        con.releaseSavepoint(savepoint);
+                        guardados.addAll(porInsertar);
+                    } catch (SQLException e) {
+                        ps.clearBatch();
+                        con.rollback(savepoint);
+                        log.warn("Falló el lote de movimientos [{}, {}): {}. Reintentando fila por fila",
+                                desde, hasta, e.getMessage());
+                        for (int i = desde; i < hasta; i++) {
+                            insertarFila(con, ps, movimientos.get(i), i, guardados, errores);
+                        }
+                    }
+
+                    if (progreso != null) {
+                        progreso.accept(hasta, movimientos.size());
+                    }
+                }
+            }
+            return new ResultadoLote(guardados, errores);
+        });
+    }
+
+    /**
+     * Calcula la huella de duplicados de hasta `limite` movimientos que no la tienen (filas
+     * anteriores a la columna), a partir del id indicado.
+     *
+     * @return Último id procesado, o null si no quedaban movimientos sin huella
+     */
+    public Long completarHuellas(long desdeId, int limite) {
+        List<Object[]> actualizaciones = new ArrayList<>();
+        jdbcTemplate.query(SIN_HUELLA_SQL, rs -> {
+            Timestamp fecha = rs.getTimestamp("fecha_emision");
+            double montoLeido = rs.getDouble("monto_total");
+            Double monto = rs.wasNull() ? null : montoLeido;
+            String huella = HuellaMovimiento.de(
+                    fecha != null ? fecha.toLocalDateTime().toLocalDate() : null,
+                    rs.getString("tipo"),
+                    monto,
+                    rs.getString("descripcion"),
+                    rs.getString("origen_nombre"));
+            actualizaciones.add(new Object[]{huella, rs.getLong("id")});
+        }, desdeId, limite);
+
+        if (actualizaciones.isEmpty()) {
+            return null;
+        }
+        jdbcTemplate.batchUpdate(ACTUALIZAR_HUELLA_SQL, actualizaciones);
+        return (Long) actualizaciones.get(actualizaciones.size() - 1)[1];
+    }
+
+    private void insertarFila(Connection con, PreparedStatement ps, Movimiento movimiento, int posicion,
+                              List<Movimiento> guardados, Map<Integer, String> errores) throws SQLException {
+        Savepoint savepoint = con.setSavepoint();
+        try {
+            asignarParametros(ps, movimiento);
+            ps.executeUpdate();
+            asignarIds(ps, List.of(movimiento));
+            con.releaseSavepoint(savepoint);
+            guardados.add(movimiento);
+        } catch (SQLException e) {
+            con.rollback(savepoint);
+            errores.put(posicion, e.getMessage());
+        }
+    }
+
+    private void asignarIds(PreparedStatement ps, List<Movimiento> movimientos) throws SQLException {
+        try (ResultSet keys = ps.getGeneratedKeys()) {
+            for (Movimiento movimiento : movimientos) {
+                if (!keys.next()) {
+                    break;
+                }
+                movimiento.setId(keys.getLong(1));
+            }
+        }
+    }
+
+    private void asignarParametros(PreparedStatement ps, Movimiento m) throws SQLException {
+        int i = 1;
+        ps.setObject(i++, m.getTipo() != null ? m.getTipo().name() : null, Types.VARCHAR);
+        ps.setObject(i++, m.getMontoTotal(), Types.DOUBLE);
+        ps.setObject(i++, m.getFechaEmision(), Types.TIMESTAMP);
+        ps.setObject(i++, m.getCategoria(), Types.VARCHAR);
+        ps.setObject(i++, m.getOrigenNombre(), Types.VARCHAR);
+        ps.setObject(i++, m.getOrigenCuit(), Types.VARCHAR);
+        ps.setObject(i++, m.getDestinoNombre(), Types.VARCHAR);
+        ps.setObject(i++, m.getDestinoCuit(), Types.VARCHAR);
+        ps.setObject(i++, m.getDescripcion(), Types.VARCHAR);
+        ps.setObject(i++, m.getFechaCreacion(), Types.TIMESTAMP);
+        ps.setObject(i++, m.getFechaActualizacion(), Types.TIMESTAMP);
+        ps.setObject(i++, m.getUsuarioId(), Types.VARCHAR);
+        ps.setObject(i++, m.getOrganizacionId(), Types.BIGINT);
+        ps.setObject(i++, m.getMedioPago() != null ? m.getMedioPago().name() : null, Types.VARCHAR);
+        ps.setObject(i++, m.getMoneda() != null ? m.getMoneda().name() : null, Types.VARCHAR);
+        ps.setObject(i++, m.getDocumentoId(), Types.BIGINT);
+        ps.setObject(i++, m.getFechaVencimiento(), Types.DATE);
+        ps.setObject(i++, m.getMontoPagado(), Types.DOUBLE);
+        ps.setObject(i++, m.getCantidadCuotas(), Types.INTEGER);
+        ps.setObject(i++, m.getCuotasPagadas(), Types.INTEGER);
+        ps.setObject(i++, m.getMontoCuota(), Types.DOUBLE);
+        ps.setObject(i++, m.getTasaInteres(), Types.DOUBLE);
+        ps.setObject(i++, m.getPeriodicidad(), Types.VARCHAR);
+        ps.setObject(i++, m.getEstado() != null ? m.getEstado().name() : null, Types.VARCHAR);
+        // Por JDBC no corre el @PrePersist de la entidad
+        m.setHuellaDuplicado(HuellaMovimiento.de(m));
+        ps.setObject(i, m.getHuellaDuplicado(), Types.VARCHAR);
+    }
+}
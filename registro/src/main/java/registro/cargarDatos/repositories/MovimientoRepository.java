@@ -1,5 +1,6 @@
 package registro.cargarDatos.repositories;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -11,7 +12,11 @@ import registro.cargarDatos.models.Movimiento;
 import registro.cargarDatos.models.TipoMovimiento;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Repository
 public interface MovimientoRepository extends JpaRepository<Movimiento, Long>, JpaSpecificationExecutor<Movimiento> {
@@ -31,7 +36,29 @@ public interface MovimientoRepository extends JpaRepository<Movimiento, Long>, J
     // Buscar por fecha emision
     List<Movimiento> findByFechaEmisionIn(java.util.Set<LocalDateTime> fechas);
 
-    List<Movimiento> findByOrganizacionIdAndFechaEmisionIn(Long organizacionId, java.util.Set<LocalDateTime> fechas);
+    // Huellas por consulta en buscarHuellasExistentes
+    int TAMANIO_TRAMO_HUELLAS = 1000;
+
+    @Query("SELECT DISTINCT m.huellaDuplicado FROM Movimiento m " +
+           "WHERE m.organizacionId = :organizacionId AND m.huellaDuplicado IN :huellas")
+    List<String> findHuellasExistentes(
+            @Param("organizacionId") Long organizacionId,
+            @Param("huellas") Collection<String> huellas
+    );
+
+    /**
+     * Huellas de duplicados (ver HuellaMovimiento) que ya existen en la organización. Se consultan
+     * en tramos para acotar el IN en importaciones grandes.
+     */
+    default Set<String> buscarHuellasExistentes(Long organizacionId, Collection<String> huellas) {
+        List<String> pendientes = new ArrayList<>(new HashSet<>(huellas));
+        Set<String> existentes = new HashSet<>();
+        for (int desde = 0; desde < pendientes.size(); desde += TAMANIO_TRAMO_HUELLAS) {
+            List<String> tramo = pendientes.subList(desde, Math.min(desde + TAMANIO_TRAMO_HUELLAS, pendientes.size()));
+            existentes.addAll(findHuellasExistentes(organizacionId, tramo));
+        }
+        return existentes;
+    }
 
     // Buscar por organización y rango de fechas
     List<Movimiento> findByOrganizacionIdAndFechaEmisionBetween(Long organizacionId, LocalDateTime inicio, LocalDateTime fin);
@@ -132,8 +159,11 @@ public interface MovimientoRepository extends JpaRepository<Movimiento, Long>, J
             @Param("fin") LocalDateTime fin
     );
 
-    // Query optimizada para obtener movimientos con filtros (reemplaza findAll + filtros en memoria)
-    @Query("SELECT m FROM Movimiento m " +
+    // Filtros del listado de movimientos, compartidos por la consulta paginada por offset y las de cursor.
+    // textoBusqueda es una consulta booleana de BusquedaTextoService resuelta con el índice FULLTEXT;
+    // nombreRelacionado (LIKE por subcadena) se usa en su lugar cuando el índice no aplica o no
+    // encuentra nada (ver BusquedaTextoService.filtroMovimientos).
+    String FILTROS_MOVIMIENTOS =
            "WHERE (:organizacionId IS NULL OR m.organizacionId = :organizacionId) " +
            "AND (:usuarioId IS NULL OR m.usuarioId = :usuarioId) " +
            "AND (:fechaDesde IS NULL OR m.fechaEmision >= :fechaDesde) " +
@@ -142,10 +172,16 @@ public interface MovimientoRepository extends JpaRepository<Movimiento, Long>, J
            "AND (:conciliado IS NULL OR " +
            "     (CASE WHEN :conciliado = true THEN m.documentoComercial IS NOT NULL " +
            "           ELSE m.documentoComercial IS NULL END)) " +
+           "AND (:textoBusqueda IS NULL OR " +
+           "     function('relevancia_texto_movimiento', m.origenNombre, m.origenCuit, m.destinoNombre, " +
+           "              m.destinoCuit, m.descripcion, :textoBusqueda) > 0) " +
            "AND (:nombreRelacionado IS NULL OR " +
            "     LOWER(m.origenNombre) LIKE LOWER(CONCAT('%', :nombreRelacionado, '%')) OR " +
            "     LOWER(m.destinoNombre) LIKE LOWER(CONCAT('%', :nombreRelacionado, '%')) OR " +
-           "     LOWER(m.descripcion) LIKE LOWER(CONCAT('%', :nombreRelacionado, '%')))")
+           "     LOWER(m.descripcion) LIKE LOWER(CONCAT('%', :nombreRelacionado, '%'))) ";
+
+    // Query optimizada para obtener movimientos con filtros (reemplaza findAll + filtros en memoria)
+    @Query("SELECT m FROM Movimiento m " + FILTROS_MOVIMIENTOS)
     org.springframework.data.domain.Page<Movimiento> findMovimientosConFiltros(
             @Param("organizacionId") Long organizacionId,
             @Param("usuarioId") String usuarioId,
@@ -153,10 +189,67 @@ public interface MovimientoRepository extends JpaRepository<Movimiento, Long>, J
             @Param("fechaHasta") LocalDateTime fechaHasta,
             @Param("tipos") List<TipoMovimiento> tipos,
             @Param("conciliado") Boolean conciliado,
+            @Param("textoBusqueda") String textoBusqueda,
             @Param("nombreRelacionado") String nombreRelacionado,
             org.springframework.data.domain.Pageable pageable
     );
 
+    @Query("SELECT COUNT(m) FROM Movimiento m " + FILTROS_MOVIMIENTOS)
+    long countMovimientosConFiltros(
+            @Param("organizacionId") Long organizacionId,
+            @Param("usuarioId") String usuarioId,
+            @Param("fechaDesde") LocalDateTime fechaDesde,
+            @Param("fechaHasta") LocalDateTime fechaHasta,
+            @Param("tipos") List<TipoMovimiento> tipos,
+            @Param("conciliado") Boolean conciliado,
+            @Param("textoBusqueda") String textoBusqueda,
+            @Param("nombreRelacionado") String nombreRelacionado
+    );
+
+    /**
+     * Página por cursor, de la más reciente a la más antigua: las filas anteriores a
+     * (cursorFecha, cursorId) según el índice (organizacion_id, fecha_emision, id). Sin cursor
+     * devuelve la primera página. Los movimientos sin fecha de emisión no entran en este listado.
+     */
+    @Query("SELECT m FROM Movimiento m " + FILTROS_MOVIMIENTOS +
+           "AND m.fechaEmision IS NOT NULL " +
+           "AND (:cursorFecha IS NULL OR m.fechaEmision < :cursorFecha " +
+           "     OR (m.fechaEmision = :cursorFecha AND m.id < :cursorId)) " +
+           "ORDER BY m.fechaEmision DESC, m.id DESC")
+    List<Movimiento> findMovimientosAntesDe(
+            @Param("organizacionId") Long organizacionId,
+            @Param("usuarioId") String usuarioId,
+            @Param("fechaDesde") LocalDateTime fechaDesde,
+            @Param("fechaHasta") LocalDateTime fechaHasta,
+            @Param("tipos") List<TipoMovimiento> tipos,
+            @Param("conciliado") Boolean conciliado,
+            @Param("textoBusqueda") String textoBusqueda,
+            @Param("nombreRelacionado") String nombreRelacionado,
+            @Param("cursorFecha") LocalDateTime cursorFecha,
+            @Param("cursorId") Long cursorId,
+            Limit limite
+    );
+
+    // Igual que findMovimientosAntesDe pero en orden ascendente
+    @Query("SELECT m FROM Movimiento m " + FILTROS_MOVIMIENTOS +
+           "AND m.fechaEmision IS NOT NULL " +
+           "AND (:cursorFecha IS NULL OR m.fechaEmision > :cursorFecha " +
+           "     OR (m.fechaEmision = :cursorFecha AND m.id > :cursorId)) " +
+           "ORDER BY m.fechaEmision ASC, m.id ASC")
+    List<Movimiento> findMovimientosDespuesDe(
+            @Param("organizacionId") Long organizacionId,
+            @Param("usuarioId") String usuarioId,
+            @Param("fechaDesde") LocalDateTime fechaDesde,
+            @Param("fechaHasta") LocalDateTime fechaHasta,
+            @Param("tipos") List<TipoMovimiento> tipos,
+            @Param("conciliado") Boolean conciliado,
+            @Param("textoBusqueda") String textoBusqueda,
+            @Param("nombreRelacionado") String nombreRelacionado,
+            @Param("cursorFecha") LocalDateTime cursorFecha,
+            @Param("cursorId") Long cursorId,
+            Limit limite
+    );
+
     // Query optimizada para sumar montos por categoría (reemplaza findAll + groupBy en memoria)
     @Query("SELECT COALESCE(m.categoria, 'Sin categoria'), SUM(m.montoTotal) " +
            "FROM Movimiento m " +
@@ -178,4 +271,32 @@ public interface MovimientoRepository extends JpaRepository<Movimiento, Long>, J
     
     List<Movimiento> findByDocumentoComercialIsNotNull();
     Page<Movimiento> findByDocumentoComercialIsNotNull(Pageable pageable);
+
+    // Agregado de conciliación recalculado desde cero: [documentoId, SUM(ABS(monto)), COUNT]
+    @Query("SELECT m.documentoId, SUM(ABS(COALESCE(m.montoTotal, 0))), COUNT(m) FROM Movimiento m " +
+           "WHERE m.documentoId IS NOT NULL GROUP BY m.documentoId")
+    List<Object[]> sumMontoConciliadoPorDocumento();
+
+    // Agregado de un documento [SUM(ABS(monto)), COUNT] bloqueando sus movimientos hasta el fin de
+    // la transacción (usa el índice de la FK id_documento): vincular, desvincular o cambiar el
+    // monto de uno de ellos espera a que termine
+    @Query(value = """
+            SELECT COALESCE(SUM(ABS(COALESCE(monto_total, 0))), 0), COUNT(*)
+            FROM registro
+            WHERE id_documento = :documentoId
+            FOR SHARE
+            """, nativeQuery = true)
+    List<Object[]> sumMontoConciliadoBloqueando(@Param("documentoId") Long documentoId);
+
+    // Movimientos sin conciliar de una organización (conciliación automática)
+    List<Movimiento> findByOrganizacionIdAndDocumentoIdIsNull(Long organizacionId);
+
+    // Últimos movimientos categorizados de una organización: [tipo, descripcion, origenNombre, destinoNombre, categoria, id]
+    @Query(value = "SELECT tipo, descripcion, origen_nombre, destino_nombre, categoria, id FROM registro " +
+           "WHERE organizacion_id = :organizacionId AND categoria IS NOT NULL AND categoria <> '' " +
+           "ORDER BY id DESC LIMIT :limite", nativeQuery = true)
+    List<Object[]> findCategorizadosRecientes(
+            @Param("organizacionId") Long organizacionId,
+            @Param("limite") int limite
+    );
 }
@@ -1,10 +1,32 @@
 package registro.cargarDatos.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import registro.cargarDatos.models.Pagare;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface PagareRepository extends JpaRepository<Pagare, Long> {
 
+    List<Pagare> findByOrganizacionId(Long organizacionId);
+
+    // Candidatos de conciliación (ver FacturaRepository#buscarCandidatosConciliacion)
+    @Query("""
+            SELECT d FROM Pagare d
+            WHERE (:organizacionId IS NULL OR d.organizacionId = :organizacionId)
+            AND (d.montoTotal BETWEEN :montoMin AND :montoMax
+                 OR d.montoTotal BETWEEN :montoMinNegativo AND :montoMaxNegativo
+                 OR (d.fechaEmision >= :fechaDesde AND d.fechaEmision < :fechaHasta))
+            """)
+    List<Pagare> buscarCandidatosConciliacion(@Param("organizacionId") Long organizacionId,
+                                              @Param("montoMin") Double montoMin,
+                                              @Param("montoMax") Double montoMax,
+                                              @Param("montoMinNegativo") Double montoMinNegativo,
+                                              @Param("montoMaxNegativo") Double montoMaxNegativo,
+                                              @Param("fechaDesde") LocalDateTime fechaDesde,
+                                              @Param("fechaHasta") LocalDateTime fechaHasta);
 }
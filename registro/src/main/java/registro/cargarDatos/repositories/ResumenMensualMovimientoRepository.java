@@ -0,0 +1,96 @@
+package registro.cargarDatos.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import registro.cargarDatos.models.ResumenMensualMovimiento;
+
+import java.util.List;
+
+@Repository
+public interface ResumenMensualMovimientoRepository extends JpaRepository<ResumenMensualMovimiento, Long> {
+
+    /**
+     * Suma un delta al acumulado de la clave, creándolo si no existe (upsert atómico)
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO registro_resumen_mensual (organizacion_id, periodo, tipo, categoria, moneda, monto_total, cantidad)
+            VALUES (:organizacionId, :periodo, :tipo, :categoria, :moneda, :monto, :cantidad)
+            ON DUPLICATE KEY UPDATE
+                monto_total = monto_total + VALUES(monto_total),
+                cantidad = cantidad + VALUES(cantidad)
+            """, nativeQuery = true)
+    int acumular(@Param("organizacionId") Long organizacionId,
+                 @Param("periodo") String periodo,
+                 @Param("tipo") String tipo,
+                 @Param("categoria") String categoria,
+                 @Param("moneda") String moneda,
+                 @Param("monto") Double monto,
+                 @Param("cantidad") Long cantidad);
+
+    @Query("SELECT COALESCE(SUM(r.montoTotal), 0) FROM ResumenMensualMovimiento r " +
+           "WHERE r.organizacionId = :organizacionId " +
+           "AND r.tipo = :tipo " +
+           "AND r.periodo BETWEEN :desde AND :hasta")
+    Double sumMonto(@Param("organizacionId") Long organizacionId,
+                    @Param("tipo") String tipo,
+                    @Param("desde") String desde,
+                    @Param("hasta") String hasta);
+
+    @Query("SELECT COALESCE(SUM(r.cantidad), 0) FROM ResumenMensualMovimiento r " +
+           "WHERE r.organizacionId = :organizacionId " +
+           "AND r.periodo BETWEEN :desde AND :hasta")
+    long sumCantidad(@Param("organizacionId") Long organizacionId,
+                     @Param("desde") String desde,
+                     @Param("hasta") String hasta);
+
+    // [periodo, SUM(monto)]
+    @Query("SELECT r.periodo, SUM(r.montoTotal) FROM ResumenMensualMovimiento r " +
+           "WHERE r.organizacionId = :organizacionId " +
+           "AND r.tipo = :tipo " +
+           "AND r.periodo BETWEEN :desde AND :hasta " +
+           "GROUP BY r.periodo")
+    List<Object[]> sumMontoPorPeriodo(@Param("organizacionId") Long organizacionId,
+                                      @Param("tipo") String tipo,
+                                      @Param("desde") String desde,
+                                      @Param("hasta") String hasta);
+
+    // [categoria, SUM(monto)] ordenado por monto descendente
+    @Query("SELECT r.categoria, SUM(r.montoTotal) FROM ResumenMensualMovimiento r " +
+           "WHERE r.organizacionId = :organizacionId " +
+           "AND r.tipo = :tipo " +
+           "AND r.periodo BETWEEN :desde AND :hasta " +
+           "GROUP BY r.categoria " +
+           "ORDER BY SUM(r.montoTotal) DESC")
+    List<Object[]> sumMontosPorCategoria(@Param("organizacionId") Long organizacionId,
+                                         @Param("tipo") String tipo,
+                                         @Param("desde") String desde,
+                                         @Param("hasta") String hasta);
+
+    @Modifying
+    @Query(value = "DELETE FROM registro_resumen_mensual", nativeQuery = true)
+    int eliminarTodo();
+
+    /**
+     * Reconstruye todos los acumulados desde la tabla registro
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO registro_resumen_mensual (organizacion_id, periodo, tipo, categoria, moneda, monto_total, cantidad)
+            SELECT organizacion_id,
+                   DATE_FORMAT(fecha_emision, '%Y-%m'),
+                   COALESCE(tipo, ''),
+                   COALESCE(categoria, ''),
+                   COALESCE(moneda, ''),
+                   COALESCE(SUM(monto_total), 0),
+                   COUNT(*)
+            FROM registro
+            WHERE organizacion_id IS NOT NULL AND fecha_emision IS NOT NULL
+            GROUP BY organizacion_id, DATE_FORMAT(fecha_emision, '%Y-%m'),
+                     COALESCE(tipo, ''), COALESCE(categoria, ''), COALESCE(moneda, '')
+            """, nativeQuery = true)
+    int reconstruirDesdeRegistro();
+}
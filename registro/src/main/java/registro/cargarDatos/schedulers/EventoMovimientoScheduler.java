@@ -0,0 +1,38 @@
+package registro.cargarDatos.schedulers;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import registro.cargarDatos.services.MovimientoEventService;
+
+/**
+ * Envía a notificación los eventos de movimientos encolados en evento_movimiento.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class EventoMovimientoScheduler {
+
+    private final MovimientoEventService movimientoEventService;
+
+    @Scheduled(initialDelayString = "${registro.eventos-movimiento.demora-inicial-ms:10000}",
+            fixedDelayString = "${registro.eventos-movimiento.cada-ms:2000}")
+    public void enviarPendientes() {
+        try {
+            movimientoEventService.enviarPendientes();
+        } catch (Exception e) {
+            log.error("Error enviando eventos de movimientos: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${registro.eventos-movimiento.limpieza-demora-inicial-ms:300000}",
+            fixedDelayString = "${registro.eventos-movimiento.limpieza-cada-ms:3600000}")
+    public void limpiarEnviados() {
+        try {
+            movimientoEventService.purgarEnviados();
+        } catch (Exception e) {
+            log.error("Error limpiando eventos de movimientos: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package registro.cargarDatos.schedulers;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import registro.cargarDatos.repositories.MovimientoBatchRepository;
+
+/**
+ * Completa la huella de duplicados de los movimientos guardados antes de que existiera la columna.
+ * Los nuevos la calculan al guardarse; esto corre una vez por arranque y termina enseguida si no
+ * queda nada pendiente.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class HuellaMovimientoScheduler {
+
+    private final MovimientoBatchRepository movimientoBatchRepository;
+
+    @Value("${registro.huella-duplicado.tamanio-lote:1000}")
+    private int tamanioLote;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void completarHuellasFaltantes() {
+        try {
+            long desdeId = 0;
+            int lotes = 0;
+            Long ultimoId;
+            while ((ultimoId = movimientoBatchRepository.completarHuellas(desdeId, tamanioLote)) != null) {
+                desdeId = ultimoId;
+                lotes++;
+            }
+            if (lotes > 0) {
+                log.info("Huellas de duplicados completadas en {} lotes (hasta id {})", lotes, desdeId);
+            }
+        } catch (Exception e) {
+            log.error("Error completando huellas de duplicados: {}", e.getMessage(), e);
+        }
+    }
+}
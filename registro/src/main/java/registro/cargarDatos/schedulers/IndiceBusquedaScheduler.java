@@ -0,0 +1,41 @@
+package registro.cargarDatos.schedulers;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import registro.cargarDatos.repositories.BusquedaTextoRepository;
+
+import java.util.List;
+
+/**
+ * Crea al arrancar los índices FULLTEXT de búsqueda que ddl-auto no sabe generar. Desactivado por
+ * defecto: en tablas grandes el ALTER TABLE reconstruye la tabla y no debe correr en cada deploy.
+ * En producción los índices se crean con V1000__fulltext_busqueda.sql; activarlo solo sirve para
+ * bases locales o de prueba.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class IndiceBusquedaScheduler {
+
+    private final BusquedaTextoRepository busquedaTextoRepository;
+
+    @Value("${registro.busqueda.crear-indices:false}")
+    private boolean crearIndices;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void crearIndicesFaltantes() {
+        if (!crearIndices) return;
+        try {
+            List<String> creados = busquedaTextoRepository.crearIndicesFaltantes();
+            if (!creados.isEmpty()) {
+                log.info("Índices de búsqueda de texto creados: {}", creados);
+            }
+        } catch (Exception e) {
+            log.error("Error creando índices de búsqueda de texto: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package registro.cargarDatos.schedulers;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import registro.cargarDatos.services.ResumenCacheService;
+import registro.cargarDatos.services.ResumenMensualService;
+
+/**
+ * Inicializa el resumen mensual de movimientos la primera vez que arranca el servicio y lo
+ * reconstruye cada noche desde la tabla registro para corregir cualquier desvío incremental.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ResumenMensualScheduler {
+
+    private final ResumenMensualService resumenMensualService;
+    private final ResumenCacheService resumenCacheService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializarSiVacio() {
+        try {
+            if (resumenMensualService.estaVacio()) {
+                log.info("Resumen mensual vacío, reconstruyendo desde registro");
+                resumenMensualService.reconstruir();
+            }
+        } catch (Exception e) {
+            log.error("Error inicializando resumen mensual: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(cron = "${registro.resumen-mensual.cron:0 45 4 * * *}")
+    public void reconstruir() {
+        try {
+            resumenMensualService.reconstruir();
+            resumenCacheService.invalidarTodo();
+        } catch (Exception e) {
+            log.error("Error reconstruyendo resumen mensual: {}", e.getMessage(), e);
+        }
+    }
+}
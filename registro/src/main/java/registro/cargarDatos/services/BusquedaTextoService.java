@@ -0,0 +1,106 @@
+package registro.cargarDatos.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import registro.cargarDatos.dtos.BusquedaTextoResponse;
+import registro.cargarDatos.repositories.BusquedaTextoRepository;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Búsqueda de texto por organización sobre los índices FULLTEXT de movimientos y facturas.
+ * El texto libre se traduce a una consulta booleana de MySQL donde cada término es obligatorio y
+ * se busca como prefijo ("+super* +coto*"), así "super co" encuentra "Supermercado Coto".
+ */
+@Service
+public class BusquedaTextoService {
+
+    // Mismo criterio de palabra que el parser de InnoDB: letras y dígitos
+    private static final Pattern TERMINO = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    private final BusquedaTextoRepository busquedaTextoRepository;
+    private final int largoMinimoTermino;
+    private final int maxTerminos;
+    private final int limiteMaximo;
+
+    public BusquedaTextoService(
+            BusquedaTextoRepository busquedaTextoRepository,
+            @Value("${registro.busqueda.largo-minimo-termino:3}") int largoMinimoTermino,
+            @Value("${registro.busqueda.max-terminos:8}") int maxTerminos,
+            @Value("${registro.busqueda.limite-maximo:100}") int limiteMaximo) {
+        this.busquedaTextoRepository = busquedaTextoRepository;
+        this.largoMinimoTermino = Math.max(1, largoMinimoTermino);
+        this.maxTerminos = Math.max(1, maxTerminos);
+        this.limiteMaximo = Math.max(1, limiteMaximo);
+    }
+
+    /**
+     * Arma la consulta en modo booleano para MATCH ... AGAINST. Los términos más cortos que
+     * innodb_ft_min_token_size no están en el índice y se descartan.
+     *
+     * @return La consulta, o null si el texto no tiene ningún término buscable en el índice
+     */
+    public String consultaBooleana(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+        StringBuilder consulta = new StringBuilder();
+        Matcher matcher = TERMINO.matcher(texto.toLowerCase(Locale.ROOT));
+        int terminos = 0;
+        while (matcher.find() && terminos < maxTerminos) {
+            String termino = matcher.group();
+            if (termino.length() < largoMinimoTermino) continue;
+            if (consulta.length() > 0) consulta.append(' ');
+            consulta.append('+').append(termino).append('*');
+            terminos++;
+        }
+        return terminos > 0 ? consulta.toString() : null;
+    }
+
+    /**
+     * Filtro de texto del listado de movimientos: textoBusqueda (consulta booleana sobre el índice)
+     * o nombreLike (subcadena), nunca los dos.
+     */
+    public record FiltroTexto(String textoBusqueda, String nombreLike) {}
+
+    /**
+     * El índice solo encuentra palabras que empiezan con cada término ("coto" no encuentra
+     * "Supercoto"). Para no perder las búsquedas por subcadena que hacía el listado, se usa el
+     * LIKE de antes cuando el texto no tiene términos indexables o el índice no encuentra ningún
+     * movimiento de la organización.
+     */
+    public FiltroTexto filtroMovimientos(Long organizacionId, String texto) {
+        String consulta = consultaBooleana(texto);
+        if (consulta == null) {
+            return new FiltroTexto(null, texto != null && !texto.isBlank() ? texto : null);
+        }
+        if (organizacionId != null && !busquedaTextoRepository.existenMovimientos(organizacionId, consulta)) {
+            return new FiltroTexto(null, texto);
+        }
+        return new FiltroTexto(consulta, null);
+    }
+
+    /**
+     * Movimientos y facturas de la organización que coinciden con el texto, cada lista ordenada
+     * por relevancia.
+     */
+    public BusquedaTextoResponse buscar(Long organizacionId, String texto, int limite) {
+        String consulta = consultaBooleana(texto);
+        if (organizacionId == null || consulta == null) {
+            return BusquedaTextoResponse.builder()
+                    .texto(texto)
+                    .movimientos(List.of())
+                    .facturas(List.of())
+                    .build();
+        }
+        int limiteEfectivo = Math.min(Math.max(1, limite), limiteMaximo);
+        return BusquedaTextoResponse.builder()
+                .texto(texto)
+                .movimientos(busquedaTextoRepository.buscarMovimientos(organizacionId, consulta, limiteEfectivo))
+                .facturas(busquedaTextoRepository.buscarFacturas(organizacionId, consulta, limiteEfectivo))
+                .build();
+    }
+}
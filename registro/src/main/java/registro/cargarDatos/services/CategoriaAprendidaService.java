@@ -0,0 +1,440 @@
+package registro.cargarDatos.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import registro.cargarDatos.models.Movimiento;
+import registro.cargarDatos.models.TipoMovimiento;
+import registro.cargarDatos.repositories.MovimientoRepository;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Categorías aprendidas de los movimientos ya categorizados de cada organización. Por empresa se
+ * mantiene en memoria un índice de palabras de la descripción y contrapartes a frecuencias de
+ * categoría, construido desde la tabla registro la primera vez que se consulta y actualizado con
+ * cada alta, cambio o baja. Los índices comparten un presupuesto de entradas y los de empresas sin
+ * uso se descartan (se reconstruyen si vuelven a consultarse).
+ * <p>
+ * Los cambios confirmados mientras se construye el índice de una empresa se encolan y se aplican
+ * al terminar la lectura, salvo los que la lectura ya incluyó (se comparan por id de movimiento).
+ */
+@Service
+@Slf4j
+public class CategoriaAprendidaService {
+
+    // Una palabra sugiere una categoría si aparece al menos MIN_SOPORTE veces y en esta proporción
+    private static final int MIN_SOPORTE = 2;
+    private static final double MIN_CONFIANZA = 0.6;
+    private static final int MIN_LARGO_PALABRA = 3;
+
+    private static final Set<String> PALABRAS_IGNORADAS = Set.of(
+            "del", "las", "los", "por", "para", "con", "una", "uno", "que"
+    );
+
+    private final MovimientoRepository movimientoRepository;
+    private final Cache<Long, IndiceOrganizacion> indices;
+    private final int movimientosPorOrganizacion;
+    private final int maxEntradasPorOrganizacion;
+
+    // Índices que se están construyendo, con los cambios que llegan mientras tanto
+    private final ConcurrentHashMap<Long, Construccion> construcciones = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CategoriaAprendidaService(
+            MovimientoRepository movimientoRepository,
+            @Value("${registro.categorias-aprendidas.max-entradas:500000}") long maxEntradas,
+            @Value("${registro.categorias-aprendidas.max-entradas-por-organizacion:50000}") int maxEntradasPorOrganizacion,
+            @Value("${registro.categorias-aprendidas.movimientos-por-organizacion:5000}") int movimientosPorOrganizacion,
+            @Value("${registro.categorias-aprendidas.expirar-sin-uso-minutos:360}") long expirarSinUsoMinutos) {
+        this(movimientoRepository, maxEntradas, maxEntradasPorOrganizacion, movimientosPorOrganizacion,
+                expirarSinUsoMinutos, ForkJoinPool.commonPool());
+    }
+
+    CategoriaAprendidaService(MovimientoRepository movimientoRepository, long maxEntradas,
+                              int maxEntradasPorOrganizacion, int movimientosPorOrganizacion,
+                              long expirarSinUsoMinutos, Executor executor) {
+        this.movimientoRepository = movimientoRepository;
+        this.movimientosPorOrganizacion = movimientosPorOrganizacion;
+        this.maxEntradasPorOrganizacion = maxEntradasPorOrganizacion;
+        // Caffeine pesa un índice solo al insertarlo: después de cada cambio se lo vuelve a
+        // insertar (repesar) para que maxEntradas acote lo que realmente ocupa
+        this.indices = Caffeine.newBuilder()
+                .maximumWeight(maxEntradas)
+                .weigher((Long organizacionId, IndiceOrganizacion indice) -> Math.max(1, indice.entradas()))
+                .expireAfterAccess(Duration.ofMinutes(expirarSinUsoMinutos))
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Categoría más usada por la organización para movimientos parecidos, o null si no hay
+     * suficiente historial. Primero busca la descripción completa y después sus palabras.
+     */
+    public String sugerir(Long organizacionId, TipoMovimiento tipo, String descripcion, String contraparte) {
+        if (organizacionId == null || tipo == null) {
+            return null;
+        }
+        String descripcionNormalizada = normalizar(descripcion);
+        String contraparteNormalizada = normalizar(contraparte);
+        if (descripcionNormalizada.isEmpty() && contraparteNormalizada.isEmpty()) {
+            return null;
+        }
+
+        IndiceOrganizacion indice = indices.get(organizacionId, this::construir);
+        // Ya está en el caché: los cambios siguientes van directo al índice
+        construcciones.computeIfPresent(organizacionId, (id, construccion) -> construccion.terminada() ? null : construccion);
+        return indice.sugerir(tipo, descripcionNormalizada, contraparteNormalizada);
+    }
+
+    /**
+     * Aprende de movimientos guardados con categoría. Dentro de una transacción se aplica al commit.
+     * Solo actualiza índices ya cargados: los demás se construyen desde la base cuando se consultan.
+     */
+    public void aprender(Collection<Movimiento> movimientos) {
+        List<Muestra> muestras = movimientos.stream()
+                .map(this::muestraDe)
+                .filter(Objects::nonNull)
+                .toList();
+        if (!muestras.isEmpty()) {
+            alConfirmar(() -> {
+                muestras.forEach(muestra -> aplicar(null, muestra));
+                repesar(muestras);
+            });
+        }
+    }
+
+    public void aprender(Movimiento movimiento) {
+        aprender(List.of(movimiento));
+    }
+
+    /**
+     * Datos de un movimiento que determinan lo aprendido; se toman antes de modificarlo para
+     * poder descontarlos si cambia la categoría.
+     */
+    public Muestra muestraDe(Movimiento movimiento) {
+        if (movimiento.getOrganizacionId() == null || movimiento.getTipo() == null
+                || movimiento.getCategoria() == null || movimiento.getCategoria().isBlank()) {
+            return null;
+        }
+        return new Muestra(movimiento.getId(), movimiento.getOrganizacionId(), movimiento.getTipo(),
+                movimiento.getCategoria(), movimiento.getDescripcion(), movimiento.getOrigenNombre(),
+                movimiento.getDestinoNombre());
+    }
+
+    /**
+     * Reemplaza lo aprendido de la versión anterior del movimiento por la nueva
+     */
+    public void registrarCambio(Muestra anterior, Movimiento actualizado) {
+        Muestra nueva = muestraDe(actualizado);
+        if (Objects.equals(anterior, nueva)) {
+            return;
+        }
+        alConfirmar(() -> {
+            aplicar(anterior, nueva);
+            repesar(Stream.of(anterior, nueva).filter(Objects::nonNull).toList());
+        });
+    }
+
+    /**
+     * Descuenta lo aprendido de un movimiento eliminado (muestra tomada antes de borrarlo)
+     */
+    public void registrarBaja(Muestra anterior) {
+        if (anterior == null) {
+            return;
+        }
+        alConfirmar(() -> {
+            aplicar(anterior, null);
+            repesar(List.of(anterior));
+        });
+    }
+
+    public record Muestra(Long movimientoId, Long organizacionId, TipoMovimiento tipo, String categoria,
+                          String descripcion, String origenNombre, String destinoNombre) {}
+
+    /**
+     * Reemplaza anterior por nueva (cualquiera puede ser null) en el índice de la organización. Si
+     * el índice se está construyendo, el cambio queda en su cola.
+     */
+    private void aplicar(Muestra anterior, Muestra nueva) {
+        if (anterior != null && nueva != null && !anterior.organizacionId().equals(nueva.organizacionId())) {
+            aplicar(anterior, null);
+            aplicar(null, nueva);
+            return;
+        }
+        Long organizacionId = (anterior != null ? anterior : nueva).organizacionId();
+        // Primero la construcción: si ya terminó, su índice es el que está (o va a estar) en el caché
+        Construccion construccion = construcciones.get(organizacionId);
+        if (construccion != null) {
+            construccion.aplicar(anterior, nueva);
+            return;
+        }
+        IndiceOrganizacion indice = indices.getIfPresent(organizacionId);
+        if (indice != null) {
+            indice.cambiar(anterior, nueva);
+        }
+    }
+
+    /**
+     * Reinserta los índices modificados para que Caffeine recalcule su peso (y desaloje otros si
+     * se superó el presupuesto). replace no reinserta un índice que se desalojó mientras tanto.
+     */
+    private void repesar(Collection<Muestra> muestras) {
+        muestras.stream().map(Muestra::organizacionId).distinct().forEach(organizacionId -> {
+            IndiceOrganizacion indice = indices.getIfPresent(organizacionId);
+            if (indice != null) {
+                indices.asMap().replace(organizacionId, indice, indice);
+            }
+        });
+    }
+
+    private void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    /**
+     * Lee los últimos movimientos categorizados de la organización y aplica los cambios que se
+     * confirmaron durante la lectura. La cola se abre antes de consultar, así que todo cambio
+     * confirmado después de abrirla está en la lectura, en la cola o en ambas.
+     */
+    private IndiceOrganizacion construir(Long organizacionId) {
+        long inicio = System.currentTimeMillis();
+        Construccion construccion = new Construccion();
+        construcciones.put(organizacionId, construccion);
+        try {
+            IndiceOrganizacion indice = new IndiceOrganizacion(maxEntradasPorOrganizacion);
+            List<Object[]> filas = movimientoRepository.findCategorizadosRecientes(organizacionId, movimientosPorOrganizacion);
+            Map<Long, Muestra> leidas = new HashMap<>();
+            for (Object[] fila : filas) {
+                TipoMovimiento tipo = parseTipo(fila[0]);
+                if (tipo == null) continue;
+                Long movimientoId = fila[5] != null ? ((Number) fila[5]).longValue() : null;
+                Muestra muestra = new Muestra(movimientoId, organizacionId, tipo, (String) fila[4],
+                        (String) fila[1], (String) fila[2], (String) fila[3]);
+                indice.registrar(muestra, 1);
+                if (movimientoId != null) {
+                    leidas.put(movimientoId, muestra);
+                }
+            }
+            int encolados = construccion.terminar(indice, leidas);
+            log.debug("Índice de categorías de la organización {}: {} movimientos, {} cambios encolados, {} entradas en {} ms",
+                    organizacionId, filas.size(), encolados, indice.entradas(), System.currentTimeMillis() - inicio);
+            return indice;
+        } catch (RuntimeException e) {
+            construcciones.remove(organizacionId, construccion);
+            throw e;
+        }
+    }
+
+    private TipoMovimiento parseTipo(Object valor) {
+        if (valor == null) return null;
+        try {
+            return TipoMovimiento.valueOf(valor.toString());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Minúsculas, sin acentos y con espacios simples: "Pedidos  Ya S.A." -> "pedidos ya s a"
+    static String normalizar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return "";
+        }
+        String sinAcentos = Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return sinAcentos.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9@.]+", " ").trim();
+    }
+
+    static List<String> palabras(String normalizado) {
+        List<String> palabras = new ArrayList<>();
+        for (String palabra : normalizado.split("[ .]+")) {
+            if (palabra.length() >= MIN_LARGO_PALABRA
+                    && !PALABRAS_IGNORADAS.contains(palabra)
+                    && !palabra.chars().allMatch(Character::isDigit)) {
+                palabras.add(palabra);
+            }
+        }
+        return palabras;
+    }
+
+    /**
+     * Cambios confirmados mientras se construye un índice. Al terminar se aplican contra lo leído:
+     * si la lectura ya tenía el movimiento en su estado nuevo, el cambio ya está contado; si lo
+     * tenía en otro estado, se reemplaza ese; si no lo tenía (se categorizó después o no entró
+     * entre los recientes), solo se suma el estado nuevo. Después de terminar, los cambios van
+     * directo al índice construido, que es el que guarda el caché.
+     */
+    private static final class Construccion {
+        private final List<Muestra[]> pendientes = new ArrayList<>();
+        private IndiceOrganizacion indice;
+
+        synchronized boolean terminada() {
+            return indice != null;
+        }
+
+        synchronized void aplicar(Muestra anterior, Muestra nueva) {
+            if (indice != null) {
+                indice.cambiar(anterior, nueva);
+            } else {
+                pendientes.add(new Muestra[]{anterior, nueva});
+            }
+        }
+
+        synchronized int terminar(IndiceOrganizacion construido, Map<Long, Muestra> leidas) {
+            for (Muestra[] cambio : pendientes) {
+                Muestra nueva = cambio[1];
+                Long movimientoId = (nueva != null ? nueva : cambio[0]).movimientoId();
+                Muestra leida = movimientoId != null ? leidas.get(movimientoId) : null;
+                if (Objects.equals(leida, nueva)) {
+                    continue;
+                }
+                construido.cambiar(leida, nueva);
+                if (movimientoId != null) {
+                    leidas.put(movimientoId, nueva);
+                }
+            }
+            int encolados = pendientes.size();
+            pendientes.clear();
+            indice = construido;
+            return encolados;
+        }
+    }
+
+    /**
+     * Índice de una organización: clave ("tipo|d=descripción", "tipo|c=contraparte" o
+     * "tipo|p=palabra") -> categoría -> cantidad de movimientos
+     */
+    private static class IndiceOrganizacion {
+        private final Map<String, Map<String, Integer>> frecuencias = new HashMap<>();
+        private final int maxEntradas;
+        private int entradas;
+
+        IndiceOrganizacion(int maxEntradas) {
+            this.maxEntradas = maxEntradas;
+        }
+
+        synchronized int entradas() {
+            return entradas;
+        }
+
+        synchronized void cambiar(Muestra anterior, Muestra nueva) {
+            if (anterior != null) {
+                registrar(anterior, -1);
+            }
+            if (nueva != null) {
+                registrar(nueva, 1);
+            }
+        }
+
+        synchronized void registrar(Muestra muestra, int delta) {
+            String prefijo = muestra.tipo().name() + "|";
+            String descripcion = normalizar(muestra.descripcion());
+            if (!descripcion.isEmpty()) {
+                sumar(prefijo + "d=" + descripcion, muestra.categoria(), delta);
+                for (String palabra : new HashSet<>(palabras(descripcion))) {
+                    sumar(prefijo + "p=" + palabra, muestra.categoria(), delta);
+                }
+            }
+            for (String contraparte : new String[]{muestra.origenNombre(), muestra.destinoNombre()}) {
+                String normalizada = normalizar(contraparte);
+                if (!normalizada.isEmpty()) {
+                    sumar(prefijo + "c=" + normalizada, muestra.categoria(), delta);
+                }
+            }
+        }
+
+        synchronized String sugerir(TipoMovimiento tipo, String descripcion, String contraparte) {
+            String prefijo = tipo.name() + "|";
+
+            // Coincidencias exactas: basta un antecedente
+            String categoria = masFrecuente(frecuencias.get(prefijo + "d=" + descripcion), 1);
+            if (categoria == null && !contraparte.isEmpty()) {
+                categoria = masFrecuente(frecuencias.get(prefijo + "c=" + contraparte), 1);
+            }
+            if (categoria != null || descripcion.isEmpty()) {
+                return categoria;
+            }
+
+            // Palabras: se suma la confianza de cada palabra que apunta con claridad a una categoría
+            String mejor = null;
+            double mejorPuntaje = 0;
+            Map<String, Double> puntajes = null;
+            for (String palabra : palabras(descripcion)) {
+                Map<String, Integer> porCategoria = frecuencias.get(prefijo + "p=" + palabra);
+                String candidata = masFrecuente(porCategoria, MIN_SOPORTE);
+                if (candidata == null) continue;
+                if (puntajes == null) puntajes = new HashMap<>();
+                double puntaje = puntajes.merge(candidata, confianza(porCategoria, candidata), Double::sum);
+                if (puntaje > mejorPuntaje) {
+                    mejorPuntaje = puntaje;
+                    mejor = candidata;
+                }
+            }
+            return mejor;
+        }
+
+        private void sumar(String clave, String categoria, int delta) {
+            Map<String, Integer> porCategoria = frecuencias.get(clave);
+            if (porCategoria == null) {
+                if (delta < 0 || entradas >= maxEntradas) return;
+                porCategoria = new HashMap<>(4);
+                frecuencias.put(clave, porCategoria);
+            }
+            Integer actual = porCategoria.get(categoria);
+            if (actual == null && (delta < 0 || entradas >= maxEntradas)) return;
+
+            int nuevo = (actual == null ? 0 : actual) + delta;
+            if (nuevo > 0) {
+                if (actual == null) entradas++;
+                porCategoria.put(categoria, nuevo);
+            } else {
+                porCategoria.remove(categoria);
+                entradas--;
+                if (porCategoria.isEmpty()) frecuencias.remove(clave);
+            }
+        }
+
+        // Categoría con mayor frecuencia si tiene el soporte y la confianza mínimos
+        private static String masFrecuente(Map<String, Integer> porCategoria, int minSoporte) {
+            if (porCategoria == null) return null;
+            String mejor = null;
+            int mejorCantidad = 0;
+            int total = 0;
+            for (Map.Entry<String, Integer> entry : porCategoria.entrySet()) {
+                total += entry.getValue();
+                if (entry.getValue() > mejorCantidad) {
+                    mejorCantidad = entry.getValue();
+                    mejor = entry.getKey();
+                }
+            }
+            if (total < minSoporte || (double) mejorCantidad / total < MIN_CONFIANZA) {
+                return null;
+            }
+            return mejor;
+        }
+
+        private static double confianza(Map<String, Integer> porCategoria, String categoria) {
+            int total = porCategoria.values().stream().mapToInt(Integer::intValue).sum();
+            return (double) porCategoria.get(categoria) / total;
+        }
+    }
+}
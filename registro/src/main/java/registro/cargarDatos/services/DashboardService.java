@@ -0,0 +1,200 @@
+package registro.cargarDatos.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import registro.cargarDatos.dtos.ConciliacionResumenResponse;
+import registro.cargarDatos.dtos.DashboardSummaryResponse;
+import registro.cargarDatos.dtos.MontosMensualesResponse;
+import registro.cargarDatos.dtos.MontosPorCategoriaResponse;
+import registro.cargarDatos.dtos.ResumenMensualResponse;
+import registro.cargarDatos.dtos.SaldoTotalResponse;
+import registro.cargarDatos.models.Factura;
+import registro.cargarDatos.models.Movimiento;
+import registro.cargarDatos.models.Pagare;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Arma el resumen del dashboard lanzando sus secciones en paralelo sobre un pool acotado.
+ * Cada sección tiene su propio timeout: si no responde a tiempo (o falla) se devuelve el último
+ * valor calculado para esa sección marcándola como desactualizada, o null si nunca se calculó.
+ */
+@Service
+@Slf4j
+public class DashboardService {
+
+    // Últimos valores por sección y parámetros (LRU)
+    private static final int MAX_VALORES_ANTERIORES = 500;
+
+    private final MovimientoService movimientoService;
+    private final FacturaService facturaService;
+    private final Executor executor;
+    private final TransactionTemplate lecturaTx;
+    private final long timeoutMs;
+
+    private final Map<String, Object> ultimosValores = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+                    return size() > MAX_VALORES_ANTERIORES;
+                }
+            });
+
+    public DashboardService(
+            MovimientoService movimientoService,
+            FacturaService facturaService,
+            @Qualifier("dashboardExecutor") Executor executor,
+            PlatformTransactionManager transactionManager,
+            @Value("${dashboard.resumen.timeout-ms:3000}") long timeoutMs
+    ) {
+        this.movimientoService = movimientoService;
+        this.facturaService = facturaService;
+        this.executor = executor;
+        this.lecturaTx = new TransactionTemplate(transactionManager);
+        this.lecturaTx.setReadOnly(true);
+        this.timeoutMs = timeoutMs;
+    }
+
+    private record Seccion<T>(String nombre, String clave, CompletableFuture<T> futuro) {}
+
+    // Las respuestas parciales no se cachean para no fijar secciones desactualizadas.
+    // La clave incluye al usuario porque varias secciones (p. ej. conciliación) filtran por él; el
+    // prefijo "<empresaId>_" se mantiene para la invalidación por empresa
+    @Cacheable(value = "dashboardResumen",
+            key = "#empresaId + '_' + #usuarioSub + '_' + #fechaBase + '_' + #meses + '_' + #limiteMovimientos + '_' + #limiteFacturas",
+            condition = "#empresaId != null",
+            unless = "#result == null || #result.parcial")
+    public DashboardSummaryResponse obtenerResumen(
+            Long empresaId,
+            String usuarioSub,
+            LocalDate fechaBase,
+            int meses,
+            int limiteMovimientos,
+            int limiteFacturas
+    ) {
+        // Incluye al usuario: el valor anterior de una sección filtrada por usuario no puede
+        // servirse a otro
+        String parametros = empresaId + "|" + usuarioSub + "|" + fechaBase + "|" + meses + "|" + limiteMovimientos + "|" + limiteFacturas;
+
+        Seccion<ResumenMensualResponse> resumenMensual = lanzar("resumenMensual", parametros,
+                () -> movimientoService.obtenerResumenMensual(empresaId, null, fechaBase));
+        Seccion<MontosMensualesResponse> ingresosMensuales = lanzar("ingresosMensuales", parametros,
+                () -> movimientoService.obtenerIngresosMensuales(empresaId, usuarioSub, fechaBase, meses));
+        Seccion<MontosMensualesResponse> egresosMensuales = lanzar("egresosMensuales", parametros,
+                () -> movimientoService.obtenerEgresosMensuales(empresaId, usuarioSub, fechaBase, meses));
+        Seccion<MontosPorCategoriaResponse> ingresosPorCategoria = lanzar("ingresosPorCategoria", parametros,
+                () -> movimientoService.obtenerIngresosPorCategoria(empresaId, usuarioSub, fechaBase));
+        Seccion<MontosPorCategoriaResponse> egresosPorCategoria = lanzar("egresosPorCategoria", parametros,
+                () -> movimientoService.obtenerEgresosPorCategoria(empresaId, usuarioSub, fechaBase));
+        Seccion<ConciliacionResumenResponse> conciliacion = lanzar("conciliacion", parametros,
+                () -> movimientoService.obtenerResumenConciliacion(empresaId, usuarioSub, fechaBase));
+        Seccion<SaldoTotalResponse> saldoTotal = lanzar("saldoTotal", parametros,
+                () -> SaldoTotalResponse.builder()
+                        .organizacionId(empresaId)
+                        .saldoTotal(movimientoService.obtenerSaldoTotalEmpresa(empresaId))
+                        .build());
+        Seccion<List<Movimiento>> movimientosRecientes = lanzar("movimientosRecientes", parametros,
+                () -> obtenerMovimientosRecientes(empresaId, limiteMovimientos));
+        Seccion<List<Factura>> facturasRecientes = lanzar("facturasRecientes", parametros,
+                () -> obtenerFacturasRecientes(empresaId, limiteFacturas));
+
+        List<String> desactualizadas = new ArrayList<>();
+        List<String> noDisponibles = new ArrayList<>();
+
+        DashboardSummaryResponse.DashboardSummaryResponseBuilder builder = DashboardSummaryResponse.builder()
+                .resumenMensual(resolver(resumenMensual, desactualizadas, noDisponibles))
+                .saldoTotal(resolver(saldoTotal, desactualizadas, noDisponibles))
+                .ingresosMensuales(resolver(ingresosMensuales, desactualizadas, noDisponibles))
+                .egresosMensuales(resolver(egresosMensuales, desactualizadas, noDisponibles))
+                .ingresosPorCategoria(resolver(ingresosPorCategoria, desactualizadas, noDisponibles))
+                .egresosPorCategoria(resolver(egresosPorCategoria, desactualizadas, noDisponibles))
+                .conciliacion(resolver(conciliacion, desactualizadas, noDisponibles))
+                .movimientosRecientes(resolver(movimientosRecientes, desactualizadas, noDisponibles))
+                .facturasRecientes(resolver(facturasRecientes, desactualizadas, noDisponibles));
+
+        return builder
+                .parcial(!desactualizadas.isEmpty() || !noDisponibles.isEmpty())
+                .seccionesDesactualizadas(desactualizadas)
+                .seccionesNoDisponibles(noDisponibles)
+                .build();
+    }
+
+    private List<Movimiento> obtenerMovimientosRecientes(Long empresaId, int limite) {
+        Pageable pageable = PageRequest.of(0, limite, Sort.by(Sort.Direction.DESC, "fechaEmision"));
+        return movimientoService.obtenerMovimientos(empresaId, null, null, null, null, null, null, pageable)
+                .getContent();
+    }
+
+    private List<Factura> obtenerFacturasRecientes(Long empresaId, int limite) {
+        Pageable pageable = PageRequest.of(0, limite, Sort.by(Sort.Direction.DESC, "fechaEmision"));
+        return lecturaTx.execute(status -> {
+            List<Factura> facturas = facturaService.listarPaginadasPorOrganizacion(empresaId, pageable).getContent();
+            // Se serializan fuera de esta sesión (hilo del pool): inicializar las colecciones perezosas
+            for (Factura factura : facturas) {
+                Hibernate.initialize(factura.getItems());
+                Hibernate.initialize(factura.getRecibos());
+                Hibernate.initialize(factura.getPagares());
+                if (factura.getPagares() != null) {
+                    for (Pagare pagare : factura.getPagares()) {
+                        Hibernate.initialize(pagare.getRecibos());
+                    }
+                }
+            }
+            return facturas;
+        });
+    }
+
+    private <T> Seccion<T> lanzar(String nombre, String parametros, Supplier<T> consulta) {
+        String clave = nombre + "|" + parametros;
+        CompletableFuture<T> futuro = CompletableFuture.supplyAsync(consulta, executor);
+        // Aunque la sección venza, si termina más tarde su valor queda para el próximo request
+        futuro.thenAccept(valor -> {
+            if (valor != null) {
+                ultimosValores.put(clave, valor);
+            }
+        });
+        return new Seccion<>(nombre, clave, futuro.copy().orTimeout(timeoutMs, TimeUnit.MILLISECONDS));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T resolver(Seccion<T> seccion, List<String> desactualizadas, List<String> noDisponibles) {
+        try {
+            return seccion.futuro().join();
+        } catch (CompletionException e) {
+            Throwable causa = e.getCause() != null ? e.getCause() : e;
+            if (causa instanceof TimeoutException) {
+                log.warn("Sección {} del dashboard superó {} ms", seccion.nombre(), timeoutMs);
+            } else {
+                log.warn("Error en sección {} del dashboard: {}", seccion.nombre(), causa.getMessage());
+            }
+
+            T anterior = (T) ultimosValores.get(seccion.clave());
+            if (anterior != null) {
+                desactualizadas.add(seccion.nombre());
+                return anterior;
+            }
+            noDisponibles.add(seccion.nombre());
+            return null;
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package registro.cargarDatos.services;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import registro.cargarDatos.dtos.CursorFechaId;
+import registro.cargarDatos.dtos.PaginaCursor;
 import registro.cargarDatos.models.EstadoDocumentoComercial;
 import registro.cargarDatos.models.EstadoPago;
 import registro.cargarDatos.models.Factura;
@@ -21,6 +24,7 @@ public class FacturaService {
 
     private final FacturaRepository facturaRepository;
     private final EmpresaDataService empresaDataService;
+    private final ResumenCacheService resumenCacheService;
 
     /**
      * Guarda una nueva factura
@@ -46,7 +50,10 @@ public class FacturaService {
             factura.setEstadoPago(EstadoPago.NO_PAGADO);
         }
         
-        return facturaRepository.save(factura);
+        Factura guardada = facturaRepository.save(factura);
+        // facturasRecientes del dashboard
+        resumenCacheService.invalidarOrganizacion(guardada.getOrganizacionId());
+        return guardada;
     }
 
     /**
@@ -124,7 +131,9 @@ public class FacturaService {
 
         factura.setFechaActualizacion(LocalDateTime.now());
 
-        return facturaRepository.save(factura);
+        Factura guardada = facturaRepository.save(factura);
+        resumenCacheService.invalidarOrganizacion(guardada.getOrganizacionId());
+        return guardada;
     }
 
     /**
@@ -132,6 +141,8 @@ public class FacturaService {
      */
     @Transactional
     public void eliminarFactura(Long id) {
+        facturaRepository.findById(id)
+                .ifPresent(factura -> resumenCacheService.invalidarOrganizacion(factura.getOrganizacionId()));
         facturaRepository.deleteById(id);
     }
 
@@ -155,6 +166,40 @@ public class FacturaService {
         );
     }
 
+    /**
+     * Búsqueda de facturas por cursor sobre (fechaEmision, idDocumento); el total solo se calcula
+     * con incluirTotal.
+     */
+    public PaginaCursor<Factura> buscarFacturasPorCursor(
+            Long organizacionId,
+            String usuarioId,
+            LocalDate fechaDesde,
+            LocalDate fechaHasta,
+            String tipoFactura,
+            EstadoPago estadoPago,
+            String cursor,
+            int tamanio,
+            boolean ascendente,
+            boolean incluirTotal
+    ) {
+        LocalDateTime desde = fechaDesde != null ? fechaDesde.atStartOfDay() : null;
+        LocalDateTime hasta = fechaHasta != null ? fechaHasta.plusDays(1).atStartOfDay() : null;
+        CursorFechaId posicion = CursorFechaId.decodificar(cursor);
+        LocalDateTime cursorFecha = posicion != null ? posicion.fecha() : null;
+        Long cursorId = posicion != null ? posicion.id() : null;
+        int tamanioPagina = PaginaCursor.tamanioValido(tamanio);
+
+        List<Factura> filas = ascendente
+                ? facturaRepository.buscarFacturasDespuesDe(organizacionId, usuarioId, desde, hasta, tipoFactura,
+                        estadoPago, cursorFecha, cursorId, Limit.of(tamanioPagina + 1))
+                : facturaRepository.buscarFacturasAntesDe(organizacionId, usuarioId, desde, hasta, tipoFactura,
+                        estadoPago, cursorFecha, cursorId, Limit.of(tamanioPagina + 1));
+        Long total = incluirTotal
+                ? facturaRepository.contarFacturas(organizacionId, usuarioId, desde, hasta, tipoFactura, estadoPago)
+                : null;
+        return PaginaCursor.de(filas, tamanioPagina, f -> new CursorFechaId(f.getFechaEmision(), f.getIdDocumento()), total);
+    }
+
     public List<Factura> buscarFacturas(
             Long organizacionId,
             String usuarioId,
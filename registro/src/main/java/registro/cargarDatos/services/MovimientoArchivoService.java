@@ -5,7 +5,6 @@ import com.opencsv.CSVReaderBuilder;
 import com.opencsv.exceptions.CsvValidationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.*;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -17,10 +16,10 @@ import registro.cargarDatos.models.Movimiento;
 import registro.cargarDatos.models.TipoMedioPago;
 import registro.cargarDatos.models.TipoMoneda;
 import registro.cargarDatos.models.TipoMovimiento;
+import registro.movimientosexcel.services.ExcelRowReader;
 import registro.services.AdministracionService;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
@@ -28,6 +27,7 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @RequiredArgsConstructor
@@ -44,6 +44,7 @@ public class MovimientoArchivoService {
 
     private final MovimientoService movimientoService;
     private final AdministracionService administracionService;
+    private final ExcelRowReader excelRowReader;
 
     public ArchivoCargaResponse procesarArchivo(TipoMovimiento tipoMovimiento,
                                                 MultipartFile file,
@@ -103,40 +104,33 @@ public class MovimientoArchivoService {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No se pudo leer el archivo CSV.", e);
             }
         } else {
-            try (InputStream inputStream = file.getInputStream();
-                 Workbook workbook = WorkbookFactory.create(inputStream)) {
+            Map<Integer, String> columnas = new LinkedHashMap<>();
+            AtomicInteger filasExcel = new AtomicInteger();
+            AtomicInteger cargadosExcel = new AtomicInteger();
 
-                Sheet sheet = workbook.getNumberOfSheets() > 0 ? workbook.getSheetAt(0) : null;
-                if (sheet == null) {
-                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El archivo Excel no contiene hojas.");
-                }
-
-                Row headerRow = sheet.getRow(0);
-                if (headerRow == null) {
-                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El archivo Excel no contiene encabezados.");
-                }
-
-                DataFormatter formatter = new DataFormatter();
-                Map<Integer, String> columnas = buildHeaderIndex(headerRow, formatter);
-
-                for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                    Row row = sheet.getRow(i);
-                    if (row == null) {
-                        continue;
+            try {
+                // .xlsx se lee en streaming; .xls con el workbook completo
+                excelRowReader.leerPrimeraHoja(file, (i, celdas) -> {
+                    if (i == 0) {
+                        columnas.putAll(buildHeaderIndex(celdas));
+                        return;
+                    }
+                    if (columnas.isEmpty()) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El archivo Excel no contiene encabezados.");
                     }
 
-                    Map<String, String> valores = extractValues(row, columnas, formatter);
+                    Map<String, String> valores = extractValues(celdas, columnas);
                     if (isRowEmpty(valores)) {
-                        continue;
+                        return;
                     }
 
                     int lineNumber = i + 1; // Excel es 1-based
-                    totalFilas++;
+                    filasExcel.incrementAndGet();
 
                     try {
                         Movimiento movimiento = construirMovimiento(valores, tipoMovimiento, usuarioSub, organizacionId, lineNumber);
                         movimientoService.guardarMovimiento(movimiento);
-                        registrosCargados++;
+                        cargadosExcel.incrementAndGet();
                     } catch (IllegalArgumentException ex) {
                         errores.add(ArchivoCargaResponse.ArchivoError.builder()
                                 .fila(lineNumber)
@@ -144,12 +138,19 @@ public class MovimientoArchivoService {
                                 .build());
                         log.debug("Error en fila {} del Excel: {}", lineNumber, ex.getMessage());
                     }
-                }
-
-            } catch (IOException e) {
+                });
+            } catch (ResponseStatusException e) {
+                throw e;
+            } catch (Exception e) {
                 log.error("Error al leer Excel: {}", e.getMessage());
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No se pudo leer el archivo Excel.", e);
             }
+
+            if (columnas.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El archivo Excel no contiene encabezados.");
+            }
+            totalFilas += filasExcel.get();
+            registrosCargados += cargadosExcel.get();
         }
 
         return ArchivoCargaResponse.builder()
@@ -240,17 +241,14 @@ public class MovimientoArchivoService {
         return columnas;
     }
 
-    private Map<Integer, String> buildHeaderIndex(Row headerRow, DataFormatter formatter) {
+    private Map<Integer, String> buildHeaderIndex(Map<Integer, ExcelRowReader.Celda> headerRow) {
         Map<Integer, String> columnas = new LinkedHashMap<>();
-        for (Cell cell : headerRow) {
-            if (cell == null) {
-                continue;
-            }
-            String valor = normalizeHeader(formatter.formatCellValue(cell));
+        headerRow.forEach((columna, celda) -> {
+            String valor = normalizeHeader(celda.texto());
             if (StringUtils.hasText(valor)) {
-                columnas.put(cell.getColumnIndex(), valor);
+                columnas.put(columna, valor);
             }
-        }
+        });
         if (columnas.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No se detectaron columnas válidas en el encabezado.");
         }
@@ -270,13 +268,12 @@ public class MovimientoArchivoService {
         return valores;
     }
 
-    private Map<String, String> extractValues(Row row,
-                                              Map<Integer, String> columnas,
-                                              DataFormatter formatter) {
+    private Map<String, String> extractValues(Map<Integer, ExcelRowReader.Celda> celdas,
+                                              Map<Integer, String> columnas) {
         Map<String, String> valores = new HashMap<>();
         for (Map.Entry<Integer, String> entry : columnas.entrySet()) {
-            Cell cell = row.getCell(entry.getKey(), Row.MissingCellPolicy.RETURN_BLANK_AS_NULL);
-            String valor = cell != null ? formatter.formatCellValue(cell) : "";
+            ExcelRowReader.Celda celda = celdas.get(entry.getKey());
+            String valor = celda != null ? celda.texto() : "";
             if (valor != null) {
                 valor = valor.trim();
             }
@@ -1,66 +1,270 @@
 package registro.cargarDatos.services;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
-import registro.cargarDatos.models.Movimiento;
+import registro.cargarDatos.dtos.MovementBatchResult;
 import registro.cargarDatos.dtos.MovementCreatedEvent;
+import registro.cargarDatos.models.EventoMovimiento;
+import registro.cargarDatos.models.Movimiento;
+import registro.cargarDatos.repositories.EventoMovimientoRepository;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
+/**
+ * Eventos "movimiento creado" hacia notificación mediante un outbox: el alta del movimiento solo
+ * inserta una fila en evento_movimiento (misma transacción) y EventoMovimientoScheduler los envía
+ * en lotes a /api/events/movements/batch. notificación deduplica por refId, así que reenviar un
+ * lote después de un error no genera notificaciones repetidas. Las importaciones masivas encolan
+ * los eventos de cada tramo con un único INSERT (registrarMovimientosCreados).
+ */
 @Service
+@Slf4j
 public class MovimientoEventService {
 
+    private static final String INSERT_SQL = """
+            INSERT INTO evento_movimiento (movimiento_id, usuario_id, fecha_emision, monto_total, descripcion,
+                                           estado, intentos, disponible_desde, fecha_creacion)
+            VALUES (?, ?, ?, ?, ?, 'PENDIENTE', 0, ?, ?)
+            """;
+
     private final RestTemplate restTemplate;
-    
-    @Value("${notificacion.service.url}")
-    private String notificacionServiceUrl;
+    private final EventoMovimientoRepository eventoRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final String notificacionServiceUrl;
+    private final Duration bloqueo;
+    private final Duration esperaReintento;
+    private final Duration esperaMaxima;
+    private final int tamanioLote;
+    private final int maxIntentos;
+    private final int retencionDias;
 
-    public MovimientoEventService(RestTemplate restTemplate) {
+    public MovimientoEventService(
+            RestTemplate restTemplate,
+            EventoMovimientoRepository eventoRepo,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${notificacion.service.url}") String notificacionServiceUrl,
+            @Value("${registro.eventos-movimiento.bloqueo-minutos:5}") long bloqueoMinutos,
+            @Value("${registro.eventos-movimiento.espera-reintento-segundos:10}") long esperaReintentoSegundos,
+            @Value("${registro.eventos-movimiento.espera-maxima-minutos:30}") long esperaMaximaMinutos,
+            @Value("${registro.eventos-movimiento.tamanio-lote:200}") int tamanioLote,
+            @Value("${registro.eventos-movimiento.max-intentos:10}") int maxIntentos,
+            @Value("${registro.eventos-movimiento.retencion-dias:3}") int retencionDias
+    ) {
         this.restTemplate = restTemplate;
+        this.eventoRepo = eventoRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.notificacionServiceUrl = notificacionServiceUrl;
+        this.bloqueo = Duration.ofMinutes(Math.max(1, bloqueoMinutos));
+        this.esperaReintento = Duration.ofSeconds(Math.max(1, esperaReintentoSegundos));
+        this.esperaMaxima = Duration.ofMinutes(Math.max(1, esperaMaximaMinutos));
+        this.tamanioLote = Math.max(1, tamanioLote);
+        this.maxIntentos = Math.max(1, maxIntentos);
+        this.retencionDias = Math.max(1, retencionDias);
     }
 
-    public void sendMovementCreatedEvent(Movimiento movimiento) {
-        try {
-            // Usar directamente el String UUID del usuario (sin conversión a Long)
-            String userId = movimiento.getUsuarioId();
-            if (userId == null || userId.isEmpty()) {
-                System.err.println("Error: userId es nulo o vacío, no se puede enviar evento");
+    /**
+     * Encola el evento del movimiento recién guardado. Debe llamarse dentro de la transacción del
+     * alta: si el movimiento hace rollback, el evento tampoco queda.
+     */
+    public void registrarMovimientoCreado(Movimiento movimiento) {
+        // Usar directamente el String UUID del usuario (sin conversión a Long)
+        String userId = movimiento.getUsuarioId();
+        if (userId == null || userId.isEmpty()) {
+            log.warn("Movimiento {} sin usuarioId, no se genera evento", movimiento.getId());
+            return;
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        EventoMovimiento evento = new EventoMovimiento();
+        evento.setMovimientoId(movimiento.getId());
+        evento.setUsuarioId(userId);
+        evento.setFechaEmision(movimiento.getFechaEmision());
+        evento.setMontoTotal(movimiento.getMontoTotal());
+        evento.setDescripcion(recortar(movimiento.getDescripcion()));
+        evento.setFechaCreacion(ahora);
+        evento.setDisponibleDesde(ahora);
+        eventoRepo.save(evento);
+    }
+
+    /**
+     * Versión por lote de registrarMovimientoCreado para las importaciones: un solo INSERT
+     * multi-fila (rewriteBatchedStatements) en la transacción del tramo.
+     */
+    public void registrarMovimientosCreados(List<Movimiento> movimientos) {
+        List<Movimiento> conUsuario = movimientos.stream()
+                .filter(movimiento -> movimiento.getUsuarioId() != null && !movimiento.getUsuarioId().isEmpty())
+                .toList();
+        if (conUsuario.size() < movimientos.size()) {
+            log.warn("{} movimientos importados sin usuarioId, no se generan sus eventos",
+                    movimientos.size() - conUsuario.size());
+        }
+        if (conUsuario.isEmpty()) {
+            return;
+        }
+
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, conUsuario, conUsuario.size(), (ps, movimiento) -> {
+            ps.setLong(1, movimiento.getId());
+            ps.setString(2, movimiento.getUsuarioId());
+            if (movimiento.getFechaEmision() != null) {
+                ps.setTimestamp(3, Timestamp.valueOf(movimiento.getFechaEmision()));
+            } else {
+                ps.setNull(3, Types.TIMESTAMP);
+            }
+            if (movimiento.getMontoTotal() != null) {
+                ps.setDouble(4, movimiento.getMontoTotal());
+            } else {
+                ps.setNull(4, Types.DOUBLE);
+            }
+            ps.setString(5, recortar(movimiento.getDescripcion()));
+            ps.setTimestamp(6, ahora);
+            ps.setTimestamp(7, ahora);
+        });
+    }
+
+    /**
+     * Envía los eventos pendientes en lotes hasta vaciar la cola (o lo disponible por ahora).
+     */
+    public void enviarPendientes() {
+        int tomados;
+        do {
+            String lote = UUID.randomUUID().toString();
+            LocalDateTime ahora = LocalDateTime.now();
+            Integer cantidad = transaccion.execute(status ->
+                    eventoRepo.tomarLote(lote, ahora, ahora.plus(bloqueo), tamanioLote));
+            tomados = (cantidad != null) ? cantidad : 0;
+            if (tomados > 0 && !enviarLote(lote)) {
+                // notificación no responde: el resto de la cola espera al próximo ciclo
                 return;
             }
+        } while (tomados == tamanioLote);
+    }
 
-            // Crear el evento con DTO correcto (String userId)
-            MovementCreatedEvent event = new MovementCreatedEvent(
-                userId,
-                movimiento.getId().toString(),
-                movimiento.getFechaEmision() != null 
-                    ? movimiento.getFechaEmision().atZone(ZoneId.systemDefault()).toInstant()
-                    : java.time.Instant.now(),
-                BigDecimal.valueOf(movimiento.getMontoTotal()),
-                movimiento.getDescripcion() != null ? movimiento.getDescripcion() : ""
-            );
+    public void purgarEnviados() {
+        LocalDateTime limite = LocalDateTime.now().minusDays(retencionDias);
+        Integer eliminados = transaccion.execute(status -> eventoRepo.eliminarTerminadosAntesDe(
+                List.of(EventoMovimiento.Estado.ENVIADO, EventoMovimiento.Estado.DESCARTADO), limite));
+        if (eliminados != null && eliminados > 0) {
+            log.info("Eventos de movimientos enviados eliminados: {}", eliminados);
+        }
+    }
+
+    /**
+     * @return false si el lote no se pudo entregar (se reprograma completo)
+     */
+    private boolean enviarLote(String lote) {
+        List<EventoMovimiento> eventos = eventoRepo.findByLoteOrderByIdAsc(lote);
+        List<MovementCreatedEvent> payload = eventos.stream().map(this::aEvento).toList();
 
-            // Enviar al servicio de notificaciones
+        boolean entregado;
+        try {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
-            
-            HttpEntity<MovementCreatedEvent> request = new HttpEntity<>(event, headers);
-            
-            restTemplate.postForObject(
-                notificacionServiceUrl + "/api/events/movements",
-                request,
-                Void.class
+            MovementBatchResult resultado = restTemplate.postForObject(
+                    notificacionServiceUrl + "/api/events/movements/batch",
+                    new HttpEntity<>(payload, headers),
+                    MovementBatchResult.class
             );
-            
+            Set<String> fallidos = (resultado != null && resultado.failedRefIds() != null)
+                    ? new HashSet<>(resultado.failedRefIds())
+                    : Set.of();
+            LocalDateTime ahora = LocalDateTime.now();
+            for (EventoMovimiento evento : eventos) {
+                if (fallidos.contains(evento.getMovimientoId().toString())) {
+                    reprogramar(evento, "notificación no pudo procesar el evento", true);
+                } else {
+                    evento.setEstado(EventoMovimiento.Estado.ENVIADO);
+                    evento.setFechaEnviado(ahora);
+                    evento.setError(null);
+                    liberar(evento);
+                }
+            }
+            if (!fallidos.isEmpty()) {
+                log.warn("Notificación rechazó {} de {} eventos de movimientos", fallidos.size(), eventos.size());
+            }
+            entregado = true;
+        } catch (HttpClientErrorException e) {
+            // 4xx: el lote en sí es inválido; 429 es solo saturación y se reintenta sin límite
+            boolean conLimite = e.getStatusCode() != HttpStatus.TOO_MANY_REQUESTS;
+            log.warn("Notificación rechazó un lote de {} eventos de movimientos: {}", eventos.size(), e.getMessage());
+            eventos.forEach(evento -> reprogramar(evento, e.getMessage(), conLimite));
+            entregado = false;
         } catch (Exception e) {
-            // Log error pero no fallar la operación principal
-            System.err.println("Error enviando evento de movimiento: " + e.getMessage());
-            e.printStackTrace();
+            // Caída o error de notificación: se reintenta sin límite, el evento no se pierde
+            log.warn("No se pudo enviar un lote de {} eventos de movimientos: {}", eventos.size(), e.getMessage());
+            eventos.forEach(evento -> reprogramar(evento, e.getMessage(), false));
+            entregado = false;
         }
+
+        eventoRepo.saveAll(eventos);
+        return entregado;
+    }
+
+    private MovementCreatedEvent aEvento(EventoMovimiento evento) {
+        Instant fecha = evento.getFechaEmision() != null
+                ? evento.getFechaEmision().atZone(ZoneId.systemDefault()).toInstant()
+                : evento.getFechaCreacion().atZone(ZoneId.systemDefault()).toInstant();
+        return new MovementCreatedEvent(
+                evento.getUsuarioId(),
+                evento.getMovimientoId().toString(),
+                fecha,
+                evento.getMontoTotal() != null ? BigDecimal.valueOf(evento.getMontoTotal()) : null,
+                evento.getDescripcion() != null ? evento.getDescripcion() : ""
+        );
+    }
+
+    /**
+     * @param conLimite true si el error es del evento (se descarta tras maxIntentos); false si es
+     *                  de disponibilidad, en cuyo caso se reintenta indefinidamente
+     */
+    private void reprogramar(EventoMovimiento evento, String error, boolean conLimite) {
+        evento.setIntentos(evento.getIntentos() + 1);
+        if (conLimite && evento.getIntentos() >= maxIntentos) {
+            evento.setEstado(EventoMovimiento.Estado.DESCARTADO);
+            evento.setError(recortar(error));
+            evento.setFechaEnviado(LocalDateTime.now());
+            liberar(evento);
+            return;
+        }
+        Duration espera = esperaReintento.multipliedBy(1L << Math.min(evento.getIntentos(), 10));
+        if (espera.compareTo(esperaMaxima) > 0) {
+            espera = esperaMaxima;
+        }
+        evento.setEstado(EventoMovimiento.Estado.PENDIENTE);
+        evento.setError(recortar(error));
+        evento.setDisponibleDesde(LocalDateTime.now().plus(espera));
+        liberar(evento);
+    }
+
+    private void liberar(EventoMovimiento evento) {
+        evento.setLote(null);
+        evento.setBloqueadoHasta(null);
+    }
+
+    private String recortar(String texto) {
+        return (texto != null && texto.length() > 1000) ? texto.substring(0, 1000) : texto;
     }
 }
@@ -2,6 +2,7 @@ package registro.cargarDatos.services;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -11,6 +12,7 @@ import registro.cargarDatos.models.Movimiento;
 import registro.cargarDatos.models.TipoMovimiento;
 import registro.cargarDatos.repositories.MovimientoRepository;
 import registro.cargarDatos.services.MovimientoEventService;
+import registro.conciliacion.services.MontoConciliadoService;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -25,11 +27,13 @@ import java.util.stream.Collectors;
 import org.springframework.cache.annotation.Cacheable;
 
 import registro.cargarDatos.dtos.ConciliacionResumenResponse;
+import registro.cargarDatos.dtos.CursorFechaId;
 import registro.cargarDatos.dtos.ConciliacionTipoResumen;
 import registro.cargarDatos.dtos.MontoPorCategoria;
 import registro.cargarDatos.dtos.MontosMensualesResponse;
 import registro.cargarDatos.dtos.MontosPorCategoriaResponse;
 import registro.cargarDatos.dtos.MovimientosPresupuestoResponse;
+import registro.cargarDatos.dtos.PaginaCursor;
 import registro.cargarDatos.dtos.PuntoMontoMensual;
 import registro.cargarDatos.dtos.ResumenMensualResponse;
 
@@ -40,9 +44,15 @@ public class MovimientoService {
     private final MovimientoRepository movimientoRepository;
     private final EmpresaDataService empresaDataService;
     private final MovimientoEventService movimientoEventService;
+    private final MontoConciliadoService montoConciliadoService;
+    private final ResumenMensualService resumenMensualService;
+    private final ResumenCacheService resumenCacheService;
+    private final CategoriaAprendidaService categoriaAprendidaService;
+    private final BusquedaTextoService busquedaTextoService;
     /**
      * Guarda un nuevo movimiento estableciendo el estado según el tipo
      */
+    @Transactional
     public Movimiento guardarMovimiento(Movimiento movimiento) {
         movimiento.setFechaCreacion(LocalDateTime.now());
         
@@ -61,14 +71,12 @@ public class MovimientoService {
         
         // Guardar el movimiento
         Movimiento savedMovimiento = movimientoRepository.save(movimiento);
+        resumenMensualService.registrarAlta(savedMovimiento);
+        resumenCacheService.invalidarOrganizacion(savedMovimiento.getOrganizacionId());
+        categoriaAprendidaService.aprender(savedMovimiento);
         
-        // Enviar evento de notificación (asíncrono, no falla si el servicio está caído)
-        try {
-            movimientoEventService.sendMovementCreatedEvent(savedMovimiento);
-        } catch (Exception e) {
-            // Log error pero no fallar la operación principal
-            System.err.println("Error enviando evento de movimiento: " + e.getMessage());
-        }
+        // Evento para notificación: se encola en la misma transacción y se envía en segundo plano
+        movimientoEventService.registrarMovimientoCreado(savedMovimiento);
         
         return savedMovimiento;
     }
@@ -170,6 +178,9 @@ public class MovimientoService {
         }
 
         Movimiento movimiento = optional.get();
+        Double montoAnterior = movimiento.getMontoTotal();
+        ResumenMensualService.Aporte aporteAnterior = resumenMensualService.aporteDe(movimiento);
+        CategoriaAprendidaService.Muestra muestraAnterior = categoriaAprendidaService.muestraDe(movimiento);
 
         // Copiar campos actualizables comunes
         movimiento.setTipo(datosActualizados.getTipo());
@@ -199,14 +210,34 @@ public class MovimientoService {
 
         movimiento.setFechaActualizacion(LocalDateTime.now());
 
-        return movimientoRepository.save(movimiento);
+        Movimiento guardado = movimientoRepository.save(movimiento);
+
+        // Si está conciliado, mantener el monto conciliado del documento
+        montoConciliadoService.registrarCambioMonto(guardado.getDocumentoId(), montoAnterior, guardado.getMontoTotal());
+        resumenMensualService.registrarCambio(aporteAnterior, guardado);
+        resumenCacheService.invalidarOrganizacion(guardado.getOrganizacionId());
+        categoriaAprendidaService.registrarCambio(muestraAnterior, guardado);
+
+        return guardado;
     }
 
     /**
      * Elimina un movimiento
      */
+    @Transactional
     public void eliminarMovimiento(Long id) {
-        movimientoRepository.deleteById(id);
+        movimientoRepository.findById(id).ifPresent(movimiento -> {
+            Long documentoId = movimiento.getDocumentoId();
+            Double monto = movimiento.getMontoTotal();
+            ResumenMensualService.Aporte aporte = resumenMensualService.aporteDe(movimiento);
+            CategoriaAprendidaService.Muestra muestra = categoriaAprendidaService.muestraDe(movimiento);
+            movimientoRepository.delete(movimiento);
+            resumenMensualService.registrarBaja(aporte);
+            categoriaAprendidaService.registrarBaja(muestra);
+            resumenCacheService.invalidarOrganizacion(movimiento.getOrganizacionId());
+            // Si estaba conciliado, descontarlo del monto conciliado del documento
+            montoConciliadoService.registrarDesvinculo(documentoId, monto);
+        });
     }
 
     /**
@@ -225,6 +256,7 @@ public class MovimientoService {
     ) {
         LocalDateTime fechaDesdeTime = fechaDesde != null ? fechaDesde.atStartOfDay() : null;
         LocalDateTime fechaHastaTime = fechaHasta != null ? fechaHasta.plusDays(1).atStartOfDay() : null;
+        BusquedaTextoService.FiltroTexto filtroTexto = busquedaTextoService.filtroMovimientos(organizacionId, nombreRelacionado);
         
         return movimientoRepository.findMovimientosConFiltros(
                 organizacionId,
@@ -233,11 +265,51 @@ public class MovimientoService {
                 fechaHastaTime,
                 tipos,
                 conciliado,
-                nombreRelacionado,
+                filtroTexto.textoBusqueda(),
+                filtroTexto.nombreLike(),
                 pageable
         );
     }
 
+    /**
+     * Página por cursor sobre (fechaEmision, id) con los mismos filtros que obtenerMovimientos.
+     * Cada página cuesta lo mismo sin importar cuán profundo se esté en el listado; el total
+     * (COUNT sobre todo el filtro) solo se calcula con incluirTotal.
+     */
+    public PaginaCursor<Movimiento> obtenerMovimientosPorCursor(
+            Long organizacionId,
+            String usuarioId,
+            LocalDate fechaDesde,
+            LocalDate fechaHasta,
+            List<TipoMovimiento> tipos,
+            Boolean conciliado,
+            String nombreRelacionado,
+            String cursor,
+            int tamanio,
+            boolean ascendente,
+            boolean incluirTotal
+    ) {
+        LocalDateTime fechaDesdeTime = fechaDesde != null ? fechaDesde.atStartOfDay() : null;
+        LocalDateTime fechaHastaTime = fechaHasta != null ? fechaHasta.plusDays(1).atStartOfDay() : null;
+        BusquedaTextoService.FiltroTexto filtroTexto = busquedaTextoService.filtroMovimientos(organizacionId, nombreRelacionado);
+        String textoBusqueda = filtroTexto.textoBusqueda();
+        String nombreLike = filtroTexto.nombreLike();
+        CursorFechaId desde = CursorFechaId.decodificar(cursor);
+        LocalDateTime cursorFecha = desde != null ? desde.fecha() : null;
+        Long cursorId = desde != null ? desde.id() : null;
+        int tamanioPagina = PaginaCursor.tamanioValido(tamanio);
+
+        List<Movimiento> filas = ascendente
+                ? movimientoRepository.findMovimientosDespuesDe(organizacionId, usuarioId, fechaDesdeTime, fechaHastaTime,
+                        tipos, conciliado, textoBusqueda, nombreLike, cursorFecha, cursorId, Limit.of(tamanioPagina + 1))
+                : movimientoRepository.findMovimientosAntesDe(organizacionId, usuarioId, fechaDesdeTime, fechaHastaTime,
+                        tipos, conciliado, textoBusqueda, nombreLike, cursorFecha, cursorId, Limit.of(tamanioPagina + 1));
+        Long total = incluirTotal
+                ? movimientoRepository.countMovimientosConFiltros(organizacionId, usuarioId, fechaDesdeTime,
+                        fechaHastaTime, tipos, conciliado, textoBusqueda, nombreLike)
+                : null;
+        return PaginaCursor.de(filas, tamanioPagina, m -> new CursorFechaId(m.getFechaEmision(), m.getId()), total);
+    }
     
     /**
      * Obtiene todos los movimientos sin paginación
@@ -254,6 +326,7 @@ public class MovimientoService {
     ) {
         LocalDateTime fechaDesdeTime = fechaDesde != null ? fechaDesde.atStartOfDay() : null;
         LocalDateTime fechaHastaTime = fechaHasta != null ? fechaHasta.plusDays(1).atStartOfDay() : null;
+        BusquedaTextoService.FiltroTexto filtroTexto = busquedaTextoService.filtroMovimientos(organizacionId, nombreRelacionado);
         
         // Usar Pageable.unpaged() para obtener todos sin paginación
         Page<Movimiento> page = movimientoRepository.findMovimientosConFiltros(
@@ -263,7 +336,8 @@ public class MovimientoService {
                 fechaHastaTime,
                 tipos,
                 conciliado,
-                nombreRelacionado,
+                filtroTexto.textoBusqueda(),
+                filtroTexto.nombreLike(),
                 Pageable.unpaged()
         );
         
@@ -301,6 +375,8 @@ public class MovimientoService {
                 ));
     }
 
+    @Cacheable(value = "resumenMensual", key = "#organizacionId + '_' + #usuarioId + '_' + #fechaReferencia",
+            condition = "#organizacionId != null")
     public ResumenMensualResponse obtenerResumenMensual(Long organizacionId, String usuarioId, LocalDate fechaReferencia) {
         if (organizacionId == null && (usuarioId == null || usuarioId.isBlank())) {
             throw new IllegalArgumentException("Se requiere Organizacion o usuario para calcular el resumen mensual");
@@ -336,7 +412,9 @@ public class MovimientoService {
                 .build();
     }
 
-        public MontosMensualesResponse obtenerIngresosMensuales(
+    @Cacheable(value = "montosMensuales", key = "#organizacionId + '_Ingreso_' + #fechaReferencia + '_' + #meses",
+            condition = "#organizacionId != null")
+    public MontosMensualesResponse obtenerIngresosMensuales(
             Long organizacionId,
             String usuarioId,
             LocalDate fechaReferencia,
@@ -347,6 +425,8 @@ public class MovimientoService {
         return obtenerMontosMensuales(organizacionId, null, fechaReferencia, meses, TipoMovimiento.Ingreso);
     }
 
+    @Cacheable(value = "montosMensuales", key = "#organizacionId + '_Egreso_' + #fechaReferencia + '_' + #meses",
+            condition = "#organizacionId != null")
     public MontosMensualesResponse obtenerEgresosMensuales(
             Long organizacionId,
             String usuarioId,
@@ -374,19 +454,29 @@ public class MovimientoService {
         LocalDate fechaBase = fechaReferencia != null ? fechaReferencia : LocalDate.now();
         YearMonth periodoBase = YearMonth.from(fechaBase);
 
+        YearMonth periodoInicial = periodoBase.minusMonths(mesesSeguros - 1L);
+
+        // A nivel empresa la serie sale del resumen mensual precalculado en una sola consulta
+        Map<String, Double> totalesPorPeriodo = usuarioId == null
+                ? resumenMensualService.sumarMontoPorPeriodo(organizacionId, tipo, periodoInicial, periodoBase)
+                : null;
+
         List<PuntoMontoMensual> puntos = new ArrayList<>();
         for (int offset = mesesSeguros - 1; offset >= 0; offset--) {
             YearMonth periodo = periodoBase.minusMonths(offset);
-            LocalDate inicio = periodo.atDay(1);
-            LocalDate fin = periodo.atEndOfMonth();
-
-            Double total = movimientoRepository.sumMontoByOrganizacionOrUsuarioAndTipoAndFechaBetween(
-                    organizacionId,
-                    usuarioId,
-                    tipo,
-                    inicio.atStartOfDay(),
-                    fin.plusDays(1).atStartOfDay()
-            );
+
+            Double total;
+            if (totalesPorPeriodo != null) {
+                total = totalesPorPeriodo.get(periodo.toString());
+            } else {
+                total = movimientoRepository.sumMontoByOrganizacionOrUsuarioAndTipoAndFechaBetween(
+                        organizacionId,
+                        usuarioId,
+                        tipo,
+                        periodo.atDay(1).atStartOfDay(),
+                        periodo.atEndOfMonth().plusDays(1).atStartOfDay()
+                );
+            }
 
             puntos.add(PuntoMontoMensual.builder()
                     .periodo(periodo.toString())
@@ -403,6 +493,8 @@ public class MovimientoService {
                 .build();
     }
 
+    @Cacheable(value = "montosPorCategoria", key = "#organizacionId + '_Ingreso_' + #fechaReferencia",
+            condition = "#organizacionId != null")
     public MontosPorCategoriaResponse obtenerIngresosPorCategoria(
             Long organizacionId,
             String usuarioId,
@@ -412,6 +504,8 @@ public class MovimientoService {
         return obtenerMontosPorCategoria(organizacionId, null, fechaReferencia, TipoMovimiento.Ingreso);
     }
 
+    @Cacheable(value = "montosPorCategoria", key = "#organizacionId + '_Egreso_' + #fechaReferencia",
+            condition = "#organizacionId != null")
     public MontosPorCategoriaResponse obtenerEgresosPorCategoria(
             Long organizacionId,
             String usuarioId,
@@ -434,15 +528,13 @@ public class MovimientoService {
 
         LocalDate fechaBase = fechaReferencia != null ? fechaReferencia : LocalDate.now();
         int targetYear = fechaBase.getYear();
-        LocalDate inicio = LocalDate.of(targetYear, 1, 1);
-        LocalDate fin = LocalDate.of(targetYear, 12, 31);
 
-        // Query optimizada con GROUP BY en BD
-        List<Object[]> resultados = movimientoRepository.sumMontosPorCategoria(
+        // Sale del resumen mensual precalculado (12 meses del año por categoría)
+        List<Object[]> resultados = resumenMensualService.sumarMontoPorCategoria(
                 organizacionId,
                 tipo,
-                inicio.atStartOfDay(),
-                fin.plusDays(1).atStartOfDay()
+                YearMonth.of(targetYear, 1),
+                YearMonth.of(targetYear, 12)
         );
 
         // Mapear resultados (ya vienen ordenados por monto DESC desde la query)
@@ -461,6 +553,8 @@ public class MovimientoService {
                 .build();
     }
 
+    @Cacheable(value = "resumenConciliacion", key = "#organizacionId + '_' + #usuarioId + '_' + #fechaReferencia",
+            condition = "#organizacionId != null")
     public ConciliacionResumenResponse obtenerResumenConciliacion(
             Long organizacionId,
             String usuarioId,
@@ -577,6 +671,17 @@ public class MovimientoService {
     }
 
     private QueryResult calcularSumas(Long organizacionId, String usuarioId, LocalDate inicio, LocalDate fin) {
+        // A nivel empresa y para un mes completo alcanza con el resumen mensual precalculado
+        if (organizacionId != null && usuarioId == null
+                && inicio.getDayOfMonth() == 1 && fin.equals(YearMonth.from(inicio).atEndOfMonth())) {
+            YearMonth periodo = YearMonth.from(inicio);
+            return new QueryResult(
+                    resumenMensualService.sumarMonto(organizacionId, TipoMovimiento.Ingreso, periodo, periodo),
+                    resumenMensualService.sumarMonto(organizacionId, TipoMovimiento.Egreso, periodo, periodo),
+                    resumenMensualService.contarMovimientos(organizacionId, periodo, periodo)
+            );
+        }
+
         Double ingresos = movimientoRepository.sumMontoByOrganizacionOrUsuarioAndTipoAndFechaBetween(
                 organizacionId,
                 usuarioId,
@@ -609,17 +714,22 @@ public class MovimientoService {
 
     private record QueryResult(double ingresos, double egresos, long totalMovimientos) {}
 
+    @Cacheable(value = "saldoTotal", key = "#organizacionId + '_'", condition = "#organizacionId != null")
     public Double obtenerSaldoTotalEmpresa(Long organizacionId) {
         if (organizacionId == null) {
             throw new IllegalArgumentException("Se requiere organizacionId para calcular el saldo total");
         }
 
-        // Rango amplio: desde 1970 hasta hoy inclusive
-        LocalDate inicioFecha = LocalDate.of(1970, 1, 1);
-        LocalDate finFecha = LocalDate.now().plusDays(1); // inclusivo hasta fin de hoy
+        // Meses cerrados: desde 1970 hasta el mes anterior, del resumen mensual precalculado
+        YearMonth mesActual = YearMonth.now();
+        YearMonth desde = YearMonth.of(1970, 1);
+        YearMonth hasta = mesActual.minusMonths(1);
+        double ingresosCerrados = resumenMensualService.sumarMonto(organizacionId, TipoMovimiento.Ingreso, desde, hasta);
+        double egresosCerrados = resumenMensualService.sumarMonto(organizacionId, TipoMovimiento.Egreso, desde, hasta);
 
-        LocalDateTime inicio = inicioFecha.atStartOfDay();
-        LocalDateTime fin = finFecha.atStartOfDay();
+        // Mes en curso: desde el 1° hasta hoy inclusive (excluye movimientos con fecha futura)
+        LocalDateTime inicio = mesActual.atDay(1).atStartOfDay();
+        LocalDateTime fin = LocalDate.now().plusDays(1).atStartOfDay();
 
         Double ingresos = movimientoRepository.sumMontoByOrganizacionOrUsuarioAndTipoAndFechaBetween(
                 organizacionId,
@@ -637,8 +747,8 @@ public class MovimientoService {
                 fin
         );
 
-        double totalIngresos = ingresos != null ? ingresos : 0d;
-        double totalEgresos = egresos != null ? egresos : 0d;
+        double totalIngresos = ingresosCerrados + (ingresos != null ? ingresos : 0d);
+        double totalEgresos = egresosCerrados + (egresos != null ? egresos : 0d);
 
         // Egresos ya son negativos, devolvemos la suma algebraica
         return totalIngresos + totalEgresos;
@@ -0,0 +1,63 @@
+package registro.cargarDatos.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import registro.cargarDatos.config.CacheConfig;
+
+/**
+ * Invalida las cachés de resúmenes de una organización cuando se escriben sus movimientos.
+ * Dentro de una transacción la invalidación se difiere al commit, para que un request concurrente
+ * no vuelva a cachear los datos anteriores.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResumenCacheService {
+
+    private final CacheManager cacheManager;
+
+    public void invalidarOrganizacion(Long organizacionId) {
+        if (organizacionId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictar(organizacionId);
+                }
+            });
+        } else {
+            evictar(organizacionId);
+        }
+    }
+
+    public void invalidarTodo() {
+        for (String nombre : CacheConfig.CACHES_POR_ORGANIZACION) {
+            Cache cache = cacheManager.getCache(nombre);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    private void evictar(Long organizacionId) {
+        String prefijo = organizacionId + "_";
+        for (String nombre : CacheConfig.CACHES_POR_ORGANIZACION) {
+            Cache cache = cacheManager.getCache(nombre);
+            if (cache instanceof CaffeineCache caffeineCache) {
+                caffeineCache.getNativeCache().asMap().keySet()
+                        .removeIf(clave -> clave.toString().startsWith(prefijo));
+            } else if (cache != null) {
+                cache.clear();
+            }
+        }
+        log.debug("Cachés de resúmenes invalidadas para organización {}", organizacionId);
+    }
+}
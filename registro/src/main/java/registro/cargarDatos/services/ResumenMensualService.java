@@ -0,0 +1,166 @@
+package registro.cargarDatos.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import registro.cargarDatos.models.Movimiento;
+import registro.cargarDatos.models.TipoMovimiento;
+import registro.cargarDatos.repositories.ResumenMensualMovimientoRepository;
+
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mantiene la tabla registro_resumen_mensual (acumulados por organización, mes, tipo, categoría y moneda)
+ * y resuelve las consultas agregadas del dashboard sobre ella.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResumenMensualService {
+
+    private final ResumenMensualMovimientoRepository resumenRepository;
+
+    /**
+     * Clave del acumulado y monto con que un movimiento contribuye a él
+     */
+    public record Aporte(Long organizacionId, String periodo, String tipo, String categoria, String moneda, double monto) {
+
+        private Clave clave() {
+            return new Clave(organizacionId, periodo, tipo, categoria, moneda);
+        }
+    }
+
+    private record Clave(Long organizacionId, String periodo, String tipo, String categoria, String moneda) {}
+
+    /**
+     * Aporte actual del movimiento; null si no participa de los acumulados (sin organización o sin fecha).
+     * Usar antes de modificar un movimiento para poder revertir su aporte anterior.
+     */
+    public Aporte aporteDe(Movimiento movimiento) {
+        if (movimiento == null || movimiento.getOrganizacionId() == null || movimiento.getFechaEmision() == null) {
+            return null;
+        }
+        return new Aporte(
+                movimiento.getOrganizacionId(),
+                YearMonth.from(movimiento.getFechaEmision()).toString(),
+                movimiento.getTipo() != null ? movimiento.getTipo().name() : "",
+                movimiento.getCategoria() != null ? movimiento.getCategoria() : "",
+                movimiento.getMoneda() != null ? movimiento.getMoneda().name() : "",
+                movimiento.getMontoTotal() != null ? movimiento.getMontoTotal() : 0d
+        );
+    }
+
+    @Transactional
+    public void registrarAlta(Movimiento movimiento) {
+        aplicar(aporteDe(movimiento), 1);
+    }
+
+    @Transactional
+    public void registrarBaja(Aporte anterior) {
+        aplicar(anterior, -1);
+    }
+
+    /**
+     * Revierte el aporte anterior y suma el actual (si la clave no cambió, es un solo delta de monto)
+     */
+    @Transactional
+    public void registrarCambio(Aporte anterior, Movimiento actualizado) {
+        Aporte actual = aporteDe(actualizado);
+        if (anterior != null && actual != null && anterior.clave().equals(actual.clave())) {
+            double delta = actual.monto() - anterior.monto();
+            if (delta != 0d) {
+                acumular(actual.clave(), delta, 0L);
+            }
+            return;
+        }
+        aplicar(anterior, -1);
+        aplicar(actual, 1);
+    }
+
+    /**
+     * Alta de varios movimientos (importaciones): agrupa por clave y hace un upsert por clave
+     */
+    @Transactional
+    public void registrarAltas(Collection<Movimiento> movimientos) {
+        Map<Clave, double[]> deltas = new HashMap<>();
+        for (Movimiento movimiento : movimientos) {
+            Aporte aporte = aporteDe(movimiento);
+            if (aporte == null) {
+                continue;
+            }
+            double[] acumulado = deltas.computeIfAbsent(aporte.clave(), k -> new double[2]);
+            acumulado[0] += aporte.monto();
+            acumulado[1] += 1;
+        }
+        deltas.forEach((clave, acumulado) -> acumular(clave, acumulado[0], (long) acumulado[1]));
+    }
+
+    /**
+     * Reconstruye todos los acumulados desde la tabla registro
+     */
+    @Transactional
+    public void reconstruir() {
+        int eliminados = resumenRepository.eliminarTodo();
+        int creados = resumenRepository.reconstruirDesdeRegistro();
+        log.info("Resumen mensual reconstruido: {} filas anteriores, {} filas nuevas", eliminados, creados);
+    }
+
+    public boolean estaVacio() {
+        return resumenRepository.count() == 0;
+    }
+
+    /* =========================
+       Consultas
+       ========================= */
+
+    public double sumarMonto(Long organizacionId, TipoMovimiento tipo, YearMonth desde, YearMonth hasta) {
+        Double total = resumenRepository.sumMonto(organizacionId, tipo.name(), desde.toString(), hasta.toString());
+        return total != null ? total : 0d;
+    }
+
+    public long contarMovimientos(Long organizacionId, YearMonth desde, YearMonth hasta) {
+        return resumenRepository.sumCantidad(organizacionId, desde.toString(), hasta.toString());
+    }
+
+    /**
+     * Totales por período (YYYY-MM); los meses sin movimientos no aparecen
+     */
+    public Map<String, Double> sumarMontoPorPeriodo(Long organizacionId, TipoMovimiento tipo, YearMonth desde, YearMonth hasta) {
+        Map<String, Double> totales = new HashMap<>();
+        for (Object[] fila : resumenRepository.sumMontoPorPeriodo(organizacionId, tipo.name(), desde.toString(), hasta.toString())) {
+            totales.put((String) fila[0], fila[1] != null ? ((Number) fila[1]).doubleValue() : 0d);
+        }
+        return totales;
+    }
+
+    /**
+     * [categoria, total] ordenado por total descendente; la categoría vacía se informa como "Sin categoria"
+     */
+    public List<Object[]> sumarMontoPorCategoria(Long organizacionId, TipoMovimiento tipo, YearMonth desde, YearMonth hasta) {
+        List<Object[]> filas = resumenRepository.sumMontosPorCategoria(
+                organizacionId, tipo.name(), desde.toString(), hasta.toString());
+        for (Object[] fila : filas) {
+            if (fila[0] == null || ((String) fila[0]).isEmpty()) {
+                fila[0] = "Sin categoria";
+            }
+        }
+        return filas;
+    }
+
+    private void aplicar(Aporte aporte, int signo) {
+        if (aporte == null) {
+            return;
+        }
+        acumular(aporte.clave(), signo * aporte.monto(), (long) signo);
+    }
+
+    private void acumular(Clave clave, double monto, long cantidad) {
+        resumenRepository.acumular(clave.organizacionId(), clave.periodo(), clave.tipo(),
+                clave.categoria(), clave.moneda(), monto, cantidad);
+    }
+}
@@ -0,0 +1,27 @@
+package registro.conciliacion.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ConciliacionAsyncConfig {
+
+    /**
+     * Pool acotado para los procesos de conciliación automática; si la cola se llena el
+     * envío se rechaza en lugar de acumular trabajos en memoria.
+     */
+    @Bean(name = "conciliacionExecutor")
+    public ThreadPoolTaskExecutor conciliacionExecutor(
+            @Value("${conciliacion.automatica.hilos:2}") int hilos,
+            @Value("${conciliacion.automatica.cola:20}") int cola) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(cola);
+        executor.setThreadNamePrefix("conciliacion-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -7,11 +7,15 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import registro.cargarDatos.dtos.PaginaCursor;
+import registro.conciliacion.dtos.ConciliacionAutomaticaJobDTO;
 import registro.conciliacion.dtos.ConciliacionRequestDTO;
 import registro.conciliacion.dtos.DocumentoSugeridoDTO;
 import registro.conciliacion.dtos.MovimientoDTO;
 import registro.conciliacion.dtos.SugerenciasResponseDTO;
+import registro.conciliacion.services.ConciliacionAutomaticaService;
 import registro.conciliacion.services.ConciliacionService;
+import registro.services.AdministracionService;
 
 import java.util.HashMap;
 import java.util.List;
@@ -23,6 +27,8 @@ import java.util.Map;
 public class ConciliacionController {
 
     private final ConciliacionService conciliacionService;
+    private final ConciliacionAutomaticaService conciliacionAutomaticaService;
+    private final AdministracionService administracionService;
 
     /**
      * Obtiene movimientos sin conciliar con paginación
@@ -58,6 +64,26 @@ public class ConciliacionController {
         return ResponseEntity.ok(movimientos);
     }
 
+    /**
+     * Movimientos paginados por cursor (fechaEmision, id); conciliado=false equivale a /sin-conciliar.
+     * Para la página siguiente se envía el siguienteCursor de la respuesta.
+     */
+    @GetMapping("/movimientos/cursor")
+    public ResponseEntity<PaginaCursor<MovimientoDTO>> obtenerMovimientosPorCursor(
+            @RequestParam(required = false) Boolean conciliado,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean incluirTotal) {
+        try {
+            PaginaCursor<MovimientoDTO> movimientos = conciliacionService.obtenerMovimientosPorCursor(
+                    conciliado, cursor, size, sortDir.equalsIgnoreCase("asc"), incluirTotal);
+            return ResponseEntity.ok(movimientos);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Sugiere documentos para un movimiento específico
      */
@@ -66,11 +92,7 @@ public class ConciliacionController {
         List<DocumentoSugeridoDTO> sugerencias = conciliacionService.sugerirDocumentos(movimientoId);
         
         // Obtener el movimiento para incluirlo en la respuesta
-        List<MovimientoDTO> movimientos = conciliacionService.obtenerTodosLosMovimientos();
-        MovimientoDTO movimiento = movimientos.stream()
-                .filter(m -> m.getId().equals(movimientoId))
-                .findFirst()
-                .orElse(null);
+        MovimientoDTO movimiento = conciliacionService.obtenerMovimiento(movimientoId);
 
         SugerenciasResponseDTO response = new SugerenciasResponseDTO();
         response.setMovimiento(movimiento);
@@ -109,6 +131,41 @@ public class ConciliacionController {
         }
     }
 
+    /**
+     * Inicia la conciliación automática de todos los movimientos sin conciliar de la empresa del usuario.
+     * Devuelve el proceso encolado; el progreso y el resultado se consultan con GET /automatica/{jobId}
+     */
+    @PostMapping("/automatica")
+    public ResponseEntity<ConciliacionAutomaticaJobDTO> iniciarConciliacionAutomatica(
+            @RequestHeader(value = "X-Usuario-Sub") String usuarioSub) {
+        try {
+            Long empresaId = administracionService.obtenerEmpresaIdPorUsuarioSub(usuarioSub);
+            ConciliacionAutomaticaJobDTO job = conciliacionAutomaticaService.iniciar(empresaId);
+            return ResponseEntity.accepted().body(job);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Consulta el progreso y, al finalizar, las asignaciones propuestas de una conciliación automática
+     */
+    @GetMapping("/automatica/{jobId}")
+    public ResponseEntity<ConciliacionAutomaticaJobDTO> obtenerConciliacionAutomatica(
+            @PathVariable String jobId,
+            @RequestHeader(value = "X-Usuario-Sub") String usuarioSub) {
+        try {
+            Long empresaId = administracionService.obtenerEmpresaIdPorUsuarioSub(usuarioSub);
+            ConciliacionAutomaticaJobDTO job = conciliacionAutomaticaService.obtener(jobId, empresaId);
+            if (job == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(job);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Obtiene estadísticas de conciliación
      */
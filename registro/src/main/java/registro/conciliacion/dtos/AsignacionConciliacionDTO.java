@@ -0,0 +1,19 @@
+package registro.conciliacion.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO para un par movimiento-documento propuesto por la conciliación automática
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AsignacionConciliacionDTO {
+
+    private MovimientoDTO movimiento;
+
+    // Incluye score, nivel y razón de la sugerencia
+    private DocumentoSugeridoDTO documento;
+}
@@ -0,0 +1,48 @@
+package registro.conciliacion.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Estado de un proceso de conciliación automática ejecutado en segundo plano.
+ * Los campos son volatile porque el worker los actualiza mientras se consultan desde los requests.
+ */
+@Getter
+@Setter
+public class ConciliacionAutomaticaJobDTO {
+
+    public enum Estado { PENDIENTE, EN_PROCESO, COMPLETADO, ERROR }
+
+    private String jobId;
+
+    @JsonIgnore
+    private Long organizacionId;
+
+    private volatile Estado estado = Estado.PENDIENTE;
+
+    private volatile int totalMovimientos;
+
+    private volatile int movimientosProcesados;
+
+    private volatile int totalDocumentos;
+
+    private volatile LocalDateTime fechaInicio;
+
+    private volatile LocalDateTime fechaFin;
+
+    private volatile String error;
+
+    // Solo disponible cuando el estado es COMPLETADO
+    private volatile List<AsignacionConciliacionDTO> asignaciones;
+
+    public int getPorcentaje() {
+        if (estado == Estado.COMPLETADO) {
+            return 100;
+        }
+        return totalMovimientos == 0 ? 0 : (int) (movimientosProcesados * 100L / totalMovimientos);
+    }
+}
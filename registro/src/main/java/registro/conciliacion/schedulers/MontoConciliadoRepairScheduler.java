@@ -0,0 +1,43 @@
+package registro.conciliacion.schedulers;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import registro.conciliacion.services.MontoConciliadoService;
+
+/**
+ * Verifica periódicamente que los montos conciliados incrementales coincidan con los movimientos
+ * vinculados. Al iniciar también inicializa los documentos que todavía no tienen agregado.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class MontoConciliadoRepairScheduler {
+
+    private final MontoConciliadoService montoConciliadoService;
+
+    @Value("${conciliacion.monto-conciliado.reparar-al-iniciar:true}")
+    private boolean repararAlIniciar;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void repararAlIniciar() {
+        if (!repararAlIniciar) {
+            log.debug("Reparación de montos conciliados al iniciar deshabilitada");
+            return;
+        }
+        reparar();
+    }
+
+    @Scheduled(cron = "${conciliacion.monto-conciliado.cron:0 15 4 * * *}")
+    public void reparar() {
+        try {
+            montoConciliadoService.repararAgregados();
+        } catch (Exception e) {
+            log.error("Error reparando montos conciliados: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package registro.conciliacion.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Asignación uno a uno de máximo score entre movimientos y documentos.
+ * Las aristas se separan en componentes conexas y cada una se resuelve de forma óptima: las
+ * chicas con el método húngaro sobre la matriz densa y las que superan LIMITE_HUNGARO con la
+ * variante dispersa, que recorre solo las aristas candidatas en vez de la matriz n x n.
+ */
+final class AsignacionOptima {
+
+    static final int LIMITE_HUNGARO = 200;
+
+    record Arista(int movimiento, int documento, int score) {}
+
+    private AsignacionOptima() {
+    }
+
+    static List<Arista> resolver(List<Arista> aristas, int totalMovimientos, int totalDocumentos) {
+        // Componentes conexas: nodos 0..M-1 son movimientos, M..M+D-1 documentos
+        int[] padre = new int[totalMovimientos + totalDocumentos];
+        for (int i = 0; i < padre.length; i++) {
+            padre[i] = i;
+        }
+        for (Arista arista : aristas) {
+            unir(padre, arista.movimiento(), totalMovimientos + arista.documento());
+        }
+
+        Map<Integer, List<Arista>> porComponente = new HashMap<>();
+        for (Arista arista : aristas) {
+            int raiz = buscar(padre, arista.movimiento());
+            porComponente.computeIfAbsent(raiz, k -> new ArrayList<>()).add(arista);
+        }
+
+        List<Arista> resultado = new ArrayList<>();
+        for (List<Arista> componente : porComponente.values()) {
+            resultado.addAll(resolverComponente(componente));
+        }
+        return resultado;
+    }
+
+    private static List<Arista> resolverComponente(List<Arista> aristas) {
+        if (aristas.size() == 1) {
+            return aristas;
+        }
+        long movimientos = aristas.stream().mapToInt(Arista::movimiento).distinct().count();
+        long documentos = aristas.stream().mapToInt(Arista::documento).distinct().count();
+        if (movimientos > LIMITE_HUNGARO || documentos > LIMITE_HUNGARO) {
+            return resolverDisperso(aristas);
+        }
+        return resolverHungaro(aristas);
+    }
+
+    static List<Arista> resolverHungaro(List<Arista> aristas) {
+        // Índices locales de la componente
+        Map<Integer, Integer> movimientos = new HashMap<>();
+        Map<Integer, Integer> documentos = new HashMap<>();
+        for (Arista arista : aristas) {
+            movimientos.putIfAbsent(arista.movimiento(), movimientos.size());
+            documentos.putIfAbsent(arista.documento(), documentos.size());
+        }
+
+        // El método húngaro requiere filas <= columnas
+        boolean filasSonMovimientos = movimientos.size() <= documentos.size();
+        int filas = filasSonMovimientos ? movimientos.size() : documentos.size();
+        int columnas = filasSonMovimientos ? documentos.size() : movimientos.size();
+
+        // Costo = -score; sin arista = 0 (equivale a no asignar)
+        int[][] costo = new int[filas + 1][columnas + 1];
+        Arista[][] origen = new Arista[filas + 1][columnas + 1];
+        for (Arista arista : aristas) {
+            int mov = movimientos.get(arista.movimiento()) + 1;
+            int doc = documentos.get(arista.documento()) + 1;
+            int fila = filasSonMovimientos ? mov : doc;
+            int columna = filasSonMovimientos ? doc : mov;
+            if (-arista.score() < costo[fila][columna]) {
+                costo[fila][columna] = -arista.score();
+                origen[fila][columna] = arista;
+            }
+        }
+
+        int[] asignacion = hungaro(costo, filas, columnas);
+
+        List<Arista> resultado = new ArrayList<>();
+        for (int columna = 1; columna <= columnas; columna++) {
+            int fila = asignacion[columna];
+            if (fila != 0 && origen[fila][columna] != null) {
+                resultado.add(origen[fila][columna]);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Método húngaro por caminos de aumento más cortos (Jonker-Volgenant) recorriendo solo las
+     * aristas candidatas, sin la matriz densa. Cada movimiento tiene además un documento ficticio
+     * propio con costo fijo que representa dejarlo sin asignar, así que siempre hay camino y el
+     * resultado es la asignación de máximo score. Cada movimiento nuevo explora solo la zona del
+     * grafo donde puede mejorar la asignación (Dijkstra con potenciales, que se corta al llegar a
+     * un documento libre), en lugar de las n columnas de la matriz.
+     */
+    static List<Arista> resolverDisperso(List<Arista> aristas) {
+        Map<Integer, Integer> movimientos = new HashMap<>();
+        Map<Integer, Integer> documentos = new HashMap<>();
+        int scoreMaximo = 0;
+        for (Arista arista : aristas) {
+            movimientos.putIfAbsent(arista.movimiento(), movimientos.size());
+            documentos.putIfAbsent(arista.documento(), documentos.size());
+            scoreMaximo = Math.max(scoreMaximo, arista.score());
+        }
+        int filas = movimientos.size();
+        int reales = documentos.size();
+        int columnas = reales + filas;
+
+        // Aristas por fila (CSR); costo = scoreMaximo - score >= 0 para arrancar con potenciales en 0
+        int[] inicio = new int[filas + 1];
+        for (Arista arista : aristas) {
+            inicio[movimientos.get(arista.movimiento()) + 1]++;
+        }
+        for (int i = 0; i < filas; i++) {
+            inicio[i + 1] += inicio[i];
+        }
+        int[] posicion = Arrays.copyOf(inicio, filas);
+        int[] columnaDe = new int[aristas.size()];
+        long[] costoDe = new long[aristas.size()];
+        Arista[] aristaDe = new Arista[aristas.size()];
+        for (Arista arista : aristas) {
+            int k = posicion[movimientos.get(arista.movimiento())]++;
+            columnaDe[k] = documentos.get(arista.documento());
+            costoDe[k] = scoreMaximo - arista.score();
+            aristaDe[k] = arista;
+        }
+
+        long[] u = new long[filas];
+        long[] v = new long[columnas];
+        int[] filaDeColumna = new int[columnas];
+        int[] columnaDeFila = new int[filas];
+        Arista[] elegida = new Arista[filas];
+        Arrays.fill(filaDeColumna, -1);
+
+        final long infinito = Long.MAX_VALUE / 4;
+        long[] distancia = new long[columnas];
+        int[] previa = new int[columnas];
+        Arista[] aristaPrevia = new Arista[columnas];
+        boolean[] cerrada = new boolean[columnas];
+        Arrays.fill(distancia, infinito);
+        // Columnas y filas tocadas en la ronda, para limpiar y actualizar solo esas
+        int[] tocadas = new int[columnas];
+        int[] visitadas = new int[filas];
+        PriorityQueue<long[]> cola = new PriorityQueue<>(Comparator.comparingLong((long[] e) -> e[0]));
+
+        for (int filaNueva = 0; filaNueva < filas; filaNueva++) {
+            int cantidadTocadas = 0;
+            int cantidadVisitadas = 0;
+            cola.clear();
+            long minimo = 0;
+            int fila = filaNueva;
+            int libre;
+            while (true) {
+                visitadas[cantidadVisitadas++] = fila;
+                for (int k = inicio[fila]; k <= inicio[fila + 1]; k++) {
+                    // La última posición es el documento ficticio de la fila (dejarla sin asignar)
+                    boolean ficticia = k == inicio[fila + 1];
+                    int columna = ficticia ? reales + fila : columnaDe[k];
+                    if (cerrada[columna]) {
+                        continue;
+                    }
+                    long costo = ficticia ? scoreMaximo : costoDe[k];
+                    long reducido = minimo + costo - u[fila] - v[columna];
+                    if (reducido < distancia[columna]) {
+                        if (distancia[columna] == infinito) {
+                            tocadas[cantidadTocadas++] = columna;
+                        }
+                        distancia[columna] = reducido;
+                        previa[columna] = fila;
+                        aristaPrevia[columna] = ficticia ? null : aristaDe[k];
+                        cola.add(new long[]{reducido, columna});
+                    }
+                }
+                int columna;
+                do {
+                    columna = (int) cola.poll()[1];
+                } while (cerrada[columna]);
+                cerrada[columna] = true;
+                minimo = distancia[columna];
+                if (filaDeColumna[columna] == -1) {
+                    libre = columna;
+                    break;
+                }
+                fila = filaDeColumna[columna];
+            }
+
+            // Potenciales: solo cambian las filas y columnas cerradas en esta ronda
+            u[filaNueva] += minimo;
+            for (int r = 1; r < cantidadVisitadas; r++) {
+                int visitada = visitadas[r];
+                u[visitada] += minimo - distancia[columnaDeFila[visitada]];
+            }
+            for (int t = 0; t < cantidadTocadas; t++) {
+                int columna = tocadas[t];
+                if (cerrada[columna]) {
+                    v[columna] -= minimo - distancia[columna];
+                }
+            }
+
+            // Aumento: cada fila del camino toma la columna por la que se llegó a la siguiente
+            int columna = libre;
+            while (true) {
+                int anterior = previa[columna];
+                filaDeColumna[columna] = anterior;
+                int liberada = columnaDeFila[anterior];
+                columnaDeFila[anterior] = columna;
+                elegida[anterior] = aristaPrevia[columna];
+                if (anterior == filaNueva) {
+                    break;
+                }
+                columna = liberada;
+            }
+
+            for (int t = 0; t < cantidadTocadas; t++) {
+                distancia[tocadas[t]] = infinito;
+                cerrada[tocadas[t]] = false;
+            }
+        }
+
+        List<Arista> resultado = new ArrayList<>();
+        for (Arista arista : elegida) {
+            if (arista != null) {
+                resultado.add(arista);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Método húngaro (potenciales) sobre una matriz 1-indexada de filas x columnas, filas <= columnas.
+     * Devuelve, para cada columna, la fila asignada (0 si ninguna).
+     */
+    private static int[] hungaro(int[][] costo, int filas, int columnas) {
+        final int infinito = Integer.MAX_VALUE / 2;
+        int[] u = new int[filas + 1];
+        int[] v = new int[columnas + 1];
+        int[] asignacion = new int[columnas + 1];
+        int[] camino = new int[columnas + 1];
+        int[] minimo = new int[columnas + 1];
+        boolean[] usado = new boolean[columnas + 1];
+
+        for (int i = 1; i <= filas; i++) {
+            asignacion[0] = i;
+            int j0 = 0;
+            Arrays.fill(minimo, infinito);
+            Arrays.fill(usado, false);
+            do {
+                usado[j0] = true;
+                int i0 = asignacion[j0];
+                int delta = infinito;
+                int j1 = 0;
+                for (int j = 1; j <= columnas; j++) {
+                    if (!usado[j]) {
+                        int actual = costo[i0][j] - u[i0] - v[j];
+                        if (actual < minimo[j]) {
+                            minimo[j] = actual;
+                            camino[j] = j0;
+                        }
+                        if (minimo[j] < delta) {
+                            delta = minimo[j];
+                            j1 = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= columnas; j++) {
+                    if (usado[j]) {
+                        u[asignacion[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minimo[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (asignacion[j0] != 0);
+            do {
+                int j1 = camino[j0];
+                asignacion[j0] = asignacion[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+        return asignacion;
+    }
+
+    private static int buscar(int[] padre, int nodo) {
+        while (padre[nodo] != nodo) {
+            padre[nodo] = padre[padre[nodo]];
+            nodo = padre[nodo];
+        }
+        return nodo;
+    }
+
+    private static void unir(int[] padre, int a, int b) {
+        int raizA = buscar(padre, a);
+        int raizB = buscar(padre, b);
+        if (raizA != raizB) {
+            padre[raizA] = raizB;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package registro.conciliacion.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import registro.conciliacion.dtos.ConciliacionAutomaticaJobDTO;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ejecuta la conciliación automática de una organización en segundo plano y expone su progreso.
+ * Los trabajos se guardan en memoria y se descartan una hora después de terminar.
+ */
+@Service
+@Slf4j
+public class ConciliacionAutomaticaService {
+
+    private static final long HORAS_RETENCION = 1;
+
+    private final ConciliacionService conciliacionService;
+    private final ThreadPoolTaskExecutor executor;
+    private final Map<String, ConciliacionAutomaticaJobDTO> jobs = new ConcurrentHashMap<>();
+    // Último proceso de cada organización: garantiza uno solo pendiente o en proceso a la vez
+    private final Map<Long, ConciliacionAutomaticaJobDTO> ultimoPorOrganizacion = new ConcurrentHashMap<>();
+
+    public ConciliacionAutomaticaService(ConciliacionService conciliacionService,
+                                         @Qualifier("conciliacionExecutor") ThreadPoolTaskExecutor executor) {
+        this.conciliacionService = conciliacionService;
+        this.executor = executor;
+    }
+
+    /**
+     * Encola un proceso para la organización. Si ya hay uno pendiente o en proceso, devuelve ese.
+     */
+    public ConciliacionAutomaticaJobDTO iniciar(Long organizacionId) {
+        limpiarTerminados();
+
+        ConciliacionAutomaticaJobDTO nuevo = new ConciliacionAutomaticaJobDTO();
+        nuevo.setJobId(UUID.randomUUID().toString());
+        nuevo.setOrganizacionId(organizacionId);
+
+        // compute es atómico por organización: dos pedidos simultáneos no pueden crear dos procesos
+        ConciliacionAutomaticaJobDTO job = ultimoPorOrganizacion.compute(organizacionId,
+                (id, actual) -> actual != null && !estaTerminado(actual) ? actual : nuevo);
+        if (job != nuevo) {
+            return job;
+        }
+        jobs.put(job.getJobId(), job);
+
+        try {
+            executor.execute(() -> ejecutar(job));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getJobId());
+            ultimoPorOrganizacion.remove(organizacionId, job);
+            throw new RuntimeException("Hay demasiados procesos de conciliación en curso, intente más tarde");
+        }
+        return job;
+    }
+
+    /**
+     * Obtiene el estado de un proceso, solo si pertenece a la organización indicada
+     */
+    public ConciliacionAutomaticaJobDTO obtener(String jobId, Long organizacionId) {
+        ConciliacionAutomaticaJobDTO job = jobs.get(jobId);
+        if (job == null || !organizacionId.equals(job.getOrganizacionId())) {
+            return null;
+        }
+        return job;
+    }
+
+    private void ejecutar(ConciliacionAutomaticaJobDTO job) {
+        job.setEstado(ConciliacionAutomaticaJobDTO.Estado.EN_PROCESO);
+        job.setFechaInicio(LocalDateTime.now());
+        try {
+            job.setAsignaciones(conciliacionService.calcularConciliacionAutomatica(job.getOrganizacionId(), job));
+            job.setEstado(ConciliacionAutomaticaJobDTO.Estado.COMPLETADO);
+            log.info("Conciliación automática {} completada para empresa {}: {} movimientos, {} asignaciones",
+                    job.getJobId(), job.getOrganizacionId(), job.getTotalMovimientos(), job.getAsignaciones().size());
+        } catch (Exception e) {
+            log.error("Error en conciliación automática {} para empresa {}: {}",
+                    job.getJobId(), job.getOrganizacionId(), e.getMessage(), e);
+            job.setError(e.getMessage());
+            job.setEstado(ConciliacionAutomaticaJobDTO.Estado.ERROR);
+        } finally {
+            job.setFechaFin(LocalDateTime.now());
+        }
+    }
+
+    private boolean estaTerminado(ConciliacionAutomaticaJobDTO job) {
+        return job.getEstado() == ConciliacionAutomaticaJobDTO.Estado.COMPLETADO
+                || job.getEstado() == ConciliacionAutomaticaJobDTO.Estado.ERROR;
+    }
+
+    private void limpiarTerminados() {
+        LocalDateTime limite = LocalDateTime.now().minusHours(HORAS_RETENCION);
+        jobs.values().removeIf(job -> estaTerminado(job)
+                && job.getFechaFin() != null
+                && job.getFechaFin().isBefore(limite));
+        ultimoPorOrganizacion.values().removeIf(job -> estaTerminado(job) && !jobs.containsKey(job.getJobId()));
+    }
+}
@@ -1,23 +1,33 @@
 package registro.conciliacion.services;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import registro.cargarDatos.dtos.CursorFechaId;
+import registro.cargarDatos.dtos.PaginaCursor;
 import registro.cargarDatos.models.*;
 import registro.cargarDatos.repositories.FacturaRepository;
 import registro.cargarDatos.repositories.MovimientoRepository;
 import registro.cargarDatos.repositories.PagareRepository;
 import registro.cargarDatos.repositories.ReciboRepository;
+import registro.cargarDatos.services.ResumenCacheService;
+import registro.conciliacion.dtos.AsignacionConciliacionDTO;
+import registro.conciliacion.dtos.ConciliacionAutomaticaJobDTO;
 import registro.conciliacion.dtos.DocumentoSugeridoDTO;
 import registro.conciliacion.dtos.MovimientoDTO;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
@@ -27,6 +37,18 @@ public class ConciliacionService {
     private final FacturaRepository facturaRepository;
     private final PagareRepository pagareRepository;
     private final ReciboRepository reciboRepository;
+    private final MontoConciliadoService montoConciliadoService;
+    private final ResumenCacheService resumenCacheService;
+
+    private static final int SCORE_MINIMO_SUGERENCIA = 30;
+
+    // Deben coincidir con verificarMontoSimilar / verificarFechaCercana
+    private static final double TOLERANCIA_MONTO_CANDIDATO = 0.15;
+    private static final int VENTANA_DIAS_CANDIDATO = 30;
+
+    // Fuera de la banda de monto el score es fecha + texto (15) + categoría (5): desde los 11 días
+    // la fecha suma 8 o menos y no se alcanza SCORE_MINIMO_SUGERENCIA
+    private static final int VENTANA_DIAS_SIN_MONTO = 10;
 
     /**
      * Obtiene movimientos sin conciliar con paginación
@@ -48,6 +70,30 @@ public class ConciliacionService {
         return registros.map(this::convertirAMovimientoDTO);
     }
 
+    /**
+     * Movimientos paginados por cursor (fechaEmision, id), opcionalmente solo conciliados o sin
+     * conciliar. El total solo se calcula con incluirTotal.
+     */
+    @Transactional(readOnly = true)
+    public PaginaCursor<MovimientoDTO> obtenerMovimientosPorCursor(Boolean conciliado, String cursor, int tamanio,
+                                                                   boolean ascendente, boolean incluirTotal) {
+        CursorFechaId posicion = CursorFechaId.decodificar(cursor);
+        LocalDateTime cursorFecha = posicion != null ? posicion.fecha() : null;
+        Long cursorId = posicion != null ? posicion.id() : null;
+        int tamanioPagina = PaginaCursor.tamanioValido(tamanio);
+
+        List<Movimiento> filas = ascendente
+                ? movimientoRepository.findMovimientosDespuesDe(null, null, null, null, null, conciliado, null, null,
+                        cursorFecha, cursorId, Limit.of(tamanioPagina + 1))
+                : movimientoRepository.findMovimientosAntesDe(null, null, null, null, null, conciliado, null, null,
+                        cursorFecha, cursorId, Limit.of(tamanioPagina + 1));
+        Long total = incluirTotal
+                ? movimientoRepository.countMovimientosConFiltros(null, null, null, null, null, conciliado, null, null)
+                : null;
+        return PaginaCursor.de(filas, tamanioPagina, m -> new CursorFechaId(m.getFechaEmision(), m.getId()), total)
+                .map(this::convertirAMovimientoDTO);
+    }
+
     /**
      * Obtiene todos los movimientos sin conciliar (sin paginación) - para compatibilidad
      */
@@ -72,6 +118,16 @@ public class ConciliacionService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Obtiene un movimiento por ID
+     */
+    @Transactional(readOnly = true)
+    public MovimientoDTO obtenerMovimiento(Long movimientoId) {
+        return movimientoRepository.findById(movimientoId)
+                .map(this::convertirAMovimientoDTO)
+                .orElse(null);
+    }
+
     /**
      * Sugiere documentos para un movimiento específico usando algoritmo de matching optimizado
      * PASO 1: Filtra documentos por tipo Y (monto O fecha O descripción)
@@ -107,7 +163,7 @@ public class ConciliacionService {
             System.out.println("  Fecha: " + documento.getFechaEmision());
             System.out.println("  Score: " + score);
             
-            if (score >= 30) { // Solo sugerir si hay al menos 30% de coincidencia
+            if (score >= SCORE_MINIMO_SUGERENCIA) { // Solo sugerir si hay al menos 30% de coincidencia
                 DocumentoSugeridoDTO sugerencia = crearSugerenciaDesdeDocumento(documento, score);
                 sugerencias.add(sugerencia);
                 System.out.println("  ✓ AGREGADO A SUGERENCIAS");
@@ -129,113 +185,219 @@ public class ConciliacionService {
         return sugerencias.stream().limit(10).collect(Collectors.toList());
     }
     
+    /**
+     * Conciliación automática: propone una asignación uno a uno entre los movimientos sin conciliar
+     * de la organización y sus documentos, usando los mismos pesos de calcularScore.
+     * Los documentos se indexan ordenados por monto y por fecha; los movimientos se recorren ordenados
+     * por monto, así la banda de monto avanza como un barrido y la ventana de fechas se ubica por
+     * búsqueda binaria. Solo se puntúan los pares dentro de la banda o la ventana.
+     */
+    @Transactional(readOnly = true)
+    public List<AsignacionConciliacionDTO> calcularConciliacionAutomatica(Long organizacionId,
+                                                                         ConciliacionAutomaticaJobDTO job) {
+        List<Movimiento> movimientos = new ArrayList<>(
+                movimientoRepository.findByOrganizacionIdAndDocumentoIdIsNull(organizacionId));
+
+        // Las facturas ya pagadas no se vuelven a proponer
+        List<DocumentoComercial> documentos = new ArrayList<>();
+        for (Factura factura : facturaRepository.findByOrganizacionId(organizacionId)) {
+            if (factura.getEstadoPago() != EstadoPago.PAGADO) {
+                documentos.add(factura);
+            }
+        }
+        documentos.addAll(pagareRepository.findByOrganizacionId(organizacionId));
+        documentos.addAll(reciboRepository.findByOrganizacionId(organizacionId));
+
+        job.setTotalMovimientos(movimientos.size());
+        job.setTotalDocumentos(documentos.size());
+
+        // Movimientos ordenados por monto absoluto y fecha (los que no tienen monto al final)
+        movimientos.sort(Comparator
+                .comparing((Movimiento m) -> m.getMontoTotal() != null ? Math.abs(m.getMontoTotal()) : null,
+                        Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(Movimiento::getFechaEmision, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        // Índice de documentos por monto absoluto
+        int[] porMonto = IntStream.range(0, documentos.size())
+                .filter(i -> documentos.get(i).getMontoTotal() != null)
+                .boxed()
+                .sorted(Comparator.comparingDouble(i -> Math.abs(documentos.get(i).getMontoTotal())))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        double[] montos = new double[porMonto.length];
+        for (int k = 0; k < porMonto.length; k++) {
+            montos[k] = Math.abs(documentos.get(porMonto[k]).getMontoTotal());
+        }
+
+        // Índice de documentos por día de emisión
+        int[] porFecha = IntStream.range(0, documentos.size())
+                .filter(i -> documentos.get(i).getFechaEmision() != null)
+                .boxed()
+                .sorted(Comparator.comparing(i -> documentos.get(i).getFechaEmision()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        long[] dias = new long[porFecha.length];
+        for (int k = 0; k < porFecha.length; k++) {
+            dias[k] = documentos.get(porFecha[k]).getFechaEmision().toLocalDate().toEpochDay();
+        }
+
+        // visto[d] == i evita puntuar dos veces el mismo par cuando cae en la banda y en la ventana
+        int[] visto = new int[documentos.size()];
+        Arrays.fill(visto, -1);
+        List<AsignacionOptima.Arista> aristas = new ArrayList<>();
+        int inicioBanda = 0;
+
+        for (int i = 0; i < movimientos.size(); i++) {
+            Movimiento movimiento = movimientos.get(i);
+
+            if (movimiento.getMontoTotal() != null) {
+                double montoMov = Math.abs(movimiento.getMontoTotal());
+                double montoMin = montoMinCandidato(montoMov);
+                double montoMax = montoMaxCandidato(montoMov);
+                // La banda es monótona en el monto: el inicio solo avanza
+                while (inicioBanda < montos.length && montos[inicioBanda] < montoMin) {
+                    inicioBanda++;
+                }
+                for (int k = inicioBanda; k < montos.length && montos[k] <= montoMax; k++) {
+                    agregarArista(aristas, visto, i, porMonto[k], movimiento, documentos);
+                }
+            }
+
+            // Los de la banda ya se puntuaron: por fecha solo se miran los que pueden llegar al
+            // umbral sin coincidencia de monto
+            if (movimiento.getFechaEmision() != null) {
+                long dia = movimiento.getFechaEmision().toLocalDate().toEpochDay();
+                for (int k = primerIndiceDesde(dias, dia - VENTANA_DIAS_SIN_MONTO);
+                     k < dias.length && dias[k] <= dia + VENTANA_DIAS_SIN_MONTO; k++) {
+                    agregarArista(aristas, visto, i, porFecha[k], movimiento, documentos);
+                }
+            }
+
+            job.setMovimientosProcesados(i + 1);
+        }
+
+        List<AsignacionConciliacionDTO> asignaciones = new ArrayList<>();
+        for (AsignacionOptima.Arista arista : AsignacionOptima.resolver(aristas, movimientos.size(), documentos.size())) {
+            asignaciones.add(new AsignacionConciliacionDTO(
+                    convertirAMovimientoDTO(movimientos.get(arista.movimiento())),
+                    crearSugerenciaDesdeDocumento(documentos.get(arista.documento()), arista.score())));
+        }
+        asignaciones.sort(Comparator.comparing((AsignacionConciliacionDTO a) -> a.getDocumento().getScoreCoincidencia())
+                .reversed());
+        return asignaciones;
+    }
+
+    private void agregarArista(List<AsignacionOptima.Arista> aristas, int[] visto, int movimientoIdx, int documentoIdx,
+                               Movimiento movimiento, List<DocumentoComercial> documentos) {
+        if (visto[documentoIdx] == movimientoIdx) {
+            return;
+        }
+        visto[documentoIdx] = movimientoIdx;
+        int score = calcularScore(movimiento, documentos.get(documentoIdx));
+        if (score >= SCORE_MINIMO_SUGERENCIA) {
+            aristas.add(new AsignacionOptima.Arista(movimientoIdx, documentoIdx, score));
+        }
+    }
+
+    /**
+     * Primer índice de un arreglo ordenado cuyo valor es >= desde
+     */
+    private static int primerIndiceDesde(long[] ordenados, long desde) {
+        int bajo = 0;
+        int alto = ordenados.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (ordenados[medio] < desde) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
     /**
      * Filtra documentos candidatos que coincidan en tipo Y (monto O fecha O descripción O todos)
-     * Esto reduce significativamente el espacio de búsqueda antes de aplicar scoring
-     * Carga EAGER de todos los datos para evitar lazy loading
+     * La recuperación se hace por índice: solo documentos de la organización del movimiento con
+     * monto dentro de la banda de similitud O fecha dentro de la ventana de días.
+     * Un documento fuera de ambas no puede superar el umbral de score (texto + categoría suman 20 como máximo),
+     * así que el resultado es el mismo que recorriendo todos los documentos.
      */
     private List<DocumentoComercial> filtrarDocumentosCandidatos(Movimiento movimiento) {
         List<DocumentoComercial> candidatos = new ArrayList<>();
-        
+
         // Determinar el tipo de movimiento (INGRESO/EGRESO)
         TipoMovimiento tipoMovimiento = movimiento.getTipo();
-        
-        // Obtener todos los documentos de la base de datos
-        // findAll() carga todos los registros de forma eager
-        List<Factura> facturas = facturaRepository.findAll();
-        List<Pagare> pagares = pagareRepository.findAll();
-        List<Recibo> recibos = reciboRepository.findAll();
-        
+
+        if (movimiento.getMontoTotal() == null && movimiento.getFechaEmision() == null) {
+            return candidatos;
+        }
+
+        // Banda de monto (valor absoluto); null deja la condición de monto sin coincidencias
+        Double montoMin = null;
+        Double montoMax = null;
+        if (movimiento.getMontoTotal() != null) {
+            double montoMov = Math.abs(movimiento.getMontoTotal());
+            montoMin = montoMinCandidato(montoMov);
+            montoMax = montoMaxCandidato(montoMov);
+        }
+        Double montoMinNegativo = montoMax != null ? -montoMax : null;
+        Double montoMaxNegativo = montoMin != null ? -montoMin : null;
+
+        // Ventana de fechas en días calendario, igual que calcularScoreFecha
+        LocalDateTime fechaDesde = null;
+        LocalDateTime fechaHasta = null;
+        if (movimiento.getFechaEmision() != null) {
+            LocalDate fechaMov = movimiento.getFechaEmision().toLocalDate();
+            fechaDesde = fechaMov.minusDays(VENTANA_DIAS_CANDIDATO).atStartOfDay();
+            fechaHasta = fechaMov.plusDays(VENTANA_DIAS_CANDIDATO + 1).atStartOfDay();
+        }
+
+        Long organizacionId = movimiento.getOrganizacionId();
+
+        List<Factura> facturas = facturaRepository.buscarCandidatosConciliacion(
+                organizacionId, montoMin, montoMax, montoMinNegativo, montoMaxNegativo, fechaDesde, fechaHasta);
+        List<Pagare> pagares = pagareRepository.buscarCandidatosConciliacion(
+                organizacionId, montoMin, montoMax, montoMinNegativo, montoMaxNegativo, fechaDesde, fechaHasta);
+        List<Recibo> recibos = reciboRepository.buscarCandidatosConciliacion(
+                organizacionId, montoMin, montoMax, montoMinNegativo, montoMaxNegativo, fechaDesde, fechaHasta);
+
         System.out.println("\n--- INICIANDO FILTRADO DE CANDIDATOS ---");
-        System.out.println("Total facturas en BD: " + (facturas != null ? facturas.size() : 0));
-        System.out.println("Total pagarés en BD: " + (pagares != null ? pagares.size() : 0));
-        System.out.println("Total recibos en BD: " + (recibos != null ? recibos.size() : 0));
-        
-        // Forzar la inicialización de las colecciones para evitar lazy loading
-        // Esto asegura que todos los datos estén disponibles
-        if (facturas != null) {
-            facturas.size(); // Fuerza la carga completa
-        }
-        if (pagares != null) {
-            pagares.size(); // Fuerza la carga completa
-        }
-        if (recibos != null) {
-            recibos.size(); // Fuerza la carga completa
-        }
-        
-        int facturasAnalizadas = 0;
-        int facturasAprobadas = 0;
-        
-        // Filtrar facturas - recorrer TODAS las facturas sin excepción
-        if (facturas != null && !facturas.isEmpty()) {
-            System.out.println("\n--- ANALIZANDO FACTURAS ---");
-            for (Factura factura : facturas) {
-                try {
-                    facturasAnalizadas++;
-                    // Forzar acceso a propiedades para asegurar carga completa
-                    factura.getMontoTotal();
-                    factura.getFechaEmision();
-                    factura.getCategoria();
-                    
-                    boolean cumple = cumpleCriteriosFiltrado(movimiento, factura, tipoMovimiento);
-                    
-                    System.out.println("Factura #" + factura.getNumeroDocumento() + 
-                                     " | Monto: " + factura.getMontoTotal() + 
-                                     " | Fecha: " + factura.getFechaEmision() + 
-                                     " | Cumple: " + (cumple ? "SÍ" : "NO"));
-                    
-                    if (cumple) {
-                        candidatos.add(factura);
-                        facturasAprobadas++;
-                    }
-                } catch (Exception e) {
-                    // Si hay error en alguna factura, continuar con la siguiente
-                    System.err.println("Error procesando factura ID: " + factura.getIdDocumento() + " - " + e.getMessage());
-                    e.printStackTrace();
-                }
+        System.out.println("Facturas en ventana: " + facturas.size());
+        System.out.println("Pagarés en ventana: " + pagares.size());
+        System.out.println("Recibos en ventana: " + recibos.size());
+
+        for (Factura factura : facturas) {
+            if (cumpleCriteriosFiltrado(movimiento, factura, tipoMovimiento)) {
+                candidatos.add(factura);
             }
-            System.out.println("Facturas analizadas: " + facturasAnalizadas + " | Aprobadas: " + facturasAprobadas);
-        }
-        
-        // Filtrar pagarés - recorrer TODOS los pagarés
-        if (pagares != null && !pagares.isEmpty()) {
-            for (Pagare pagare : pagares) {
-                try {
-                    // Forzar acceso a propiedades
-                    pagare.getMontoTotal();
-                    pagare.getFechaEmision();
-                    pagare.getCategoria();
-                    
-                    if (cumpleCriteriosFiltrado(movimiento, pagare, tipoMovimiento)) {
-                        candidatos.add(pagare);
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error procesando pagaré ID: " + pagare.getIdDocumento() + " - " + e.getMessage());
-                }
+        }
+        for (Pagare pagare : pagares) {
+            if (cumpleCriteriosFiltrado(movimiento, pagare, tipoMovimiento)) {
+                candidatos.add(pagare);
             }
         }
-        
-        // Filtrar recibos - recorrer TODOS los recibos
-        if (recibos != null && !recibos.isEmpty()) {
-            for (Recibo recibo : recibos) {
-                try {
-                    // Forzar acceso a propiedades
-                    recibo.getMontoTotal();
-                    recibo.getFechaEmision();
-                    recibo.getCategoria();
-                    
-                    if (cumpleCriteriosFiltrado(movimiento, recibo, tipoMovimiento)) {
-                        candidatos.add(recibo);
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error procesando recibo ID: " + recibo.getIdDocumento() + " - " + e.getMessage());
-                }
+        for (Recibo recibo : recibos) {
+            if (cumpleCriteriosFiltrado(movimiento, recibo, tipoMovimiento)) {
+                candidatos.add(recibo);
             }
         }
-        
+
         return candidatos;
     }
     
+    /**
+     * Límites (en valor absoluto) de la banda de monto de un candidato: cubre la tolerancia porcentual
+     * de verificarMontoSimilar y la diferencia absoluta menor a 1 de calcularScoreMonto
+     */
+    private static double montoMinCandidato(double montoMov) {
+        return Math.max(0.0, Math.min(montoMov / (1 + TOLERANCIA_MONTO_CANDIDATO), montoMov - 1.0));
+    }
+
+    private static double montoMaxCandidato(double montoMov) {
+        return Math.max(montoMov / (1 - TOLERANCIA_MONTO_CANDIDATO), montoMov + 1.0);
+    }
+
     /**
      * Verifica si un documento cumple los criterios de filtrado:
      * - Mismo tipo (INGRESO/EGRESO)
@@ -365,13 +527,20 @@ public class ConciliacionService {
             throw new RuntimeException("Documento no encontrado");
         }
 
+        Long documentoAnteriorId = movimiento.getDocumentoId();
+        if (documento.getIdDocumento().equals(documentoAnteriorId)) {
+            return convertirAMovimientoDTO(movimiento);
+        }
+
         movimiento.setDocumentoComercial(documento);
         Movimiento guardado = movimientoRepository.save(movimiento);
         
-        // Actualizar estado de pago si el documento es una Factura
-        if (documento instanceof Factura) {
-            actualizarEstadoPagoFactura((Factura) documento);
+        // Actualizar montos conciliados (y estado de pago si es Factura) de forma incremental
+        if (documentoAnteriorId != null) {
+            montoConciliadoService.registrarDesvinculo(documentoAnteriorId, guardado.getMontoTotal());
         }
+        montoConciliadoService.registrarVinculo(documento.getIdDocumento(), guardado.getMontoTotal());
+        resumenCacheService.invalidarOrganizacion(guardado.getOrganizacionId());
 
         return convertirAMovimientoDTO(guardado);
     }
@@ -384,14 +553,13 @@ public class ConciliacionService {
         Movimiento movimiento = movimientoRepository.findById(movimientoId)
                 .orElseThrow(() -> new RuntimeException("Movimiento no encontrado"));
 
-        DocumentoComercial documento = movimiento.getDocumentoComercial();
+        Long documentoAnteriorId = movimiento.getDocumentoId();
         movimiento.setDocumentoComercial(null);
         Movimiento guardado = movimientoRepository.save(movimiento);
         
-        // Actualizar estado de pago si el documento era una Factura
-        if (documento instanceof Factura) {
-            actualizarEstadoPagoFactura((Factura) documento);
-        }
+        // Actualizar montos conciliados (y estado de pago si era Factura) de forma incremental
+        montoConciliadoService.registrarDesvinculo(documentoAnteriorId, guardado.getMontoTotal());
+        resumenCacheService.invalidarOrganizacion(guardado.getOrganizacionId());
 
         return convertirAMovimientoDTO(guardado);
     }
@@ -769,49 +937,4 @@ public class ConciliacionService {
             return "Coincidencia baja, verificar manualmente";
         }
     }
-    
-    /**
-     * Actualiza el estado de pago de una factura basado en los movimientos conciliados
-     */
-    private void actualizarEstadoPagoFactura(Factura factura) {
-        // Obtener todos los movimientos conciliados con esta factura
-        List<Movimiento> movimientos = movimientoRepository.findAll().stream()
-                .filter(r -> r.getDocumentoComercial() != null && 
-                            r.getDocumentoComercial().getIdDocumento().equals(factura.getIdDocumento()))
-                .collect(Collectors.toList());
-        
-        if (movimientos.isEmpty()) {
-            // Sin movimientos, marcar como NO_PAGADO y PagoPendiente
-            factura.setEstadoPago(EstadoPago.NO_PAGADO);
-            factura.setEstadoDocumentoComercial(EstadoDocumentoComercial.PagoPendiente);
-        } else {
-            // Sumar todos los montos de los movimientos
-            double totalPagado = movimientos.stream()
-                    .mapToDouble(r -> Math.abs(r.getMontoTotal() != null ? r.getMontoTotal() : 0.0))
-                    .sum();
-            
-            double montoFactura = Math.abs(factura.getMontoTotal() != null ? factura.getMontoTotal() : 0.0);
-            
-            // Comparar con tolerancia del 1% para errores de redondeo
-            double diferencia = Math.abs(totalPagado - montoFactura);
-            double tolerancia = montoFactura * 0.01;
-            
-            if (diferencia <= tolerancia || totalPagado >= montoFactura) {
-                // Pago completo
-                factura.setEstadoPago(EstadoPago.PAGADO);
-                factura.setEstadoDocumentoComercial(EstadoDocumentoComercial.Pago);
-            } else if (totalPagado > 0) {
-                // Pago parcial
-                factura.setEstadoPago(EstadoPago.PARCIALMENTE_PAGADO);
-                factura.setEstadoDocumentoComercial(EstadoDocumentoComercial.PagoParcialmente);
-            } else {
-                // Sin pago
-                factura.setEstadoPago(EstadoPago.NO_PAGADO);
-                factura.setEstadoDocumentoComercial(EstadoDocumentoComercial.PagoPendiente);
-            }
-        }
-        
-        facturaRepository.save(factura);
-    }
 }
-
@@ -0,0 +1,200 @@
+package registro.conciliacion.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import registro.cargarDatos.models.EstadoDocumentoComercial;
+import registro.cargarDatos.models.EstadoPago;
+import registro.cargarDatos.models.Factura;
+import registro.cargarDatos.repositories.DocumentoComercialRepository;
+import registro.cargarDatos.repositories.FacturaRepository;
+import registro.cargarDatos.repositories.MovimientoRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mantiene el monto conciliado de cada documento comercial como agregado incremental
+ * (documento_comercial.monto_conciliado / cantidad_movimientos_conciliados), para que vincular o
+ * desvincular un movimiento no requiera recorrer la tabla de movimientos.
+ */
+@Service
+@Slf4j
+public class MontoConciliadoService {
+
+    // Diferencia tolerada al comparar agregados al reparar (errores de redondeo de double)
+    private static final double EPSILON = 0.001;
+
+    private final DocumentoComercialRepository documentoComercialRepository;
+    private final FacturaRepository facturaRepository;
+    private final MovimientoRepository movimientoRepository;
+    private final TransactionTemplate transaccion;
+
+    public MontoConciliadoService(DocumentoComercialRepository documentoComercialRepository,
+                                  FacturaRepository facturaRepository,
+                                  MovimientoRepository movimientoRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.documentoComercialRepository = documentoComercialRepository;
+        this.facturaRepository = facturaRepository;
+        this.movimientoRepository = movimientoRepository;
+        this.transaccion = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Registra un movimiento recién vinculado al documento
+     */
+    @Transactional
+    public void registrarVinculo(Long documentoId, Double montoMovimiento) {
+        if (documentoId == null) {
+            return;
+        }
+        documentoComercialRepository.sumarMontoConciliado(documentoId, montoAbsoluto(montoMovimiento), 1);
+        actualizarEstadoPagoFactura(documentoId);
+    }
+
+    /**
+     * Registra que un movimiento dejó de estar vinculado al documento (desvinculado o eliminado)
+     */
+    @Transactional
+    public void registrarDesvinculo(Long documentoId, Double montoMovimiento) {
+        if (documentoId == null) {
+            return;
+        }
+        documentoComercialRepository.sumarMontoConciliado(documentoId, -montoAbsoluto(montoMovimiento), -1);
+        actualizarEstadoPagoFactura(documentoId);
+    }
+
+    /**
+     * Ajusta el agregado cuando cambia el monto de un movimiento ya vinculado
+     */
+    @Transactional
+    public void registrarCambioMonto(Long documentoId, Double montoAnterior, Double montoNuevo) {
+        if (documentoId == null) {
+            return;
+        }
+        double delta = montoAbsoluto(montoNuevo) - montoAbsoluto(montoAnterior);
+        if (Math.abs(delta) < EPSILON) {
+            return;
+        }
+        documentoComercialRepository.sumarMontoConciliado(documentoId, delta, 0);
+        actualizarEstadoPagoFactura(documentoId);
+    }
+
+    /**
+     * Recalcula todos los agregados desde los movimientos y corrige los que no coinciden.
+     * La comparación usa una lectura sin bloqueo; cada documento que difiere se recalcula en su
+     * propia transacción bloqueando sus movimientos, así un vínculo o desvínculo concurrente espera
+     * a la reparación (o la reparación a él) y su incremento no se pisa con un valor viejo.
+     * @return cantidad de documentos corregidos
+     */
+    public int repararAgregados() {
+        Map<Long, Object[]> reales = new HashMap<>();
+        for (Object[] fila : movimientoRepository.sumMontoConciliadoPorDocumento()) {
+            reales.put((Long) fila[0], fila);
+        }
+
+        int corregidos = 0;
+        List<Object[]> almacenados = documentoComercialRepository.findMontosConciliados();
+        for (Object[] fila : almacenados) {
+            Long documentoId = (Long) fila[0];
+            double montoAlmacenado = fila[1] != null ? ((Number) fila[1]).doubleValue() : 0.0;
+            int cantidadAlmacenada = fila[2] != null ? ((Number) fila[2]).intValue() : 0;
+
+            Object[] real = reales.get(documentoId);
+            double montoReal = real != null ? ((Number) real[1]).doubleValue() : 0.0;
+            int cantidadReal = real != null ? ((Number) real[2]).intValue() : 0;
+
+            boolean inicializado = fila[1] != null && fila[2] != null;
+            if (inicializado && cantidadAlmacenada == cantidadReal && Math.abs(montoAlmacenado - montoReal) < EPSILON) {
+                continue;
+            }
+
+            try {
+                if (Boolean.TRUE.equals(transaccion.execute(status -> recalcular(documentoId)))) {
+                    corregidos++;
+                }
+            } catch (Exception e) {
+                log.error("Error reparando monto conciliado del documento {}: {}", documentoId, e.getMessage());
+            }
+        }
+
+        log.info("Reparación de montos conciliados: {} documentos revisados, {} corregidos", almacenados.size(), corregidos);
+        return corregidos;
+    }
+
+    /**
+     * Recalcula el agregado de un documento con sus movimientos bloqueados (FOR SHARE) y lo fija
+     * si no coincide. Debe ejecutarse en una transacción.
+     * @return true si se corrigió
+     */
+    private boolean recalcular(Long documentoId) {
+        Object[] real = movimientoRepository.sumMontoConciliadoBloqueando(documentoId).get(0);
+        double montoReal = real[0] != null ? ((Number) real[0]).doubleValue() : 0.0;
+        int cantidadReal = real[1] != null ? ((Number) real[1]).intValue() : 0;
+
+        Object[] almacenado = documentoComercialRepository.findMontoConciliadoParaActualizar(documentoId).get(0);
+        boolean inicializado = almacenado[0] != null && almacenado[1] != null;
+        double montoAlmacenado = almacenado[0] != null ? ((Number) almacenado[0]).doubleValue() : 0.0;
+        int cantidadAlmacenada = almacenado[1] != null ? ((Number) almacenado[1]).intValue() : 0;
+        if (inicializado && cantidadAlmacenada == cantidadReal && Math.abs(montoAlmacenado - montoReal) < EPSILON) {
+            // La diferencia de la lectura sin bloqueo era un vínculo en curso
+            return false;
+        }
+
+        if (inicializado) {
+            log.warn("Agregado de conciliación inconsistente en documento {}: almacenado {} ({} movs), real {} ({} movs)",
+                    documentoId, montoAlmacenado, cantidadAlmacenada, montoReal, cantidadReal);
+        }
+        documentoComercialRepository.fijarMontoConciliado(documentoId, montoReal, cantidadReal);
+        actualizarEstadoPagoFactura(documentoId);
+        return true;
+    }
+
+    /**
+     * Actualiza el estado de pago de una factura a partir de su agregado de conciliación
+     */
+    private void actualizarEstadoPagoFactura(Long documentoId) {
+        Factura factura = facturaRepository.findById(documentoId).orElse(null);
+        if (factura == null) {
+            return;
+        }
+
+        int cantidad = factura.getCantidadMovimientosConciliados() != null ? factura.getCantidadMovimientosConciliados() : 0;
+
+        if (cantidad <= 0) {
+            // Sin movimientos, marcar como NO_PAGADO y PagoPendiente
+            factura.setEstadoPago(EstadoPago.NO_PAGADO);
+            factura.setEstadoDocumentoComercial(EstadoDocumentoComercial.PagoPendiente);
+        } else {
+            double totalPagado = factura.getMontoConciliado() != null ? factura.getMontoConciliado() : 0.0;
+            double montoFactura = Math.abs(factura.getMontoTotal() != null ? factura.getMontoTotal() : 0.0);
+
+            // Comparar con tolerancia del 1% para errores de redondeo
+            double diferencia = Math.abs(totalPagado - montoFactura);
+            double tolerancia = montoFactura * 0.01;
+
+            if (diferencia <= tolerancia || totalPagado >= montoFactura) {
+                // Pago completo
+                factura.setEstadoPago(EstadoPago.PAGADO);
+                factura.setEstadoDocumentoComercial(EstadoDocumentoComercial.Pago);
+            } else if (totalPagado > 0) {
+                // Pago parcial
+                factura.setEstadoPago(EstadoPago.PARCIALMENTE_PAGADO);
+                factura.setEstadoDocumentoComercial(EstadoDocumentoComercial.PagoParcialmente);
+            } else {
+                // Sin pago
+                factura.setEstadoPago(EstadoPago.NO_PAGADO);
+                factura.setEstadoDocumentoComercial(EstadoDocumentoComercial.PagoPendiente);
+            }
+        }
+
+        facturaRepository.save(factura);
+    }
+
+    private double montoAbsoluto(Double monto) {
+        return monto != null ? Math.abs(monto) : 0.0;
+    }
+}
@@ -0,0 +1,52 @@
+package registro.controllers;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import registro.services.EmpresaUsuarioCache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Administración llama a este endpoint cuando cambia la empresa de uno o más usuarios, para que
+ * no se siga usando la empresa anterior hasta que venza el TTL de EmpresaUsuarioCache.
+ * El gateway no expone /internal/**; además se exige el token compartido mycfo.internal.token en
+ * X-Internal-Token (sin token configurado se rechazan todos los avisos).
+ */
+@RestController
+@RequestMapping("/internal/empresa-usuario")
+@RequiredArgsConstructor
+public class EmpresaUsuarioController {
+
+    private final EmpresaUsuarioCache empresaUsuarioCache;
+
+    @Value("${mycfo.internal.token:}")
+    private String tokenInterno;
+
+    /**
+     * Invalida los subs indicados; una lista vacía vacía toda la caché.
+     */
+    @PostMapping("/invalidar")
+    public ResponseEntity<Void> invalidar(@RequestHeader(value = "X-Internal-Token", required = false) String token,
+                                          @RequestBody(required = false) List<String> usuarioSubs) {
+        if (!tokenValido(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (usuarioSubs == null || usuarioSubs.isEmpty()) {
+            empresaUsuarioCache.invalidarTodo();
+        } else {
+            empresaUsuarioCache.invalidar(usuarioSubs);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private boolean tokenValido(String token) {
+        return tokenInterno != null && !tokenInterno.isBlank() && token != null
+                && MessageDigest.isEqual(tokenInterno.getBytes(StandardCharsets.UTF_8),
+                        token.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,108 @@
+package registro.mercadopago.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+@Configuration
+public class MpHttpClientConfig {
+
+    // Segmentos de la ruta que son ids (numéricos o hexadecimales largos) -> {id}, para acotar los tags
+    private static final Pattern SEGMENTO_ID = Pattern.compile("\\d+|[0-9a-fA-F-]{16,}");
+
+    /**
+     * Cliente HTTP de Mercado Pago: conexiones keep-alive en pool (sin handshake TLS por llamada),
+     * límite por ruta, timeouts de conexión/lectura/espera de pool y respuestas gzip (HttpClient 5
+     * envía Accept-Encoding y descomprime por defecto).
+     */
+    @Bean(name = "mpHttpClient")
+    public CloseableHttpClient mpHttpClient(
+            @Value("${mercadopago.http.max-conexiones:50}") int maxConexiones,
+            @Value("${mercadopago.http.max-conexiones-por-ruta:20}") int maxPorRuta,
+            @Value("${mercadopago.http.connect-timeout-ms:3000}") long connectTimeoutMs,
+            @Value("${mercadopago.http.read-timeout-ms:15000}") long readTimeoutMs,
+            @Value("${mercadopago.http.pool-timeout-ms:2000}") long poolTimeoutMs,
+            @Value("${mercadopago.http.inactiva-segundos:30}") long inactivaSegundos) {
+        PoolingHttpClientConnectionManager conexiones = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConexiones)
+                .setMaxConnPerRoute(maxPorRuta)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(inactivaSegundos))
+                        .build())
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(conexiones)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(inactivaSegundos))
+                .build();
+    }
+
+    @Bean(name = "mpRestTemplate")
+    public RestTemplate mpRestTemplate(@Qualifier("mpHttpClient") CloseableHttpClient mpHttpClient,
+                                       MeterRegistry meterRegistry) {
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(mpHttpClient));
+        restTemplate.getInterceptors().add(medirLlamadas(meterRegistry));
+        return restTemplate;
+    }
+
+    /**
+     * Timer mercadopago.http.client por método, endpoint (ruta con ids normalizados) y estado
+     * (hasta recibir los headers de la respuesta).
+     */
+    private ClientHttpRequestInterceptor medirLlamadas(MeterRegistry meterRegistry) {
+        return (request, body, execution) -> {
+            long inicio = System.nanoTime();
+            String estado = "IO_ERROR";
+            try {
+                ClientHttpResponse response = execution.execute(request, body);
+                estado = String.valueOf(response.getStatusCode().value());
+                return response;
+            } finally {
+                Timer.builder("mercadopago.http.client")
+                        .tag("method", request.getMethod().name())
+                        .tag("endpoint", plantilla(request.getURI().getPath()))
+                        .tag("status", estado)
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    private static String plantilla(String path) {
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        StringBuilder plantilla = new StringBuilder(path.length());
+        for (String segmento : path.split("/")) {
+            if (segmento.isEmpty()) {
+                continue;
+            }
+            plantilla.append('/').append(SEGMENTO_ID.matcher(segmento).matches() ? "{id}" : segmento);
+        }
+        return plantilla.length() == 0 ? "/" : plantilla.toString();
+    }
+}
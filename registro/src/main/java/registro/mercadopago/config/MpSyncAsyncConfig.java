@@ -0,0 +1,48 @@
+package registro.mercadopago.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class MpSyncAsyncConfig {
+
+    /**
+     * Pool compartido para pedir páginas de /v1/payments/search en paralelo. Cada sincronización
+     * limita sus propias páginas en vuelo; si el pool está saturado la página se pide en el hilo
+     * que sincroniza, así la importación se vuelve secuencial en lugar de fallar.
+     */
+    @Bean(name = "mpSyncExecutor")
+    public ThreadPoolTaskExecutor mpSyncExecutor(
+            @Value("${mercadopago.sync.hilos:8}") int hilos,
+            @Value("${mercadopago.sync.cola:32}") int cola) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(cola);
+        executor.setThreadNamePrefix("mp-sync-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Workers que aplican las notificaciones del webhook (una tarea por cuenta de MP y lote).
+     */
+    @Bean(name = "mpWebhookExecutor")
+    public ThreadPoolTaskExecutor mpWebhookExecutor(
+            @Value("${mercadopago.webhook.hilos:4}") int hilos,
+            @Value("${mercadopago.webhook.cola:100}") int cola) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(cola);
+        executor.setThreadNamePrefix("mp-webhook-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
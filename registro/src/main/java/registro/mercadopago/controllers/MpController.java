@@ -192,6 +192,21 @@ public class MpController {
         return Map.of("importados", cant);
     }
 
+    /* ======================
+       Sincronización incremental de PAGOS
+       ====================== */
+
+    @PostMapping("/sync")
+    public Map<String, Object> sincronizarPagos(
+            @RequestHeader("X-Usuario-Sub") String usuarioSub) {
+
+        final Long uid = currentUserId();
+        final String usuarioActual = requireUsuarioSub(usuarioSub);
+        System.out.println("[/sync] cambios desde la última sincronización");
+        int cant = importer.syncChanges(uid, usuarioActual);
+        return Map.of("sincronizados", cant);
+    }
+
     /* ======================
        Importación de PAGOS seleccionados
        ====================== */
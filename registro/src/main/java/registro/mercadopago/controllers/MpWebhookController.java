@@ -1,6 +1,7 @@
 package registro.mercadopago.controllers;
 
 import registro.mercadopago.services.MpWebhookService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -12,8 +13,12 @@ public class MpWebhookController {
 
     @PostMapping
     public ResponseEntity<Void> receive(@RequestHeader(value="X-Signature", required=false) String sig,
+                                        @RequestHeader(value="X-Request-Id", required=false) String requestId,
+                                        @RequestParam(value="data.id", required=false) String dataId,
                                         @RequestBody String body){
-        service.handle(sig, body);
+        if (!service.handle(sig, requestId, dataId, body)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
         return ResponseEntity.ok().build();
     }
 }
@@ -0,0 +1,28 @@
+package registro.mercadopago.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * Respuesta de /merchant_orders/search reducida a los ids de pago de cada orden.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record MpMerchantOrderSearchResponse(List<Orden> elements) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Orden(List<PagoOrden> payments) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record PagoOrden(Long id) {}
+
+    public List<Long> pagoIds() {
+        if (elements == null) return List.of();
+        return elements.stream()
+                .filter(orden -> orden != null && orden.payments() != null)
+                .flatMap(orden -> orden.payments().stream())
+                .filter(pago -> pago != null && pago.id() != null)
+                .map(PagoOrden::id)
+                .toList();
+    }
+}
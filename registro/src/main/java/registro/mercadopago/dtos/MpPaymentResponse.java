@@ -0,0 +1,86 @@
+package registro.mercadopago.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Pago de Mercado Pago (/v1/payments/{id} y cada elemento de /v1/payments/search) con solo los
+ * campos que usa la importación. Jackson lo arma directo desde el stream de la respuesta y saltea
+ * el resto del payload (card, fee_details, point_of_interaction, ...) sin construir mapas.
+ * Las fechas quedan como texto porque MP las manda con distintos formatos de offset.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record MpPaymentResponse(
+        Long id,
+        String dateCreated,
+        String dateApproved,
+        String dateLastUpdated,
+        String importedAt,
+        BigDecimal transactionAmount,
+        String currencyId,
+        String description,
+        String status,
+        String statusDetail,
+        String transactionType,
+        String operationType,
+        String paymentMethodId,
+        String paymentTypeId,
+        String externalReference,
+        Long payerId,
+        Payer payer,
+        @JsonDeserialize(using = IdDeserializer.class) Long collector
+) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Payer(String email) {}
+
+    public String payerEmail() {
+        return payer != null ? payer.email() : null;
+    }
+
+    /**
+     * collector llega como id numérico, como texto o como objeto {"id": ...} según el endpoint.
+     */
+    public static class IdDeserializer extends JsonDeserializer<Long> {
+
+        @Override
+        public Long deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            if (token == JsonToken.VALUE_NUMBER_INT) {
+                return p.getLongValue();
+            }
+            if (token == JsonToken.VALUE_STRING) {
+                try {
+                    return Long.parseLong(p.getText().trim());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            if (token == JsonToken.START_OBJECT) {
+                Long id = null;
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String campo = p.currentName();
+                    p.nextToken();
+                    if ("id".equals(campo)) {
+                        id = deserialize(p, ctxt);
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+                return id;
+            }
+            p.skipChildren();
+            return null;
+        }
+    }
+}
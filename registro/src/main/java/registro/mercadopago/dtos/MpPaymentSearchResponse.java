@@ -0,0 +1,19 @@
+package registro.mercadopago.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * Respuesta de /v1/payments/search: la página de pagos y los datos de paginado.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record MpPaymentSearchResponse(List<MpPaymentResponse> results, Paging paging) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Paging(Long total, Integer limit, Integer offset) {}
+
+    public List<MpPaymentResponse> resultados() {
+        return results != null ? results : List.of();
+    }
+}
@@ -62,6 +62,29 @@ public class MpAccountLink {
     @Getter
     @Column private Boolean liveMode;
 
+    // Sincronización incremental: usuario/empresa de la última importación y marca de agua
+    // (date_last_updated del último cambio confirmado)
+    @Setter
+    @Getter
+    @Column private String syncUsuarioSub;
+
+    @Setter
+    @Getter
+    @Column private Long syncOrganizacionId;
+
+    @Setter
+    @Getter
+    @Column private Instant syncMarcaActualizacion;
+
+    @Setter
+    @Getter
+    @Column private Instant syncUltimaEjecucion;
+
+    // Evita que dos instancias sincronicen la misma cuenta a la vez
+    @Setter
+    @Getter
+    @Column private Instant syncBloqueadaHasta;
+
     @Lob
     private byte[] accessTokenEnc;
 
@@ -13,7 +13,10 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "mp_imported_payments")
+// Un pago se importa una sola vez por cuenta, aunque lo apliquen a la vez un webhook y una sincronización
+@Table(name = "mp_imported_payments", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_mp_imported_cuenta_pago", columnNames = {"mp_account_id", "mp_payment_id"})
+})
 @Getter
 @Setter
 public class MpImportedPayment {
@@ -0,0 +1,64 @@
+package registro.mercadopago.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Notificación de pago recibida por webhook, pendiente de aplicar. El webhook solo inserta la
+ * fila; los workers toman lotes, agrupan las repeticiones del mismo pago y lo importan una vez.
+ */
+@Entity
+@Table(name = "mp_webhook_evento",
+        indexes = @Index(name = "idx_mp_webhook_evento_estado", columnList = "estado,disponible_desde"))
+@Getter
+@Setter
+public class MpWebhookEvento {
+
+    public enum Estado { PENDIENTE, EN_PROCESO, PROCESADO, DESCARTADO }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Cuenta de MP que recibió el pago (user_id de la notificación)
+    @Column(length = 50)
+    private String mpUserId;
+
+    @Column(nullable = false, length = 50)
+    private String mpPaymentId;
+
+    @Column(length = 50)
+    private String accion;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Estado estado = Estado.PENDIENTE;
+
+    private int intentos;
+
+    // No se toma antes de esta fecha (agrupa ráfagas y espacia los reintentos)
+    @Column(nullable = false)
+    private LocalDateTime disponibleDesde;
+
+    // Lote del worker que la tomó y hasta cuándo (si el worker muere, otro la retoma)
+    @Column(length = 36)
+    private String lote;
+
+    private LocalDateTime bloqueadoHasta;
+
+    @Column(length = 1000)
+    private String error;
+
+    @Column(nullable = false)
+    private LocalDateTime fechaRecepcion;
+
+    private LocalDateTime fechaProcesado;
+
+    // tomarLote la incrementa: si el bloqueo vence y otro worker retoma la notificación, el
+    // resultado del worker anterior ya no se guarda
+    @Version
+    private long version;
+}
@@ -1,9 +1,39 @@
 package registro.mercadopago.repositories;
 import registro.mercadopago.models.*;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface MpAccountLinkRepository extends JpaRepository<MpAccountLink, Long> {
     Optional<MpAccountLink> findByUserIdApp(Long userIdApp);
-}
+    Optional<MpAccountLink> findByMpUserId(String mpUserId);
+
+    // Cuentas con usuario/empresa conocidos (ya importaron alguna vez) para la sincronización incremental
+    @Query("SELECT l.id FROM MpAccountLink l WHERE l.syncUsuarioSub IS NOT NULL AND l.syncOrganizacionId IS NOT NULL")
+    List<Long> findIdsSincronizables();
+
+    // Las actualizaciones de sync van por JPQL para no pisar tokens renovados en paralelo
+    @Modifying
+    @Query("UPDATE MpAccountLink l SET l.syncUsuarioSub = :usuarioSub, l.syncOrganizacionId = :organizacionId " +
+           "WHERE l.id = :id")
+    int registrarTenantSync(@Param("id") Long id,
+                            @Param("usuarioSub") String usuarioSub,
+                            @Param("organizacionId") Long organizacionId);
 
+    @Modifying
+    @Query("UPDATE MpAccountLink l SET l.syncBloqueadaHasta = :hasta " +
+           "WHERE l.id = :id AND (l.syncBloqueadaHasta IS NULL OR l.syncBloqueadaHasta < :ahora)")
+    int tomarSync(@Param("id") Long id, @Param("ahora") Instant ahora, @Param("hasta") Instant hasta);
+
+    @Modifying
+    @Query("UPDATE MpAccountLink l SET l.syncMarcaActualizacion = :marca " +
+           "WHERE l.id = :id AND (l.syncMarcaActualizacion IS NULL OR l.syncMarcaActualizacion <= :marca)")
+    int avanzarMarcaSync(@Param("id") Long id, @Param("marca") Instant marca);
+
+    @Modifying
+    @Query("UPDATE MpAccountLink l SET l.syncUltimaEjecucion = :ejecucion, l.syncBloqueadaHasta = NULL WHERE l.id = :id")
+    int liberarSync(@Param("id") Long id, @Param("ejecucion") Instant ejecucion);
+}
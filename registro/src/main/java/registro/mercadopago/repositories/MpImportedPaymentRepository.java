@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import registro.mercadopago.models.MpImportedPayment;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
@@ -61,4 +62,11 @@ public interface MpImportedPaymentRepository extends JpaRepository<MpImportedPay
     
     // Buscar por múltiples IDs de Mercado Pago (para detección de duplicados)
     List<MpImportedPayment> findByMpPaymentIdIn(Collection<String> mpPaymentIds);
+
+    // Pagos ya importados para una cuenta (para actualizarlos en lugar de repetirlos al sincronizar)
+    List<MpImportedPayment> findByMpAccountIdAndMpPaymentIdIn(String mpAccountId, Collection<String> mpPaymentIds);
+
+    // Último cambio importado de la cuenta (marca inicial de la sincronización incremental)
+    @Query("SELECT MAX(p.dateLastUpdated) FROM MpImportedPayment p WHERE p.mpAccountId = :mpAccountId")
+    LocalDateTime findUltimaActualizacionImportada(@Param("mpAccountId") String mpAccountId);
 }
@@ -0,0 +1,33 @@
+package registro.mercadopago.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import registro.mercadopago.models.MpWebhookEvento;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface MpWebhookEventoRepository extends JpaRepository<MpWebhookEvento, Long> {
+
+    // Marca hasta `limite` notificaciones disponibles (o abandonadas por un worker caído) con el lote dado
+    @Modifying
+    @Query(value = "UPDATE mp_webhook_evento SET estado = 'EN_PROCESO', lote = :lote, bloqueado_hasta = :hasta, " +
+            "version = version + 1 " +
+            "WHERE (estado = 'PENDIENTE' AND disponible_desde <= :ahora) " +
+            "OR (estado = 'EN_PROCESO' AND bloqueado_hasta < :ahora) " +
+            "ORDER BY id LIMIT :limite", nativeQuery = true)
+    int tomarLote(@Param("lote") String lote,
+                  @Param("ahora") LocalDateTime ahora,
+                  @Param("hasta") LocalDateTime hasta,
+                  @Param("limite") int limite);
+
+    List<MpWebhookEvento> findByLote(String lote);
+
+    @Modifying
+    @Query("DELETE FROM MpWebhookEvento e WHERE e.estado IN :estados AND e.fechaProcesado < :limite")
+    int eliminarTerminadosAntesDe(@Param("estados") Collection<MpWebhookEvento.Estado> estados,
+                                  @Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,29 @@
+package registro.mercadopago.schedulers;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import registro.mercadopago.services.MpPaymentImportService;
+
+/**
+ * Sincroniza periódicamente los pagos creados o modificados en cada cuenta de Mercado Pago
+ * vinculada, a partir de su marca de agua.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class MpSyncScheduler {
+
+    private final MpPaymentImportService mpPaymentImportService;
+
+    @Scheduled(initialDelayString = "${mercadopago.sync.incremental.demora-inicial-ms:60000}",
+            fixedDelayString = "${mercadopago.sync.incremental.cada-ms:300000}")
+    public void sincronizarCuentas() {
+        try {
+            mpPaymentImportService.syncAllLinkedAccounts();
+        } catch (Exception e) {
+            log.error("Error en la sincronización incremental de Mercado Pago: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package registro.mercadopago.schedulers;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import registro.mercadopago.services.MpWebhookService;
+
+/**
+ * Consume la cola de notificaciones de pago recibidas por webhook.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class MpWebhookScheduler {
+
+    private final MpWebhookService mpWebhookService;
+
+    @Scheduled(initialDelayString = "${mercadopago.webhook.demora-inicial-ms:10000}",
+            fixedDelayString = "${mercadopago.webhook.cada-ms:1000}")
+    public void procesarPendientes() {
+        try {
+            mpWebhookService.processPending();
+        } catch (Exception e) {
+            log.error("Error procesando notificaciones de Mercado Pago: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${mercadopago.webhook.limpieza-demora-inicial-ms:300000}",
+            fixedDelayString = "${mercadopago.webhook.limpieza-cada-ms:3600000}")
+    public void limpiarProcesados() {
+        try {
+            mpWebhookService.purgeProcessed();
+        } catch (Exception e) {
+            log.error("Error limpiando notificaciones de Mercado Pago: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package registro.mercadopago.services;
 
 import registro.mercadopago.dtos.PaymentDTO;
+import java.util.Collection;
 import java.util.List;
 
 public interface MpPaymentImportService {
@@ -18,5 +19,12 @@ public interface MpPaymentImportService {
     
     // Actualizar categoría de un pago
     int updatePaymentCategory(Long userIdApp, Long paymentId, String newCategory);
+
+    // Sincronización incremental (solo pagos creados o modificados desde la marca de la cuenta)
+    int syncChanges(Long userIdApp, String usuarioSub);
+    void syncAllLinkedAccounts();
+
+    // Pagos notificados por webhook para una cuenta de MP (upsert idempotente)
+    int applyPaymentNotifications(String mpUserId, Collection<String> mpPaymentIds);
 }
 
@@ -0,0 +1,391 @@
+package registro.mercadopago.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.*;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import registro.mercadopago.config.MpProperties;
+import registro.mercadopago.dtos.MpPaymentResponse;
+import registro.mercadopago.dtos.MpPaymentSearchResponse;
+import registro.mercadopago.services.util.MpClient;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Recorre /v1/payments/search por rango de fechas pidiendo varias páginas en paralelo.
+ * Ante 429 o 5xx reintenta con espera exponencial (o la indicada en Retry-After) y reduce las
+ * páginas en vuelo de esa sincronización; con respuestas correctas las vuelve a aumentar.
+ */
+@Service
+@Slf4j
+public class MpPaymentSearchService {
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+
+    private final MpProperties props;
+    private final Executor executor;
+    private final int tamanioPagina;
+    private final int concurrenciaMaxima;
+    private final int offsetMaximo;
+    private final int maxReintentos;
+    private final long esperaBaseMs;
+    private final long esperaMaximaMs;
+
+    private final MpClient mpClient;
+
+    public MpPaymentSearchService(
+            MpProperties props,
+            MpClient mpClient,
+            @Qualifier("mpSyncExecutor") Executor executor,
+            @Value("${mercadopago.sync.tamanio-pagina:100}") int tamanioPagina,
+            @Value("${mercadopago.sync.concurrencia:4}") int concurrenciaMaxima,
+            @Value("${mercadopago.sync.offset-maximo:10000}") int offsetMaximo,
+            @Value("${mercadopago.sync.reintentos:5}") int maxReintentos,
+            @Value("${mercadopago.sync.espera-base-ms:500}") long esperaBaseMs,
+            @Value("${mercadopago.sync.espera-maxima-ms:30000}") long esperaMaximaMs
+    ) {
+        this.props = props;
+        this.mpClient = mpClient;
+        this.executor = executor;
+        this.tamanioPagina = Math.max(1, tamanioPagina);
+        this.concurrenciaMaxima = Math.max(1, concurrenciaMaxima);
+        this.offsetMaximo = Math.max(this.tamanioPagina, offsetMaximo);
+        this.maxReintentos = Math.max(0, maxReintentos);
+        this.esperaBaseMs = Math.max(1, esperaBaseMs);
+        this.esperaMaximaMs = Math.max(this.esperaBaseMs, esperaMaximaMs);
+    }
+
+    /**
+     * Entrega al consumidor, en el hilo que llama, cada página de pagos aprobados en [desde, hasta)
+     * y, como hacía la importación mensual original, los no aprobados (sin date_approved) creados
+     * en ese rango. Si un rango tiene más pagos de los que la API deja paginar (offset máximo) se
+     * parte en mitades.
+     *
+     * @return Cantidad de pagos entregados
+     * @throws IllegalStateException si Mercado Pago sigue rechazando una página tras los reintentos
+     */
+    public int buscarPorFechaAprobacion(String accessToken, Instant desde, Instant hasta,
+                                        Consumer<List<MpPaymentResponse>> consumidor) {
+        int aprobados = buscar(accessToken, "date_approved", desde, hasta, consumidor);
+        int sinAprobar = buscar(accessToken, "date_created", desde, hasta, pagina -> {
+            List<MpPaymentResponse> pendientes = pagina.stream()
+                    .filter(pago -> pago.dateApproved() == null)
+                    .toList();
+            if (!pendientes.isEmpty()) {
+                consumidor.accept(pendientes);
+            }
+        });
+        return aprobados + sinAprobar;
+    }
+
+    /**
+     * Entrega al consumidor, en orden de date_last_updated, los pagos creados o modificados
+     * (reembolsos, contracargos, etc.) en [desde, hasta).
+     * <p>
+     * A diferencia de las búsquedas por fecha fija, un pago que se modifica durante el recorrido
+     * cambia de lugar y correría los offsets: por eso las páginas se piden de a una y cada una
+     * arranca en la fecha del último pago recibido, salteando solo los ya recibidos con esa misma
+     * fecha. El mismo pago puede llegar dos veces; nunca se saltea uno que no se movió.
+     *
+     * @return Cantidad de pagos entregados
+     */
+    public int buscarPorFechaActualizacion(String accessToken, Instant desde, Instant hasta,
+                                           Consumer<List<MpPaymentResponse>> consumidor) {
+        Busqueda busqueda = new Busqueda(accessToken, "date_last_updated", new Ritmo(concurrenciaMaxima));
+        Instant inicio = desde;
+        // Pagos ya recibidos con date_last_updated == inicio
+        int vistosEnInicio = 0;
+        int entregados = 0;
+        while (inicio.isBefore(hasta)) {
+            if (vistosEnInicio >= offsetMaximo) {
+                throw new IllegalStateException("Hay más de " + offsetMaximo
+                        + " pagos con date_last_updated " + inicio + "; no se pueden recorrer");
+            }
+            Pagina pagina = pedirPagina(busqueda, inicio, hasta, vistosEnInicio);
+            List<MpPaymentResponse> resultados = pagina.resultados();
+            if (resultados.isEmpty()) {
+                break;
+            }
+            consumidor.accept(resultados);
+            entregados += resultados.size();
+            if (vistosEnInicio + resultados.size() >= pagina.total()) {
+                break;
+            }
+
+            Instant ultima = fechaActualizacion(resultados.get(resultados.size() - 1));
+            int conUltima = 0;
+            for (int i = resultados.size() - 1; i >= 0 && ultima.equals(fechaActualizacion(resultados.get(i))); i--) {
+                conUltima++;
+            }
+            if (ultima.equals(inicio)) {
+                vistosEnInicio += conUltima;
+            } else {
+                inicio = ultima;
+                vistosEnInicio = conUltima;
+            }
+        }
+        return entregados;
+    }
+
+    private static Instant fechaActualizacion(MpPaymentResponse pago) {
+        if (pago.dateLastUpdated() != null) {
+            try {
+                return OffsetDateTime.parse(pago.dateLastUpdated()).toInstant();
+            } catch (DateTimeParseException ignored) {
+                // Se informa abajo
+            }
+        }
+        throw new IllegalStateException("El pago " + pago.id() + " no tiene un date_last_updated válido: "
+                + pago.dateLastUpdated());
+    }
+
+    /**
+     * Trae el detalle de varios pagos (/v1/payments/{id}) con la misma concurrencia y backoff que
+     * la búsqueda. Los pagos que Mercado Pago no encuentra se omiten.
+     */
+    public List<MpPaymentResponse> obtenerPagos(String accessToken, Collection<String> mpPaymentIds) {
+        Ritmo ritmo = new Ritmo(concurrenciaMaxima);
+        Iterator<String> ids = mpPaymentIds.iterator();
+        Deque<CompletableFuture<MpPaymentResponse>> enVuelo = new ArrayDeque<>();
+        List<MpPaymentResponse> pagos = new ArrayList<>(mpPaymentIds.size());
+        try {
+            while (ids.hasNext() || !enVuelo.isEmpty()) {
+                while (ids.hasNext() && enVuelo.size() < ritmo.concurrencia()) {
+                    String id = ids.next();
+                    URI url = URI.create(props.getApiBase() + "/v1/payments/" + enc(id));
+                    enVuelo.add(CompletableFuture.supplyAsync(
+                            () -> pedir(url, accessToken, ritmo, "payments/" + id, MpPaymentResponse.class), executor));
+                }
+                MpPaymentResponse pago = esperar(enVuelo.poll());
+                if (pago != null && pago.id() != null) {
+                    pagos.add(pago);
+                }
+            }
+        } finally {
+            enVuelo.forEach(pendiente -> pendiente.cancel(false));
+        }
+        return pagos;
+    }
+
+    private int buscar(String accessToken, String campoFecha, Instant desde, Instant hasta,
+                       Consumer<List<MpPaymentResponse>> consumidor) {
+        if (!desde.isBefore(hasta)) {
+            return 0;
+        }
+        Busqueda busqueda = new Busqueda(accessToken, campoFecha, new Ritmo(concurrenciaMaxima));
+        return recorrerRango(busqueda, desde, hasta, consumidor);
+    }
+
+    private int recorrerRango(Busqueda busqueda, Instant desde, Instant hasta,
+                              Consumer<List<MpPaymentResponse>> consumidor) {
+        Pagina primera = pedirPagina(busqueda, desde, hasta, 0);
+        long duracionMs = Duration.between(desde, hasta).toMillis();
+
+        if (primera.total() > offsetMaximo && duracionMs > 1) {
+            Instant medio = desde.plusMillis(duracionMs / 2);
+            log.debug("Rango de pagos con {} resultados; se divide en {} - {} - {}",
+                    primera.total(), desde, medio, hasta);
+            return recorrerRango(busqueda, desde, medio, consumidor)
+                    + recorrerRango(busqueda, medio, hasta, consumidor);
+        }
+        if (primera.resultados().isEmpty()) {
+            return 0;
+        }
+        if (primera.total() > offsetMaximo) {
+            log.warn("El rango {} - {} tiene {} pagos; solo se pueden recorrer los primeros {}",
+                    desde, hasta, primera.total(), offsetMaximo);
+        }
+
+        consumidor.accept(primera.resultados());
+        int entregados = primera.resultados().size();
+
+        long limiteOffset = Math.min(primera.total(), offsetMaximo);
+        int paso = primera.limite() > 0 ? primera.limite() : tamanioPagina;
+        long siguienteOffset = paso;
+        Deque<CompletableFuture<Pagina>> enVuelo = new ArrayDeque<>();
+        try {
+            while (siguienteOffset < limiteOffset || !enVuelo.isEmpty()) {
+                while (siguienteOffset < limiteOffset && enVuelo.size() < busqueda.ritmo().concurrencia()) {
+                    int offset = (int) siguienteOffset;
+                    enVuelo.add(CompletableFuture.supplyAsync(
+                            () -> pedirPagina(busqueda, desde, hasta, offset), executor));
+                    siguienteOffset += paso;
+                }
+                Pagina pagina = esperar(enVuelo.poll());
+                if (!pagina.resultados().isEmpty()) {
+                    consumidor.accept(pagina.resultados());
+                    entregados += pagina.resultados().size();
+                }
+            }
+        } finally {
+            enVuelo.forEach(pendiente -> pendiente.cancel(false));
+        }
+        return entregados;
+    }
+
+    private Pagina pedirPagina(Busqueda busqueda, Instant desde, Instant hasta, int offset) {
+        ZoneId zona = ZoneId.systemDefault();
+        URI url = URI.create(props.getApiBase() + "/v1/payments/search"
+                + "?sort=" + busqueda.campoFecha() + "&criteria=asc&range=" + busqueda.campoFecha()
+                + "&begin_date=" + enc(FORMATO_FECHA.format(desde.atZone(zona)))
+                + "&end_date=" + enc(FORMATO_FECHA.format(hasta.minusMillis(1).atZone(zona)))
+                + "&offset=" + offset + "&limit=" + tamanioPagina);
+        return Pagina.de(pedir(url, busqueda.accessToken(), busqueda.ritmo(), "payments/search offset " + offset,
+                MpPaymentSearchResponse.class));
+    }
+
+    /**
+     * GET con reintentos ante 429/5xx o fallas de conexión, respetando el ritmo compartido.
+     *
+     * @return Cuerpo de la respuesta, o null si el recurso no existe (404)
+     */
+    private <T> T pedir(URI url, String accessToken, Ritmo ritmo, String descripcion, Class<T> tipo) {
+        for (int intento = 0; ; intento++) {
+            ritmo.esperarTurno();
+            try {
+                T body = mpClient.get(url, accessToken, tipo);
+                ritmo.exito();
+                return body;
+            } catch (HttpStatusCodeException e) {
+                if (e.getStatusCode().value() == 404) {
+                    return null;
+                }
+                boolean reintentable = e.getStatusCode().value() == 429 || e.getStatusCode().is5xxServerError();
+                if (!reintentable || intento >= maxReintentos) {
+                    throw new IllegalStateException("Mercado Pago respondió " + e.getStatusCode()
+                            + " en " + descripcion + ": " + e.getResponseBodyAsString(), e);
+                }
+                Duration espera = esperaTrasRechazo(e.getResponseHeaders(), intento);
+                log.warn("{} -> {}; reintento {} en {} ms",
+                        descripcion, e.getStatusCode(), intento + 1, espera.toMillis());
+                ritmo.frenar(espera);
+            } catch (ResourceAccessException e) {
+                if (intento >= maxReintentos) {
+                    throw new IllegalStateException("No se pudo conectar con Mercado Pago en " + descripcion, e);
+                }
+                Duration espera = esperaExponencial(intento);
+                log.warn("{} sin respuesta ({}); reintento {} en {} ms",
+                        descripcion, e.getMessage(), intento + 1, espera.toMillis());
+                ritmo.frenar(espera);
+            }
+        }
+    }
+
+    private Duration esperaTrasRechazo(HttpHeaders headers, int intento) {
+        String retryAfter = (headers != null) ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (retryAfter != null) {
+            try {
+                long segundos = Long.parseLong(retryAfter.trim());
+                return Duration.ofMillis(Math.min(esperaMaximaMs, Math.max(0, segundos) * 1000));
+            } catch (NumberFormatException ignored) {
+                // Retry-After con fecha HTTP: se usa la espera exponencial
+            }
+        }
+        return esperaExponencial(intento);
+    }
+
+    private Duration esperaExponencial(int intento) {
+        long espera = Math.min(esperaMaximaMs, esperaBaseMs << Math.min(intento, 20));
+        return Duration.ofMillis(espera + ThreadLocalRandom.current().nextLong(esperaBaseMs));
+    }
+
+    private <T> T esperar(CompletableFuture<T> pendiente) {
+        try {
+            return pendiente.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private String enc(String s) {
+        return URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+
+    private record Busqueda(String accessToken, String campoFecha, Ritmo ritmo) {}
+
+    private record Pagina(List<MpPaymentResponse> resultados, long total, int limite) {
+
+        static Pagina de(MpPaymentSearchResponse body) {
+            if (body == null) {
+                return new Pagina(List.of(), 0, 0);
+            }
+            List<MpPaymentResponse> resultados = body.resultados();
+            long total = resultados.size();
+            int limite = 0;
+            if (body.paging() != null) {
+                if (body.paging().total() != null) total = body.paging().total();
+                if (body.paging().limit() != null) limite = body.paging().limit();
+            }
+            return new Pagina(resultados, total, limite);
+        }
+    }
+
+    /**
+     * Ritmo compartido por las páginas de una misma sincronización: un rechazo pausa a todas y
+     * reduce a la mitad las páginas en vuelo; cada tanda de respuestas correctas suma una.
+     */
+    private static final class Ritmo {
+        private final int maxima;
+        private int concurrencia;
+        private int exitosSeguidos;
+        private long pausaHastaNanos = System.nanoTime();
+
+        Ritmo(int maxima) {
+            this.maxima = maxima;
+            this.concurrencia = maxima;
+        }
+
+        synchronized int concurrencia() {
+            return concurrencia;
+        }
+
+        synchronized void exito() {
+            if (++exitosSeguidos >= concurrencia && concurrencia < maxima) {
+                concurrencia++;
+                exitosSeguidos = 0;
+            }
+        }
+
+        synchronized void frenar(Duration espera) {
+            concurrencia = Math.max(1, concurrencia / 2);
+            exitosSeguidos = 0;
+            pausaHastaNanos = Math.max(pausaHastaNanos, System.nanoTime() + espera.toNanos());
+        }
+
+        void esperarTurno() {
+            long restante;
+            synchronized (this) {
+                restante = pausaHastaNanos - System.nanoTime();
+            }
+            if (restante <= 0) {
+                return;
+            }
+            try {
+                Thread.sleep(Duration.ofNanos(restante).toMillis() + 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Sincronización de pagos interrumpida", e);
+            }
+        }
+    }
+}
@@ -1,4 +1,9 @@
 package registro.mercadopago.services;
 public interface MpWebhookService {
-    void handle(String signature, String body);
+    // Encola la notificación si la firma (X-Signature) es válida; false si no lo es
+    boolean handle(String signature, String requestId, String dataId, String body);
+
+    // Aplica las notificaciones encoladas (workers) y limpia las ya terminadas
+    void processPending();
+    void purgeProcessed();
 }
@@ -7,10 +7,10 @@ import registro.mercadopago.repositories.MpAccountLinkRepository;
 import registro.mercadopago.repositories.MpPaymentRepository;
 import registro.mercadopago.repositories.MpWalletMovementRepository;
 import registro.mercadopago.services.MpAuthService;
+import registro.mercadopago.services.util.MpClient;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
@@ -26,18 +26,20 @@ public class MpAuthServiceImpl implements MpAuthService {
     private final MpAccountLinkRepository repo;
     private final MpPaymentRepository paymentRepo;
     private final MpWalletMovementRepository movementRepo;
-    private final RestTemplate rest = new RestTemplate();
+    private final MpClient mpClient;
 
     public MpAuthServiceImpl(
             MpProperties props,
             MpAccountLinkRepository repo,
             MpPaymentRepository paymentRepo,
-            MpWalletMovementRepository movementRepo
+            MpWalletMovementRepository movementRepo,
+            MpClient mpClient
     ) {
         this.props = props;
         this.repo = repo;
         this.paymentRepo = paymentRepo;
         this.movementRepo = movementRepo;
+        this.mpClient = mpClient;
     }
 
     @Override
@@ -220,7 +222,7 @@ public class MpAuthServiceImpl implements MpAuthService {
         headers.setBearerAuth(link.getAccessToken());
 
         try {
-            rest.exchange(url, HttpMethod.DELETE, new HttpEntity<>(headers), Void.class);
+            mpClient.exchange(url, HttpMethod.DELETE, new HttpEntity<>(headers), Void.class);
             System.out.println(">>> Autorización MP revocada para user " + link.getMpUserId());
         } catch (org.springframework.web.client.HttpStatusCodeException e) {
             System.err.println(">>> Error revocando autorización MP (" + e.getStatusCode() + "): " + e.getResponseBodyAsString());
@@ -250,7 +252,7 @@ public class MpAuthServiceImpl implements MpAuthService {
         HttpEntity<String> req = new HttpEntity<>(body, headers);
         try {
             ResponseEntity<TokenResponse> res =
-                    rest.exchange(url, HttpMethod.POST, req, TokenResponse.class);
+                    mpClient.exchange(url, HttpMethod.POST, req, TokenResponse.class);
 
             if (!res.getStatusCode().is2xxSuccessful() || res.getBody() == null) {
                 throw new IllegalStateException("MP /oauth/token respondió " + res.getStatusCode());
@@ -273,7 +275,7 @@ public class MpAuthServiceImpl implements MpAuthService {
         HttpEntity<Void> req = new HttpEntity<>(headers);
 
         String url = ensureSuffix(props.getApiBase(), "") + "/users/me";
-        ResponseEntity<Map> res = rest.exchange(url, HttpMethod.GET, req, Map.class);
+        ResponseEntity<Map> res = mpClient.exchange(url, HttpMethod.GET, req, Map.class);
         if (!res.getStatusCode().is2xxSuccessful() || res.getBody() == null) return;
 
         Map<?, ?> body = res.getBody();
@@ -1,8 +1,16 @@
 package registro.mercadopago.services.impl;
 
 import registro.cargarDatos.models.*;
+import registro.cargarDatos.repositories.MovimientoBatchRepository;
 import registro.cargarDatos.repositories.MovimientoRepository;
+import registro.cargarDatos.services.CategoriaAprendidaService;
+import registro.cargarDatos.services.ResumenCacheService;
+import registro.cargarDatos.services.ResumenMensualService;
+import registro.conciliacion.services.MontoConciliadoService;
 import registro.mercadopago.config.MpProperties;
+import registro.mercadopago.dtos.MpMerchantOrderSearchResponse;
+import registro.mercadopago.dtos.MpPaymentResponse;
+import registro.mercadopago.dtos.MpPaymentSearchResponse;
 import registro.mercadopago.dtos.PaymentDTO;
 import registro.mercadopago.models.MpAccountLink;
 import registro.mercadopago.models.MpImportedPayment;
@@ -10,18 +18,26 @@ import registro.mercadopago.repositories.MpAccountLinkRepository;
 import registro.mercadopago.repositories.MpImportedPaymentRepository;
 import registro.mercadopago.services.MpDuplicateDetectionService;
 import registro.mercadopago.services.MpPaymentImportService;
+import registro.mercadopago.services.MpPaymentSearchService;
+import registro.mercadopago.services.util.MpClient;
 import registro.movimientosexcel.services.CategorySuggestionService;
+import registro.movimientosexcel.services.MovimientoBatchService;
 import registro.services.AdministracionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.HttpStatusCodeException;
-import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @Service
 public class MpPaymentImportServiceImpl implements MpPaymentImportService {
@@ -33,8 +49,19 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
     private final CategorySuggestionService categorySuggestionService;
     private final MpDuplicateDetectionService duplicateDetectionService;
     private final AdministracionService administracionService;
-
-    private final RestTemplate rest = new RestTemplate();
+    private final ResumenMensualService resumenMensualService;
+    private final ResumenCacheService resumenCacheService;
+    private final CategoriaAprendidaService categoriaAprendidaService;
+    private final MpPaymentSearchService paymentSearchService;
+    private final MovimientoBatchService movimientoBatchService;
+    private final MontoConciliadoService montoConciliadoService;
+    private final TransactionTemplate transaccion;
+    private final int tamanioLote;
+    private final Duration demoraSync;
+    private final Duration bloqueoSync;
+    private final int diasInicialesSync;
+
+    private final MpClient mpClient;
 
     public MpPaymentImportServiceImpl(
             MovimientoRepository movimientoRepo,
@@ -43,7 +70,19 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
             MpProperties props,
             CategorySuggestionService categorySuggestionService,
             MpDuplicateDetectionService duplicateDetectionService,
-            AdministracionService administracionService
+            AdministracionService administracionService,
+            ResumenMensualService resumenMensualService,
+            ResumenCacheService resumenCacheService,
+            CategoriaAprendidaService categoriaAprendidaService,
+            MpPaymentSearchService paymentSearchService,
+            MovimientoBatchService movimientoBatchService,
+            MontoConciliadoService montoConciliadoService,
+            PlatformTransactionManager transactionManager,
+            MpClient mpClient,
+            @Value("${mercadopago.sync.tamanio-lote:500}") int tamanioLote,
+            @Value("${mercadopago.sync.incremental.demora-segundos:120}") long demoraSegundos,
+            @Value("${mercadopago.sync.incremental.bloqueo-minutos:30}") long bloqueoMinutos,
+            @Value("${mercadopago.sync.incremental.dias-iniciales:30}") int diasInicialesSync
     ) {
         this.movimientoRepo = movimientoRepo;
         this.linkRepo = linkRepo;
@@ -52,6 +91,18 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
         this.categorySuggestionService = categorySuggestionService;
         this.duplicateDetectionService = duplicateDetectionService;
         this.administracionService = administracionService;
+        this.resumenMensualService = resumenMensualService;
+        this.resumenCacheService = resumenCacheService;
+        this.categoriaAprendidaService = categoriaAprendidaService;
+        this.paymentSearchService = paymentSearchService;
+        this.movimientoBatchService = movimientoBatchService;
+        this.montoConciliadoService = montoConciliadoService;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.mpClient = mpClient;
+        this.tamanioLote = Math.max(1, tamanioLote);
+        this.demoraSync = Duration.ofSeconds(Math.max(0, demoraSegundos));
+        this.bloqueoSync = Duration.ofMinutes(Math.max(1, bloqueoMinutos));
+        this.diasInicialesSync = Math.max(1, diasInicialesSync);
     }
 
     /* =========================
@@ -62,8 +113,9 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
     public int importPaymentById(Long userIdApp, Long paymentId, String usuarioSub) {
         TenantContext tenant = resolveTenant(usuarioSub);
         MpAccountLink link = requireLink(userIdApp);
-        Map<String, Object> body = get("/v1/payments/" + paymentId, link.getAccessToken());
-        if (body == null || body.isEmpty()) return 0;
+        recordarTenant(link, tenant);
+        MpPaymentResponse body = obtenerPago(paymentId, link.getAccessToken());
+        if (body == null || body.id() == null) return 0;
         upsertRegistro(body, link, tenant);
         return 1;
     }
@@ -72,6 +124,7 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
     public int importByMonth(Long userIdApp, int month, int year, String usuarioSub) {
         TenantContext tenant = resolveTenant(usuarioSub);
         MpAccountLink link = requireLink(userIdApp);
+        recordarTenant(link, tenant);
 
         ZoneId zone = ZoneId.systemDefault();
         LocalDate first = LocalDate.of(year, month, 1);
@@ -80,30 +133,25 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
         Instant from = first.atStartOfDay(zone).toInstant();
         Instant to = last.plusDays(1).atStartOfDay(zone).toInstant(); // exclusivo
 
-        int imported = 0;
-        int offset = 0;
-        final int limit = 50;
-        final int maxPages = 20; // tope de 1000 items
-
-        for (int page = 0; page < maxPages; page++, offset += limit) {
-            List<Map<String, Object>> results = searchPaymentsPageNoDates(link.getAccessToken(), offset, limit);
-            if (results.isEmpty()) break;
-
-            boolean reachedOlder = false;
-            for (Map<String, Object> p : results) {
-                Instant approved = parseInstant(p.get("date_approved"));
-                if (approved == null) approved = parseInstant(p.get("date_created"));
-
-                if (approved == null || approved.isBefore(from)) {
-                    reachedOlder = true;
-                    continue;
-                }
-                if (approved.isBefore(to)) {
-                    upsertRegistro(p, link, tenant);
-                    imported++;
+        // Las páginas llegan en paralelo desde MpPaymentSearchService; acá se guardan por lotes
+        Integer imported = conBloqueoSync(link, () -> {
+            List<MpPaymentResponse> pendientes = new ArrayList<>();
+            AtomicInteger guardados = new AtomicInteger();
+            paymentSearchService.buscarPorFechaAprobacion(link.getAccessToken(), from, to, pagina -> {
+                pendientes.addAll(pagina);
+                if (pendientes.size() >= tamanioLote) {
+                    guardados.addAndGet(guardarLote(pendientes, link, tenant, false));
+                    pendientes.clear();
                 }
+            });
+            if (!pendientes.isEmpty()) {
+                guardados.addAndGet(guardarLote(pendientes, link, tenant, false));
             }
-            if (reachedOlder) break;
+            return guardados.get();
+        });
+        if (imported == null) {
+            throw new IllegalStateException("Ya hay una sincronización en curso para la cuenta de Mercado Pago; "
+                    + "reintentá en unos minutos");
         }
         return imported;
     }
@@ -112,6 +160,7 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
     public int importByExternalReference(Long userIdApp, String externalRef, String usuarioSub) {
         TenantContext tenant = resolveTenant(usuarioSub);
         MpAccountLink link = requireLink(userIdApp);
+        recordarTenant(link, tenant);
         int imported = 0;
 
         // A) Intento directo por payments/search
@@ -120,14 +169,11 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
                 + "&sort=date_approved&criteria=desc&limit=50";
         try {
             HttpEntity<Void> req = new HttpEntity<>(authHeaders(link.getAccessToken()));
-            ResponseEntity<Map> res = rest.exchange(url, HttpMethod.GET, req, Map.class);
-            Object rs = (res.getBody() != null) ? res.getBody().get("results") : null;
-            if (rs instanceof List<?> list) {
-                for (Object o : list) {
-                    if (o instanceof Map<?, ?> m) {
-                        upsertRegistro((Map<String, Object>) m, link, tenant);
-                        imported++;
-                    }
+            ResponseEntity<MpPaymentSearchResponse> res = mpClient.exchange(url, HttpMethod.GET, req, MpPaymentSearchResponse.class);
+            if (res.getBody() != null) {
+                for (MpPaymentResponse pago : res.getBody().resultados()) {
+                    upsertRegistro(pago, link, tenant);
+                    imported++;
                 }
             }
             if (imported > 0) return imported;
@@ -146,11 +192,135 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
         return imported;
     }
 
+    @Override
+    public int syncChanges(Long userIdApp, String usuarioSub) {
+        TenantContext tenant = resolveTenant(usuarioSub);
+        MpAccountLink link = requireLink(userIdApp);
+        recordarTenant(link, tenant);
+        return sincronizarCambios(link, tenant);
+    }
+
+    @Override
+    public void syncAllLinkedAccounts() {
+        for (Long linkId : linkRepo.findIdsSincronizables()) {
+            try {
+                linkRepo.findById(linkId).ifPresent(link -> {
+                    TenantContext tenant = new TenantContext(link.getSyncUsuarioSub(), link.getSyncOrganizacionId(),
+                            parseUsuarioUuid(link.getSyncUsuarioSub()));
+                    int cambios = sincronizarCambios(link, tenant);
+                    if (cambios > 0) {
+                        System.out.println(">>> Sync MP cuenta " + link.getMpUserId() + ": " + cambios + " pagos nuevos o actualizados");
+                    }
+                });
+            } catch (Exception e) {
+                System.err.println("Error sincronizando cuenta MP " + linkId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public int applyPaymentNotifications(String mpUserId, Collection<String> mpPaymentIds) {
+        MpAccountLink link = linkRepo.findByMpUserId(mpUserId)
+                .orElseThrow(() -> new IllegalStateException("No hay cuenta vinculada de Mercado Pago con id " + mpUserId));
+        if (link.getSyncUsuarioSub() == null || link.getSyncOrganizacionId() == null) {
+            throw new IllegalStateException("La cuenta de Mercado Pago " + mpUserId
+                    + " todavía no tiene usuario/empresa asociados (requiere una importación manual)");
+        }
+        TenantContext tenant = new TenantContext(link.getSyncUsuarioSub(), link.getSyncOrganizacionId(),
+                parseUsuarioUuid(link.getSyncUsuarioSub()));
+        Integer aplicados = conBloqueoSync(link, () -> {
+            List<MpPaymentResponse> pagos = paymentSearchService.obtenerPagos(link.getAccessToken(), mpPaymentIds);
+            return pagos.isEmpty() ? 0 : guardarLote(pagos, link, tenant, false);
+        });
+        if (aplicados == null) {
+            // El webhook reintenta más tarde; lo que se pierda lo toma la sincronización incremental
+            throw new IllegalStateException("La cuenta de Mercado Pago " + mpUserId + " se está sincronizando");
+        }
+        return aplicados;
+    }
+
     /* =========================
        Métodos privados
        ========================= */
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Trae solo los pagos creados o modificados desde la marca de agua de la cuenta y los aplica
+     * por lotes. Cada lote avanza la marca junto con sus cambios, así una sincronización cortada
+     * retoma desde el último lote confirmado; al terminar sin errores la marca pasa al fin del rango
+     * (la búsqueda por date_last_updated no saltea pagos aunque cambien durante el recorrido).
+     */
+    private int sincronizarCambios(MpAccountLink link, TenantContext tenant) {
+        Instant ahora = Instant.now();
+        Integer aplicados = conBloqueoSync(link, () -> {
+            Instant desde = marcaInicial(link, ahora);
+            Instant hasta = ahora.minus(demoraSync);
+
+            List<MpPaymentResponse> pendientes = new ArrayList<>();
+            AtomicInteger guardados = new AtomicInteger();
+            paymentSearchService.buscarPorFechaActualizacion(link.getAccessToken(), desde, hasta, pagina -> {
+                pendientes.addAll(pagina);
+                if (pendientes.size() >= tamanioLote) {
+                    guardados.addAndGet(guardarLote(pendientes, link, tenant, true));
+                    pendientes.clear();
+                }
+            });
+            if (!pendientes.isEmpty()) {
+                guardados.addAndGet(guardarLote(pendientes, link, tenant, true));
+            }
+            if (desde.isBefore(hasta)) {
+                transaccion.executeWithoutResult(status -> linkRepo.avanzarMarcaSync(link.getId(), hasta));
+            }
+            return guardados.get();
+        });
+        if (aplicados == null) {
+            System.out.println(">>> Sync MP cuenta " + link.getMpUserId() + " ya en curso, se omite");
+            return 0;
+        }
+        return aplicados;
+    }
+
+    /**
+     * Ejecuta la tarea con el bloqueo de sincronización de la cuenta, para que la sincronización
+     * incremental, la importación mensual y los webhooks no apliquen la misma cuenta a la vez.
+     *
+     * @return Resultado de la tarea, o null si otra ejecución tiene el bloqueo
+     */
+    private Integer conBloqueoSync(MpAccountLink link, Supplier<Integer> tarea) {
+        Instant ahora = Instant.now();
+        Boolean tomada = transaccion.execute(status ->
+                linkRepo.tomarSync(link.getId(), ahora, ahora.plus(bloqueoSync)) > 0);
+        if (!Boolean.TRUE.equals(tomada)) {
+            return null;
+        }
+        try {
+            return tarea.get();
+        } finally {
+            transaccion.executeWithoutResult(status -> linkRepo.liberarSync(link.getId(), Instant.now()));
+        }
+    }
+
+    private Instant marcaInicial(MpAccountLink link, Instant ahora) {
+        if (link.getSyncMarcaActualizacion() != null) {
+            return link.getSyncMarcaActualizacion();
+        }
+        LocalDateTime ultimaImportada = mpImportedRepo.findUltimaActualizacionImportada(link.getMpUserId());
+        if (ultimaImportada != null) {
+            return ultimaImportada.atZone(ZoneId.systemDefault()).toInstant();
+        }
+        return ahora.minus(Duration.ofDays(diasInicialesSync));
+    }
+
+    // La sincronización programada necesita saber a qué usuario/empresa imputar los pagos
+    private void recordarTenant(MpAccountLink link, TenantContext tenant) {
+        if (!Objects.equals(link.getSyncUsuarioSub(), tenant.usuarioSub())
+                || !Objects.equals(link.getSyncOrganizacionId(), tenant.organizacionId())) {
+            transaccion.executeWithoutResult(status ->
+                    linkRepo.registrarTenantSync(link.getId(), tenant.usuarioSub(), tenant.organizacionId()));
+            link.setSyncUsuarioSub(tenant.usuarioSub());
+            link.setSyncOrganizacionId(tenant.organizacionId());
+        }
+    }
+
     private int importViaMerchantOrders(MpAccountLink link, String externalRef, TenantContext tenant) {
         String url = props.getApiBase()
                 + "/merchant_orders/search?external_reference=" + enc(externalRef)
@@ -159,26 +329,14 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
 
         try {
             HttpEntity<Void> req = new HttpEntity<>(authHeaders(link.getAccessToken()));
-            ResponseEntity<Map> res = rest.exchange(url, HttpMethod.GET, req, Map.class);
-            Object rs = (res.getBody() != null) ? res.getBody().get("elements") : null;
-            if (rs instanceof List<?> list) {
-                for (Object ord : list) {
-                    if (ord instanceof Map<?, ?> mo) {
-                        Object pays = mo.get("payments");
-                        if (pays instanceof List<?> pl) {
-                            for (Object p : pl) {
-                                if (p instanceof Map<?, ?> pm) {
-                                    Long pid = asLong(((Map<String, Object>) pm).get("id"));
-                                    if (pid != null) {
-                                        Map<String, Object> full = get("/v1/payments/" + pid, link.getAccessToken());
-                                        if (full != null && !full.isEmpty()) {
-                                            upsertRegistro(full, link, tenant);
-                                            imported++;
-                                        }
-                                    }
-                                }
-                            }
-                        }
+            ResponseEntity<MpMerchantOrderSearchResponse> res =
+                    mpClient.exchange(url, HttpMethod.GET, req, MpMerchantOrderSearchResponse.class);
+            if (res.getBody() != null) {
+                for (Long pid : res.getBody().pagoIds()) {
+                    MpPaymentResponse full = obtenerPago(pid, link.getAccessToken());
+                    if (full != null && full.id() != null) {
+                        upsertRegistro(full, link, tenant);
+                        imported++;
                     }
                 }
             }
@@ -190,21 +348,17 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
         return imported;
     }
 
-    @SuppressWarnings("unchecked")
     private int importByLooseQuery(MpAccountLink link, String query, TenantContext tenant) {
         String url = props.getApiBase()
                 + "/v1/payments/search?q=" + enc(query) + "&limit=50";
         int imported = 0;
         try {
             HttpEntity<Void> req = new HttpEntity<>(authHeaders(link.getAccessToken()));
-            ResponseEntity<Map> res = rest.exchange(url, HttpMethod.GET, req, Map.class);
-            Object rs = (res.getBody() != null) ? res.getBody().get("results") : null;
-            if (rs instanceof List<?> list) {
-                for (Object o : list) {
-                    if (o instanceof Map<?, ?> m) {
-                        upsertRegistro((Map<String, Object>) m, link, tenant);
-                        imported++;
-                    }
+            ResponseEntity<MpPaymentSearchResponse> res = mpClient.exchange(url, HttpMethod.GET, req, MpPaymentSearchResponse.class);
+            if (res.getBody() != null) {
+                for (MpPaymentResponse pago : res.getBody().resultados()) {
+                    upsertRegistro(pago, link, tenant);
+                    imported++;
                 }
             }
         } catch (HttpStatusCodeException e) {
@@ -215,24 +369,6 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
         return imported;
     }
 
-    @SuppressWarnings("unchecked")
-    private List<Map<String, Object>> searchPaymentsPageNoDates(String accessToken, int offset, int limit) {
-        HttpEntity<Void> req = new HttpEntity<>(authHeaders(accessToken));
-        String url = props.getApiBase() + "/v1/payments/search"
-                + "?sort=date_approved&criteria=desc"
-                + "&offset=" + offset + "&limit=" + limit;
-        try {
-            ResponseEntity<Map> res = rest.exchange(url, HttpMethod.GET, req, Map.class);
-            Object rs = (res.getBody() != null) ? res.getBody().get("results") : null;
-            return (rs instanceof List) ? (List<Map<String, Object>>) rs : List.of();
-        } catch (HttpStatusCodeException e) {
-            System.err.println("payments/search (no dates) -> " + e.getStatusCode());
-            System.err.println("URL: " + url);
-            System.err.println("Body: " + e.getResponseBodyAsString());
-            return List.of();
-        }
-    }
-
     private MpAccountLink requireLink(Long userIdApp) {
         return linkRepo.findByUserIdApp(userIdApp)
                 .orElseThrow(() -> new IllegalStateException("No hay cuenta vinculada de Mercado Pago para el usuario"));
@@ -266,32 +402,181 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
         return h;
     }
 
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> get(String path, String accessToken) {
-        String url = props.getApiBase() + path;
-        HttpEntity<Void> req = new HttpEntity<>(authHeaders(accessToken));
+    private MpPaymentResponse obtenerPago(Long paymentId, String accessToken) {
+        String path = "/v1/payments/" + paymentId;
         try {
-            ResponseEntity<Map> res = rest.exchange(url, HttpMethod.GET, req, Map.class);
-            return (Map<String, Object>) res.getBody();
+            return mpClient.get(path, accessToken, MpPaymentResponse.class);
         } catch (HttpStatusCodeException e) {
-            System.err.println("GET " + url + " -> " + e.getStatusCode());
+            System.err.println("GET " + props.getApiBase() + path + " -> " + e.getStatusCode());
             System.err.println("Body: " + e.getResponseBodyAsString());
             throw e;
         }
     }
 
-    private void upsertRegistro(Map<String, Object> body, MpAccountLink link, TenantContext tenant) {
+    // Un pago suelto sigue el mismo camino que los lotes: si ya estaba importado se actualiza
+    private void upsertRegistro(MpPaymentResponse body, MpAccountLink link, TenantContext tenant) {
+        guardarLote(List.of(body), link, tenant, false);
+    }
+
+    /**
+     * Aplica un lote de pagos de Mercado Pago en una sola transacción: los que no estaban importados
+     * para la cuenta se insertan (movimientos por JDBC y después sus filas de MpImportedPayment) y
+     * los ya importados cuyo estado cambió (reembolso, contracargo, ...) actualizan su Movimiento.
+     * Con avanzarMarca, la marca de agua de la cuenta avanza en la misma transacción.
+     *
+     * @return Cantidad de pagos nuevos o actualizados
+     */
+    private int guardarLote(List<MpPaymentResponse> pagos, MpAccountLink link, TenantContext tenant,
+                            boolean avanzarMarca) {
+        try {
+            return aplicarLote(pagos, link, tenant, avanzarMarca);
+        } catch (DataIntegrityViolationException e) {
+            // Otro proceso importó alguno de los pagos entre la consulta y la inserción (clave única
+            // cuenta + pago); la transacción se deshizo entera y al reintentar ya figuran como existentes
+            System.err.println("Pagos de MP importados en paralelo para la cuenta " + link.getMpUserId()
+                    + "; se reintenta el lote: " + e.getMostSpecificCause().getMessage());
+            return aplicarLote(pagos, link, tenant, avanzarMarca);
+        }
+    }
+
+    private int aplicarLote(List<MpPaymentResponse> pagos, MpAccountLink link, TenantContext tenant,
+                            boolean avanzarMarca) {
+        // Si un pago aparece dos veces queda la versión más reciente (las páginas vienen en orden)
+        Map<String, MpPaymentResponse> porId = new LinkedHashMap<>();
+        for (MpPaymentResponse pago : pagos) {
+            String mpPaymentId = idDe(pago);
+            if (mpPaymentId != null) {
+                porId.put(mpPaymentId, pago);
+            }
+        }
+        if (porId.isEmpty()) return 0;
+
+        Map<String, MpImportedPayment> existentes = new HashMap<>();
+        for (MpImportedPayment importado : mpImportedRepo.findByMpAccountIdAndMpPaymentIdIn(link.getMpUserId(), porId.keySet())) {
+            existentes.putIfAbsent(importado.getMpPaymentId(), importado);
+        }
+
+        List<MpPaymentResponse> nuevos = new ArrayList<>();
+        List<MpPaymentResponse> modificados = new ArrayList<>();
+        for (Map.Entry<String, MpPaymentResponse> entry : porId.entrySet()) {
+            MpImportedPayment existente = existentes.get(entry.getKey());
+            if (existente == null) {
+                nuevos.add(entry.getValue());
+            } else if (cambioEstado(existente, entry.getValue())) {
+                modificados.add(entry.getValue());
+            }
+        }
+        Instant marca = avanzarMarca ? marcaDe(porId.values()) : null;
+        if (nuevos.isEmpty() && modificados.isEmpty() && marca == null) return 0;
+
+        List<Movimiento> movimientos = new ArrayList<>(nuevos.size());
+        for (MpPaymentResponse body : nuevos) {
+            movimientos.add(construirMovimiento(body, tenant));
+        }
+
+        Integer aplicados = transaccion.execute(status -> {
+            int total = insertarNuevos(nuevos, movimientos, link, tenant)
+                    + actualizarModificados(modificados, existentes, tenant);
+            if (marca != null) {
+                linkRepo.avanzarMarcaSync(link.getId(), marca);
+            }
+            return total;
+        });
+        return aplicados != null ? aplicados : 0;
+    }
+
+    private int insertarNuevos(List<MpPaymentResponse> cuerpos, List<Movimiento> movimientos,
+                               MpAccountLink link, TenantContext tenant) {
+        if (movimientos.isEmpty()) return 0;
+        MovimientoBatchRepository.ResultadoLote resultado = movimientoBatchService.guardar(movimientos, null);
+        List<MpImportedPayment> importados = new ArrayList<>(resultado.guardados().size());
+        for (int i = 0; i < movimientos.size(); i++) {
+            if (!resultado.errores().containsKey(i)) {
+                importados.add(construirImportado(cuerpos.get(i), movimientos.get(i), link, tenant));
+            }
+        }
+        mpImportedRepo.saveAll(importados);
+        resultado.errores().forEach((i, error) -> System.err.println(
+                "Error importando pago " + idDe(cuerpos.get(i)) + ": " + error));
+        return importados.size();
+    }
+
+    /**
+     * Recalcula tipo, monto y descripción del Movimiento de cada pago cuyo estado cambió en MP;
+     * la categoría se conserva porque puede haberla corregido el usuario.
+     */
+    private int actualizarModificados(List<MpPaymentResponse> cuerpos, Map<String, MpImportedPayment> existentes,
+                                      TenantContext tenant) {
+        if (cuerpos.isEmpty()) return 0;
+        List<Long> registroIds = new ArrayList<>();
+        for (MpPaymentResponse body : cuerpos) {
+            Long registroId = existentes.get(idDe(body)).getRegistroId();
+            if (registroId != null) registroIds.add(registroId);
+        }
+        Map<Long, Movimiento> movimientos = new HashMap<>();
+        movimientoRepo.findAllById(registroIds).forEach(m -> movimientos.put(m.getId(), m));
+
+        List<MpImportedPayment> importados = new ArrayList<>(cuerpos.size());
+        Set<Long> organizaciones = new HashSet<>();
+        for (MpPaymentResponse body : cuerpos) {
+            MpImportedPayment importado = existentes.get(idDe(body));
+            Movimiento movimiento = movimientos.get(importado.getRegistroId());
+            if (movimiento != null) {
+                Movimiento actualizado = construirMovimiento(body, tenant);
+                ResumenMensualService.Aporte aporteAnterior = resumenMensualService.aporteDe(movimiento);
+                Double montoAnterior = movimiento.getMontoTotal();
+                movimiento.setTipo(actualizado.getTipo());
+                movimiento.setMontoTotal(actualizado.getMontoTotal());
+                movimiento.setDescripcion(actualizado.getDescripcion());
+                movimiento.setFechaActualizacion(LocalDateTime.now());
+                movimientoRepo.save(movimiento);
+                // Un reembolso de un pago ya conciliado cambia lo cubierto de su documento
+                montoConciliadoService.registrarCambioMonto(movimiento.getDocumentoId(), montoAnterior,
+                        movimiento.getMontoTotal());
+                resumenMensualService.registrarCambio(aporteAnterior, movimiento);
+                organizaciones.add(movimiento.getOrganizacionId());
+
+                importado.setTipo(movimiento.getTipo());
+                importado.setMontoTotal(BigDecimal.valueOf(movimiento.getMontoTotal()));
+                importado.setDescripcion(movimiento.getDescripcion());
+            }
+            copiarDatosMp(importado, body);
+            importados.add(importado);
+        }
+        mpImportedRepo.saveAll(importados);
+        organizaciones.stream().filter(Objects::nonNull).forEach(resumenCacheService::invalidarOrganizacion);
+        return importados.size();
+    }
+
+    private boolean cambioEstado(MpImportedPayment importado, MpPaymentResponse body) {
+        return !Objects.equals(importado.getStatus(), body.status())
+                || !Objects.equals(importado.getDateLastUpdated(), aLocal(parseInstant(body.dateLastUpdated())));
+    }
+
+    // Último cambio del lote según date_last_updated (las páginas llegan ordenadas por ese campo)
+    private Instant marcaDe(Collection<MpPaymentResponse> cuerpos) {
+        Instant marca = null;
+        for (MpPaymentResponse body : cuerpos) {
+            Instant actualizado = parseInstant(body.dateLastUpdated());
+            if (actualizado != null && (marca == null || actualizado.isAfter(marca))) {
+                marca = actualizado;
+            }
+        }
+        return marca;
+    }
+
+    private Movimiento construirMovimiento(MpPaymentResponse body, TenantContext tenant) {
         // === 1) Parseos base ===
 
         // fechas: fechaEmision = date_created (LocalDateTime)
-        Instant dateCreated = parseInstant(body.get("date_created"));   // p.ej. "2025-07-05T14:12:33.000-03:00"
+        Instant dateCreated = parseInstant(body.dateCreated());   // p.ej. "2025-07-05T14:12:33.000-03:00"
         LocalDateTime fechaEmision = (dateCreated != null)
                 ? dateCreated.atZone(ZoneId.systemDefault()).toLocalDateTime()
                 : LocalDateTime.now();
 
         // historial
         // fechaCreacion = date_created ; fechaActualizacion = imported_at (si viene), si no = hoy
-        Instant importedAt = parseInstant(body.get("imported_at")); // puede no estar en el payload
+        Instant importedAt = parseInstant(body.importedAt()); // puede no estar en el payload
         LocalDateTime fechaCreacion = (dateCreated != null)
                 ? dateCreated.atZone(ZoneId.systemDefault()).toLocalDateTime()
                 : LocalDateTime.now();
@@ -300,30 +585,23 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
                 : LocalDateTime.now();
 
         // monto/moneda
-        BigDecimal transactionAmount = asBigDecimal(body.get("transaction_amount"));
-        String currencyId = asString(body.get("currency_id"));
+        BigDecimal transactionAmount = body.transactionAmount();
+        String currencyId = body.currencyId();
 
         // otros campos MP
-        String description = asString(body.get("description"));
-        String payerEmail = getPayerEmail(body); // como ya lo tenías
-        String status = asString(body.get("status")); // approved, refunded, cancelled, etc.
-        String transactionType = asString(body.get("transaction_type")); // money_in, money_out, etc.
-        String operationType = asString(body.get("operation_type")); // regular_payment, money_transfer, etc.
-        
-        // Campos para determinar si es ingreso o egreso
-        Long payerId = asLong(body.get("payer_id"));
-        Long collectorId = asLong(body.get("collector"));
-        if (collectorId == null) {
-            // Intentar obtener collector_id del objeto collector
-            Map<String, Object> collector = asMap(body.get("collector"));
-            if (collector != null) {
-                collectorId = asLong(collector.get("id"));
-            }
-        }
+        String description = body.description();
+        String payerEmail = body.payerEmail(); // como ya lo tenías
+        String status = body.status(); // approved, refunded, cancelled, etc.
+        String transactionType = body.transactionType(); // money_in, money_out, etc.
+        String operationType = body.operationType(); // regular_payment, money_transfer, etc.
+        
+        // Campos para determinar si es ingreso o egreso (collector puede venir como id u objeto)
+        Long payerId = body.payerId();
+        Long collectorId = body.collector();
         
         // Log completo del pago para debug
         System.out.println(">>> === IMPORTANDO PAGO ===");
-        System.out.println(">>> ID: " + asLong(body.get("id")));
+        System.out.println(">>> ID: " + body.id());
         System.out.println(">>> Status: " + status);
         System.out.println(">>> TransactionType: " + transactionType);
         System.out.println(">>> OperationType: " + operationType);
@@ -349,7 +627,8 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
         r.setFechaEmision(fechaEmision);
 
         // categoria = sugerida inteligentemente según descripción y tipo
-        String categoriaSugerida = categorySuggestionService.sugerirCategoria(description, tipoMovimiento);
+        String categoriaSugerida = categorySuggestionService.sugerirCategoria(
+                description, payerEmail, tipoMovimiento, tenant.organizacionId());
         r.setCategoria(categoriaSugerida);
         System.out.println(">>> Categoría sugerida: " + categoriaSugerida);
 
@@ -407,101 +686,64 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
 
         // Normalizar monto según tipo antes de guardar
         normalizarMontoMovimiento(r);
+        return r;
+    }
 
-        // === 3) Guardar en tabla Registro ===
-        Movimiento savedRegistro = movimientoRepo.save(r);
-        
-        // === 4) Guardar en tabla MpImportedPayment ===
-        String mpPaymentId = asString(body.get("id"));
+    private MpImportedPayment construirImportado(MpPaymentResponse body, Movimiento registro,
+                                                 MpAccountLink link, TenantContext tenant) {
+        String mpPaymentId = idDe(body);
         UUID usuarioId = tenant.usuarioUuid();
         String mpAccountId = link.getMpUserId(); // ID de la cuenta de MP
-        
-        MpImportedPayment mpImported = new MpImportedPayment(savedRegistro, mpPaymentId, usuarioId, mpAccountId);
-        
+
+        MpImportedPayment mpImported = new MpImportedPayment(registro, mpPaymentId, usuarioId, mpAccountId);
+
+        copiarDatosMp(mpImported, body);
+        return mpImported;
+    }
+
+    private void copiarDatosMp(MpImportedPayment mpImported, MpPaymentResponse body) {
         // Copiar datos adicionales de MercadoPago
-        mpImported.setDescription(description);
-        mpImported.setAmount(transactionAmount);
-        mpImported.setCurrencyId(currencyId);
-        mpImported.setStatus(status);
-        mpImported.setStatusDetail(asString(body.get("status_detail")));
-        mpImported.setPaymentMethodId(asString(body.get("payment_method_id")));
-        mpImported.setPaymentTypeId(asString(body.get("payment_type_id")));
-        mpImported.setExternalReference(asString(body.get("external_reference")));
-        
+        mpImported.setDescription(body.description());
+        mpImported.setAmount(body.transactionAmount());
+        mpImported.setCurrencyId(body.currencyId());
+        mpImported.setStatus(body.status());
+        mpImported.setStatusDetail(body.statusDetail());
+        mpImported.setPaymentMethodId(body.paymentMethodId());
+        mpImported.setPaymentTypeId(body.paymentTypeId());
+        mpImported.setExternalReference(body.externalReference());
+
         // Fechas de MercadoPago
-        Instant dateApproved = parseInstant(body.get("date_approved"));
-        Instant dateLastUpdated = parseInstant(body.get("date_last_updated"));
-        
-        if (dateCreated != null) {
-            mpImported.setDateCreated(dateCreated.atZone(ZoneId.systemDefault()).toLocalDateTime());
-        }
-        if (dateApproved != null) {
-            mpImported.setDateApproved(dateApproved.atZone(ZoneId.systemDefault()).toLocalDateTime());
-        }
-        if (dateLastUpdated != null) {
-            mpImported.setDateLastUpdated(dateLastUpdated.atZone(ZoneId.systemDefault()).toLocalDateTime());
-        }
-        
-        mpImportedRepo.save(mpImported);
-        
-        // Log final de confirmación
-        System.out.println(">>> ✅ PAGO GUARDADO EN AMBAS TABLAS - Tipo: " + r.getTipo() + ", Categoría: " + r.getCategoria());
-        System.out.println(">>> Registro ID: " + savedRegistro.getId() + ", MpImported ID: " + mpImported.getId());
-        System.out.println(">>> =========================");
+        mpImported.setDateCreated(aLocal(parseInstant(body.dateCreated())));
+        mpImported.setDateApproved(aLocal(parseInstant(body.dateApproved())));
+        mpImported.setDateLastUpdated(aLocal(parseInstant(body.dateLastUpdated())));
     }
 
+    private LocalDateTime aLocal(Instant instant) {
+        return (instant != null) ? instant.atZone(ZoneId.systemDefault()).toLocalDateTime() : null;
+    }
 
 
-    private String getPayerEmail(Map<String, Object> body) {
-        Map<String, Object> payer = asMap(body.get("payer"));
-        return payer != null ? asString(payer.get("email")) : null;
+    private String idDe(MpPaymentResponse pago) {
+        return (pago.id() != null) ? String.valueOf(pago.id()) : null;
     }
 
     /* =========================
        Utils
        ========================= */
 
-    private BigDecimal asBigDecimal(Object o) {
-        if (o == null) return null;
+    private Instant parseInstant(String s) {
+        if (s == null) return null;
         try {
-            return (o instanceof BigDecimal b) ? b : new BigDecimal(String.valueOf(o));
-        } catch (Exception e) {
-            return null;
-        }
-    }
-
-    private String asString(Object o) {
-        return (o == null) ? null : String.valueOf(o);
-    }
-
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> asMap(Object o) {
-        return (o instanceof Map) ? (Map<String, Object>) o : null;
-    }
-
-    private Instant parseInstant(Object o) {
-        if (o == null) return null;
-        try {
-            return OffsetDateTime.parse(String.valueOf(o)).toInstant();
+            return OffsetDateTime.parse(s).toInstant();
         } catch (Exception e) {
             try {
-                return Instant.parse(String.valueOf(o));
+                return Instant.parse(s);
             } catch (Exception ignored) {
                 return null;
             }
         }
     }
 
-    private Long asLong(Object o) {
-        if (o == null) return null;
-        if (o instanceof Number n) return n.longValue();
-        try {
-            return Long.parseLong(String.valueOf(o));
-        } catch (Exception e) {
-            return null;
-        }
-    }
-
     private String enc(String s) {
         return URLEncoder.encode(s, StandardCharsets.UTF_8);
     }
@@ -616,10 +858,10 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
     public List<PaymentDTO> previewPaymentById(Long userIdApp, Long paymentId, String usuarioSub) {
         TenantContext tenant = resolveTenant(usuarioSub);
         MpAccountLink link = requireLink(userIdApp);
-        Map<String, Object> body = get("/v1/payments/" + paymentId, link.getAccessToken());
-        if (body == null || body.isEmpty()) return List.of();
+        MpPaymentResponse body = obtenerPago(paymentId, link.getAccessToken());
+        if (body == null || body.id() == null) return List.of();
         
-        PaymentDTO dto = convertToPaymentDTO(body);
+        PaymentDTO dto = convertToPaymentDTO(body, tenant.organizacionId());
         List<PaymentDTO> previewData = List.of(dto);
         
         // Detectar duplicados antes de devolver
@@ -639,30 +881,11 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
         Instant from = first.atStartOfDay(zone).toInstant();
         Instant to = last.plusDays(1).atStartOfDay(zone).toInstant();
 
-        int offset = 0;
-        final int limit = 50;
-        final int maxPages = 20;
-
-        for (int page = 0; page < maxPages; page++, offset += limit) {
-            List<Map<String, Object>> results = searchPaymentsPageNoDates(link.getAccessToken(), offset, limit);
-            if (results.isEmpty()) break;
-
-            boolean reachedOlder = false;
-            for (Map<String, Object> p : results) {
-                Instant approved = parseInstant(p.get("date_approved"));
-                if (approved == null) approved = parseInstant(p.get("date_created"));
-
-                if (approved == null || approved.isBefore(from)) {
-                    reachedOlder = true;
-                    continue;
-                }
-                if (approved.isBefore(to)) {
-                    PaymentDTO dto = convertToPaymentDTO(p);
-                    previewData.add(dto);
-                }
+        paymentSearchService.buscarPorFechaAprobacion(link.getAccessToken(), from, to, pagina -> {
+            for (MpPaymentResponse p : pagina) {
+                previewData.add(convertToPaymentDTO(p, tenant.organizacionId()));
             }
-            if (reachedOlder) break;
-        }
+        });
         
         // Detectar duplicados antes de devolver
         return duplicateDetectionService.detectarDuplicadosEnBD(previewData, tenant.organizacionId());
@@ -681,14 +904,10 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
         
         try {
             HttpEntity<Void> req = new HttpEntity<>(authHeaders(link.getAccessToken()));
-            ResponseEntity<Map> res = rest.exchange(url, HttpMethod.GET, req, Map.class);
-            Object rs = (res.getBody() != null) ? res.getBody().get("results") : null;
-            if (rs instanceof List<?> list) {
-                for (Object o : list) {
-                    if (o instanceof Map<?, ?> m) {
-                        PaymentDTO dto = convertToPaymentDTO((Map<String, Object>) m);
-                        previewData.add(dto);
-                    }
+            ResponseEntity<MpPaymentSearchResponse> res = mpClient.exchange(url, HttpMethod.GET, req, MpPaymentSearchResponse.class);
+            if (res.getBody() != null) {
+                for (MpPaymentResponse pago : res.getBody().resultados()) {
+                    previewData.add(convertToPaymentDTO(pago, tenant.organizacionId()));
                 }
             }
         } catch (HttpStatusCodeException e) {
@@ -706,12 +925,13 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
         }
         TenantContext tenant = resolveTenant(usuarioSub);
         MpAccountLink link = requireLink(userIdApp);
+        recordarTenant(link, tenant);
         int imported = 0;
 
         for (Long paymentId : paymentIds) {
             try {
-                Map<String, Object> body = get("/v1/payments/" + paymentId, link.getAccessToken());
-                if (body != null && !body.isEmpty()) {
+                MpPaymentResponse body = obtenerPago(paymentId, link.getAccessToken());
+                if (body != null && body.id() != null) {
                     upsertRegistro(body, link, tenant);
                     imported++;
                 }
@@ -724,35 +944,29 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
     }
 
     /**
-     * Convierte un Map de MercadoPago a PaymentDTO para preview
+     * Convierte un pago de MercadoPago a PaymentDTO para preview
      */
-    private PaymentDTO convertToPaymentDTO(Map<String, Object> body) {
+    private PaymentDTO convertToPaymentDTO(MpPaymentResponse body, Long organizacionId) {
         PaymentDTO dto = new PaymentDTO();
         
         // Parsear datos básicos
-        Long mpPaymentId = asLong(body.get("id"));
-        Instant dateCreated = parseInstant(body.get("date_created"));
+        Long mpPaymentId = body.id();
+        Instant dateCreated = parseInstant(body.dateCreated());
         LocalDate fecha = (dateCreated != null) 
             ? dateCreated.atZone(ZoneId.systemDefault()).toLocalDate()
             : LocalDate.now();
         
-        BigDecimal transactionAmount = asBigDecimal(body.get("transaction_amount"));
-        String currencyId = asString(body.get("currency_id"));
-        String description = asString(body.get("description"));
-        String payerEmail = getPayerEmail(body);
-        String status = asString(body.get("status"));
-        String transactionType = asString(body.get("transaction_type"));
-        String operationType = asString(body.get("operation_type"));
+        BigDecimal transactionAmount = body.transactionAmount();
+        String currencyId = body.currencyId();
+        String description = body.description();
+        String payerEmail = body.payerEmail();
+        String status = body.status();
+        String transactionType = body.transactionType();
+        String operationType = body.operationType();
         
         // Obtener IDs para clasificación correcta en preview
-        Long payerId = asLong(body.get("payer_id"));
-        Long collectorId = asLong(body.get("collector"));
-        if (collectorId == null) {
-            Map<String, Object> collector = asMap(body.get("collector"));
-            if (collector != null) {
-                collectorId = asLong(collector.get("id"));
-            }
-        }
+        Long payerId = body.payerId();
+        Long collectorId = body.collector();
         
         // Determinar tipo de registro (para preview, CON IDs para clasificación correcta)
         TipoMovimiento tipoMovimiento = determinarTipoMovimiento(status, transactionType, operationType, transactionAmount, payerId, collectorId);
@@ -765,7 +979,8 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
         dto.setOrigen(payerEmail);
         dto.setTipo(tipoMovimiento.toString());
         // Categoría sugerida inteligentemente
-        String categoriaSugerida = categorySuggestionService.sugerirCategoria(description, tipoMovimiento);
+        String categoriaSugerida = categorySuggestionService.sugerirCategoria(
+                description, payerEmail, tipoMovimiento, organizacionId);
         dto.setCategoria(categoriaSugerida);
         dto.setMoneda(currencyId);
         dto.setEstado(status);
@@ -794,9 +1009,14 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
         }
         
         // Actualizar la categoría en la tabla Registro
+        ResumenMensualService.Aporte aporteAnterior = resumenMensualService.aporteDe(registro);
+        CategoriaAprendidaService.Muestra muestraAnterior = categoriaAprendidaService.muestraDe(registro);
         registro.setCategoria(newCategory);
         registro.setFechaActualizacion(LocalDateTime.now());
         movimientoRepo.save(registro);
+        resumenMensualService.registrarCambio(aporteAnterior, registro);
+        categoriaAprendidaService.registrarCambio(muestraAnterior, registro);
+        resumenCacheService.invalidarOrganizacion(registro.getOrganizacionId());
         
         // Actualizar la categoría en la tabla MpImportedPayment
         MpImportedPayment mpImported = mpImportedRepo.findByRegistroId(registroId);
@@ -7,11 +7,11 @@ import registro.mercadopago.models.MpAccountLink;
 import registro.mercadopago.models.MpWalletMovement;
 import registro.mercadopago.repositories.MpAccountLinkRepository;
 import registro.mercadopago.repositories.MpWalletMovementRepository;
+import registro.mercadopago.services.util.MpClient;
 import registro.mercadopago.services.util.MpWalletMovementImportService;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpStatusCodeException;
-import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
 import java.net.URLEncoder;
@@ -26,15 +26,16 @@ public class MpWalletMovementImportServiceImpl implements MpWalletMovementImport
     private final MpWalletMovementRepository repo;
     private final MpAccountLinkRepository linkRepo;
     private final MpProperties props;
-    private final RestTemplate rest = new RestTemplate();
+    private final MpClient mpClient;
     private final ObjectMapper om = new ObjectMapper();
 
     public MpWalletMovementImportServiceImpl(
             MpWalletMovementRepository repo,
             MpAccountLinkRepository linkRepo,
-            MpProperties props
+            MpProperties props,
+            MpClient mpClient
     ) {
-        this.repo = repo; this.linkRepo = linkRepo; this.props = props;
+        this.repo = repo; this.linkRepo = linkRepo; this.props = props; this.mpClient = mpClient;
     }
 
     @Override
@@ -112,7 +113,7 @@ public class MpWalletMovementImportServiceImpl implements MpWalletMovementImport
     private Map<String,Object> get(String path, String token) {
         String url = props.getApiBase() + path;
         try {
-            ResponseEntity<Map> res = rest.exchange(url, HttpMethod.GET, new HttpEntity<>(authHeaders(token)), Map.class);
+            ResponseEntity<Map> res = mpClient.exchange(url, HttpMethod.GET, new HttpEntity<>(authHeaders(token)), Map.class);
             return (Map<String, Object>) res.getBody();
         } catch (HttpStatusCodeException e) {
             System.err.println("GET " + url + " -> " + e.getStatusCode());
@@ -158,7 +159,7 @@ public class MpWalletMovementImportServiceImpl implements MpWalletMovementImport
             );
             for (String url : urls) {
                 try {
-                    ResponseEntity<Map> res = rest.exchange(url, HttpMethod.GET, new HttpEntity<>(authHeaders(token)), Map.class);
+                    ResponseEntity<Map> res = mpClient.exchange(url, HttpMethod.GET, new HttpEntity<>(authHeaders(token)), Map.class);
                     Object list = pickList(res.getBody());
                     if (list instanceof List<?> l) return (List<Map<String,Object>>) l;
                 } catch (HttpStatusCodeException e) {
@@ -174,7 +175,7 @@ public class MpWalletMovementImportServiceImpl implements MpWalletMovementImport
             // B) sin fechas: traemos por páginas y filtramos localmente
             String urlNoDates = props.getApiBase() + base + "?sort=date&criteria=desc&offset="+offset+"&limit="+limit;
             try {
-                ResponseEntity<Map> res = rest.exchange(urlNoDates, HttpMethod.GET, new HttpEntity<>(authHeaders(token)), Map.class);
+                ResponseEntity<Map> res = mpClient.exchange(urlNoDates, HttpMethod.GET, new HttpEntity<>(authHeaders(token)), Map.class);
                 Object list = pickList(res.getBody());
                 if (list instanceof List<?> l) return (List<Map<String,Object>>) l;
             } catch (HttpStatusCodeException e) {
@@ -187,7 +188,7 @@ public class MpWalletMovementImportServiceImpl implements MpWalletMovementImport
                 + "?sort=date&criteria=desc&offset="+offset+"&limit="+limit
                 + "&access_token=" + enc(token);
         try {
-            ResponseEntity<Map> res = rest.exchange(fallback, HttpMethod.GET, new HttpEntity<>(new HttpHeaders()), Map.class);
+            ResponseEntity<Map> res = mpClient.exchange(fallback, HttpMethod.GET, new HttpEntity<>(new HttpHeaders()), Map.class);
             Object list = pickList(res.getBody());
             if (list instanceof List<?> l) return (List<Map<String,Object>>) l;
         } catch (HttpStatusCodeException e) {
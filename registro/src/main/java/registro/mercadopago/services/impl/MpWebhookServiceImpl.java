@@ -1,11 +1,310 @@
 package registro.mercadopago.services.impl;
 
-import registro.mercadopago.services.MpWebhookService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import registro.mercadopago.models.MpWebhookEvento;
+import registro.mercadopago.repositories.MpWebhookEventoRepository;
+import registro.mercadopago.services.MpPaymentImportService;
+import registro.mercadopago.services.MpWebhookService;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+/**
+ * El webhook valida la firma, persiste la notificación (una inserción) y responde; los workers toman lotes
+ * de la tabla, agrupan por cuenta y por pago, y los importan con el upsert idempotente del
+ * importador, así que reenvíos o repeticiones tras una caída no duplican movimientos.
+ */
 @Service
+@Slf4j
 public class MpWebhookServiceImpl implements MpWebhookService {
-    @Override public void handle(String signature, String body) {
-        // TODO: validar firma y reimportar/actualizar pagos
+
+    private final MpWebhookEventoRepository eventoRepo;
+    private final MpPaymentImportService importService;
+    private final ObjectMapper objectMapper;
+    private final Executor workers;
+    private final TransactionTemplate transaccion;
+    private final Duration agrupamiento;
+    private final Duration bloqueo;
+    private final Duration esperaReintento;
+    private final int tamanioLote;
+    private final int maxIntentos;
+    private final int retencionDias;
+    private final String claveSecreta;
+    private final Duration toleranciaFirma;
+
+    public MpWebhookServiceImpl(
+            MpWebhookEventoRepository eventoRepo,
+            MpPaymentImportService importService,
+            ObjectMapper objectMapper,
+            @Qualifier("mpWebhookExecutor") Executor workers,
+            PlatformTransactionManager transactionManager,
+            @Value("${mercadopago.webhook.agrupar-ms:2000}") long agruparMs,
+            @Value("${mercadopago.webhook.bloqueo-minutos:10}") long bloqueoMinutos,
+            @Value("${mercadopago.webhook.espera-reintento-segundos:30}") long esperaReintentoSegundos,
+            @Value("${mercadopago.webhook.tamanio-lote:200}") int tamanioLote,
+            @Value("${mercadopago.webhook.max-intentos:8}") int maxIntentos,
+            @Value("${mercadopago.webhook.retencion-dias:7}") int retencionDias,
+            @Value("${mercadopago.webhook.clave-secreta:}") String claveSecreta,
+            @Value("${mercadopago.webhook.tolerancia-firma-segundos:300}") long toleranciaFirmaSegundos
+    ) {
+        this.eventoRepo = eventoRepo;
+        this.importService = importService;
+        this.objectMapper = objectMapper;
+        this.workers = workers;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.agrupamiento = Duration.ofMillis(Math.max(0, agruparMs));
+        this.bloqueo = Duration.ofMinutes(Math.max(1, bloqueoMinutos));
+        this.esperaReintento = Duration.ofSeconds(Math.max(1, esperaReintentoSegundos));
+        this.tamanioLote = Math.max(1, tamanioLote);
+        this.maxIntentos = Math.max(1, maxIntentos);
+        this.retencionDias = Math.max(1, retencionDias);
+        this.claveSecreta = claveSecreta;
+        this.toleranciaFirma = Duration.ofSeconds(Math.max(1, toleranciaFirmaSegundos));
+        if (claveSecreta == null || claveSecreta.isBlank()) {
+            log.warn("mercadopago.webhook.clave-secreta no está configurada: se rechazan todos los webhooks");
+        }
+    }
+
+    @Override
+    public boolean handle(String signature, String requestId, String dataId, String body) {
+        if (!firmaValida(signature, requestId, dataId)) {
+            log.warn("Webhook de Mercado Pago con firma inválida o ausente (data.id {})", dataId);
+            return false;
+        }
+        MpWebhookEvento evento = leerNotificacion(body);
+        if (evento == null) {
+            return true;
+        }
+        // La firma cubre el data.id de la URL, no el cuerpo: tienen que referirse al mismo pago
+        if (dataId == null || !dataId.trim().equalsIgnoreCase(evento.getMpPaymentId())) {
+            log.warn("Webhook de Mercado Pago con data.id {} distinto del pago del cuerpo {}",
+                    dataId, evento.getMpPaymentId());
+            return false;
+        }
+        eventoRepo.save(evento);
+        return true;
+    }
+
+    @Override
+    public void processPending() {
+        int tomadas;
+        do {
+            String lote = UUID.randomUUID().toString();
+            LocalDateTime ahora = LocalDateTime.now();
+            Integer cantidad = transaccion.execute(status ->
+                    eventoRepo.tomarLote(lote, ahora, ahora.plus(bloqueo), tamanioLote));
+            tomadas = (cantidad != null) ? cantidad : 0;
+            if (tomadas > 0) {
+                procesarLote(lote);
+            }
+        } while (tomadas == tamanioLote);
+    }
+
+    @Override
+    public void purgeProcessed() {
+        LocalDateTime limite = LocalDateTime.now().minusDays(retencionDias);
+        Integer eliminadas = transaccion.execute(status -> eventoRepo.eliminarTerminadosAntesDe(
+                List.of(MpWebhookEvento.Estado.PROCESADO, MpWebhookEvento.Estado.DESCARTADO), limite));
+        if (eliminadas != null && eliminadas > 0) {
+            log.info("Notificaciones de Mercado Pago eliminadas: {}", eliminadas);
+        }
+    }
+
+    private void procesarLote(String lote) {
+        List<MpWebhookEvento> eventos = eventoRepo.findByLote(lote);
+        Map<String, List<MpWebhookEvento>> porCuenta = new LinkedHashMap<>();
+        for (MpWebhookEvento evento : eventos) {
+            if (evento.getMpUserId() == null) {
+                descartar(evento, "La notificación no indica la cuenta de Mercado Pago");
+            } else {
+                porCuenta.computeIfAbsent(evento.getMpUserId(), k -> new ArrayList<>()).add(evento);
+            }
+        }
+
+        List<CompletableFuture<Void>> tareas = new ArrayList<>(porCuenta.size());
+        porCuenta.forEach((mpUserId, eventosCuenta) -> tareas.add(
+                CompletableFuture.runAsync(() -> aplicarCuenta(mpUserId, eventosCuenta), workers)));
+        CompletableFuture.allOf(tareas.toArray(new CompletableFuture[0])).join();
+
+        for (MpWebhookEvento evento : eventos) {
+            try {
+                eventoRepo.save(evento);
+            } catch (ObjectOptimisticLockingFailureException e) {
+                log.info("La notificación {} de Mercado Pago la retomó otro worker; se descarta este resultado",
+                        evento.getId());
+            }
+        }
+    }
+
+    private void aplicarCuenta(String mpUserId, List<MpWebhookEvento> eventos) {
+        // Varias notificaciones del mismo pago (created, updated, ...) se importan una sola vez
+        Set<String> pagos = new LinkedHashSet<>();
+        eventos.forEach(evento -> pagos.add(evento.getMpPaymentId()));
+        try {
+            int aplicados = importService.applyPaymentNotifications(mpUserId, pagos);
+            log.debug("Webhook MP cuenta {}: {} notificaciones, {} pagos nuevos o actualizados",
+                    mpUserId, eventos.size(), aplicados);
+            LocalDateTime ahora = LocalDateTime.now();
+            for (MpWebhookEvento evento : eventos) {
+                evento.setEstado(MpWebhookEvento.Estado.PROCESADO);
+                evento.setFechaProcesado(ahora);
+                evento.setError(null);
+                liberar(evento);
+            }
+        } catch (Exception e) {
+            log.warn("Error aplicando notificaciones de Mercado Pago de la cuenta {}: {}", mpUserId, e.getMessage());
+            eventos.forEach(evento -> reprogramar(evento, e.getMessage()));
+        }
+    }
+
+    private void reprogramar(MpWebhookEvento evento, String error) {
+        evento.setIntentos(evento.getIntentos() + 1);
+        if (evento.getIntentos() >= maxIntentos) {
+            descartar(evento, error);
+            return;
+        }
+        evento.setEstado(MpWebhookEvento.Estado.PENDIENTE);
+        evento.setError(recortar(error));
+        evento.setDisponibleDesde(LocalDateTime.now().plus(esperaReintento.multipliedBy(1L << Math.min(evento.getIntentos(), 10))));
+        liberar(evento);
+    }
+
+    private void descartar(MpWebhookEvento evento, String error) {
+        evento.setEstado(MpWebhookEvento.Estado.DESCARTADO);
+        evento.setError(recortar(error));
+        evento.setFechaProcesado(LocalDateTime.now());
+        liberar(evento);
+    }
+
+    private void liberar(MpWebhookEvento evento) {
+        evento.setLote(null);
+        evento.setBloqueadoHasta(null);
+    }
+
+    /**
+     * Valida X-Signature ("ts=...,v1=...") como indica Mercado Pago: HMAC-SHA256 con la clave
+     * secreta del webhook sobre "id:{data.id};request-id:{x-request-id};ts:{ts};", omitiendo las
+     * partes que no vienen en la notificación. Sin clave configurada no se acepta ninguna. Se
+     * rechazan las firmas con ts fuera de toleranciaFirma, para que no se pueda reenviar una
+     * notificación capturada.
+     */
+    private boolean firmaValida(String signature, String requestId, String dataId) {
+        if (claveSecreta == null || claveSecreta.isBlank() || signature == null) {
+            return false;
+        }
+        String ts = null;
+        String v1 = null;
+        for (String parte : signature.split(",")) {
+            String[] claveValor = parte.split("=", 2);
+            if (claveValor.length != 2) continue;
+            switch (claveValor[0].trim()) {
+                case "ts" -> ts = claveValor[1].trim();
+                case "v1" -> v1 = claveValor[1].trim();
+                default -> { }
+            }
+        }
+        if (ts == null || v1 == null || !tsVigente(ts)) {
+            return false;
+        }
+
+        StringBuilder manifiesto = new StringBuilder();
+        if (dataId != null && !dataId.isBlank()) {
+            // Los ids alfanuméricos se firman en minúsculas
+            manifiesto.append("id:").append(dataId.trim().toLowerCase(Locale.ROOT)).append(';');
+        }
+        if (requestId != null && !requestId.isBlank()) {
+            manifiesto.append("request-id:").append(requestId.trim()).append(';');
+        }
+        manifiesto.append("ts:").append(ts).append(';');
+
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(claveSecreta.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] esperada = mac.doFinal(manifiesto.toString().getBytes(StandardCharsets.UTF_8));
+            byte[] recibida = HexFormat.of().parseHex(v1.toLowerCase(Locale.ROOT));
+            return MessageDigest.isEqual(esperada, recibida);
+        } catch (IllegalArgumentException e) {
+            return false;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo validar la firma del webhook", e);
+        }
+    }
+
+    // ts llega en segundos o en milisegundos según la integración
+    private boolean tsVigente(String ts) {
+        long valor;
+        try {
+            valor = Long.parseLong(ts);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        long firmadoMs = valor < 100_000_000_000L ? valor * 1000 : valor;
+        return Math.abs(System.currentTimeMillis() - firmadoMs) <= toleranciaFirma.toMillis();
+    }
+
+    /**
+     * Acepta el formato de webhooks ({"type":"payment","user_id":..,"data":{"id":..}}) y el de
+     * IPN ({"topic":"payment","resource":".../payments/123"}).
+     *
+     * @return Evento a encolar, o null si no es una notificación de pago
+     */
+    private MpWebhookEvento leerNotificacion(String body) {
+        JsonNode raiz;
+        try {
+            raiz = objectMapper.readTree(body);
+        } catch (Exception e) {
+            log.warn("Webhook de Mercado Pago con cuerpo inválido: {}", e.getMessage());
+            return null;
+        }
+        if (raiz == null) {
+            return null;
+        }
+        String tipo = raiz.path("type").asText(raiz.path("topic").asText(null));
+        if (!"payment".equals(tipo)) {
+            log.debug("Webhook de Mercado Pago ignorado (tipo {})", tipo);
+            return null;
+        }
+        String mpPaymentId = raiz.path("data").path("id").asText(null);
+        if (mpPaymentId == null) {
+            String recurso = raiz.path("resource").asText(null);
+            mpPaymentId = (recurso != null) ? recurso.substring(recurso.lastIndexOf('/') + 1) : null;
+        }
+        if (mpPaymentId == null || mpPaymentId.isBlank()) {
+            log.warn("Webhook de pago de Mercado Pago sin id de pago");
+            return null;
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        MpWebhookEvento evento = new MpWebhookEvento();
+        evento.setMpUserId(raiz.path("user_id").asText(null));
+        evento.setMpPaymentId(mpPaymentId.trim());
+        evento.setAccion(recortar(raiz.path("action").asText(null), 50));
+        evento.setFechaRecepcion(ahora);
+        evento.setDisponibleDesde(ahora.plus(agrupamiento));
+        return evento;
+    }
+
+    private String recortar(String texto) {
+        return recortar(texto, 1000);
+    }
+
+    private String recortar(String texto, int largo) {
+        return (texto != null && texto.length() > largo) ? texto.substring(0, largo) : texto;
     }
 }
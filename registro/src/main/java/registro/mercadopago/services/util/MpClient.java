@@ -1,4 +1,54 @@
 package registro.mercadopago.services.util;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.*;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import registro.mercadopago.config.MpProperties;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Acceso a la API de Mercado Pago sobre el RestTemplate con pool de conexiones (mpRestTemplate).
+ * Todos los servicios de MP pasan por acá, así comparten conexiones keep-alive, timeouts y las
+ * métricas mercadopago.http.client.
+ */
+@Component
 public class MpClient {
+
+    private final RestTemplate rest;
+    private final MpProperties props;
+
+    public MpClient(@Qualifier("mpRestTemplate") RestTemplate rest, MpProperties props) {
+        this.rest = rest;
+        this.props = props;
+    }
+
+    /**
+     * GET autenticado de una ruta de la API (por ej. "/v1/payments/123"), leyendo la respuesta
+     * directo al tipo indicado; los campos que el tipo no declara se saltean sin materializarlos.
+     */
+    public <T> T get(String path, String accessToken, Class<T> tipo) {
+        return get(URI.create(props.getApiBase() + path), accessToken, tipo);
+    }
+
+    public <T> T get(URI url, String accessToken, Class<T> tipo) {
+        return rest.exchange(url, HttpMethod.GET, new HttpEntity<>(authHeaders(accessToken)), tipo).getBody();
+    }
+
+    public <T> ResponseEntity<T> exchange(String url, HttpMethod method, HttpEntity<?> request, Class<T> tipo) {
+        return rest.exchange(url, method, request, tipo);
+    }
+
+    public <T> ResponseEntity<T> exchange(URI url, HttpMethod method, HttpEntity<?> request, Class<T> tipo) {
+        return rest.exchange(url, method, request, tipo);
+    }
+
+    public HttpHeaders authHeaders(String accessToken) {
+        HttpHeaders h = new HttpHeaders();
+        h.setBearerAuth(accessToken);
+        h.setAccept(List.of(MediaType.APPLICATION_JSON));
+        return h;
+    }
 }
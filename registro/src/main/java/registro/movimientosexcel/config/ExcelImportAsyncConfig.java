@@ -0,0 +1,27 @@
+package registro.movimientosexcel.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ExcelImportAsyncConfig {
+
+    /**
+     * Pool acotado para las importaciones de Excel en segundo plano; si la cola se llena el
+     * envío se rechaza en lugar de acumular archivos pendientes.
+     */
+    @Bean(name = "importacionExecutor")
+    public ThreadPoolTaskExecutor importacionExecutor(
+            @Value("${registro.importacion.hilos:2}") int hilos,
+            @Value("${registro.importacion.cola:20}") int cola) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(cola);
+        executor.setThreadNamePrefix("importacion-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -3,6 +3,7 @@ package registro.movimientosexcel.controllers;
 import registro.cargarDatos.models.TipoMovimiento;
 import registro.movimientosexcel.dtos.*;
 import registro.movimientosexcel.services.CategorySuggestionService;
+import registro.movimientosexcel.services.ExcelImportJobService;
 import registro.movimientosexcel.services.ExcelImportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -21,6 +22,9 @@ public class ExcelImportController {
     @Autowired
     private CategorySuggestionService categorySuggestionService;
 
+    @Autowired
+    private ExcelImportJobService excelImportJobService;
+
     @PostMapping("/importar-excel")
     public ResponseEntity<ResumenCargaDTO> importarExcel(
             @RequestParam("file") MultipartFile file,
@@ -31,6 +35,36 @@ public class ExcelImportController {
         return ResponseEntity.ok(resultado);
     }
     
+    /**
+     * Encola la importación y devuelve el job; el avance se consulta con GET /importar-excel/jobs/{jobId}
+     */
+    @PostMapping("/importar-excel/jobs")
+    public ResponseEntity<ExcelImportJobDTO> iniciarImportacion(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam("tipoOrigen") String tipoOrigen,
+            @RequestHeader("X-Usuario-Sub") String usuarioSub) {
+        try {
+            return ResponseEntity.accepted().body(excelImportJobService.iniciar(file, tipoOrigen, usuarioSub));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/importar-excel/jobs/{jobId}")
+    public ResponseEntity<ExcelImportJobDTO> obtenerImportacion(
+            @PathVariable Long jobId,
+            @RequestHeader("X-Usuario-Sub") String usuarioSub) {
+        try {
+            ExcelImportJobDTO job = excelImportJobService.obtener(jobId, usuarioSub);
+            if (job == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(job);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PostMapping("/preview-excel")
     public ResponseEntity<PreviewDataDTO> previewExcel(
             @RequestParam("file") MultipartFile file,
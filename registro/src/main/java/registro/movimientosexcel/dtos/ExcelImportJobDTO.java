@@ -0,0 +1,34 @@
+package registro.movimientosexcel.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+import registro.movimientosexcel.models.ExcelImportJob;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Estado de una importación asíncrona. Mientras el job corre en esta instancia los contadores
+ * incluyen las filas del tramo en curso; si no, reflejan el último tramo confirmado.
+ */
+@Getter
+@Setter
+public class ExcelImportJobDTO {
+
+    private Long jobId;
+    private ExcelImportJob.Estado estado;
+    private String fileName;
+    private String tipoOrigen;
+    private int filasLeidas;
+    private int filasGuardadas;
+    private int duplicados;
+    private int cantidadErrores;
+    // Últimos errores por fila (solo los del proceso en curso en esta instancia)
+    private List<FilaConErrorDTO> errores;
+    // Últimas filas omitidas por duplicadas y el motivo: ya existen o repiten otra fila del archivo
+    private List<FilaConErrorDTO> filasDuplicadas;
+    private String observaciones;
+    private Long historialId;
+    private LocalDateTime fechaCreacion;
+    private LocalDateTime fechaFin;
+}
@@ -1,12 +0,0 @@
-package registro.movimientosexcel.dtos;
-
-import java.math.BigDecimal;
-import java.time.Instant;
-
-public record MovementEventPayload(
-        Long userId,
-        String refId,
-        Instant date,
-        Double amount,
-        String description
-) {}
@@ -22,6 +22,8 @@ public class RegistroPreviewDTO {
     private String categoriaSugerida;
     private Boolean esDuplicado;
     private String motivoDuplicado;
+    // Fila del mismo archivo con la que coincide, si el duplicado es dentro del archivo
+    private Integer filaDuplicadaDe;
     
     public RegistroPreviewDTO(Integer filaExcel, TipoMovimiento tipo, Double montoTotal, 
                              LocalDate fechaEmision, String descripcion, String origen,
@@ -0,0 +1,25 @@
+package registro.movimientosexcel.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Archivo subido de un ExcelImportJob. Se guarda en la base, no en el disco de la instancia que
+ * recibió el upload, para que cualquier instancia (o la misma después de reiniciar) pueda
+ * retomar el job. Se escribe y se lee en streaming con ExcelImportArchivoRepository; la entidad
+ * define la tabla. Se elimina al terminar el job.
+ */
+@Entity
+@Table(name = "excel_import_archivo")
+@Getter
+@Setter
+public class ExcelImportArchivo {
+
+    @Id
+    private Long jobId;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "LONGBLOB")
+    private byte[] contenido;
+}
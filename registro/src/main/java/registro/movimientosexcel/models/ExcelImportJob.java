@@ -0,0 +1,74 @@
+package registro.movimientosexcel.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Importación de Excel ejecutada en segundo plano. El avance se confirma en la misma transacción
+ * que cada tramo de movimientos guardado, así que ultimaFilaConfirmada indica desde dónde
+ * retomar si el proceso se interrumpe (reinicio del servicio).
+ */
+@Entity
+@Table(name = "excel_import_job",
+        indexes = @Index(name = "idx_excel_import_job_estado", columnList = "estado,fecha_actualizacion"))
+@Getter
+@Setter
+public class ExcelImportJob {
+
+    public enum Estado { PENDIENTE, EN_PROCESO, COMPLETADO, PARCIAL, ERROR }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String usuarioSub;
+
+    @Column(nullable = false)
+    private Long organizacionId;
+
+    @Column(nullable = false, length = 30)
+    private String tipoOrigen;
+
+    private String fileName;
+
+    // El archivo subido está en ExcelImportArchivo (misma clave)
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Estado estado = Estado.PENDIENTE;
+
+    // Contadores al último tramo confirmado
+    private int filasLeidas;
+    private int filasGuardadas;
+    private int duplicados;
+    private int errores;
+
+    // Fila de Excel (1-based) hasta la cual ya se guardó
+    private int ultimaFilaConfirmada;
+
+    @Column(length = 1000)
+    private String observaciones;
+
+    // Registro en ExcelImportHistory generado al terminar
+    private Long historialId;
+
+    private LocalDateTime fechaCreacion;
+
+    // Se actualiza con cada tramo; un job EN_PROCESO sin avance reciente se considera interrumpido
+    private LocalDateTime fechaActualizacion;
+
+    private LocalDateTime fechaFin;
+
+    @Version
+    private Long version;
+
+    @PrePersist
+    protected void onCreate() {
+        fechaCreacion = LocalDateTime.now();
+        fechaActualizacion = fechaCreacion;
+    }
+}
@@ -0,0 +1,53 @@
+package registro.movimientosexcel.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Contenido de los archivos de importación (tabla excel_import_archivo) por JDBC, para copiarlo
+ * desde y hacia un stream sin armar el byte[] completo en la aplicación.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ExcelImportArchivoRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void guardar(Long jobId, InputStream contenido, long tamanio) {
+        jdbcTemplate.update("INSERT INTO excel_import_archivo (job_id, contenido) VALUES (?, ?)", ps -> {
+            ps.setLong(1, jobId);
+            ps.setBinaryStream(2, contenido, tamanio);
+        });
+    }
+
+    /**
+     * Copia el archivo del job al destino local.
+     * @return false si el job no tiene archivo
+     */
+    public boolean copiarA(Long jobId, Path destino) {
+        Boolean copiado = jdbcTemplate.query("SELECT contenido FROM excel_import_archivo WHERE job_id = ?", rs -> {
+            if (!rs.next()) {
+                return false;
+            }
+            try (InputStream contenido = rs.getBinaryStream(1)) {
+                Files.copy(contenido, destino, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return true;
+        }, jobId);
+        return Boolean.TRUE.equals(copiado);
+    }
+
+    public void eliminar(Long jobId) {
+        jdbcTemplate.update("DELETE FROM excel_import_archivo WHERE job_id = ?", jobId);
+    }
+}
@@ -0,0 +1,13 @@
+package registro.movimientosexcel.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import registro.movimientosexcel.models.ExcelImportJob;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ExcelImportJobRepository extends JpaRepository<ExcelImportJob, Long> {
+    List<ExcelImportJob> findByEstadoInAndFechaActualizacionBefore(Collection<ExcelImportJob.Estado> estados,
+                                                                   LocalDateTime limite);
+}
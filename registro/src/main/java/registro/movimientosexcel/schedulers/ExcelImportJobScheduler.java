@@ -0,0 +1,29 @@
+package registro.movimientosexcel.schedulers;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import registro.movimientosexcel.services.ExcelImportJobService;
+
+/**
+ * Retoma las importaciones de Excel que quedaron sin terminar (por ejemplo tras un reinicio)
+ * desde el último tramo confirmado.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ExcelImportJobScheduler {
+
+    private final ExcelImportJobService excelImportJobService;
+
+    @Scheduled(initialDelayString = "${registro.importacion.reanudar-demora-inicial-ms:30000}",
+            fixedDelayString = "${registro.importacion.reanudar-cada-ms:60000}")
+    public void reanudarInterrumpidos() {
+        try {
+            excelImportJobService.reanudarInterrumpidos();
+        } catch (Exception e) {
+            log.error("Error reanudando importaciones interrumpidas: {}", e.getMessage(), e);
+        }
+    }
+}
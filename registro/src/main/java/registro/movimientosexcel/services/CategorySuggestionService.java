@@ -2,10 +2,9 @@ package registro.movimientosexcel.services;
 
 import org.springframework.stereotype.Service;
 import registro.cargarDatos.models.TipoMovimiento;
+import registro.cargarDatos.services.CategoriaAprendidaService;
 
 import java.util.*;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * Servicio inteligente de sugerencia de categorías para movimientos bancarios.
@@ -39,10 +38,19 @@ public class CategorySuggestionService {
     // Mapas de patrones organizados por categoría
     private final Map<String, List<PatronCategoria>> patronesEgresos = new HashMap<>();
     private final Map<String, List<PatronCategoria>> patronesIngresos = new HashMap<>();
+
+    // Autómatas compilados una vez a partir de los mapas de patrones
+    private final ClasificadorCategorias clasificadorEgresos;
+    private final ClasificadorCategorias clasificadorIngresos;
+    
+    private final CategoriaAprendidaService categoriaAprendidaService;
     
-    public CategorySuggestionService() {
+    public CategorySuggestionService(CategoriaAprendidaService categoriaAprendidaService) {
+        this.categoriaAprendidaService = categoriaAprendidaService;
         inicializarPatronesEgresos();
         inicializarPatronesIngresos();
+        clasificadorEgresos = compilar(patronesEgresos);
+        clasificadorIngresos = compilar(patronesIngresos);
     }
     
     /**
@@ -53,37 +61,30 @@ public class CategorySuggestionService {
             return tipo == TipoMovimiento.Egreso ? CAT_OTROS_EGRESOS : CAT_OTROS_INGRESOS;
         }
         
-        String descripcionLower = descripcion.toLowerCase().trim();
-        
-        // Elegir el mapa de patrones según el tipo
-        Map<String, List<PatronCategoria>> patrones = 
-            tipo == TipoMovimiento.Egreso ? patronesEgresos : patronesIngresos;
-        
-        // Buscar coincidencias con prioridad
-        List<CoincidenciaCategoria> coincidencias = new ArrayList<>();
-        
-        for (Map.Entry<String, List<PatronCategoria>> entry : patrones.entrySet()) {
-            String categoria = entry.getKey();
-            List<PatronCategoria> listaPatrones = entry.getValue();
-            
-            for (PatronCategoria patron : listaPatrones) {
-                if (patron.coincide(descripcionLower)) {
-                    coincidencias.add(new CoincidenciaCategoria(categoria, patron.prioridad));
-                    break; // Solo una coincidencia por categoría
-                }
-            }
-        }
-        
-        // Si hay coincidencias, devolver la de mayor prioridad
-        if (!coincidencias.isEmpty()) {
-            coincidencias.sort(Comparator.comparingInt(c -> -c.prioridad)); // Orden descendente
-            return coincidencias.get(0).categoria;
+        // Una sola pasada sobre la descripción con todas las palabras clave del tipo
+        ClasificadorCategorias clasificador =
+            tipo == TipoMovimiento.Egreso ? clasificadorEgresos : clasificadorIngresos;
+        String categoria = clasificador.clasificar(descripcion);
+        if (categoria != null) {
+            return categoria;
         }
         
         // Categoría por defecto
         return tipo == TipoMovimiento.Egreso ? CAT_OTROS_EGRESOS : CAT_OTROS_INGRESOS;
     }
     
+    /**
+     * Sugiere una categoría usando primero lo aprendido de los movimientos de la organización
+     * (descripciones y contrapartes ya categorizadas) y, si no alcanza, los patrones fijos
+     */
+    public String sugerirCategoria(String descripcion, String contraparte, TipoMovimiento tipo, Long organizacionId) {
+        String aprendida = categoriaAprendidaService.sugerir(organizacionId, tipo, descripcion, contraparte);
+        if (aprendida != null && !aprendida.equals(CAT_OTROS_EGRESOS) && !aprendida.equals(CAT_OTROS_INGRESOS)) {
+            return aprendida;
+        }
+        return sugerirCategoria(descripcion, tipo);
+    }
+    
     /**
      * Sobrecarga para compatibilidad con código existente (asume Egreso por defecto)
      */
@@ -263,36 +264,41 @@ public class CategorySuggestionService {
     }
     
     /**
-     * Clase interna para representar un patrón de categorización
+     * Compila un mapa de patrones en un clasificador. Los patrones de cada categoría están ordenados
+     * por prioridad descendente, así que la mayor prioridad coincidente es la del primer patrón que
+     * coincide; los empates se resuelven por el orden de iteración del mapa, como la búsqueda
+     * patrón por patrón.
      */
-    private static class PatronCategoria {
-        private final int prioridad;
-        private final Pattern pattern;
-        
-        public PatronCategoria(List<String> palabrasClave, int prioridad) {
-            this.prioridad = prioridad;
-            // Crear un patrón regex que busque cualquiera de las palabras clave
-            String regex = palabrasClave.stream()
-                .map(Pattern::quote)
-                .collect(Collectors.joining("|"));
-            this.pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
-        }
+    private ClasificadorCategorias compilar(Map<String, List<PatronCategoria>> patrones) {
+        List<String> categorias = new ArrayList<>();
+        List<ClasificadorCategorias.PalabraClave> palabras = new ArrayList<>();
         
-        public boolean coincide(String texto) {
-            return pattern.matcher(texto).find();
+        for (Map.Entry<String, List<PatronCategoria>> entry : patrones.entrySet()) {
+            int indiceCategoria = categorias.size();
+            categorias.add(entry.getKey());
+            
+            Map<String, Integer> prioridadPorPalabra = new HashMap<>();
+            for (PatronCategoria patron : entry.getValue()) {
+                for (String palabra : patron.palabrasClave) {
+                    prioridadPorPalabra.putIfAbsent(palabra, patron.prioridad);
+                }
+            }
+            prioridadPorPalabra.forEach((palabra, prioridad) ->
+                palabras.add(new ClasificadorCategorias.PalabraClave(palabra, indiceCategoria, prioridad)));
         }
+        return new ClasificadorCategorias(categorias, palabras);
     }
     
     /**
-     * Clase interna para almacenar coincidencias con prioridad
+     * Clase interna para representar un patrón de categorización
      */
-    private static class CoincidenciaCategoria {
-        private final String categoria;
+    private static class PatronCategoria {
         private final int prioridad;
+        private final List<String> palabrasClave;
         
-        public CoincidenciaCategoria(String categoria, int prioridad) {
-            this.categoria = categoria;
+        public PatronCategoria(List<String> palabrasClave, int prioridad) {
             this.prioridad = prioridad;
+            this.palabrasClave = palabrasClave;
         }
     }
 }
@@ -0,0 +1,143 @@
+package registro.movimientosexcel.services;
+
+import java.util.*;
+
+/**
+ * Autómata Aho-Corasick construido una sola vez a partir de las palabras clave de las categorías.
+ * Recorre la descripción en una única pasada (sin pasarla a minúsculas ni crear objetos por
+ * consulta) y devuelve la categoría de la coincidencia de mayor prioridad; a igual prioridad gana
+ * la categoría que aparece antes en el orden recibido.
+ */
+final class ClasificadorCategorias {
+
+    record PalabraClave(String texto, int categoria, int prioridad) {}
+
+    private static final int SIN_COINCIDENCIA = -1;
+
+    private final String[] categorias;
+    private final int cantidadCategorias;
+
+    // Clase 0: cualquier carácter que no aparece en las palabras clave
+    private final int[] claseAscii = new int[128];
+    private final char[] alfabetoNoAscii;
+    private final int[] claseNoAscii;
+    private final int cantidadClases;
+
+    // transiciones[estado * cantidadClases + clase] -> estado siguiente (autómata determinístico)
+    private final int[] transiciones;
+
+    // Mejor puntaje de las palabras que terminan en el estado o en alguno de sus sufijos
+    private final int[] mejorPuntaje;
+
+    ClasificadorCategorias(List<String> categorias, List<PalabraClave> palabras) {
+        this.categorias = categorias.toArray(new String[0]);
+        this.cantidadCategorias = categorias.size();
+
+        // Alfabeto compacto con los caracteres de las palabras clave
+        TreeSet<Character> noAscii = new TreeSet<>();
+        int siguienteClase = 1;
+        for (PalabraClave palabra : palabras) {
+            for (char c : palabra.texto().toCharArray()) {
+                char minuscula = Character.toLowerCase(c);
+                if (minuscula < 128) {
+                    if (claseAscii[minuscula] == 0) claseAscii[minuscula] = siguienteClase++;
+                } else {
+                    noAscii.add(minuscula);
+                }
+            }
+        }
+        this.alfabetoNoAscii = new char[noAscii.size()];
+        this.claseNoAscii = new int[noAscii.size()];
+        int n = 0;
+        for (char c : noAscii) {
+            alfabetoNoAscii[n] = c;
+            claseNoAscii[n++] = siguienteClase++;
+        }
+        this.cantidadClases = siguienteClase;
+
+        // Trie de las palabras clave
+        List<int[]> hijos = new ArrayList<>();
+        List<Integer> puntajes = new ArrayList<>();
+        hijos.add(nuevoNodo());
+        puntajes.add(SIN_COINCIDENCIA);
+        for (PalabraClave palabra : palabras) {
+            int estado = 0;
+            for (char c : palabra.texto().toCharArray()) {
+                int clase = clase(Character.toLowerCase(c));
+                if (hijos.get(estado)[clase] == 0) {
+                    hijos.get(estado)[clase] = hijos.size();
+                    hijos.add(nuevoNodo());
+                    puntajes.add(SIN_COINCIDENCIA);
+                }
+                estado = hijos.get(estado)[clase];
+            }
+            puntajes.set(estado, Math.max(puntajes.get(estado), puntaje(palabra)));
+        }
+
+        // Enlaces de falla en BFS; se completan las transiciones faltantes y se propagan los puntajes
+        int estados = hijos.size();
+        this.transiciones = new int[estados * cantidadClases];
+        this.mejorPuntaje = new int[estados];
+        int[] falla = new int[estados];
+        ArrayDeque<Integer> cola = new ArrayDeque<>();
+
+        mejorPuntaje[0] = puntajes.get(0);
+        for (int clase = 0; clase < cantidadClases; clase++) {
+            int hijo = hijos.get(0)[clase];
+            transiciones[clase] = hijo;
+            if (hijo != 0) {
+                falla[hijo] = 0;
+                cola.add(hijo);
+            }
+        }
+        while (!cola.isEmpty()) {
+            int estado = cola.poll();
+            mejorPuntaje[estado] = Math.max(puntajes.get(estado), mejorPuntaje[falla[estado]]);
+            for (int clase = 0; clase < cantidadClases; clase++) {
+                int hijo = hijos.get(estado)[clase];
+                if (hijo != 0) {
+                    falla[hijo] = transiciones[falla[estado] * cantidadClases + clase];
+                    transiciones[estado * cantidadClases + clase] = hijo;
+                    cola.add(hijo);
+                } else {
+                    transiciones[estado * cantidadClases + clase] = transiciones[falla[estado] * cantidadClases + clase];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Categoría de mayor prioridad cuyas palabras clave aparecen en el texto, o null
+     */
+    String clasificar(String texto) {
+        int estado = 0;
+        int mejor = SIN_COINCIDENCIA;
+        for (int i = 0; i < texto.length(); i++) {
+            estado = transiciones[estado * cantidadClases + clase(Character.toLowerCase(texto.charAt(i)))];
+            if (mejorPuntaje[estado] > mejor) {
+                mejor = mejorPuntaje[estado];
+            }
+        }
+        if (mejor == SIN_COINCIDENCIA) {
+            return null;
+        }
+        return categorias[cantidadCategorias - 1 - mejor % cantidadCategorias];
+    }
+
+    // Ordena por prioridad y, a igual prioridad, por posición de la categoría (la primera gana)
+    private int puntaje(PalabraClave palabra) {
+        return palabra.prioridad() * cantidadCategorias + (cantidadCategorias - 1 - palabra.categoria());
+    }
+
+    private int clase(char c) {
+        if (c < 128) {
+            return claseAscii[c];
+        }
+        int pos = Arrays.binarySearch(alfabetoNoAscii, c);
+        return pos >= 0 ? claseNoAscii[pos] : 0;
+    }
+
+    private int[] nuevoNodo() {
+        return new int[cantidadClases];
+    }
+}
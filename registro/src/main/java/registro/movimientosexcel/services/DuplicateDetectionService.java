@@ -2,12 +2,15 @@ package registro.movimientosexcel.services;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import registro.cargarDatos.models.HuellaMovimiento;
 import registro.cargarDatos.models.Movimiento;
 import registro.cargarDatos.repositories.MovimientoRepository;
 import registro.movimientosexcel.dtos.RegistroPreviewDTO;
 
-import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -32,123 +35,84 @@ public class DuplicateDetectionService {
             throw new IllegalArgumentException("La organización es requerida para detectar duplicados");
         }
         
-        // Crear un set de registros únicos para verificar eficientemente
-        Set<RegistroKey> registrosParaVerificar = registrosPreview.stream()
-            .map(this::crearMovimientoKey)
-            .collect(Collectors.toSet());
-        
-        // Buscar duplicados en la BD de una sola vez
-        List<Movimiento> duplicadosEnBD = buscarDuplicadosEnBD(registrosParaVerificar, organizacionId);
-        
-        // Crear un set de duplicados para búsqueda rápida
-        Set<RegistroKey> duplicadosSet = duplicadosEnBD.stream()
-            .map(this::crearMovimientoKey)
-            .collect(Collectors.toSet());
-        
-        // Marcar duplicados en los registros preview
-        return registrosPreview.stream()
-            .map(registro -> {
-                RegistroKey key = crearMovimientoKey(registro);
-                if (duplicadosSet.contains(key)) {
-                    registro.setEsDuplicado(true);
-                    registro.setMotivoDuplicado("Movimiento ya existe en la base de datos");
-                }
-                return registro;
-            })
+        // Huella de cada registro; la BD solo devuelve las que ya existen (índice organizacion_id, huella)
+        List<String> huellas = registrosPreview.stream()
+            .map(DuplicateDetectionService::crearHuella)
             .collect(Collectors.toList());
+        Set<String> existentes = movimientoRepository.buscarHuellasExistentes(organizacionId, huellas);
+        
+        for (int i = 0; i < registrosPreview.size(); i++) {
+            if (existentes.contains(huellas.get(i))) {
+                RegistroPreviewDTO registro = registrosPreview.get(i);
+                registro.setEsDuplicado(true);
+                registro.setMotivoDuplicado("Movimiento ya existe en la base de datos");
+            }
+        }
+        return registrosPreview;
     }
-    
+
     /**
-     * Busca duplicados en la base de datos usando una consulta optimizada
+     * Valor de detectarDuplicados para los movimientos que ya existen en la base de datos
      */
-    private List<Movimiento> buscarDuplicadosEnBD(Set<RegistroKey> registrosParaVerificar, Long organizacionId) {
-        // Obtener todas las fechas únicas (solo día) y convertir a LocalDateTime al inicio del día
-        Set<java.time.LocalDateTime> fechasUnicas = registrosParaVerificar.stream()
-            .map(RegistroKey::getFechaEmision)
-            .filter(fecha -> fecha != null)
-            .map(fecha -> fecha.atStartOfDay())
-            .collect(Collectors.toSet());
-        
-        // Buscar registros que coincidan en fecha (primer filtro)
-        List<Movimiento> registrosPorFecha = movimientoRepository.findByOrganizacionIdAndFechaEmisionIn(organizacionId, fechasUnicas);
-        
-        // Filtrar los que realmente son duplicados
-        return registrosPorFecha.stream()
-            .filter(registro -> {
-                RegistroKey key = crearMovimientoKey(registro);
-                return registrosParaVerificar.contains(key);
-            })
-            .collect(Collectors.toList());
-    }
-    
+    public static final int YA_EXISTE_EN_BD = -1;
+
     /**
-     * Crea una clave única para identificar registros duplicados
+     * Detecta, dentro de una lista de movimientos a importar, los que ya existen en la base de datos
+     * o repiten un movimiento anterior de la misma lista
+     * @return Posición (en la lista recibida) de cada movimiento duplicado -> posición del movimiento
+     *         anterior que repite, o YA_EXISTE_EN_BD
      */
-    private RegistroKey crearMovimientoKey(RegistroPreviewDTO movimiento) {
-        return new RegistroKey(
-            movimiento.getFechaEmision(),
-            movimiento.getMontoTotal(),
-            movimiento.getDescripcion(),
-            movimiento.getOrigen()
-        );
+    public Map<Integer, Integer> detectarDuplicados(List<Movimiento> movimientos, Long organizacionId) {
+        if (movimientos.isEmpty()) {
+            return Map.of();
+        }
+
+        if (organizacionId == null) {
+            throw new IllegalArgumentException("La organización es requerida para detectar duplicados");
+        }
+
+        List<String> huellas = movimientos.stream()
+            .map(HuellaMovimiento::de)
+            .collect(Collectors.toList());
+        Set<String> existentes = movimientoRepository.buscarHuellasExistentes(organizacionId, huellas);
+
+        Map<String, Integer> primeraPosicion = new HashMap<>();
+        Map<Integer, Integer> duplicados = new LinkedHashMap<>();
+        for (int i = 0; i < huellas.size(); i++) {
+            String huella = huellas.get(i);
+            if (existentes.contains(huella)) {
+                duplicados.put(i, YA_EXISTE_EN_BD);
+                continue;
+            }
+            Integer anterior = primeraPosicion.putIfAbsent(huella, i);
+            if (anterior != null) {
+                duplicados.put(i, anterior);
+            }
+        }
+        return duplicados;
     }
     
-    /**
-     * Crea una clave única para identificar registros duplicados desde la BD
-     */
-    private RegistroKey crearMovimientoKey(Movimiento movimiento) {
-        return new RegistroKey(
-            movimiento.getFechaEmision() != null ? movimiento.getFechaEmision().toLocalDate() : null,
-            movimiento.getMontoTotal(),
-            movimiento.getDescripcion(),
-            movimiento.getOrigenNombre()
-        );
+    private static String crearHuella(RegistroPreviewDTO registro) {
+        return HuellaMovimiento.de(registro.getFechaEmision(),
+            registro.getTipo() != null ? registro.getTipo().name() : null, registro.getMontoTotal(),
+            registro.getDescripcion(), registro.getOrigen());
     }
     
     /**
-     * Clase interna para representar una clave única de registro
+     * Índice de los registros ya leídos de un archivo, para detectar duplicados dentro del mismo
+     * archivo con una búsqueda por hash por fila (en lugar de comparar contra todas las anteriores).
+     * Usa la misma huella que la importación (HuellaMovimiento), así la vista previa marca como
+     * duplicadas exactamente las filas que la importación va a omitir.
      */
-    private static class RegistroKey {
-        private final LocalDate fechaEmision;
-        private final Double montoTotal;
-        private final String descripcion;
-        private final String origen;
-        
-        public RegistroKey(LocalDate fechaEmision, Double montoTotal, String descripcion, String origen) {
-            this.fechaEmision = fechaEmision;
-            this.montoTotal = montoTotal;
-            this.descripcion = descripcion != null ? descripcion.trim() : null;
-            this.origen = origen;
-        }
-        
-        public LocalDate getFechaEmision() { return fechaEmision; }
-        public Double getMontoTotal() { return montoTotal; }
-        public String getDescripcion() { return descripcion; }
-        public String getOrigen() { return origen; }
-        
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            
-            RegistroKey that = (RegistroKey) o;
-            
-            if (fechaEmision != null ? !fechaEmision.equals(that.fechaEmision) : that.fechaEmision != null)
-                return false;
-            if (montoTotal != null ? !montoTotal.equals(that.montoTotal) : that.montoTotal != null)
-                return false;
-            if (descripcion != null ? !descripcion.equals(that.descripcion) : that.descripcion != null)
-                return false;
-            return origen != null ? origen.equals(that.origen) : that.origen == null;
-        }
-        
-        @Override
-        public int hashCode() {
-            int result = fechaEmision != null ? fechaEmision.hashCode() : 0;
-            result = 31 * result + (montoTotal != null ? montoTotal.hashCode() : 0);
-            result = 31 * result + (descripcion != null ? descripcion.hashCode() : 0);
-            result = 31 * result + (origen != null ? origen.hashCode() : 0);
-            return result;
+    public static class IndiceArchivo {
+        private final Map<String, Integer> primeraFila = new HashMap<>();
+
+        /**
+         * Registra el registro en el índice
+         * @return Fila de Excel del primer registro igual ya indexado, o null si no hay
+         */
+        public Integer registrar(RegistroPreviewDTO registro) {
+            return primeraFila.putIfAbsent(crearHuella(registro), registro.getFilaExcel());
         }
     }
 }
@@ -0,0 +1,469 @@
+package registro.movimientosexcel.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import registro.cargarDatos.models.Movimiento;
+import registro.cargarDatos.repositories.MovimientoBatchRepository;
+import registro.movimientosexcel.dtos.ExcelImportJobDTO;
+import registro.movimientosexcel.dtos.FilaConErrorDTO;
+import registro.movimientosexcel.models.ExcelImportHistory;
+import registro.movimientosexcel.models.ExcelImportJob;
+import registro.movimientosexcel.repositories.ExcelImportArchivoRepository;
+import registro.movimientosexcel.repositories.ExcelImportHistoryRepository;
+import registro.movimientosexcel.repositories.ExcelImportJobRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Importaciones de Excel en segundo plano. El archivo subido se guarda en la base
+ * (excel_import_archivo) y un pool acotado lo procesa por tramos: cada tramo se guarda
+ * (descartando duplicados) en la misma transacción que actualiza el avance del job, así que un
+ * job interrumpido se retoma desde la última fila confirmada sin duplicar movimientos, en esta u
+ * otra instancia. Al terminar se registra en el historial de cargas.
+ */
+@Service
+@Slf4j
+public class ExcelImportJobService {
+
+    private static final Set<String> TIPOS_SOPORTADOS = Set.of("mycfo", "mercado-pago", "santander");
+    private static final int MAX_ERRORES_VISIBLES = 100;
+
+    private final ExcelImportJobRepository jobRepository;
+    private final ExcelImportHistoryRepository importHistoryRepository;
+    private final ExcelImportArchivoRepository archivoRepository;
+    private final ExcelImportService excelImportService;
+    private final DuplicateDetectionService duplicateDetectionService;
+    private final MovimientoBatchService movimientoBatchService;
+    private final ThreadPoolTaskExecutor executor;
+    private final TransactionTemplate transaccion;
+    // Copia local de trabajo mientras el job corre en esta instancia
+    private final Path directorio;
+    private final long minutosSinAvance;
+
+    // Jobs encolados o en ejecución en esta instancia
+    private final Map<Long, Progreso> enCurso = new ConcurrentHashMap<>();
+
+    public ExcelImportJobService(ExcelImportJobRepository jobRepository,
+                                 ExcelImportHistoryRepository importHistoryRepository,
+                                 ExcelImportArchivoRepository archivoRepository,
+                                 ExcelImportService excelImportService,
+                                 DuplicateDetectionService duplicateDetectionService,
+                                 MovimientoBatchService movimientoBatchService,
+                                 @Qualifier("importacionExecutor") ThreadPoolTaskExecutor executor,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${registro.importacion.directorio:${java.io.tmpdir}/registro-importaciones}") String directorio,
+                                 @Value("${registro.importacion.reanudar-sin-avance-minutos:10}") long minutosSinAvance) {
+        this.jobRepository = jobRepository;
+        this.importHistoryRepository = importHistoryRepository;
+        this.archivoRepository = archivoRepository;
+        this.excelImportService = excelImportService;
+        this.duplicateDetectionService = duplicateDetectionService;
+        this.movimientoBatchService = movimientoBatchService;
+        this.executor = executor;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.directorio = Paths.get(directorio);
+        this.minutosSinAvance = minutosSinAvance;
+    }
+
+    /**
+     * Guarda el archivo y encola su importación. Devuelve el job en estado PENDIENTE;
+     * el avance se consulta con obtener(jobId, ...).
+     */
+    public ExcelImportJobDTO iniciar(MultipartFile file, String tipoOrigen, String usuarioSub) {
+        String tipo = tipoOrigen != null ? tipoOrigen.toLowerCase(Locale.ROOT) : "";
+        if (!TIPOS_SOPORTADOS.contains(tipo)) {
+            throw new IllegalArgumentException("Tipo de origen no soportado: " + tipoOrigen);
+        }
+        Long organizacionId = excelImportService.obtenerOrganizacionIdUsuario(usuarioSub);
+
+        ExcelImportJob nuevo = new ExcelImportJob();
+        nuevo.setUsuarioSub(usuarioSub);
+        nuevo.setOrganizacionId(organizacionId);
+        nuevo.setTipoOrigen(tipo);
+        nuevo.setFileName(file.getOriginalFilename());
+        // El job y su archivo se confirman juntos: no queda un job sin archivo para retomar
+        ExcelImportJob job = transaccion.execute(status -> {
+            ExcelImportJob guardado = jobRepository.save(nuevo);
+            guardarArchivo(guardado.getId(), file);
+            return guardado;
+        });
+
+        try {
+            enviar(job.getId());
+        } catch (TaskRejectedException e) {
+            transaccion.executeWithoutResult(status -> {
+                archivoRepository.eliminar(job.getId());
+                jobRepository.delete(job);
+            });
+            throw new RuntimeException("Hay demasiadas importaciones en curso, intente más tarde");
+        }
+        return aDTO(job);
+    }
+
+    /**
+     * Obtiene el estado de un job, solo si pertenece a la organización del usuario
+     */
+    public ExcelImportJobDTO obtener(Long jobId, String usuarioSub) {
+        Long organizacionId = excelImportService.obtenerOrganizacionIdUsuario(usuarioSub);
+        return jobRepository.findById(jobId)
+                .filter(job -> job.getOrganizacionId().equals(organizacionId))
+                .map(this::aDTO)
+                .orElse(null);
+    }
+
+    /**
+     * Reencola los jobs pendientes o en proceso que no avanzan hace más de
+     * registro.importacion.reanudar-sin-avance-minutos (servicio reiniciado, cola rechazada, etc.)
+     */
+    public void reanudarInterrumpidos() {
+        LocalDateTime limite = LocalDateTime.now().minusMinutes(minutosSinAvance);
+        List<ExcelImportJob> interrumpidos = jobRepository.findByEstadoInAndFechaActualizacionBefore(
+                List.of(ExcelImportJob.Estado.PENDIENTE, ExcelImportJob.Estado.EN_PROCESO), limite);
+
+        for (ExcelImportJob job : interrumpidos) {
+            if (enCurso.containsKey(job.getId())) continue;
+            try {
+                enviar(job.getId());
+                log.info("Reanudando importación {} desde la fila {}", job.getId(), job.getUltimaFilaConfirmada());
+            } catch (TaskRejectedException e) {
+                log.warn("Cola de importaciones llena, se reintentará la reanudación más tarde");
+                return;
+            }
+        }
+    }
+
+    private void enviar(Long jobId) {
+        enCurso.put(jobId, new Progreso());
+        try {
+            executor.execute(() -> ejecutar(jobId));
+        } catch (TaskRejectedException e) {
+            enCurso.remove(jobId);
+            throw e;
+        }
+    }
+
+    private void ejecutar(Long jobId) {
+        Progreso progreso = enCurso.get(jobId);
+        Path local = null;
+        try {
+            ExcelImportJob job = tomar(jobId);
+            if (job == null) return;
+            progreso.iniciar(job);
+
+            local = copiaLocal(jobId);
+            if (local == null) {
+                finalizar(progreso, "No se encontró el archivo de la importación");
+                return;
+            }
+
+            excelImportService.procesarArchivo(new FileSystemResource(local), job.getTipoOrigen(),
+                    job.getUsuarioSub(), job.getOrganizacionId(), progreso.errores,
+                    seguimiento(progreso));
+
+            if (progreso.reasignado) {
+                log.warn("La importación {} fue retomada por otra instancia, se abandona", jobId);
+                return;
+            }
+            // Un tramo que no se pudo guardar detiene el job: las filas siguientes no se leyeron
+            finalizar(progreso, progreso.errorTramo);
+        } catch (Exception e) {
+            log.error("Error en importación {}: {}", jobId, e.getMessage(), e);
+            if (progreso.job != null && !progreso.reasignado) {
+                try {
+                    finalizar(progreso, e.getMessage());
+                } catch (Exception ex) {
+                    log.error("No se pudo registrar el fin de la importación {}: {}", jobId, ex.getMessage());
+                }
+            }
+        } finally {
+            enCurso.remove(jobId);
+            borrarCopiaLocal(jobId, local);
+        }
+    }
+
+    /**
+     * Marca el job EN_PROCESO si sigue disponible. La versión del registro evita que dos
+     * instancias lo tomen a la vez.
+     */
+    private ExcelImportJob tomar(Long jobId) {
+        ExcelImportJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) return null;
+
+        boolean disponible = job.getEstado() == ExcelImportJob.Estado.PENDIENTE
+                || (job.getEstado() == ExcelImportJob.Estado.EN_PROCESO
+                    && job.getFechaActualizacion().isBefore(LocalDateTime.now().minusMinutes(minutosSinAvance)));
+        if (!disponible) return null;
+
+        job.setEstado(ExcelImportJob.Estado.EN_PROCESO);
+        job.setFechaActualizacion(LocalDateTime.now());
+        try {
+            return jobRepository.save(job);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return null;
+        }
+    }
+
+    private SeguimientoImportacion seguimiento(Progreso progreso) {
+        return new SeguimientoImportacion() {
+            @Override
+            public int ultimaFilaConfirmada() {
+                return progreso.ultimaFilaConfirmada;
+            }
+
+            @Override
+            public void filaLeida(int filaExcel) {
+                progreso.filasLeidas.incrementAndGet();
+            }
+
+            @Override
+            public void filaDuplicada(int filaExcel, String motivo) {
+                progreso.registrarDuplicada(new FilaConErrorDTO(filaExcel, motivo));
+            }
+
+            @Override
+            public MovimientoBatchRepository.ResultadoLote guardarTramo(List<Movimiento> movimientos, int ultimaFilaLeida,
+                                                                        boolean registrarEventos) {
+                if (progreso.reasignado) {
+                    throw new IllegalStateException("La importación fue retomada por otra instancia");
+                }
+                try {
+                    return confirmarTramo(progreso, movimientos, ultimaFilaLeida, registrarEventos);
+                } catch (ObjectOptimisticLockingFailureException e) {
+                    progreso.reasignado = true;
+                    throw e;
+                } catch (RuntimeException e) {
+                    progreso.errorTramo = "No se pudo guardar el tramo hasta la fila " + ultimaFilaLeida
+                            + ": " + e.getMessage();
+                    throw e;
+                }
+            }
+        };
+    }
+
+    /**
+     * Guarda los movimientos no duplicados del tramo (y sus eventos) y el avance del job en una sola transacción.
+     * Las posiciones de error se devuelven referidas a la lista recibida.
+     */
+    private MovimientoBatchRepository.ResultadoLote confirmarTramo(Progreso progreso, List<Movimiento> movimientos,
+                                                                  int ultimaFilaLeida, boolean registrarEventos) {
+        ExcelImportJob job = progreso.job;
+        int[] duplicadosTramo = new int[1];
+
+        MovimientoBatchRepository.ResultadoLote resultado = transaccion.execute(status -> {
+            Map<Integer, Integer> duplicados = duplicateDetectionService.detectarDuplicados(movimientos, job.getOrganizacionId());
+            List<Movimiento> nuevos = new ArrayList<>();
+            List<Integer> posiciones = new ArrayList<>();
+            for (int i = 0; i < movimientos.size(); i++) {
+                if (!duplicados.containsKey(i)) {
+                    nuevos.add(movimientos.get(i));
+                    posiciones.add(i);
+                }
+            }
+            duplicadosTramo[0] = duplicados.size();
+
+            MovimientoBatchRepository.ResultadoLote lote = movimientoBatchService.guardar(nuevos, null, registrarEventos);
+            Map<Integer, String> errores = new LinkedHashMap<>();
+            lote.errores().forEach((posicion, mensaje) -> errores.put(posiciones.get(posicion), mensaje));
+
+            job.setUltimaFilaConfirmada(ultimaFilaLeida);
+            job.setFilasLeidas(progreso.filasLeidas.get());
+            job.setFilasGuardadas(progreso.filasGuardadas.get() + lote.guardados().size());
+            job.setDuplicados(progreso.duplicados.get() + duplicados.size());
+            job.setErrores(progreso.cantidadErrores() + errores.size());
+            job.setFechaActualizacion(LocalDateTime.now());
+            progreso.job = jobRepository.save(job);
+
+            return new MovimientoBatchRepository.ResultadoLote(lote.guardados(), errores, duplicados);
+        });
+
+        progreso.ultimaFilaConfirmada = ultimaFilaLeida;
+        progreso.filasGuardadas.addAndGet(resultado.guardados().size());
+        progreso.duplicados.addAndGet(duplicadosTramo[0]);
+        return resultado;
+    }
+
+    private void finalizar(Progreso progreso, String errorGeneral) {
+        ExcelImportJob job = progreso.job;
+        int errores = progreso.cantidadErrores();
+        int guardadas = progreso.filasGuardadas.get();
+        int duplicados = progreso.duplicados.get();
+
+        String estado;
+        if (errorGeneral != null) {
+            estado = "ERROR";
+        } else if (errores == 0) {
+            estado = "COMPLETADO";
+        } else {
+            estado = guardadas > 0 ? "PARCIAL" : "ERROR";
+        }
+        String observaciones = errorGeneral != null
+                ? "Error general: " + errorGeneral
+                : String.format("%d duplicados omitidos, %d filas con error", duplicados, errores);
+        if (observaciones.length() > 255) {
+            observaciones = observaciones.substring(0, 255);
+        }
+        String observacionesHistorial = observaciones;
+
+        transaccion.executeWithoutResult(status -> {
+            ExcelImportHistory history = new ExcelImportHistory();
+            history.setFileName(job.getFileName());
+            history.setTipoOrigen(job.getTipoOrigen());
+            history.setTotalRegistros(progreso.filasLeidas.get());
+            history.setRegistrosProcesados(progreso.filasLeidas.get());
+            history.setRegistrosGuardados(guardadas);
+            history.setUsuario(parseUsuarioUuid(job.getUsuarioSub()));
+            history.setEstado(estado);
+            history.setObservaciones(observacionesHistorial);
+            history = importHistoryRepository.save(history);
+
+            job.setEstado(ExcelImportJob.Estado.valueOf(estado));
+            job.setFilasLeidas(progreso.filasLeidas.get());
+            job.setFilasGuardadas(guardadas);
+            job.setDuplicados(duplicados);
+            job.setErrores(errores);
+            job.setObservaciones(observacionesHistorial);
+            job.setHistorialId(history.getId());
+            job.setFechaFin(LocalDateTime.now());
+            job.setFechaActualizacion(job.getFechaFin());
+            progreso.job = jobRepository.save(job);
+            archivoRepository.eliminar(job.getId());
+        });
+
+        log.info("Importación {} finalizada ({}): {} filas leídas, {} guardadas, {} duplicadas, {} con error",
+                job.getId(), estado, progreso.filasLeidas.get(), guardadas, duplicados, errores);
+    }
+
+    private ExcelImportJobDTO aDTO(ExcelImportJob job) {
+        ExcelImportJobDTO dto = new ExcelImportJobDTO();
+        dto.setJobId(job.getId());
+        dto.setEstado(job.getEstado());
+        dto.setFileName(job.getFileName());
+        dto.setTipoOrigen(job.getTipoOrigen());
+        dto.setObservaciones(job.getObservaciones());
+        dto.setHistorialId(job.getHistorialId());
+        dto.setFechaCreacion(job.getFechaCreacion());
+        dto.setFechaFin(job.getFechaFin());
+
+        Progreso progreso = enCurso.get(job.getId());
+        if (progreso != null && progreso.job != null) {
+            dto.setFilasLeidas(progreso.filasLeidas.get());
+            dto.setFilasGuardadas(progreso.filasGuardadas.get());
+            dto.setDuplicados(progreso.duplicados.get());
+            dto.setCantidadErrores(progreso.cantidadErrores());
+            dto.setErrores(progreso.ultimosErrores());
+            dto.setFilasDuplicadas(progreso.ultimasDuplicadas());
+        } else {
+            dto.setFilasLeidas(job.getFilasLeidas());
+            dto.setFilasGuardadas(job.getFilasGuardadas());
+            dto.setDuplicados(job.getDuplicados());
+            dto.setCantidadErrores(job.getErrores());
+            dto.setErrores(List.of());
+            dto.setFilasDuplicadas(List.of());
+        }
+        return dto;
+    }
+
+    private void guardarArchivo(Long jobId, MultipartFile file) {
+        try (InputStream contenido = file.getInputStream()) {
+            archivoRepository.guardar(jobId, contenido, file.getSize());
+        } catch (IOException e) {
+            throw new RuntimeException("No se pudo guardar el archivo para importar: " + e.getMessage(), e);
+        }
+    }
+
+    // null si el job ya no tiene archivo
+    private Path copiaLocal(Long jobId) throws IOException {
+        Files.createDirectories(directorio);
+        Path destino = directorio.resolve("job-" + jobId + "-" + UUID.randomUUID());
+        if (archivoRepository.copiarA(jobId, destino)) {
+            return destino;
+        }
+        Files.deleteIfExists(destino);
+        return null;
+    }
+
+    private void borrarCopiaLocal(Long jobId, Path local) {
+        if (local == null) return;
+        try {
+            Files.deleteIfExists(local);
+        } catch (IOException e) {
+            log.warn("No se pudo borrar la copia local de la importación {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    private UUID parseUsuarioUuid(String usuarioSub) {
+        try {
+            return usuarioSub != null ? UUID.fromString(usuarioSub) : null;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Avance en memoria de un job que corre en esta instancia. Parte de los contadores confirmados
+     * y suma las filas del tramo en curso.
+     */
+    private static class Progreso {
+        volatile ExcelImportJob job;
+        volatile int ultimaFilaConfirmada;
+        volatile boolean reasignado;
+        // Motivo por el que falló el guardado de un tramo; el job termina con error
+        volatile String errorTramo;
+        final AtomicInteger filasLeidas = new AtomicInteger();
+        final AtomicInteger filasGuardadas = new AtomicInteger();
+        final AtomicInteger duplicados = new AtomicInteger();
+        // Errores confirmados antes de un reinicio (sus mensajes no se conservan)
+        volatile int erroresPrevios;
+        final List<FilaConErrorDTO> errores = Collections.synchronizedList(new ArrayList<>());
+        // Últimas filas omitidas por duplicadas, con el motivo (no cuentan como errores)
+        private final Deque<FilaConErrorDTO> duplicadas = new ArrayDeque<>();
+
+        void iniciar(ExcelImportJob job) {
+            this.ultimaFilaConfirmada = job.getUltimaFilaConfirmada();
+            this.filasLeidas.set(job.getFilasLeidas());
+            this.filasGuardadas.set(job.getFilasGuardadas());
+            this.duplicados.set(job.getDuplicados());
+            this.erroresPrevios = job.getErrores();
+            this.job = job;
+        }
+
+        int cantidadErrores() {
+            return erroresPrevios + errores.size();
+        }
+
+        synchronized void registrarDuplicada(FilaConErrorDTO fila) {
+            if (duplicadas.size() == MAX_ERRORES_VISIBLES) {
+                duplicadas.removeFirst();
+            }
+            duplicadas.addLast(fila);
+        }
+
+        synchronized List<FilaConErrorDTO> ultimasDuplicadas() {
+            return new ArrayList<>(duplicadas);
+        }
+
+        List<FilaConErrorDTO> ultimosErrores() {
+            synchronized (errores) {
+                int desde = Math.max(0, errores.size() - MAX_ERRORES_VISIBLES);
+                return new ArrayList<>(errores.subList(desde, errores.size()));
+            }
+        }
+    }
+}
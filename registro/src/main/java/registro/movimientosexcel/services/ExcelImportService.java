@@ -1,7 +1,7 @@
 package registro.movimientosexcel.services;
 
-import org.apache.poi.ss.usermodel.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import registro.movimientosexcel.dtos.*;
@@ -9,16 +9,17 @@ import registro.cargarDatos.models.Movimiento;
 import registro.cargarDatos.models.TipoMedioPago;
 import registro.cargarDatos.models.TipoMoneda;
 import registro.cargarDatos.models.TipoMovimiento;
+import registro.cargarDatos.repositories.MovimientoBatchRepository;
 import registro.cargarDatos.repositories.MovimientoRepository;
 import registro.movimientosexcel.models.ExcelImportHistory;
 import registro.movimientosexcel.repositories.ExcelImportHistoryRepository;
 import registro.services.AdministracionService;
 
-import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class ExcelImportService {
@@ -26,9 +27,6 @@ public class ExcelImportService {
     @Autowired
     private MovimientoRepository movimientoRepo;
 
-    @Autowired
-    private NotificationsEventPublisher notifications;
-    
     @Autowired
     private ExcelImportHistoryRepository importHistoryRepository;
     
@@ -41,15 +39,36 @@ public class ExcelImportService {
     @Autowired
     private AdministracionService administracionService;
 
+    @Autowired
+    private MovimientoBatchService movimientoBatchService;
+
+    @Autowired
+    private ExcelRowReader excelRowReader;
+
     public ResumenCargaDTO procesarArchivo(MultipartFile file, String tipoOrigen, String usuarioSub) {
         Long organizacionId = obtenerOrganizacionId(usuarioSub);
+        return procesarArchivo(file, tipoOrigen, usuarioSub, organizacionId, new ArrayList<>(), guardadoDirecto());
+    }
+
+    /**
+     * Procesa el archivo informando el avance al seguimiento, que decide cómo se guarda cada tramo
+     * (lo usan los jobs asíncronos para confirmar el progreso y reanudar). Los errores por fila
+     * se acumulan en la lista recibida.
+     */
+    public ResumenCargaDTO procesarArchivo(InputStreamSource file, String tipoOrigen, String usuarioSub,
+                                           Long organizacionId, List<FilaConErrorDTO> errores,
+                                           SeguimientoImportacion seguimiento) {
         switch (tipoOrigen.toLowerCase()) {
-            case "mycfo": return procesarGenerico(file, usuarioSub, organizacionId);
-            case "mercado-pago": return procesarMercadoPago(file, usuarioSub, organizacionId);
+            case "mycfo": return procesarGenerico(file, usuarioSub, organizacionId, errores, seguimiento);
+            case "mercado-pago": return procesarMercadoPago(file, usuarioSub, organizacionId, errores, seguimiento);
             case "santander": return procesarSantander(file, usuarioSub, organizacionId);
             default: throw new IllegalArgumentException("Tipo de origen no soportado: " + tipoOrigen);
         }
     }
+
+    public Long obtenerOrganizacionIdUsuario(String usuarioSub) {
+        return obtenerOrganizacionId(usuarioSub);
+    }
     
     public PreviewDataDTO procesarArchivoParaPreview(MultipartFile file, String tipoOrigen, String usuarioSub) {
         Long organizacionId = obtenerOrganizacionId(usuarioSub);
@@ -76,6 +95,8 @@ public class ExcelImportService {
         history.setUsuario(usuarioUuid);
         
         try {
+            List<Movimiento> pendientes = new ArrayList<>();
+            List<Integer> filasPendientes = new ArrayList<>();
             for (RegistroPreviewDTO preview : registrosSeleccionados) {
                 try {
                     Movimiento movimiento = convertirPreviewAMovimiento(preview);
@@ -84,14 +105,15 @@ public class ExcelImportService {
                     // Normalizar monto según tipo
                     normalizarMontoMovimiento(movimiento);
                     
-                    movimientoRepo.save(movimiento);
-                    totalGuardados++;
-                    notifications.publishMovement(movimiento, 1L);
+                    pendientes.add(movimiento);
+                    filasPendientes.add(preview.getFilaExcel());
                     
                 } catch (Exception e) {
                     errores.add(new FilaConErrorDTO(preview.getFilaExcel(), e.getMessage()));
                 }
             }
+
+            totalGuardados = guardarEnLotes(pendientes, filasPendientes, errores, true, guardadoDirecto(), 0);
             
             history.setRegistrosProcesados(registrosSeleccionados.size());
             history.setRegistrosGuardados(totalGuardados);
@@ -116,56 +138,33 @@ public class ExcelImportService {
     }
 
     /** Carga genérica de registros desde MyCFO */
-    private ResumenCargaDTO procesarGenerico(MultipartFile file, String usuarioSub, Long organizacionId) {
-        int total = 0;
-        int correctos = 0;
-        List<FilaConErrorDTO> errores = new ArrayList<>();
-
-        try (InputStream is = file.getInputStream(); Workbook workbook = WorkbookFactory.create(is)) {
-            Sheet hoja = workbook.getSheetAt(0);
+    private ResumenCargaDTO procesarGenerico(InputStreamSource file, String usuarioSub, Long organizacionId,
+                                             List<FilaConErrorDTO> errores, SeguimientoImportacion seguimiento) {
+        AtomicInteger total = new AtomicInteger();
+        AtomicInteger correctos = new AtomicInteger();
+        AtomicInteger ultimaFila = new AtomicInteger(seguimiento.ultimaFilaConfirmada());
+        List<Movimiento> pendientes = new ArrayList<>();
+        List<Integer> filasPendientes = new ArrayList<>();
 
-            for (int i = 1; i <= hoja.getLastRowNum(); i++) {
-                Row fila = hoja.getRow(i);
-                total++;
+        try {
+            excelRowReader.leerPrimeraHoja(file, (i, celdas) -> {
+                if (i < 1) return;
+                // Filas ya guardadas en un intento anterior del mismo job
+                if (i + 1 <= seguimiento.ultimaFilaConfirmada()) return;
+                ultimaFila.set(i + 1);
+                total.incrementAndGet();
+                seguimiento.filaLeida(i + 1);
 
                 try {
-                    Cell fecha = fila.getCell(1);
-                    Cell descripcion = fila.getCell(2);
-                    Cell monto = fila.getCell(3);
-                    Cell medioPago = fila.getCell(4);
-
-                    if (fecha == null || descripcion == null || monto == null || medioPago == null) {
-                        throw new RuntimeException("Faltan datos");
-                    }
-
-                    LocalDate fechaLocal;
-                    if (fecha.getCellType() == CellType.STRING) {
-                        fechaLocal = LocalDate.parse(fecha.getStringCellValue(), DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                    } else if (fecha.getCellType() == CellType.NUMERIC && DateUtil.isCellDateFormatted(fecha)) {
-                        fechaLocal = fecha.getLocalDateTimeCellValue().toLocalDate();
-                    } else {
-                        throw new RuntimeException("Formato de fecha inválido en fila " + (i + 1));
-                    }
-
-                    String descripcionStr = descripcion.getCellType() == CellType.STRING
-                            ? descripcion.getStringCellValue()
-                            : String.valueOf(descripcion.getNumericCellValue());
-
-                    Double montoValor = monto.getCellType() == CellType.NUMERIC
-                            ? monto.getNumericCellValue()
-                            : Double.parseDouble(monto.getStringCellValue());
-
-                    String medioPagoStr = medioPago.getCellType() == CellType.STRING
-                            ? medioPago.getStringCellValue()
-                            : String.valueOf(medioPago.getNumericCellValue());
+                    FilaGenerica datos = parseFilaGenerica(celdas, i + 1);
 
                     Movimiento reg = new Movimiento();
-                    reg.setTipo(determinarTipoMovimiento(montoValor));
-                    reg.setMontoTotal(montoValor);
+                    reg.setTipo(determinarTipoMovimiento(datos.monto()));
+                    reg.setMontoTotal(datos.monto());
                     // Fecha de Excel solo tiene día: usar inicio de día como hora por defecto
-                    reg.setFechaEmision(fechaLocal.atStartOfDay());
-                    reg.setDescripcion(descripcionStr);
-                    reg.setMedioPago(parseMedioPago(medioPagoStr));
+                    reg.setFechaEmision(datos.fecha().atStartOfDay());
+                    reg.setDescripcion(datos.descripcion());
+                    reg.setMedioPago(parseMedioPago(datos.medioPago()));
                     reg.setMoneda(TipoMoneda.ARS);
                     reg.setOrigenNombre("MYCFO");
                     enriquecerConContexto(reg, usuarioSub, organizacionId);
@@ -173,71 +172,69 @@ public class ExcelImportService {
                     // Normalizar monto según tipo
                     normalizarMontoMovimiento(reg);
 
-                    movimientoRepo.save(reg);
-                    correctos++;
+                    pendientes.add(reg);
+                    filasPendientes.add(i + 1);
 
                 } catch (Exception e) {
                     errores.add(new FilaConErrorDTO(i + 1, e.getMessage()));
                 }
-            }
 
+                // Archivos grandes: guardar por tramos para no retener todas las filas en memoria
+                if (pendientes.size() >= MAX_PENDIENTES) {
+                    correctos.addAndGet(guardarEnLotes(pendientes, filasPendientes, errores, false,
+                            seguimiento, ultimaFila.get()));
+                }
+            });
+
+        } catch (TramoNoGuardadoException e) {
+            errores.add(new FilaConErrorDTO(e.primeraFila, e.getMessage()));
+            return new ResumenCargaDTO(total.get(), correctos.get(), errores);
         } catch (Exception e) {
             errores.add(new FilaConErrorDTO(0, "Error al leer el archivo: " + e.getMessage()));
         }
 
-        return new ResumenCargaDTO(total, correctos, errores);
+        correctos.addAndGet(guardarEnLotes(pendientes, filasPendientes, errores, false,
+                seguimiento, ultimaFila.get()));
+        return new ResumenCargaDTO(total.get(), correctos.get(), errores);
     }
 
     private static final int HEADER_ROW_INDEX = 3;
 
-    /** Carga de registros desde un archivo de Mercado Pago (sin id de referencia) */
-    private ResumenCargaDTO procesarMercadoPago(MultipartFile file, String usuarioSub, Long organizacionId) {
-        int total = 0;
-        int correctos = 0;
-        List<FilaConErrorDTO> errores = new ArrayList<>();
-
-        try (InputStream is = file.getInputStream(); Workbook workbook = WorkbookFactory.create(is)) {
-            Sheet hoja = workbook.getSheetAt(0);
-            DataFormatter fmt = new DataFormatter();
-
-            Row header = hoja.getRow(HEADER_ROW_INDEX);
-            if (header == null) {
-                errores.add(new FilaConErrorDTO(0, "No existe la fila de encabezados en el índice " + HEADER_ROW_INDEX));
-                return new ResumenCargaDTO(total, correctos, errores);
-            }
-
-            Map<String, Integer> idx = new HashMap<>();
-            for (int c = 0; c < header.getLastCellNum(); c++) {
-                String v = fmt.formatCellValue(header.getCell(c)).trim().toUpperCase(Locale.ROOT);
-                if (v.equals("RELEASE_DATE")) idx.put("FECHA", c);
-                else if (v.equals("TRANSACTION_TYPE")) idx.put("TIPO", c);
-                else if (v.equals("TRANSACTION_NET_AMOUNT")) idx.put("MONTO", c);
-            }
+    // Filas validadas que se acumulan antes de guardarlas (acota la memoria en archivos grandes)
+    private static final int MAX_PENDIENTES = 5000;
 
-            if (idx.size() < 3) {
-                errores.add(new FilaConErrorDTO(0,
-                        "Faltan columnas esperadas (RELEASE_DATE, TRANSACTION_TYPE, TRANSACTION_NET_AMOUNT)."));
-                return new ResumenCargaDTO(total, correctos, errores);
-            }
+    /** Carga de registros desde un archivo de Mercado Pago (sin id de referencia) */
+    private ResumenCargaDTO procesarMercadoPago(InputStreamSource file, String usuarioSub, Long organizacionId,
+                                                List<FilaConErrorDTO> errores, SeguimientoImportacion seguimiento) {
+        AtomicInteger total = new AtomicInteger();
+        AtomicInteger correctos = new AtomicInteger();
+        AtomicInteger ultimaFila = new AtomicInteger(seguimiento.ultimaFilaConfirmada());
+        List<Movimiento> pendientes = new ArrayList<>();
+        List<Integer> filasPendientes = new ArrayList<>();
+        Map<String, Integer> idx = new HashMap<>();
 
-            for (int i = HEADER_ROW_INDEX + 1; i <= hoja.getLastRowNum(); i++) {
-                Row fila = hoja.getRow(i);
-                if (fila == null) continue;
+        try {
+            excelRowReader.leerPrimeraHoja(file, (i, celdas) -> {
+                if (!leerEncabezadoMercadoPago(i, celdas, idx)) return;
+                // Filas ya guardadas en un intento anterior del mismo job
+                if (i + 1 <= seguimiento.ultimaFilaConfirmada()) return;
+                ultimaFila.set(i + 1);
 
                 try {
-                    String rawFecha = fmt.formatCellValue(fila.getCell(idx.get("FECHA"))).trim();
-                    String rawTipo  = fmt.formatCellValue(fila.getCell(idx.get("TIPO"))).trim();
-                    String rawMonto = fmt.formatCellValue(fila.getCell(idx.get("MONTO"))).trim();
+                    String rawFecha = texto(celdas.get(idx.get("FECHA")));
+                    String rawTipo  = texto(celdas.get(idx.get("TIPO")));
+                    String rawMonto = texto(celdas.get(idx.get("MONTO")));
 
-                    if (rawFecha.isEmpty() && rawTipo.isEmpty() && rawMonto.isEmpty()) continue;
+                    if (rawFecha.isEmpty() && rawTipo.isEmpty() && rawMonto.isEmpty()) return;
 
-                    total++;
+                    total.incrementAndGet();
+                    seguimiento.filaLeida(i + 1);
 
                     if (rawFecha.isEmpty() || rawMonto.isEmpty()) {
                         throw new RuntimeException("Faltan datos obligatorios (RELEASE_DATE o TRANSACTION_NET_AMOUNT).");
                     }
 
-                    LocalDate fechaLocal = parseFechaMercadoPago(fila.getCell(idx.get("FECHA")));
+                    LocalDate fechaLocal = parseFechaMercadoPago(celdas.get(idx.get("FECHA")));
                     Double montoValor = parseMontoEsAr(rawMonto);
 
                     Movimiento mov = new Movimiento();
@@ -254,28 +251,42 @@ public class ExcelImportService {
                     // Normalizar monto según tipo
                     normalizarMontoMovimiento(mov);
 
-                    movimientoRepo.save(mov);
-                    correctos++;
-                    notifications.publishMovement(mov, 1L);
+                    pendientes.add(mov);
+                    filasPendientes.add(i + 1);
 
                 } catch (Exception ex) {
                     errores.add(new FilaConErrorDTO(i + 1, ex.getMessage()));
                 }
-            }
 
+                // Archivos grandes: guardar por tramos para no retener todas las filas en memoria
+                if (pendientes.size() >= MAX_PENDIENTES) {
+                    correctos.addAndGet(guardarEnLotes(pendientes, filasPendientes, errores, true,
+                            seguimiento, ultimaFila.get()));
+                }
+            });
+            validarEncabezadoLeido(idx);
+
+        } catch (EncabezadoInvalidoException e) {
+            errores.add(new FilaConErrorDTO(0, e.getMessage()));
+            return new ResumenCargaDTO(total.get(), correctos.get(), errores);
+        } catch (TramoNoGuardadoException e) {
+            errores.add(new FilaConErrorDTO(e.primeraFila, e.getMessage()));
+            return new ResumenCargaDTO(total.get(), correctos.get(), errores);
         } catch (Exception e) {
             errores.add(new FilaConErrorDTO(0, "Error al leer el archivo: " + e.getMessage()));
         }
 
-        return new ResumenCargaDTO(total, correctos, errores);
+        correctos.addAndGet(guardarEnLotes(pendientes, filasPendientes, errores, true,
+                seguimiento, ultimaFila.get()));
+        return new ResumenCargaDTO(total.get(), correctos.get(), errores);
     }
 
-    private LocalDate parseFechaMercadoPago(Cell cFecha) {
+    private LocalDate parseFechaMercadoPago(ExcelRowReader.Celda cFecha) {
         if (cFecha == null) throw new RuntimeException("Fecha vacía.");
-        if (cFecha.getCellType() == CellType.NUMERIC && DateUtil.isCellDateFormatted(cFecha)) {
-            return cFecha.getLocalDateTimeCellValue().toLocalDate();
+        if (cFecha.fecha() != null) {
+            return cFecha.fecha().toLocalDate();
         }
-        String raw = new DataFormatter().formatCellValue(cFecha).trim();
+        String raw = cFecha.texto().trim();
         DateTimeFormatter f1 = DateTimeFormatter.ofPattern("dd-MM-uuuu");
         DateTimeFormatter f2 = DateTimeFormatter.ofPattern("uuuu-MM-dd");
         try { return LocalDate.parse(raw, f1); } catch (Exception ignore) {}
@@ -283,6 +294,98 @@ public class ExcelImportService {
         throw new RuntimeException("Formato de fecha inválido: " + raw);
     }
 
+    /**
+     * Columnas de la plantilla genérica: 1 fecha, 2 descripción, 3 monto, 4 medio de pago
+     */
+    private record FilaGenerica(LocalDate fecha, String descripcion, Double monto, String medioPago) {}
+
+    private FilaGenerica parseFilaGenerica(Map<Integer, ExcelRowReader.Celda> celdas, int filaExcel) {
+        ExcelRowReader.Celda fecha = celdas.get(1);
+        ExcelRowReader.Celda descripcion = celdas.get(2);
+        ExcelRowReader.Celda monto = celdas.get(3);
+        ExcelRowReader.Celda medioPago = celdas.get(4);
+
+        if (fecha == null || descripcion == null || monto == null || medioPago == null) {
+            throw new RuntimeException("Faltan datos");
+        }
+
+        LocalDate fechaLocal;
+        if (fecha.esTexto()) {
+            fechaLocal = LocalDate.parse(fecha.texto(), DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        } else if (fecha.fecha() != null) {
+            fechaLocal = fecha.fecha().toLocalDate();
+        } else {
+            throw new RuntimeException("Formato de fecha inválido en fila " + filaExcel);
+        }
+
+        Double montoValor = monto.numero() != null
+                ? monto.numero()
+                : Double.parseDouble(monto.texto());
+
+        return new FilaGenerica(fechaLocal, textoOValorNumerico(descripcion), montoValor, textoOValorNumerico(medioPago));
+    }
+
+    // Mismo criterio que con el workbook completo: texto tal cual, número como String.valueOf(double)
+    private String textoOValorNumerico(ExcelRowReader.Celda celda) {
+        if (celda.esTexto()) return celda.texto();
+        if (celda.numero() != null) return String.valueOf(celda.numero());
+        throw new RuntimeException("Valor inválido: " + celda.texto());
+    }
+
+    private String texto(ExcelRowReader.Celda celda) {
+        return celda != null ? celda.texto().trim() : "";
+    }
+
+    /**
+     * Ubica las columnas en la fila de encabezados (HEADER_ROW_INDEX) del reporte de Mercado Pago.
+     * Devuelve true si la fila es de datos (posterior a un encabezado válido).
+     */
+    private boolean leerEncabezadoMercadoPago(int indiceFila, Map<Integer, ExcelRowReader.Celda> celdas,
+                                              Map<String, Integer> idx) {
+        if (indiceFila < HEADER_ROW_INDEX) return false;
+        if (!idx.isEmpty()) return true;
+        if (indiceFila > HEADER_ROW_INDEX) {
+            throw new EncabezadoInvalidoException("No existe la fila de encabezados en el índice " + HEADER_ROW_INDEX);
+        }
+
+        celdas.forEach((c, celda) -> {
+            String v = celda.texto().trim().toUpperCase(Locale.ROOT);
+            if (v.equals("RELEASE_DATE")) idx.put("FECHA", c);
+            else if (v.equals("TRANSACTION_TYPE")) idx.put("TIPO", c);
+            else if (v.equals("TRANSACTION_NET_AMOUNT")) idx.put("MONTO", c);
+        });
+
+        validarEncabezadoLeido(idx);
+        return false;
+    }
+
+    private void validarEncabezadoLeido(Map<String, Integer> idx) {
+        if (idx.isEmpty()) {
+            throw new EncabezadoInvalidoException("No existe la fila de encabezados en el índice " + HEADER_ROW_INDEX);
+        }
+        if (idx.size() < 3) {
+            throw new EncabezadoInvalidoException(
+                    "Faltan columnas esperadas (RELEASE_DATE, TRANSACTION_TYPE, TRANSACTION_NET_AMOUNT).");
+        }
+    }
+
+    private static class EncabezadoInvalidoException extends RuntimeException {
+        EncabezadoInvalidoException(String mensaje) {
+            super(mensaje);
+        }
+    }
+
+    /** Falló el guardado de un tramo: la importación se detiene en su primera fila */
+    private static class TramoNoGuardadoException extends RuntimeException {
+        private final int primeraFila;
+
+        TramoNoGuardadoException(int primeraFila, Exception causa) {
+            super("Error al guardar los movimientos desde la fila " + primeraFila + ": " + causa.getMessage()
+                    + ". La importación se detuvo; las filas anteriores quedaron guardadas", causa);
+            this.primeraFila = primeraFila;
+        }
+    }
+
     private Double parseMontoEsAr(String raw) {
         if (raw == null) throw new RuntimeException("Monto vacío.");
         String s = raw.replace(".", "").replace(",", ".").replace("$", "").replaceAll("\\s+", "");
@@ -325,7 +428,41 @@ public class ExcelImportService {
         movimiento.setFechaActualizacion(LocalDateTime.now());
     }
 
-    private ResumenCargaDTO procesarSantander(MultipartFile file, String usuarioSub, Long organizacionId) {
+    /**
+     * Inserta en lotes los movimientos ya validados y agrega a errores las filas que no se pudieron
+     * guardar (filas[i] es la fila de Excel de pendientes[i]); las omitidas por duplicadas se
+     * informan al seguimiento. Con publicarEventos los eventos de los guardados se encolan en el
+     * outbox junto con el tramo. Vacía ambas listas y devuelve la cantidad guardada.
+     */
+    private int guardarEnLotes(List<Movimiento> pendientes, List<Integer> filas, List<FilaConErrorDTO> errores,
+                               boolean publicarEventos, SeguimientoImportacion seguimiento, int ultimaFilaLeida) {
+        MovimientoBatchRepository.ResultadoLote resultado;
+        try {
+            resultado = seguimiento.guardarTramo(new ArrayList<>(pendientes), ultimaFilaLeida, publicarEventos);
+        } catch (Exception e) {
+            // No se sigue leyendo: el próximo tramo confirmado dejaría estas filas atrás del
+            // avance y un job reanudado ya no las volvería a procesar
+            throw new TramoNoGuardadoException(filas.isEmpty() ? 0 : filas.get(0), e);
+        }
+
+        resultado.errores().forEach((posicion, mensaje) ->
+                errores.add(new FilaConErrorDTO(filas.get(posicion), mensaje)));
+        resultado.duplicados().forEach((posicion, repetida) -> seguimiento.filaDuplicada(filas.get(posicion),
+                repetida == DuplicateDetectionService.YA_EXISTE_EN_BD
+                        ? "Movimiento ya existe en la base de datos"
+                        : "Repite la fila " + filas.get(repetida) + " del archivo"));
+        pendientes.clear();
+        filas.clear();
+        return resultado.guardados().size();
+    }
+
+    /** Guardado sin seguimiento de progreso (importación síncrona y registros seleccionados) */
+    private SeguimientoImportacion guardadoDirecto() {
+        return (movimientos, ultimaFilaLeida, registrarEventos) ->
+                movimientoBatchService.guardar(movimientos, null, registrarEventos);
+    }
+
+    private ResumenCargaDTO procesarSantander(InputStreamSource file, String usuarioSub, Long organizacionId) {
         // TODO: lógica específica para Santander
         return new ResumenCargaDTO(0, 0, new ArrayList<>());
     }
@@ -346,67 +483,38 @@ public class ExcelImportService {
     
     private PreviewDataDTO procesarGenericoParaPreview(MultipartFile file, Long organizacionId) {
         List<RegistroPreviewDTO> registros = new ArrayList<>();
+        DuplicateDetectionService.IndiceArchivo indiceArchivo = new DuplicateDetectionService.IndiceArchivo();
         List<FilaConErrorDTO> errores = new ArrayList<>();
-        int total = 0;
+        AtomicInteger total = new AtomicInteger();
         
-        try (InputStream is = file.getInputStream(); Workbook workbook = WorkbookFactory.create(is)) {
-            Sheet hoja = workbook.getSheetAt(0);
-            
-            for (int i = 1; i <= hoja.getLastRowNum(); i++) {
-                Row fila = hoja.getRow(i);
-                if (fila == null) continue;
+        try {
+            excelRowReader.leerPrimeraHoja(file, (i, celdas) -> {
+                if (i < 1) return;
                 
-                total++;
+                total.incrementAndGet();
                 
                 try {
-                    Cell fecha = fila.getCell(1);
-                    Cell descripcion = fila.getCell(2);
-                    Cell monto = fila.getCell(3);
-                    Cell medioPago = fila.getCell(4);
-                    
-                    if (fecha == null || descripcion == null || monto == null || medioPago == null) {
-                        throw new RuntimeException("Faltan datos");
-                    }
+                    FilaGenerica datos = parseFilaGenerica(celdas, i + 1);
                     
-                    LocalDate fechaLocal;
-                    if (fecha.getCellType() == CellType.STRING) {
-                        fechaLocal = LocalDate.parse(fecha.getStringCellValue(), DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                    } else if (fecha.getCellType() == CellType.NUMERIC && DateUtil.isCellDateFormatted(fecha)) {
-                        fechaLocal = fecha.getLocalDateTimeCellValue().toLocalDate();
-                    } else {
-                        throw new RuntimeException("Formato de fecha inválido");
-                    }
-                    
-                    String descripcionStr = descripcion.getCellType() == CellType.STRING
-                            ? descripcion.getStringCellValue()
-                            : String.valueOf(descripcion.getNumericCellValue());
-                    
-                    Double montoValor = monto.getCellType() == CellType.NUMERIC
-                            ? monto.getNumericCellValue()
-                            : Double.parseDouble(monto.getStringCellValue());
-                    
-                    String medioPagoStr = medioPago.getCellType() == CellType.STRING
-                            ? medioPago.getStringCellValue()
-                            : String.valueOf(medioPago.getNumericCellValue());
-                    
-                    TipoMovimiento tipoMov = determinarTipoMovimiento(montoValor);
+                    TipoMovimiento tipoMov = determinarTipoMovimiento(datos.monto());
                     RegistroPreviewDTO preview = new RegistroPreviewDTO(
-                            i + 1, tipoMov, montoValor, fechaLocal, 
-                            descripcionStr, "MYCFO", parseMedioPago(medioPagoStr), TipoMoneda.ARS
+                            i + 1, tipoMov, datos.monto(), datos.fecha(), 
+                            datos.descripcion(), "MYCFO", parseMedioPago(datos.medioPago()), TipoMoneda.ARS
                     );
                     
                     // Sugerir categoría usando el tipo de registro para mejor precisión
-                    preview.setCategoriaSugerida(categorySuggestionService.sugerirCategoria(descripcionStr, tipoMov));
+                    preview.setCategoriaSugerida(categorySuggestionService.sugerirCategoria(
+                            datos.descripcion(), null, tipoMov, organizacionId));
                     
                     // Verificar duplicados
-                    verificarDuplicado(preview, registros);
+                    verificarDuplicado(preview, indiceArchivo);
                     
                     registros.add(preview);
                     
                 } catch (Exception e) {
                     errores.add(new FilaConErrorDTO(i + 1, e.getMessage()));
                 }
-            }
+            });
             
         } catch (Exception e) {
             errores.add(new FilaConErrorDTO(0, "Error al leer el archivo: " + e.getMessage()));
@@ -415,56 +523,34 @@ public class ExcelImportService {
         // Detectar duplicados en la base de datos
         List<RegistroPreviewDTO> registrosConDuplicados = duplicateDetectionService.detectarDuplicadosEnBD(registros, organizacionId);
         
-        return new PreviewDataDTO(registrosConDuplicados, total, registrosConDuplicados.size(), errores, "mycfo");
+        return new PreviewDataDTO(registrosConDuplicados, total.get(), registrosConDuplicados.size(), errores, "mycfo");
     }
     
     private PreviewDataDTO procesarMercadoPagoParaPreview(MultipartFile file, Long organizacionId) {
         List<RegistroPreviewDTO> registros = new ArrayList<>();
+        DuplicateDetectionService.IndiceArchivo indiceArchivo = new DuplicateDetectionService.IndiceArchivo();
         List<FilaConErrorDTO> errores = new ArrayList<>();
-        int total = 0;
+        AtomicInteger total = new AtomicInteger();
+        Map<String, Integer> idx = new HashMap<>();
         
-        try (InputStream is = file.getInputStream(); Workbook workbook = WorkbookFactory.create(is)) {
-            Sheet hoja = workbook.getSheetAt(0);
-            DataFormatter fmt = new DataFormatter();
-            
-            Row header = hoja.getRow(HEADER_ROW_INDEX);
-            if (header == null) {
-                errores.add(new FilaConErrorDTO(0, "No existe la fila de encabezados en el índice " + HEADER_ROW_INDEX));
-                return new PreviewDataDTO(registros, total, 0, errores, "mercado-pago");
-            }
-            
-            Map<String, Integer> idx = new HashMap<>();
-            for (int c = 0; c < header.getLastCellNum(); c++) {
-                String v = fmt.formatCellValue(header.getCell(c)).trim().toUpperCase(Locale.ROOT);
-                if (v.equals("RELEASE_DATE")) idx.put("FECHA", c);
-                else if (v.equals("TRANSACTION_TYPE")) idx.put("TIPO", c);
-                else if (v.equals("TRANSACTION_NET_AMOUNT")) idx.put("MONTO", c);
-            }
-            
-            if (idx.size() < 3) {
-                errores.add(new FilaConErrorDTO(0,
-                        "Faltan columnas esperadas (RELEASE_DATE, TRANSACTION_TYPE, TRANSACTION_NET_AMOUNT)."));
-                return new PreviewDataDTO(registros, total, 0, errores, "mercado-pago");
-            }
-            
-            for (int i = HEADER_ROW_INDEX + 1; i <= hoja.getLastRowNum(); i++) {
-                Row fila = hoja.getRow(i);
-                if (fila == null) continue;
+        try {
+            excelRowReader.leerPrimeraHoja(file, (i, celdas) -> {
+                if (!leerEncabezadoMercadoPago(i, celdas, idx)) return;
                 
                 try {
-                    String rawFecha = fmt.formatCellValue(fila.getCell(idx.get("FECHA"))).trim();
-                    String rawTipo = fmt.formatCellValue(fila.getCell(idx.get("TIPO"))).trim();
-                    String rawMonto = fmt.formatCellValue(fila.getCell(idx.get("MONTO"))).trim();
+                    String rawFecha = texto(celdas.get(idx.get("FECHA")));
+                    String rawTipo = texto(celdas.get(idx.get("TIPO")));
+                    String rawMonto = texto(celdas.get(idx.get("MONTO")));
                     
-                    if (rawFecha.isEmpty() && rawTipo.isEmpty() && rawMonto.isEmpty()) continue;
+                    if (rawFecha.isEmpty() && rawTipo.isEmpty() && rawMonto.isEmpty()) return;
                     
-                    total++;
+                    total.incrementAndGet();
                     
                     if (rawFecha.isEmpty() || rawMonto.isEmpty()) {
                         throw new RuntimeException("Faltan datos obligatorios (RELEASE_DATE o TRANSACTION_NET_AMOUNT).");
                     }
                     
-                    LocalDate fechaLocal = parseFechaMercadoPago(fila.getCell(idx.get("FECHA")));
+                    LocalDate fechaLocal = parseFechaMercadoPago(celdas.get(idx.get("FECHA")));
                     Double montoValor = parseMontoEsAr(rawMonto);
                     TipoMovimiento tipoMov = determinarTipoMovimiento(montoValor);
                     
@@ -474,18 +560,23 @@ public class ExcelImportService {
                     );
                     
                     // Sugerir categoría usando el tipo de registro para mejor precisión
-                    preview.setCategoriaSugerida(categorySuggestionService.sugerirCategoria(rawTipo, tipoMov));
+                    preview.setCategoriaSugerida(categorySuggestionService.sugerirCategoria(
+                            rawTipo, null, tipoMov, organizacionId));
                     
                     // Verificar duplicados
-                    verificarDuplicado(preview, registros);
+                    verificarDuplicado(preview, indiceArchivo);
                     
                     registros.add(preview);
                     
                 } catch (Exception ex) {
                     errores.add(new FilaConErrorDTO(i + 1, ex.getMessage()));
                 }
-            }
+            });
+            validarEncabezadoLeido(idx);
             
+        } catch (EncabezadoInvalidoException e) {
+            errores.add(new FilaConErrorDTO(0, e.getMessage()));
+            return new PreviewDataDTO(new ArrayList<>(), total.get(), 0, errores, "mercado-pago");
         } catch (Exception e) {
             errores.add(new FilaConErrorDTO(0, "Error al leer el archivo: " + e.getMessage()));
         }
@@ -493,7 +584,7 @@ public class ExcelImportService {
         // Detectar duplicados en la base de datos
         List<RegistroPreviewDTO> registrosConDuplicados = duplicateDetectionService.detectarDuplicadosEnBD(registros, organizacionId);
         
-        return new PreviewDataDTO(registrosConDuplicados, total, registrosConDuplicados.size(), errores, "mercado-pago");
+        return new PreviewDataDTO(registrosConDuplicados, total.get(), registrosConDuplicados.size(), errores, "mercado-pago");
     }
     
     private PreviewDataDTO procesarSantanderParaPreview(MultipartFile file, Long organizacionId) {
@@ -501,23 +592,15 @@ public class ExcelImportService {
         return new PreviewDataDTO(new ArrayList<>(), 0, 0, new ArrayList<>(), "santander");
     }
     
-    private void verificarDuplicado(RegistroPreviewDTO nuevoRegistro, List<RegistroPreviewDTO> registrosExistentes) {
-        for (RegistroPreviewDTO existente : registrosExistentes) {
-            if (sonRegistrosIguales(nuevoRegistro, existente)) {
-                nuevoRegistro.setEsDuplicado(true);
-                nuevoRegistro.setMotivoDuplicado("Registro duplicado encontrado en fila " + existente.getFilaExcel());
-                break;
-            }
+    private void verificarDuplicado(RegistroPreviewDTO nuevoRegistro, DuplicateDetectionService.IndiceArchivo indice) {
+        Integer filaOriginal = indice.registrar(nuevoRegistro);
+        if (filaOriginal != null) {
+            nuevoRegistro.setEsDuplicado(true);
+            nuevoRegistro.setFilaDuplicadaDe(filaOriginal);
+            nuevoRegistro.setMotivoDuplicado("Registro duplicado encontrado en fila " + filaOriginal);
         }
     }
     
-    private boolean sonRegistrosIguales(RegistroPreviewDTO reg1, RegistroPreviewDTO reg2) {
-        return Objects.equals(reg1.getFechaEmision(), reg2.getFechaEmision()) &&
-               Objects.equals(reg1.getMontoTotal(), reg2.getMontoTotal()) &&
-               Objects.equals(reg1.getDescripcion(), reg2.getDescripcion()) &&
-               Objects.equals(reg1.getOrigen(), reg2.getOrigen());
-    }
-    
     /**
      * Determina el tipo de registro basado en el monto
      * @param monto Monto del movimiento
@@ -0,0 +1,244 @@
+package registro.movimientosexcel.services;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lee la primera hoja de un Excel fila por fila.
+ * Los .xlsx se leen en streaming (SAX sobre el XML de la hoja) sin armar el workbook en memoria,
+ * con la tabla de textos compartidos en un temporal (TextosCompartidos); los .xls (formato
+ * binario) siguen usando el modelo completo de POI.
+ */
+@Component
+public class ExcelRowReader {
+
+    /**
+     * Valor de una celda.
+     * texto: valor formateado (igual que DataFormatter#formatCellValue);
+     * numero: valor numérico si la celda es numérica;
+     * fecha: si la celda es numérica con formato de fecha;
+     * esTexto: la celda es de tipo texto.
+     */
+    public record Celda(String texto, Double numero, LocalDateTime fecha, boolean esTexto) {}
+
+    @FunctionalInterface
+    public interface ProcesadorFila {
+        // indiceFila es 0-based (como Sheet#getRow); celdas por índice de columna, sin las vacías
+        void procesar(int indiceFila, Map<Integer, Celda> celdas);
+    }
+
+    public void leerPrimeraHoja(InputStreamSource file, ProcesadorFila procesador) throws Exception {
+        try (InputStream is = FileMagic.prepareToCheckMagic(file.getInputStream())) {
+            if (FileMagic.valueOf(is) == FileMagic.OOXML) {
+                leerXlsx(is, procesador);
+            } else {
+                leerWorkbook(is, procesador);
+            }
+        }
+    }
+
+    private void leerXlsx(InputStream is, ProcesadorFila procesador) throws Exception {
+        // Desde archivo el paquete se lee con ZipFile (por entrada) en lugar de cargar el zip completo
+        Path temporal = Files.createTempFile("importacion-", ".xlsx");
+        try {
+            Files.copy(is, temporal, StandardCopyOption.REPLACE_EXISTING);
+            try (OPCPackage paquete = OPCPackage.open(temporal.toFile(), PackageAccess.READ);
+                 TextosCompartidos textos = leerTextosCompartidos(paquete)) {
+                XSSFReader reader = new XSSFReader(paquete);
+                StylesTable estilos = reader.getStylesTable();
+
+                Iterator<InputStream> hojas = reader.getSheetsData();
+                if (!hojas.hasNext()) {
+                    return;
+                }
+                try (InputStream hoja = hojas.next()) {
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new HojaHandler(textos, estilos, procesador));
+                    parser.parse(new InputSource(hoja));
+                } catch (SAXException e) {
+                    if (e.getException() instanceof RuntimeException runtime) {
+                        throw runtime;
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    private TextosCompartidos leerTextosCompartidos(OPCPackage paquete) throws Exception {
+        List<PackagePart> partes = paquete.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+        if (partes.isEmpty()) {
+            return TextosCompartidos.vacia();
+        }
+        try (InputStream sharedStrings = partes.get(0).getInputStream()) {
+            return TextosCompartidos.leer(sharedStrings);
+        }
+    }
+
+    private void leerWorkbook(InputStream is, ProcesadorFila procesador) throws Exception {
+        try (Workbook workbook = WorkbookFactory.create(is)) {
+            Sheet hoja = workbook.getSheetAt(0);
+            DataFormatter fmt = new DataFormatter();
+
+            for (int i = 0; i <= hoja.getLastRowNum(); i++) {
+                Row fila = hoja.getRow(i);
+                if (fila == null) continue;
+
+                Map<Integer, Celda> celdas = new HashMap<>();
+                for (Cell cell : fila) {
+                    Celda celda = celdaDesdeWorkbook(cell, fmt);
+                    if (celda != null) {
+                        celdas.put(cell.getColumnIndex(), celda);
+                    }
+                }
+                procesador.procesar(i, celdas);
+            }
+        }
+    }
+
+    private Celda celdaDesdeWorkbook(Cell cell, DataFormatter fmt) {
+        switch (cell.getCellType()) {
+            case BLANK:
+                return null;
+            case STRING:
+                return new Celda(cell.getStringCellValue(), null, null, true);
+            case NUMERIC:
+                LocalDateTime fecha = DateUtil.isCellDateFormatted(cell) ? cell.getLocalDateTimeCellValue() : null;
+                return new Celda(fmt.formatCellValue(cell), cell.getNumericCellValue(), fecha, false);
+            default:
+                return new Celda(fmt.formatCellValue(cell), null, null, false);
+        }
+    }
+
+    /**
+     * Handler SAX de sheetN.xml: arma cada fila a partir de los elementos row / c / v / is-t
+     */
+    private static final class HojaHandler extends DefaultHandler {
+
+        private final TextosCompartidos textos;
+        private final StylesTable estilos;
+        private final ProcesadorFila procesador;
+        private final DataFormatter fmt = new DataFormatter();
+
+        private Map<Integer, Celda> celdas = new HashMap<>();
+        private int fila = -1;
+        private int columna = -1;
+        private String tipo;
+        private int estilo;
+        private boolean leyendoValor;
+        private final StringBuilder valor = new StringBuilder();
+
+        private HojaHandler(TextosCompartidos textos, StylesTable estilos, ProcesadorFila procesador) {
+            this.textos = textos;
+            this.estilos = estilos;
+            this.procesador = procesador;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atributos) {
+            switch (localName) {
+                case "row" -> {
+                    String r = atributos.getValue("r");
+                    fila = r != null ? Integer.parseInt(r) - 1 : fila + 1;
+                    columna = -1;
+                    celdas = new HashMap<>();
+                }
+                case "c" -> {
+                    String r = atributos.getValue("r");
+                    columna = r != null ? new CellReference(r).getCol() : columna + 1;
+                    tipo = atributos.getValue("t");
+                    String s = atributos.getValue("s");
+                    estilo = s != null ? Integer.parseInt(s) : 0;
+                    valor.setLength(0);
+                }
+                case "v", "t" -> leyendoValor = true;
+                default -> { }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (leyendoValor) {
+                valor.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v", "t" -> leyendoValor = false;
+                case "c" -> {
+                    Celda celda = construirCelda(valor.toString());
+                    if (celda != null) {
+                        celdas.put(columna, celda);
+                    }
+                }
+                case "row" -> procesador.procesar(fila, celdas);
+                default -> { }
+            }
+        }
+
+        private Celda construirCelda(String contenido) {
+            if (contenido.isEmpty()) {
+                return null;
+            }
+            if ("s".equals(tipo)) {
+                return new Celda(textos.texto(Integer.parseInt(contenido)), null, null, true);
+            }
+            if ("inlineStr".equals(tipo) || "str".equals(tipo)) {
+                return new Celda(contenido, null, null, true);
+            }
+            if ("b".equals(tipo)) {
+                return new Celda("1".equals(contenido) ? "TRUE" : "FALSE", null, null, false);
+            }
+            if ("e".equals(tipo)) {
+                return new Celda(contenido, null, null, false);
+            }
+
+            double numero = Double.parseDouble(contenido);
+            short formato = 0;
+            String formatoTexto = null;
+            if (estilos != null && estilo < estilos.getNumCellStyles()) {
+                XSSFCellStyle cellStyle = estilos.getStyleAt(estilo);
+                formato = cellStyle.getDataFormat();
+                formatoTexto = cellStyle.getDataFormatString();
+            }
+            if (formatoTexto == null) {
+                formatoTexto = BuiltinFormats.getBuiltinFormat(formato);
+            }
+
+            LocalDateTime fecha = DateUtil.isADateFormat(formato, formatoTexto) && DateUtil.isValidExcelDate(numero)
+                    ? DateUtil.getLocalDateTime(numero)
+                    : null;
+            return new Celda(fmt.formatRawCellContents(numero, formato, formatoTexto), numero, fecha, false);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package registro.movimientosexcel.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import registro.cargarDatos.models.Movimiento;
+import registro.cargarDatos.repositories.MovimientoBatchRepository;
+import registro.cargarDatos.services.CategoriaAprendidaService;
+import registro.cargarDatos.services.MovimientoEventService;
+import registro.cargarDatos.services.ResumenCacheService;
+import registro.cargarDatos.services.ResumenMensualService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Persistencia masiva de movimientos importados: inserta en lotes dentro de una sola transacción
+ * y actualiza el resumen mensual y las cachés una vez por importación.
+ */
+@Service
+@Slf4j
+public class MovimientoBatchService {
+
+    private final MovimientoBatchRepository batchRepository;
+    private final ResumenMensualService resumenMensualService;
+    private final ResumenCacheService resumenCacheService;
+    private final CategoriaAprendidaService categoriaAprendidaService;
+    private final MovimientoEventService movimientoEventService;
+    private final int tamanioLote;
+
+    public MovimientoBatchService(
+            MovimientoBatchRepository batchRepository,
+            ResumenMensualService resumenMensualService,
+            ResumenCacheService resumenCacheService,
+            CategoriaAprendidaService categoriaAprendidaService,
+            MovimientoEventService movimientoEventService,
+            @Value("${registro.importacion.tamanio-lote:500}") int tamanioLote
+    ) {
+        this.batchRepository = batchRepository;
+        this.resumenMensualService = resumenMensualService;
+        this.resumenCacheService = resumenCacheService;
+        this.categoriaAprendidaService = categoriaAprendidaService;
+        this.movimientoEventService = movimientoEventService;
+        this.tamanioLote = tamanioLote;
+    }
+
+    /**
+     * @param progreso (procesados, total) después de cada lote; puede ser null
+     */
+    @Transactional
+    public MovimientoBatchRepository.ResultadoLote guardar(List<Movimiento> movimientos,
+                                                           BiConsumer<Integer, Integer> progreso) {
+        return guardar(movimientos, progreso, false);
+    }
+
+    /**
+     * @param registrarEventos true para encolar en el outbox el evento "movimiento creado" de los
+     *                         guardados (MovimientoEventService), en la misma transacción
+     */
+    @Transactional
+    public MovimientoBatchRepository.ResultadoLote guardar(List<Movimiento> movimientos,
+                                                           BiConsumer<Integer, Integer> progreso,
+                                                           boolean registrarEventos) {
+        if (movimientos.isEmpty()) {
+            return new MovimientoBatchRepository.ResultadoLote(List.of(), Map.of());
+        }
+
+        MovimientoBatchRepository.ResultadoLote resultado = batchRepository.insertarEnLotes(
+                movimientos,
+                tamanioLote,
+                (procesados, total) -> {
+                    log.debug("Importación de movimientos: {}/{}", procesados, total);
+                    if (progreso != null) {
+                        progreso.accept(procesados, total);
+                    }
+                });
+
+        resumenMensualService.registrarAltas(resultado.guardados());
+        if (registrarEventos) {
+            movimientoEventService.registrarMovimientosCreados(resultado.guardados());
+        }
+        categoriaAprendidaService.aprender(resultado.guardados());
+        resultado.guardados().stream()
+                .map(Movimiento::getOrganizacionId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(resumenCacheService::invalidarOrganizacion);
+
+        log.info("Importación de movimientos: {} guardados, {} con error (lotes de {})",
+                resultado.guardados().size(), resultado.errores().size(), tamanioLote);
+        return resultado;
+    }
+}
@@ -0,0 +1,35 @@
+package registro.movimientosexcel.services;
+
+import registro.cargarDatos.models.Movimiento;
+import registro.cargarDatos.repositories.MovimientoBatchRepository;
+
+import java.util.List;
+
+/**
+ * Seguimiento de una importación de Excel. La importación directa guarda cada tramo sin más;
+ * los jobs asíncronos (ExcelImportJobService) además confirman el avance junto con cada tramo
+ * para poder reanudar desde la última fila guardada.
+ */
+public interface SeguimientoImportacion {
+
+    /** Fila de Excel (1-based) hasta la cual ya se guardó en un intento anterior; esas filas se saltean */
+    default int ultimaFilaConfirmada() {
+        return 0;
+    }
+
+    /** Se invoca por cada fila de datos leída (fila de Excel 1-based) */
+    default void filaLeida(int filaExcel) {
+    }
+
+    /** Se invoca por cada fila omitida por duplicada, con el motivo */
+    default void filaDuplicada(int filaExcel, String motivo) {
+    }
+
+    /**
+     * Guarda un tramo de movimientos validados. ultimaFilaLeida es la última fila de Excel
+     * procesada al momento del guardado (incluye filas descartadas por error); con
+     * registrarEventos se encolan también sus eventos para notificación.
+     */
+    MovimientoBatchRepository.ResultadoLote guardarTramo(List<Movimiento> movimientos, int ultimaFilaLeida,
+                                                         boolean registrarEventos);
+}
@@ -0,0 +1,166 @@
+package registro.movimientosexcel.services;
+
+import org.apache.poi.util.XMLHelper;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Tabla de textos compartidos (sharedStrings.xml) de un .xlsx guardada en un archivo temporal.
+ * Los extractos bancarios tienen una descripción distinta por fila, así que la tabla crece con el
+ * archivo; en memoria solo quedan los offsets (8 bytes por texto) y un caché chico de los
+ * últimos textos leídos, en vez de todos los textos como ReadOnlySharedStringsTable.
+ */
+final class TextosCompartidos implements AutoCloseable {
+
+    private static final int TAMANIO_CACHE = 1024;
+
+    private final Path archivo;
+    private final long[] offsets;
+    private final int cantidad;
+    private final RandomAccessFile lector;
+
+    // Caché de acceso directo por índice: los textos repetidos (conceptos, monedas) no van al disco
+    private final String[] cache = new String[TAMANIO_CACHE];
+    private final int[] cacheIndices = new int[TAMANIO_CACHE];
+
+    private TextosCompartidos(Path archivo, long[] offsets, int cantidad) throws IOException {
+        this.archivo = archivo;
+        this.offsets = offsets;
+        this.cantidad = cantidad;
+        this.lector = cantidad > 0 ? new RandomAccessFile(archivo.toFile(), "r") : null;
+        Arrays.fill(cacheIndices, -1);
+    }
+
+    static TextosCompartidos vacia() throws IOException {
+        return new TextosCompartidos(null, new long[1], 0);
+    }
+
+    /**
+     * Lee sharedStrings.xml en streaming y vuelca cada texto (sin los fonéticos rPh) al temporal.
+     */
+    static TextosCompartidos leer(InputStream sharedStrings) throws Exception {
+        Path archivo = Files.createTempFile("textos-compartidos-", ".bin");
+        try {
+            LectorTextos handler;
+            try (OutputStream salida = new BufferedOutputStream(Files.newOutputStream(archivo))) {
+                handler = new LectorTextos(salida);
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(handler);
+                parser.parse(new InputSource(sharedStrings));
+            }
+            return new TextosCompartidos(archivo, handler.offsets, handler.cantidad);
+        } catch (Exception e) {
+            Files.deleteIfExists(archivo);
+            throw e;
+        }
+    }
+
+    String texto(int indice) {
+        if (indice < 0 || indice >= cantidad) {
+            throw new IllegalArgumentException("Índice de texto compartido fuera de rango: " + indice);
+        }
+        int posicion = indice % TAMANIO_CACHE;
+        if (cacheIndices[posicion] == indice) {
+            return cache[posicion];
+        }
+        byte[] bytes = new byte[(int) (offsets[indice + 1] - offsets[indice])];
+        try {
+            lector.seek(offsets[indice]);
+            lector.readFully(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String texto = new String(bytes, StandardCharsets.UTF_8);
+        cache[posicion] = texto;
+        cacheIndices[posicion] = indice;
+        return texto;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (lector != null) {
+                lector.close();
+            }
+        } finally {
+            if (archivo != null) {
+                Files.deleteIfExists(archivo);
+            }
+        }
+    }
+
+    /**
+     * Handler SAX de sharedStrings.xml: cada si es un texto, armado con sus t (directos o de los
+     * runs r); los t dentro de rPh son la lectura fonética y no forman parte del valor
+     */
+    private static final class LectorTextos extends DefaultHandler {
+
+        private final OutputStream salida;
+        private final StringBuilder texto = new StringBuilder();
+        private long[] offsets = new long[1024];
+        private int cantidad;
+        private long posicion;
+        private boolean enFonetico;
+        private boolean leyendoTexto;
+
+        private LectorTextos(OutputStream salida) {
+            this.salida = salida;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atributos) {
+            switch (localName) {
+                case "si" -> texto.setLength(0);
+                case "rPh" -> enFonetico = true;
+                case "t" -> leyendoTexto = !enFonetico;
+                default -> { }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (leyendoTexto) {
+                texto.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "t" -> leyendoTexto = false;
+                case "rPh" -> enFonetico = false;
+                case "si" -> agregar(texto.toString());
+                default -> { }
+            }
+        }
+
+        private void agregar(String valor) {
+            byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+            try {
+                salida.write(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (cantidad + 1 >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[cantidad] = posicion;
+            posicion += bytes.length;
+            cantidad++;
+            offsets[cantidad] = posicion;
+        }
+    }
+}
@@ -17,16 +17,28 @@ public class AdministracionService {
 
     private final RestTemplate restTemplate = new RestTemplate();
 
+    private final EmpresaUsuarioCache empresaUsuarioCache;
+
     @Value("${mycfo.administracion.url}")
     private String administracionUrl;
 
     /**
-     * Obtiene el ID de empresa de un usuario por su sub (Cognito)
+     * Obtiene el ID de empresa de un usuario por su sub (Cognito). El resultado se cachea
+     * (ver EmpresaUsuarioCache), así que solo la primera llamada por usuario va a administración.
      * @param usuarioSub Sub del usuario de Cognito
      * @return ID de la empresa del usuario
      * @throws RuntimeException si el usuario no existe o no tiene empresa asociada
      */
     public Long obtenerEmpresaIdPorUsuarioSub(String usuarioSub) {
+        Long empresaId = empresaUsuarioCache.obtener(usuarioSub, this::consultarEmpresaId);
+        if (empresaId == null) {
+            throw new RuntimeException("Usuario no encontrado o sin empresa asociada: " + usuarioSub);
+        }
+        return empresaId;
+    }
+
+    // null si el usuario no existe o no tiene empresa; excepción si falló la comunicación
+    private Long consultarEmpresaId(String usuarioSub) {
         try {
             String url = administracionUrl + "/api/empresas/usuario/" + usuarioSub + "/id";
             log.info("Llamando a administración para obtener empresa del usuario: {}", usuarioSub);
@@ -34,20 +46,15 @@ public class AdministracionService {
             
             Long empresaId = restTemplate.getForObject(url, Long.class);
             
-            if (empresaId == null) {
-                throw new RuntimeException("El usuario no tiene empresa asociada");
-            }
-            
             log.info("Empresa ID obtenida: {} para usuario: {}", empresaId, usuarioSub);
             return empresaId;
             
         } catch (HttpClientErrorException.NotFound e) {
             log.error("Usuario no encontrado o sin empresa: {}", usuarioSub);
-            throw new RuntimeException("Usuario no encontrado o sin empresa asociada: " + usuarioSub);
+            return null;
         } catch (Exception e) {
             log.error("Error al obtener empresa del usuario {}: {}", usuarioSub, e.getMessage());
             throw new RuntimeException("Error al comunicarse con el servicio de administración", e);
         }
     }
 }
-
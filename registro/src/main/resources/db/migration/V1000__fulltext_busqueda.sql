@@ -0,0 +1,25 @@
+-- Índices FULLTEXT para la búsqueda de texto de movimientos y facturas (BusquedaTextoRepository)
+-- Ejecutar este script en la base de datos de producción antes de desplegar la búsqueda: sin estos
+-- índices MySQL rechaza los MATCH ... AGAINST. La aplicación no los crea al arrancar (salvo con
+-- registro.busqueda.crear-indices=true, pensado para bases locales), porque en tablas grandes cada
+-- ALTER TABLE reconstruye la tabla y conviene correrlo en una ventana de mantenimiento.
+
+-- Movimientos: nombres, CUIT y descripción. El orden de columnas debe coincidir con el MATCH de
+-- BusquedaTextoFunctionContributor.
+ALTER TABLE registro
+    ADD FULLTEXT INDEX ft_registro_texto (origen_nombre, origen_cuit, destino_nombre, destino_cuit, descripcion);
+
+-- Facturas: vendedor y comprador (nombre y CUIT)
+ALTER TABLE factura
+    ADD FULLTEXT INDEX ft_factura_texto (vendedor_nombre, vendedor_cuit, comprador_nombre, comprador_cuit);
+
+-- Número de documento comercial
+ALTER TABLE documento_comercial
+    ADD FULLTEXT INDEX ft_documento_numero (numero_documento);
+
+-- Notas:
+-- - Las consultas usan modo booleano con prefijos ("+super* +coto*"); los términos más cortos que
+--   innodb_ft_min_token_size (3 por defecto) se descartan. Si se cambia esa variable hay que
+--   reconstruir los índices y ajustar registro.busqueda.largo-minimo-termino.
+-- - InnoDB mantiene los índices en cada INSERT/UPDATE/DELETE; OPTIMIZE TABLE con
+--   innodb_optimize_fulltext_only=ON compacta el índice después de importaciones masivas.
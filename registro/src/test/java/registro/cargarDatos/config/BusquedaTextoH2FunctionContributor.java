@@ -0,0 +1,31 @@
+package registro.cargarDatos.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Reemplaza en los tests con H2 la relevancia MATCH ... AGAINST de BusquedaTextoFunctionContributor,
+ * que H2 no entiende, por un LOCATE sobre las mismas columnas. Con MySQL no hace nada.
+ */
+public class BusquedaTextoH2FunctionContributor implements FunctionContributor {
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        if (!(functionContributions.getDialect() instanceof H2Dialect)) {
+            return;
+        }
+        functionContributions.getFunctionRegistry().registerPattern(
+                BusquedaTextoFunctionContributor.RELEVANCIA_MOVIMIENTO,
+                "locate(?6, concat_ws(' ', ?1, ?2, ?3, ?4, ?5))",
+                functionContributions.getTypeConfiguration().getBasicTypeRegistry()
+                        .resolve(StandardBasicTypes.DOUBLE));
+    }
+
+    // Se aplica después del contributor de producción y pisa su registro
+    @Override
+    public int ordinal() {
+        return 2000;
+    }
+}
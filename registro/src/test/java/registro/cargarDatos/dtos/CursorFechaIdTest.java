@@ -0,0 +1,67 @@
+package registro.cargarDatos.dtos;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorFechaIdTest {
+
+    private record Fila(LocalDateTime fecha, Long id) {}
+
+    @Test
+    @DisplayName("Debe recuperar fecha e id al decodificar el cursor codificado")
+    void shouldRoundTrip() {
+        CursorFechaId cursor = new CursorFechaId(LocalDateTime.of(2025, 3, 1, 10, 15, 30, 123_000_000), 987654321L);
+
+        String codificado = cursor.codificar();
+
+        assertThat(codificado).doesNotContain("=");
+        assertThat(CursorFechaId.decodificar(codificado)).isEqualTo(cursor);
+        assertThat(CursorFechaId.decodificar("  " + codificado + " ")).isEqualTo(cursor);
+    }
+
+    @Test
+    @DisplayName("Debe tratar un cursor vacío como la primera página")
+    void shouldReturnNullForEmptyCursor() {
+        assertThat(CursorFechaId.decodificar(null)).isNull();
+        assertThat(CursorFechaId.decodificar("")).isNull();
+        assertThat(CursorFechaId.decodificar("   ")).isNull();
+    }
+
+    @Test
+    @DisplayName("Debe rechazar cursores que no son base64 de fecha|id")
+    void shouldRejectInvalidCursor() {
+        assertThatThrownBy(() -> CursorFechaId.decodificar("no es base64!"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CursorFechaId.decodificar(new CursorFechaId(null, 1L).codificar()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CursorFechaId.decodificar(codificarTexto("2025-03-01T10:15")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("No debe ofrecer siguiente cursor cuando no hay fila extra")
+    void shouldNotOfferCursorOnLastPage() {
+        List<Fila> filas = List.of(new Fila(LocalDateTime.of(2025, 1, 1, 0, 0), 2L),
+                new Fila(LocalDateTime.of(2025, 1, 1, 0, 0), 1L));
+
+        PaginaCursor<Fila> pagina = PaginaCursor.de(filas, 2, f -> new CursorFechaId(f.fecha(), f.id()), 2L);
+
+        assertThat(pagina.isHayMas()).isFalse();
+        assertThat(pagina.getSiguienteCursor()).isNull();
+        assertThat(pagina.getContenido()).hasSize(2);
+        assertThat(PaginaCursor.tamanioValido(0)).isEqualTo(1);
+        assertThat(PaginaCursor.tamanioValido(5000)).isEqualTo(PaginaCursor.TAMANIO_MAXIMO);
+    }
+
+    private static String codificarTexto(String plano) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,143 @@
+package registro.cargarDatos.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import registro.cargarDatos.dtos.CursorFechaId;
+import registro.cargarDatos.dtos.PaginaCursor;
+import registro.cargarDatos.models.Movimiento;
+import registro.cargarDatos.models.TipoMovimiento;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Recorre los listados por cursor contra la consulta real de MovimientoRepository, en H2. Los
+ * cortes de página caen en medio de filas con la misma fecha, así que el desempate lo hace el id.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class MovimientoRepositoryCursorTest {
+
+    private static final long ORGANIZACION = 1L;
+    private static final long OTRA_ORGANIZACION = 2L;
+    private static final int TAMANIO = 5;
+
+    @Autowired
+    private MovimientoRepository repository;
+
+    private List<Movimiento> propios;
+
+    @BeforeEach
+    void cargarMovimientos() {
+        // 3 fechas con 7 movimientos cada una, insertadas alternando fechas para que el orden de
+        // los ids no coincida con el de las fechas
+        List<Movimiento> movimientos = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            for (int dia : new int[]{2, 1, 3}) {
+                movimientos.add(movimiento(ORGANIZACION, dia, i));
+                if (i < 2) {
+                    movimientos.add(movimiento(OTRA_ORGANIZACION, dia, i));
+                }
+            }
+        }
+        propios = repository.saveAllAndFlush(movimientos).stream()
+                .filter(m -> m.getOrganizacionId() == ORGANIZACION)
+                .toList();
+    }
+
+    @Test
+    @DisplayName("Debe recorrer de la más reciente a la más antigua sin saltear ni repetir filas con la misma fecha")
+    void shouldWalkDescendingTiesOnIdWithoutGapsOrRepeats() {
+        Comparator<Movimiento> descendente = Comparator.comparing(Movimiento::getFechaEmision)
+                .thenComparing(Movimiento::getId).reversed();
+
+        List<Long> recorridos = recorrer(false);
+
+        assertThat(recorridos).hasSize(propios.size());
+        assertThat(new HashSet<>(recorridos)).hasSize(propios.size());
+        assertThat(recorridos).isEqualTo(propios.stream().sorted(descendente).map(Movimiento::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Debe recorrer de la más antigua a la más reciente sin saltear ni repetir filas con la misma fecha")
+    void shouldWalkAscendingTiesOnIdWithoutGapsOrRepeats() {
+        Comparator<Movimiento> ascendente = Comparator.comparing(Movimiento::getFechaEmision)
+                .thenComparing(Movimiento::getId);
+
+        List<Long> recorridos = recorrer(true);
+
+        assertThat(recorridos).hasSize(propios.size());
+        assertThat(new HashSet<>(recorridos)).hasSize(propios.size());
+        assertThat(recorridos).isEqualTo(propios.stream().sorted(ascendente).map(Movimiento::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Debe continuar en la misma fecha cuando el cursor queda en medio de un empate")
+    void shouldContinueWithinSameDateFromCursor() {
+        Movimiento medio = propios.stream()
+                .filter(m -> m.getFechaEmision().getDayOfMonth() == 2)
+                .sorted(Comparator.comparing(Movimiento::getId))
+                .toList()
+                .get(3);
+
+        List<Movimiento> siguientes = repository.findMovimientosAntesDe(ORGANIZACION, null, null, null, null,
+                null, null, null, medio.getFechaEmision(), medio.getId(), Limit.of(TAMANIO));
+
+        assertThat(siguientes).hasSize(TAMANIO);
+        // Primero los 3 ids menores del mismo día, después el día anterior
+        assertThat(siguientes.subList(0, 3)).allSatisfy(m -> {
+            assertThat(m.getFechaEmision()).isEqualTo(medio.getFechaEmision());
+            assertThat(m.getId()).isLessThan(medio.getId());
+        });
+        assertThat(siguientes.subList(3, TAMANIO))
+                .allSatisfy(m -> assertThat(m.getFechaEmision().getDayOfMonth()).isEqualTo(1));
+    }
+
+    private List<Long> recorrer(boolean ascendente) {
+        List<Long> recorridos = new ArrayList<>();
+        String cursor = null;
+        int paginas = 0;
+        do {
+            CursorFechaId desde = CursorFechaId.decodificar(cursor);
+            LocalDateTime cursorFecha = desde != null ? desde.fecha() : null;
+            Long cursorId = desde != null ? desde.id() : null;
+            List<Movimiento> filas = ascendente
+                    ? repository.findMovimientosDespuesDe(ORGANIZACION, null, null, null, null, null, null, null,
+                            cursorFecha, cursorId, Limit.of(TAMANIO + 1))
+                    : repository.findMovimientosAntesDe(ORGANIZACION, null, null, null, null, null, null, null,
+                            cursorFecha, cursorId, Limit.of(TAMANIO + 1));
+            PaginaCursor<Movimiento> pagina = PaginaCursor.de(filas, TAMANIO,
+                    m -> new CursorFechaId(m.getFechaEmision(), m.getId()), null);
+
+            pagina.getContenido().forEach(m -> recorridos.add(m.getId()));
+            assertThat(pagina.isHayMas()).isEqualTo(pagina.getSiguienteCursor() != null);
+            cursor = pagina.getSiguienteCursor();
+            paginas++;
+        } while (cursor != null);
+
+        assertThat(paginas).isEqualTo(5);
+        return recorridos;
+    }
+
+    private static Movimiento movimiento(long organizacionId, int dia, int orden) {
+        Movimiento movimiento = new Movimiento();
+        movimiento.setOrganizacionId(organizacionId);
+        movimiento.setUsuarioId("usuario-" + organizacionId);
+        movimiento.setTipo(TipoMovimiento.Ingreso);
+        movimiento.setMontoTotal(100.0 + orden);
+        movimiento.setFechaEmision(LocalDateTime.of(2025, 1, dia, 0, 0));
+        movimiento.setDescripcion("Movimiento " + dia + "-" + orden);
+        return movimiento;
+    }
+}
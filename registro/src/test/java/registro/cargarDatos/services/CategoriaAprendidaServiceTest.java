@@ -0,0 +1,144 @@
+package registro.cargarDatos.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import registro.cargarDatos.models.Movimiento;
+import registro.cargarDatos.models.TipoMovimiento;
+import registro.cargarDatos.repositories.MovimientoRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CategoriaAprendidaServiceTest {
+
+    private static final Long ORGANIZACION = 1L;
+
+    private final MovimientoRepository repository = mock(MovimientoRepository.class);
+
+    @Test
+    @DisplayName("Debe sugerir la categoría aprendida de un movimiento nuevo")
+    void shouldLearnNewMovement() {
+        CategoriaAprendidaService service = servicio(1000, List.of());
+        assertThat(sugerir(service, "Pago Edenor")).isNull();
+
+        service.aprender(movimiento(10L, "Pago Edenor", "Servicios"));
+
+        assertThat(sugerir(service, "Pago Edenor")).isEqualTo("Servicios");
+        assertThat(sugerir(service, "pago  EDENOR")).isEqualTo("Servicios");
+    }
+
+    @Test
+    @DisplayName("Debe reemplazar la categoría anterior cuando el movimiento cambia")
+    void shouldReplaceSampleOnUpdate() {
+        CategoriaAprendidaService service = servicio(1000, List.of());
+        sugerir(service, "Pago Edenor");
+        Movimiento movimiento = movimiento(10L, "Pago Edenor", "Servicios");
+        service.aprender(movimiento);
+
+        CategoriaAprendidaService.Muestra anterior = service.muestraDe(movimiento);
+        movimiento.setCategoria("Electricidad");
+        service.registrarCambio(anterior, movimiento);
+
+        assertThat(sugerir(service, "Pago Edenor")).isEqualTo("Electricidad");
+    }
+
+    @Test
+    @DisplayName("Debe olvidar lo aprendido de un movimiento eliminado")
+    void shouldUnlearnDeletedMovement() {
+        CategoriaAprendidaService service = servicio(1000, List.<Object[]>of(
+                fila(10L, "Pago Edenor", "Servicios")));
+        assertThat(sugerir(service, "Pago Edenor")).isEqualTo("Servicios");
+
+        service.registrarBaja(service.muestraDe(movimiento(10L, "Pago Edenor", "Servicios")));
+
+        assertThat(sugerir(service, "Pago Edenor")).isNull();
+    }
+
+    @Test
+    @DisplayName("Debe aplicar los cambios confirmados mientras se construye el índice")
+    void shouldApplySamplesCommittedWhileBuilding() {
+        List<CategoriaAprendidaService> servicio = new ArrayList<>();
+        when(repository.findCategorizadosRecientes(eq(ORGANIZACION), anyInt())).thenAnswer(invocacion -> {
+            // Confirmados después de la lectura: un alta y un cambio de un movimiento ya leído
+            Movimiento alquiler = movimiento(11L, "Alquiler oficina", "Vivienda");
+            CategoriaAprendidaService.Muestra anterior = servicio.get(0).muestraDe(alquiler);
+            alquiler.setCategoria("Oficina");
+            servicio.get(0).registrarCambio(anterior, alquiler);
+            servicio.get(0).aprender(movimiento(10L, "Pago Edenor", "Servicios"));
+            return List.<Object[]>of(fila(11L, "Alquiler oficina", "Vivienda"));
+        });
+        servicio.add(nuevoServicio(1000));
+
+        assertThat(sugerir(servicio.get(0), "Pago Edenor")).isEqualTo("Servicios");
+        assertThat(sugerir(servicio.get(0), "Alquiler oficina")).isEqualTo("Oficina");
+    }
+
+    @Test
+    @DisplayName("No debe contar dos veces un cambio que la lectura del índice ya incluyó")
+    void shouldNotDoubleCountSamplesAlreadyRead() {
+        List<CategoriaAprendidaService> servicio = new ArrayList<>();
+        when(repository.findCategorizadosRecientes(eq(ORGANIZACION), anyInt())).thenAnswer(invocacion -> {
+            // Confirmado antes de la lectura, pero su aviso llega durante la construcción
+            servicio.get(0).aprender(movimiento(10L, "Alquiler oficina", "Vivienda"));
+            return List.<Object[]>of(fila(10L, "Alquiler oficina", "Vivienda"));
+        });
+        servicio.add(nuevoServicio(1000));
+        sugerir(servicio.get(0), "Alquiler oficina");
+
+        // Una sola aparición de "alquiler" no alcanza el soporte mínimo de las palabras (2)
+        assertThat(sugerir(servicio.get(0), "Alquiler cochera")).isNull();
+    }
+
+    @Test
+    @DisplayName("Debe repesar el índice al aprender para respetar el presupuesto de entradas")
+    void shouldReweighIndexAfterLearning() {
+        CategoriaAprendidaService service = servicio(5, List.of());
+        sugerir(service, "Pago Edenor");
+
+        // Cada movimiento agrega al menos dos entradas (descripción y palabra): el índice supera
+        // el presupuesto de 5 y se desaloja, así que la próxima consulta lo reconstruye
+        for (long id = 1; id <= 5; id++) {
+            service.aprender(movimiento(id, "Proveedor" + (char) ('a' + id), "Compras"));
+        }
+        sugerir(service, "Pago Edenor");
+
+        verify(repository, times(2)).findCategorizadosRecientes(eq(ORGANIZACION), anyInt());
+    }
+
+    private CategoriaAprendidaService servicio(long maxEntradas, List<Object[]> filas) {
+        when(repository.findCategorizadosRecientes(eq(ORGANIZACION), anyInt())).thenReturn(filas);
+        return nuevoServicio(maxEntradas);
+    }
+
+    // Mantenimiento del caché en el mismo hilo para que el desalojo sea inmediato
+    private CategoriaAprendidaService nuevoServicio(long maxEntradas) {
+        return new CategoriaAprendidaService(repository, maxEntradas, 1000, 5000, 60, Runnable::run);
+    }
+
+    private static String sugerir(CategoriaAprendidaService service, String descripcion) {
+        return service.sugerir(ORGANIZACION, TipoMovimiento.Egreso, descripcion, null);
+    }
+
+    private static Movimiento movimiento(Long id, String descripcion, String categoria) {
+        Movimiento movimiento = new Movimiento();
+        movimiento.setId(id);
+        movimiento.setOrganizacionId(ORGANIZACION);
+        movimiento.setTipo(TipoMovimiento.Egreso);
+        movimiento.setDescripcion(descripcion);
+        movimiento.setCategoria(categoria);
+        return movimiento;
+    }
+
+    // [tipo, descripcion, origenNombre, destinoNombre, categoria, id], como findCategorizadosRecientes
+    private static Object[] fila(Long id, String descripcion, String categoria) {
+        return new Object[]{TipoMovimiento.Egreso.name(), descripcion, null, null, categoria, id};
+    }
+}
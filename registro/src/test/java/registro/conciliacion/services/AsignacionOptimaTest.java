@@ -0,0 +1,94 @@
+package registro.conciliacion.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import registro.conciliacion.services.AsignacionOptima.Arista;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsignacionOptimaTest {
+
+    @Test
+    @DisplayName("Debe preferir dos coincidencias buenas a una excelente que las bloquea")
+    void shouldBeatGreedyOnSmallComponent() {
+        // Greedy toma m0-d0 (10) y deja a m1 y d1 sin pareja: 10 contra 18
+        List<Arista> aristas = gadget(0, 0);
+
+        List<Arista> resultado = AsignacionOptima.resolver(aristas, 2, 2);
+
+        assertThat(resultado).containsExactlyInAnyOrder(new Arista(0, 1, 9), new Arista(1, 0, 9));
+    }
+
+    @Test
+    @DisplayName("Debe resolver de forma óptima las componentes que superan el límite del húngaro")
+    void shouldSolveLargeComponentOptimally() {
+        // 150 copias del caso anterior encadenadas con aristas de score 1: una sola componente de
+        // 300 movimientos y 300 documentos. Greedy suma 10 por copia; el óptimo, 18.
+        int copias = 150;
+        List<Arista> aristas = new ArrayList<>();
+        for (int k = 0; k < copias; k++) {
+            aristas.addAll(gadget(2 * k, 2 * k));
+            if (k + 1 < copias) {
+                aristas.add(new Arista(2 * k + 1, 2 * k + 2, 1));
+            }
+        }
+
+        List<Arista> resultado = AsignacionOptima.resolver(aristas, 2 * copias, 2 * copias);
+
+        assertThat(2 * copias).isGreaterThan(AsignacionOptima.LIMITE_HUNGARO);
+        assertThat(esAsignacionValida(resultado)).isTrue();
+        assertThat(scoreTotal(resultado)).isEqualTo(18L * copias);
+    }
+
+    @Test
+    @DisplayName("Debe dar el mismo score total con la variante dispersa que con el húngaro denso")
+    void shouldMatchDenseHungarianScoreWithSparseVersion() {
+        Random random = new Random(42);
+        for (int caso = 0; caso < 300; caso++) {
+            int movimientos = 1 + random.nextInt(25);
+            int documentos = 1 + random.nextInt(25);
+            List<Arista> aristas = new ArrayList<>();
+            for (int m = 0; m < movimientos; m++) {
+                for (int d = 0; d < documentos; d++) {
+                    if (random.nextInt(4) == 0) {
+                        aristas.add(new Arista(m, d, 30 + random.nextInt(71)));
+                    }
+                }
+            }
+            if (aristas.isEmpty()) {
+                continue;
+            }
+
+            List<Arista> hungaro = AsignacionOptima.resolverHungaro(aristas);
+            List<Arista> disperso = AsignacionOptima.resolverDisperso(aristas);
+
+            assertThat(esAsignacionValida(disperso)).isTrue();
+            assertThat(aristas).containsAll(disperso);
+            assertThat(scoreTotal(disperso)).as("caso %d", caso).isEqualTo(scoreTotal(hungaro));
+        }
+    }
+
+    // m0-d0 = 10, m0-d1 = 9, m1-d0 = 9
+    private static List<Arista> gadget(int movimiento, int documento) {
+        return List.of(
+                new Arista(movimiento, documento, 10),
+                new Arista(movimiento, documento + 1, 9),
+                new Arista(movimiento + 1, documento, 9));
+    }
+
+    private static boolean esAsignacionValida(List<Arista> asignacion) {
+        Set<Integer> movimientos = new HashSet<>();
+        Set<Integer> documentos = new HashSet<>();
+        return asignacion.stream().allMatch(a -> movimientos.add(a.movimiento()) && documentos.add(a.documento()));
+    }
+
+    private static long scoreTotal(List<Arista> asignacion) {
+        return asignacion.stream().mapToLong(Arista::score).sum();
+    }
+}
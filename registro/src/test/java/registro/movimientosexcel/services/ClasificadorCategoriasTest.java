@@ -0,0 +1,113 @@
+package registro.movimientosexcel.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClasificadorCategoriasTest {
+
+    private static ClasificadorCategorias.PalabraClave palabra(String texto, int categoria, int prioridad) {
+        return new ClasificadorCategorias.PalabraClave(texto, categoria, prioridad);
+    }
+
+    @Test
+    @DisplayName("Debe devolver la categoría de la palabra clave de mayor prioridad presente en el texto")
+    void shouldPickHighestPriorityMatch() {
+        ClasificadorCategorias clasificador = new ClasificadorCategorias(
+                List.of("Transporte", "Comida"),
+                List.of(palabra("uber", 0, 1), palabra("uber eats", 1, 2)));
+
+        assertThat(clasificador.clasificar("PAGO UBER TRIP")).isEqualTo("Transporte");
+        assertThat(clasificador.clasificar("Pago Uber Eats 1234")).isEqualTo("Comida");
+        assertThat(clasificador.clasificar("transferencia recibida")).isNull();
+        assertThat(clasificador.clasificar("")).isNull();
+    }
+
+    @Test
+    @DisplayName("A igual prioridad debe ganar la categoría que aparece primero en el orden recibido")
+    void shouldBreakTiesByCategoryOrder() {
+        ClasificadorCategorias clasificador = new ClasificadorCategorias(
+                List.of("Servicios", "Impuestos"),
+                List.of(palabra("afip", 1, 1), palabra("luz", 0, 1)));
+
+        assertThat(clasificador.clasificar("afip luz")).isEqualTo("Servicios");
+        assertThat(clasificador.clasificar("luz afip")).isEqualTo("Servicios");
+        assertThat(clasificador.clasificar("pago afip")).isEqualTo("Impuestos");
+    }
+
+    @Test
+    @DisplayName("Debe encontrar palabras que solo se detectan siguiendo enlaces de falla y sin distinguir mayúsculas")
+    void shouldFollowFailureLinksAndIgnoreCase() {
+        ClasificadorCategorias clasificador = new ClasificadorCategorias(
+                List.of("A", "B", "C"),
+                List.of(palabra("aab", 0, 1), palabra("ab", 1, 2), palabra("peaje", 2, 1)));
+
+        // "aaab": el trie avanza por "aa" y recién el sufijo "aab" (y "ab") coincide
+        assertThat(clasificador.clasificar("xaaab")).isEqualTo("B");
+        assertThat(clasificador.clasificar("XAAC")).isNull();
+        assertThat(clasificador.clasificar("PEAJE AU1")).isEqualTo("C");
+    }
+
+    @Test
+    @DisplayName("Debe reconocer palabras clave con caracteres no ASCII")
+    void shouldMatchNonAsciiKeywords() {
+        ClasificadorCategorias clasificador = new ClasificadorCategorias(
+                List.of("Alquiler", "Educación"),
+                List.of(palabra("expensas año", 0, 1), palabra("matrícula", 1, 1)));
+
+        assertThat(clasificador.clasificar("MATRÍCULA 2025")).isEqualTo("Educación");
+        assertThat(clasificador.clasificar("Expensas AÑO 2024")).isEqualTo("Alquiler");
+        assertThat(clasificador.clasificar("matricula sin tilde")).isNull();
+    }
+
+    @Test
+    @DisplayName("Debe coincidir con la búsqueda ingenua palabra por palabra en textos aleatorios")
+    void shouldMatchNaiveScan() {
+        Random random = new Random(42);
+        List<String> categorias = List.of("c0", "c1", "c2", "c3", "c4");
+        List<ClasificadorCategorias.PalabraClave> palabras = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            palabras.add(palabra(textoAleatorio(random, 1 + random.nextInt(4)),
+                    random.nextInt(categorias.size()), random.nextInt(3)));
+        }
+        ClasificadorCategorias clasificador = new ClasificadorCategorias(categorias, palabras);
+
+        for (int i = 0; i < 2000; i++) {
+            String texto = textoAleatorio(random, random.nextInt(30));
+            assertThat(clasificador.clasificar(texto))
+                    .as("texto '%s'", texto)
+                    .isEqualTo(clasificarIngenuo(categorias, palabras, texto));
+        }
+    }
+
+    // Referencia: recorre todas las palabras clave con contains
+    private static String clasificarIngenuo(List<String> categorias, List<ClasificadorCategorias.PalabraClave> palabras,
+                                            String texto) {
+        String minusculas = texto.toLowerCase(Locale.ROOT);
+        ClasificadorCategorias.PalabraClave mejor = null;
+        for (ClasificadorCategorias.PalabraClave p : palabras) {
+            if (!minusculas.contains(p.texto().toLowerCase(Locale.ROOT))) continue;
+            if (mejor == null || p.prioridad() > mejor.prioridad()
+                    || (p.prioridad() == mejor.prioridad() && p.categoria() < mejor.categoria())) {
+                mejor = p;
+            }
+        }
+        return mejor != null ? categorias.get(mejor.categoria()) : null;
+    }
+
+    // Alfabeto chico para que haya muchas coincidencias parciales y solapadas
+    private static String textoAleatorio(Random random, int largo) {
+        String alfabeto = "abAB ñ";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < largo; i++) {
+            sb.append(alfabeto.charAt(random.nextInt(alfabeto.length())));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,50 @@
+package registro.movimientosexcel.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import registro.cargarDatos.models.TipoMovimiento;
+import registro.movimientosexcel.dtos.RegistroPreviewDTO;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DuplicateDetectionServiceTest {
+
+    private static final LocalDate FECHA = LocalDate.of(2025, 3, 10);
+
+    private static RegistroPreviewDTO registro(int fila, TipoMovimiento tipo, double monto, String descripcion,
+                                               String origen) {
+        return new RegistroPreviewDTO(fila, tipo, monto, FECHA, descripcion, origen, null, null);
+    }
+
+    @Test
+    @DisplayName("Debe informar la primera fila del archivo que repite el registro")
+    void shouldReturnFirstRowOfRepeatedRecord() {
+        DuplicateDetectionService.IndiceArchivo indice = new DuplicateDetectionService.IndiceArchivo();
+
+        assertThat(indice.registrar(registro(2, TipoMovimiento.Egreso, -150.0, "Pago luz", "Edenor"))).isNull();
+        assertThat(indice.registrar(registro(3, TipoMovimiento.Egreso, -150.0, "Pago luz", "Edenor"))).isEqualTo(2);
+        assertThat(indice.registrar(registro(4, TipoMovimiento.Egreso, -150.0, "Pago luz", "Edenor"))).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("No debe tomar como duplicados un cobro y su reverso del mismo día")
+    void shouldDistinguishChargeFromReversal() {
+        DuplicateDetectionService.IndiceArchivo indice = new DuplicateDetectionService.IndiceArchivo();
+
+        assertThat(indice.registrar(registro(2, TipoMovimiento.Egreso, -99.9, "Suscripción", "MP"))).isNull();
+        assertThat(indice.registrar(registro(3, TipoMovimiento.Ingreso, 99.9, "Suscripción", "MP"))).isNull();
+    }
+
+    @Test
+    @DisplayName("Debe comparar como la importación: sin distinguir mayúsculas ni espacios y con monto a centavos")
+    void shouldNormalizeLikeImportFingerprint() {
+        DuplicateDetectionService.IndiceArchivo indice = new DuplicateDetectionService.IndiceArchivo();
+
+        assertThat(indice.registrar(registro(2, TipoMovimiento.Ingreso, 1000.0, "Transferencia  Juan", "Banco"))).isNull();
+        assertThat(indice.registrar(registro(3, TipoMovimiento.Ingreso, 1000.001, " transferencia juan ", "BANCO")))
+                .isEqualTo(2);
+        assertThat(indice.registrar(registro(4, TipoMovimiento.Ingreso, 1000.01, "Transferencia Juan", "Banco"))).isNull();
+    }
+}
@@ -0,0 +1,181 @@
+package registro.movimientosexcel.services;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lee un .xlsx de 500k filas en una JVM aparte con un heap chico: si el lector retuviera el
+ * archivo (o la tabla de textos compartidos, que en un extracto tiene un texto por fila) la JVM
+ * terminaría con OutOfMemoryError. Lo ejecuta failsafe (mvn verify), no la suite de unit tests.
+ */
+class ExcelRowReaderMemoriaIT {
+
+    private static final int FILAS = 500_000;
+
+    // Solo los textos de la descripción ocupan ~55 MB como objetos String
+    private static final String HEAP_MAXIMO = "-Xmx64m";
+
+    private static final String NS_MAIN = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String NS_REL = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String NS_PKG_REL = "http://schemas.openxmlformats.org/package/2006/relationships";
+    private static final String TIPO_SML = "application/vnd.openxmlformats-officedocument.spreadsheetml.";
+
+    private static Path archivo;
+
+    @BeforeAll
+    static void generarArchivo() throws Exception {
+        archivo = Files.createTempFile("extracto-500k-", ".xlsx");
+        generarXlsx(archivo);
+    }
+
+    @AfterAll
+    static void borrarArchivo() throws Exception {
+        Files.deleteIfExists(archivo);
+    }
+
+    @Test
+    @DisplayName("Debe leer un .xlsx de 500k filas con textos compartidos en una JVM de 64 MB de heap")
+    void shouldStreamLargeXlsxWithSmallHeap() throws Exception {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process proceso = new ProcessBuilder(java, HEAP_MAXIMO, "-XX:+ExitOnOutOfMemoryError",
+                "-cp", System.getProperty("java.class.path"), Lector.class.getName(), archivo.toString())
+                .redirectErrorStream(true)
+                .start();
+        String salida = new String(proceso.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+
+        assertThat(proceso.waitFor(5, TimeUnit.MINUTES)).isTrue();
+        assertThat(proceso.exitValue()).as("salida del lector: %s", salida).isZero();
+        assertThat(salida).contains("filas=" + FILAS + " fechas=" + FILAS + " ultima=" + descripcion(FILAS));
+    }
+
+    /**
+     * Punto de entrada de la JVM con heap chico
+     */
+    public static final class Lector {
+        public static void main(String[] args) throws Exception {
+            AtomicInteger filas = new AtomicInteger();
+            AtomicInteger fechas = new AtomicInteger();
+            String[] ultima = new String[1];
+            new ExcelRowReader().leerPrimeraHoja(new FileSystemResource(args[0]), (indiceFila, celdas) -> {
+                if (indiceFila == 0) {
+                    return;
+                }
+                filas.incrementAndGet();
+                if (celdas.get(0) != null && celdas.get(0).fecha() != null) {
+                    fechas.incrementAndGet();
+                }
+                ultima[0] = celdas.get(1).texto();
+            });
+            System.out.println("filas=" + filas.get() + " fechas=" + fechas.get() + " ultima=" + ultima[0]);
+        }
+    }
+
+    /**
+     * Arma el .xlsx a mano y en streaming, como lo exporta Excel: los textos en sharedStrings.xml
+     * (uno distinto por fila) y las fechas con estilo. Generarlo con POI retendría la tabla de
+     * textos completa en el proceso del test.
+     */
+    private static void generarXlsx(Path destino) throws Exception {
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(destino));
+             Writer out = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8))) {
+            entrada(zip, out, "[Content_Types].xml", """
+                    <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                    <Types xmlns="http://schemas.openxmlformats.org/package/2006/content-types">
+                    <Default Extension="rels" ContentType="application/vnd.openxmlformats-package.relationships+xml"/>
+                    <Default Extension="xml" ContentType="application/xml"/>
+                    <Override PartName="/xl/workbook.xml" ContentType="%1$ssheet.main+xml"/>
+                    <Override PartName="/xl/worksheets/sheet1.xml" ContentType="%1$sworksheet+xml"/>
+                    <Override PartName="/xl/sharedStrings.xml" ContentType="%1$ssharedStrings+xml"/>
+                    <Override PartName="/xl/styles.xml" ContentType="%1$sstyles+xml"/>
+                    </Types>""".formatted(TIPO_SML));
+            entrada(zip, out, "_rels/.rels", """
+                    <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                    <Relationships xmlns="%s">
+                    <Relationship Id="rId1" Type="%s/officeDocument" Target="xl/workbook.xml"/>
+                    </Relationships>""".formatted(NS_PKG_REL, NS_REL));
+            entrada(zip, out, "xl/workbook.xml", """
+                    <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                    <workbook xmlns="%s" xmlns:r="%s">
+                    <sheets><sheet name="Movimientos" sheetId="1" r:id="rId1"/></sheets>
+                    </workbook>""".formatted(NS_MAIN, NS_REL));
+            entrada(zip, out, "xl/_rels/workbook.xml.rels", """
+                    <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                    <Relationships xmlns="%1$s">
+                    <Relationship Id="rId1" Type="%2$s/worksheet" Target="worksheets/sheet1.xml"/>
+                    <Relationship Id="rId2" Type="%2$s/sharedStrings" Target="sharedStrings.xml"/>
+                    <Relationship Id="rId3" Type="%2$s/styles" Target="styles.xml"/>
+                    </Relationships>""".formatted(NS_PKG_REL, NS_REL));
+            // Estilo 1: fecha con el formato integrado 14
+            entrada(zip, out, "xl/styles.xml", """
+                    <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                    <styleSheet xmlns="%s">
+                    <fonts count="1"><font><sz val="11"/><name val="Calibri"/></font></fonts>
+                    <fills count="2"><fill><patternFill patternType="none"/></fill><fill><patternFill patternType="gray125"/></fill></fills>
+                    <borders count="1"><border><left/><right/><top/><bottom/><diagonal/></border></borders>
+                    <cellStyleXfs count="1"><xf numFmtId="0" fontId="0" fillId="0" borderId="0"/></cellStyleXfs>
+                    <cellXfs count="2"><xf numFmtId="0" fontId="0" fillId="0" borderId="0" xfId="0"/><xf numFmtId="14" fontId="0" fillId="0" borderId="0" xfId="0" applyNumberFormat="1"/></cellXfs>
+                    </styleSheet>""".formatted(NS_MAIN));
+
+            // Textos: 0-2 encabezado, 3.. una descripción distinta por fila
+            zip.putNextEntry(new ZipEntry("xl/sharedStrings.xml"));
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n<sst xmlns=\"" + NS_MAIN
+                    + "\" count=\"" + (FILAS + 3) + "\" uniqueCount=\"" + (FILAS + 3) + "\">");
+            out.write("<si><t>Fecha</t></si><si><t>Descripción</t></si><si><t>Monto</t></si>");
+            for (int i = 1; i <= FILAS; i++) {
+                out.write("<si><t>" + descripcion(i) + "</t></si>");
+            }
+            out.write("</sst>");
+            out.flush();
+            zip.closeEntry();
+
+            zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n<worksheet xmlns=\"" + NS_MAIN
+                    + "\"><sheetData>");
+            out.write("<row r=\"1\"><c r=\"A1\" t=\"s\"><v>0</v></c><c r=\"B1\" t=\"s\"><v>1</v></c>"
+                    + "<c r=\"C1\" t=\"s\"><v>2</v></c></row>");
+            LocalDateTime inicio = LocalDateTime.of(2024, 1, 1, 0, 0);
+            for (int i = 1; i <= FILAS; i++) {
+                int r = i + 1;
+                double fecha = DateUtil.getExcelDate(inicio.plusMinutes(i));
+                double monto = i % 2 == 0 ? i * 1.5 : -i * 1.5;
+                out.write("<row r=\"" + r + "\"><c r=\"A" + r + "\" s=\"1\"><v>" + fecha + "</v></c>"
+                        + "<c r=\"B" + r + "\" t=\"s\"><v>" + (i + 2) + "</v></c>"
+                        + "<c r=\"C" + r + "\"><v>" + monto + "</v></c></row>");
+            }
+            out.write("</sheetData></worksheet>");
+            out.flush();
+            zip.closeEntry();
+        }
+    }
+
+    // ~70 caracteres, como el concepto de un extracto bancario
+    private static String descripcion(int i) {
+        return "Transferencia recibida ref " + i + " - CBU 0170099220000067797370 cliente " + (i * 7919L);
+    }
+
+    private static void entrada(ZipOutputStream zip, Writer out, String nombre, String contenido) throws Exception {
+        zip.putNextEntry(new ZipEntry(nombre));
+        out.write(contenido);
+        out.flush();
+        zip.closeEntry();
+    }
+}
@@ -0,0 +1,109 @@
+package registro.movimientosexcel.services;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lectura en streaming con archivos chicos. El consumo de memoria con 500k filas se verifica en
+ * ExcelRowReaderMemoriaIT.
+ */
+class ExcelRowReaderTest {
+
+    private static final int FILAS = 2000;
+
+    private final ExcelRowReader reader = new ExcelRowReader();
+
+    @Test
+    @DisplayName("Debe resolver los textos compartidos, como los exportan Excel y los bancos")
+    void shouldResolveSharedStrings() throws Exception {
+        // XSSFWorkbook guarda los textos en sharedStrings.xml
+        Path archivo = generar(new XSSFWorkbook());
+        try {
+            verificarFilas(archivo);
+        } finally {
+            Files.deleteIfExists(archivo);
+        }
+    }
+
+    @Test
+    @DisplayName("Debe leer los textos en línea (inlineStr)")
+    void shouldReadInlineStrings() throws Exception {
+        // SXSSFWorkbook sin tabla compartida escribe los textos en la celda
+        SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+        Path archivo = generar(workbook);
+        try {
+            verificarFilas(archivo);
+        } finally {
+            workbook.dispose();
+            Files.deleteIfExists(archivo);
+        }
+    }
+
+    private void verificarFilas(Path archivo) throws Exception {
+        AtomicInteger filas = new AtomicInteger();
+        AtomicInteger revisadas = new AtomicInteger();
+
+        reader.leerPrimeraHoja(new FileSystemResource(archivo), (indiceFila, celdas) -> {
+            if (indiceFila == 0) {
+                assertThat(celdas.get(1).texto()).isEqualTo("Descripción");
+                assertThat(celdas.get(1).esTexto()).isTrue();
+                return;
+            }
+            filas.incrementAndGet();
+            assertThat(celdas.get(1).texto()).isEqualTo("Transferencia " + indiceFila);
+            assertThat(celdas.get(3).texto()).isEqualTo(indiceFila % 2 == 0 ? "Ingreso" : "Egreso");
+            if (indiceFila == 3) {
+                assertThat(celdas.get(0).fecha()).isEqualTo(LocalDateTime.of(2024, 1, 1, 0, 3));
+                assertThat(celdas.get(0).texto()).isEqualTo("01/01/2024");
+                assertThat(celdas.get(2).numero()).isEqualTo(-4.5);
+                assertThat(celdas.get(2).fecha()).isNull();
+                revisadas.incrementAndGet();
+            }
+        });
+
+        assertThat(filas.get()).isEqualTo(FILAS);
+        assertThat(revisadas.get()).isEqualTo(1);
+    }
+
+    private static Path generar(Workbook workbook) throws Exception {
+        Path archivo = Files.createTempFile("extracto-", ".xlsx");
+        try (workbook; OutputStream out = Files.newOutputStream(archivo)) {
+            Sheet hoja = workbook.createSheet("Movimientos");
+            CellStyle estiloFecha = workbook.createCellStyle();
+            estiloFecha.setDataFormat(workbook.createDataFormat().getFormat("dd/mm/yyyy"));
+
+            Row encabezado = hoja.createRow(0);
+            encabezado.createCell(0).setCellValue("Fecha");
+            encabezado.createCell(1).setCellValue("Descripción");
+            encabezado.createCell(2).setCellValue("Monto");
+            encabezado.createCell(3).setCellValue("Tipo");
+
+            LocalDateTime inicio = LocalDateTime.of(2024, 1, 1, 0, 0);
+            for (int i = 1; i <= FILAS; i++) {
+                Row fila = hoja.createRow(i);
+                fila.createCell(0).setCellValue(inicio.plusMinutes(i));
+                fila.getCell(0).setCellStyle(estiloFecha);
+                fila.createCell(1).setCellValue("Transferencia " + i);
+                fila.createCell(2).setCellValue(i % 2 == 0 ? i * 1.5 : -i * 1.5);
+                fila.createCell(3).setCellValue(i % 2 == 0 ? "Ingreso" : "Egreso");
+            }
+            workbook.write(out);
+        }
+        return archivo;
+    }
+}
@@ -0,0 +1,59 @@
+package registro.movimientosexcel.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TextosCompartidosTest {
+
+    private static TextosCompartidos leer(String xml) throws Exception {
+        return TextosCompartidos.leer(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    @DisplayName("Debe armar cada texto con sus runs e ignorar la lectura fonética")
+    void shouldJoinRunsAndSkipPhonetic() throws Exception {
+        String xml = """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <sst xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main" count="4" uniqueCount="4">
+                  <si><t>Descripción</t></si>
+                  <si><r><rPr><b/></rPr><t>Pago </t></r><r><t xml:space="preserve">año 2024</t></r></si>
+                  <si><t>東京</t><rPh sb="0" eb="2"><t>トウキョウ</t></rPh></si>
+                  <si><t/></si>
+                </sst>
+                """;
+        try (TextosCompartidos textos = leer(xml)) {
+            assertThat(textos.texto(0)).isEqualTo("Descripción");
+            assertThat(textos.texto(1)).isEqualTo("Pago año 2024");
+            assertThat(textos.texto(2)).isEqualTo("東京");
+            assertThat(textos.texto(3)).isEqualTo("");
+            assertThatThrownBy(() -> textos.texto(4)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("Debe devolver el texto correcto también cuando el índice comparte casillero en el caché")
+    void shouldReadBackManyTextsInAnyOrder() throws Exception {
+        int cantidad = 5000;
+        StringBuilder xml = new StringBuilder("<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">");
+        for (int i = 0; i < cantidad; i++) {
+            xml.append("<si><t>Transferencia ").append(i).append("</t></si>");
+        }
+        xml.append("</sst>");
+
+        try (TextosCompartidos textos = leer(xml.toString())) {
+            for (int i = cantidad - 1; i >= 0; i -= 7) {
+                assertThat(textos.texto(i)).isEqualTo("Transferencia " + i);
+            }
+            // 1 y 1025 caen en el mismo casillero del caché
+            assertThat(textos.texto(1)).isEqualTo("Transferencia 1");
+            assertThat(textos.texto(1025)).isEqualTo("Transferencia 1025");
+            assertThat(textos.texto(1)).isEqualTo("Transferencia 1");
+        }
+    }
+}
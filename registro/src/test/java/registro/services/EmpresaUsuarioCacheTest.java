@@ -0,0 +1,144 @@
+package registro.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmpresaUsuarioCacheTest {
+
+    private final AtomicLong reloj = new AtomicLong();
+    private final EmpresaUsuarioCache cache =
+            new EmpresaUsuarioCache(Duration.ofMinutes(5), Duration.ofSeconds(30), 100, reloj::get);
+
+    @Test
+    @DisplayName("Debe consultar a administración una sola vez para pedidos concurrentes del mismo sub")
+    void shouldCoalesceConcurrentLoads() throws Exception {
+        AtomicInteger consultas = new AtomicInteger();
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(4);
+        try {
+            Future<Long> primero = hilos.submit(() -> cache.obtener("sub-1", sub -> {
+                consultas.incrementAndGet();
+                enCurso.countDown();
+                esperar(liberar);
+                return 7L;
+            }));
+            assertThat(enCurso.await(5, TimeUnit.SECONDS)).isTrue();
+            List<Future<Long>> otros = List.of(
+                    hilos.submit(() -> cache.obtener("sub-1", sub -> (long) consultas.incrementAndGet())),
+                    hilos.submit(() -> cache.obtener("sub-1", sub -> (long) consultas.incrementAndGet())));
+            liberar.countDown();
+
+            assertThat(primero.get(5, TimeUnit.SECONDS)).isEqualTo(7L);
+            for (Future<Long> otro : otros) {
+                assertThat(otro.get(5, TimeUnit.SECONDS)).isEqualTo(7L);
+            }
+            assertThat(consultas.get()).isEqualTo(1);
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Una invalidación durante una consulta en curso no debe dejar guardado el valor viejo")
+    void shouldNotStoreStaleValueInvalidatedDuringLoad() throws Exception {
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService hilo = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> consulta = hilo.submit(() -> cache.obtener("sub-1", sub -> {
+                enCurso.countDown();
+                esperar(liberar);
+                return 1L; // empresa anterior al cambio
+            }));
+            assertThat(enCurso.await(5, TimeUnit.SECONDS)).isTrue();
+
+            cache.invalidar(List.of("sub-1"));
+            liberar.countDown();
+            assertThat(consulta.get(5, TimeUnit.SECONDS)).isEqualTo(1L);
+        } finally {
+            hilo.shutdownNow();
+        }
+
+        AtomicInteger consultas = new AtomicInteger();
+        assertThat(cache.obtener("sub-1", sub -> {
+            consultas.incrementAndGet();
+            return 2L;
+        })).isEqualTo(2L);
+        assertThat(consultas.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("No debe cachear los errores de comunicación con administración")
+    void shouldNotCacheFailures() {
+        assertThatThrownBy(() -> cache.obtener("sub-1", sub -> {
+            throw new IllegalStateException("administración no responde");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.obtener("sub-1", sub -> 3L)).isEqualTo(3L);
+    }
+
+    @Test
+    @DisplayName("Debe vencer las entradas negativas antes que las de usuarios con empresa")
+    void shouldExpireNegativeEntriesWithShorterTtl() {
+        AtomicInteger consultas = new AtomicInteger();
+        cache.obtener("con-empresa", sub -> {
+            consultas.incrementAndGet();
+            return 5L;
+        });
+        assertThat(cache.obtener("sin-empresa", sub -> {
+            consultas.incrementAndGet();
+            return null;
+        })).isNull();
+
+        reloj.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        assertThat(cache.obtener("con-empresa", sub -> (long) consultas.incrementAndGet())).isEqualTo(5L);
+        assertThat(cache.obtener("sin-empresa", sub -> {
+            consultas.incrementAndGet();
+            return 9L;
+        })).isEqualTo(9L);
+        assertThat(consultas.get()).isEqualTo(3);
+
+        reloj.addAndGet(Duration.ofMinutes(5).toNanos());
+        assertThat(cache.obtener("con-empresa", sub -> 6L)).isEqualTo(6L);
+    }
+
+    @Test
+    @DisplayName("Debe resolver por lote solo los subs que faltan y tomar los ausentes como sin empresa")
+    void shouldLoadOnlyMissingSubsInBatch() {
+        cache.obtener("a", sub -> 1L);
+        AtomicInteger consultados = new AtomicInteger();
+
+        Map<String, Long> empresas = cache.obtenerTodos(List.of("a", "b", "c"), faltantes -> {
+            consultados.addAndGet(faltantes.size());
+            return Map.of("b", 2L);
+        });
+
+        assertThat(empresas).isEqualTo(Map.of("a", 1L, "b", 2L));
+        assertThat(consultados.get()).isEqualTo(2);
+        assertThat(cache.obtener("c", sub -> 3L)).isNull();
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
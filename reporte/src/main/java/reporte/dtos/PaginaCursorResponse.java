@@ -0,0 +1,26 @@
+package reporte.dtos;
+
+import java.util.List;
+
+public class PaginaCursorResponse<T> {
+    private List<T> contenido;
+    private int tamanio;
+    private boolean hayMas;
+    private String siguienteCursor;
+    private Long total;
+
+    public List<T> getContenido() { return contenido; }
+    public void setContenido(List<T> contenido) { this.contenido = contenido; }
+
+    public int getTamanio() { return tamanio; }
+    public void setTamanio(int tamanio) { this.tamanio = tamanio; }
+
+    public boolean isHayMas() { return hayMas; }
+    public void setHayMas(boolean hayMas) { this.hayMas = hayMas; }
+
+    public String getSiguienteCursor() { return siguienteCursor; }
+    public void setSiguienteCursor(String siguienteCursor) { this.siguienteCursor = siguienteCursor; }
+
+    public Long getTotal() { return total; }
+    public void setTotal(Long total) { this.total = total; }
+}
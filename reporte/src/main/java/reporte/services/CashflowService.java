@@ -1,11 +1,6 @@
 package reporte.services;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import reporte.dtos.RegistroDTO;
@@ -22,6 +17,12 @@ public class CashflowService {
 
     private final RestTemplate restTemplate = new RestTemplate();
 
+    private final RegistroMovimientosClient registroMovimientosClient;
+
+    public CashflowService(RegistroMovimientosClient registroMovimientosClient) {
+        this.registroMovimientosClient = registroMovimientosClient;
+    }
+
     public List<RegistroDTO> obtenerRegistrosPorAnio(int anio) {
         String url = registroUrl + "/registros";
         RegistroDTO[] registros = restTemplate.getForObject(url, RegistroDTO[].class);
@@ -44,22 +45,7 @@ public class CashflowService {
     public List<RegistroDTO> obtenerRegistrosPorAnio(int anio, String userSub) {
         LocalDate desde = LocalDate.of(anio, 1, 1);
         LocalDate hasta = LocalDate.of(anio, 12, 31);
-        String url = registroUrl + "/movimientos?fechaDesde=" + desde +
-                "&fechaHasta=" + hasta +
-                "&tipos=Ingreso&tipos=Egreso&page=0&size=1000&sortBy=fechaEmision&sortDir=asc";
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.add("X-Usuario-Sub", userSub);
-        ResponseEntity<reporte.dtos.PageResponse<RegistroDTO>> response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                new HttpEntity<>(headers),
-                new ParameterizedTypeReference<reporte.dtos.PageResponse<RegistroDTO>>() {}
-        );
-
-        List<RegistroDTO> lista = Optional.ofNullable(response.getBody())
-                .map(reporte.dtos.PageResponse::getContent)
-                .orElse(List.of());
+        List<RegistroDTO> lista = registroMovimientosClient.obtenerIngresosYEgresos(desde, hasta, userSub);
 
         List<String> mediosValidos = List.of("Efectivo", "Transferencia", "MercadoPago");
 
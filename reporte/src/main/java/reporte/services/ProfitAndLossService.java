@@ -1,10 +1,6 @@
 package reporte.services;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import reporte.dtos.DetalleCategoriaDTO;
@@ -22,6 +18,12 @@ public class ProfitAndLossService {
 
     private final RestTemplate restTemplate = new RestTemplate();
 
+    private final RegistroMovimientosClient registroMovimientosClient;
+
+    public ProfitAndLossService(RegistroMovimientosClient registroMovimientosClient) {
+        this.registroMovimientosClient = registroMovimientosClient;
+    }
+
     public ProfitAndLossDTO obtenerFacturasPorAnio(int anio) {
         String url = registroUrl + "/documentos-comerciales";
 
@@ -83,22 +85,9 @@ public class ProfitAndLossService {
         // y calculamos ingresos/egresos mensuales por Categoría, usando DEVENGADO (fecha del documento comercial)
         var desde = java.time.LocalDate.of(anio, 1, 1);
         var hasta = java.time.LocalDate.of(anio, 12, 31);
-        String url = registroUrl + "/movimientos?fechaDesde=" + desde +
-                "&fechaHasta=" + hasta +
-                "&tipos=Ingreso&tipos=Egreso&page=0&size=1000&sortBy=fechaEmision&sortDir=asc";
-
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.add("X-Usuario-Sub", userSub);
-            ResponseEntity<reporte.dtos.PageResponse<reporte.dtos.RegistroDTO>> res = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    new HttpEntity<>(headers),
-                    new org.springframework.core.ParameterizedTypeReference<reporte.dtos.PageResponse<reporte.dtos.RegistroDTO>>() {}
-            );
-            java.util.List<reporte.dtos.RegistroDTO> movimientos = java.util.Optional.ofNullable(res.getBody())
-                    .map(reporte.dtos.PageResponse::getContent)
-                    .orElse(java.util.List.of());
+            java.util.List<reporte.dtos.RegistroDTO> movimientos =
+                    registroMovimientosClient.obtenerIngresosYEgresos(desde, hasta, userSub);
 
             double[] ingresosMensuales = new double[12];
             double[] egresosMensuales = new double[12];
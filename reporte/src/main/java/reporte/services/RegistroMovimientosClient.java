@@ -0,0 +1,73 @@
+package reporte.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+import reporte.dtos.PaginaCursorResponse;
+import reporte.dtos.RegistroDTO;
+
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Trae los ingresos y egresos de un período desde registro recorriendo /movimientos/cursor página
+ * a página (sin COUNT), así los reportes reciben todos los movimientos y no solo los primeros 1000.
+ */
+@Service
+public class RegistroMovimientosClient {
+
+    private static final ParameterizedTypeReference<PaginaCursorResponse<RegistroDTO>> TIPO_PAGINA =
+            new ParameterizedTypeReference<>() {};
+
+    @Value("${mycfo.registro.url}")
+    private String registroUrl;
+
+    @Value("${mycfo.registro.tamanio-pagina:1000}")
+    private int tamanioPagina;
+
+    private final RestTemplate restTemplate = new RestTemplate();
+
+    /**
+     * Ingresos y egresos de la empresa del usuario con fecha de emisión en [desde, hasta], en orden
+     * ascendente de fecha.
+     */
+    public List<RegistroDTO> obtenerIngresosYEgresos(LocalDate desde, LocalDate hasta, String userSub) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-Usuario-Sub", userSub);
+        HttpEntity<Void> request = new HttpEntity<>(headers);
+
+        List<RegistroDTO> movimientos = new ArrayList<>();
+        String cursor = null;
+        do {
+            UriComponentsBuilder uri = UriComponentsBuilder.fromUriString(registroUrl + "/movimientos/cursor")
+                    .queryParam("fechaDesde", desde)
+                    .queryParam("fechaHasta", hasta)
+                    .queryParam("tipos", "Ingreso", "Egreso")
+                    .queryParam("size", tamanioPagina)
+                    .queryParam("sortDir", "asc");
+            if (cursor != null) {
+                uri.queryParam("cursor", cursor);
+            }
+            URI url = uri.encode().build().toUri();
+            ResponseEntity<PaginaCursorResponse<RegistroDTO>> response =
+                    restTemplate.exchange(url, HttpMethod.GET, request, TIPO_PAGINA);
+
+            PaginaCursorResponse<RegistroDTO> pagina = response.getBody();
+            if (pagina == null || pagina.getContenido() == null) {
+                break;
+            }
+            movimientos.addAll(pagina.getContenido());
+            cursor = pagina.isHayMas() ? pagina.getSiguienteCursor() : null;
+        } while (cursor != null);
+
+        return movimientos;
+    }
+}
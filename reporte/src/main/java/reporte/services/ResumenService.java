@@ -3,14 +3,8 @@ package reporte.services;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import reporte.dtos.DetalleCategoriaDTO;
 import reporte.dtos.RegistroDTO;
-import reporte.dtos.PageResponse;
 import reporte.dtos.ResumenMensualDTO;
 
 import java.text.Normalizer;
@@ -26,6 +20,12 @@ public class ResumenService {
 
     private final RestTemplate restTemplate = new RestTemplate();
 
+    private final RegistroMovimientosClient registroMovimientosClient;
+
+    public ResumenService(RegistroMovimientosClient registroMovimientosClient) {
+        this.registroMovimientosClient = registroMovimientosClient;
+    }
+
     public ResumenMensualDTO obtenerResumenMensual(int anio, int mes, List<String> categoriasFiltro) {
         String url = registroUrl + "/registros";
         RegistroDTO[] registros = restTemplate.getForObject(url, RegistroDTO[].class);
@@ -104,22 +104,7 @@ public class ResumenService {
     public ResumenMensualDTO obtenerResumenMensual(int anio, int mes, List<String> categoriasFiltro, String userSub) {
         LocalDate desde = LocalDate.of(anio, mes, 1);
         LocalDate hasta = desde.withDayOfMonth(desde.lengthOfMonth());
-        String url = registroUrl + "/movimientos?fechaDesde=" + desde +
-                "&fechaHasta=" + hasta +
-                "&tipos=Ingreso&tipos=Egreso&page=0&size=1000&sortBy=fechaEmision&sortDir=asc";
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.add("X-Usuario-Sub", userSub);
-        ResponseEntity<PageResponse<RegistroDTO>> response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                new HttpEntity<>(headers),
-                new ParameterizedTypeReference<PageResponse<RegistroDTO>>() {}
-        );
-
-        List<RegistroDTO> lista = Optional.ofNullable(response.getBody())
-                .map(PageResponse::getContent)
-                .orElse(List.of());
+        List<RegistroDTO> lista = registroMovimientosClient.obtenerIngresosYEgresos(desde, hasta, userSub);
 
         List<RegistroDTO> filtrados = lista.stream()
                 .filter(r -> r.getFechaEmision() != null